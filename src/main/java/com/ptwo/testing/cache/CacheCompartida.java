@@ -0,0 +1,35 @@
+package com.ptwo.testing.cache;
+
+import com.ptwo.testing.model.Usuario;
+
+// Segundo nivel, compartido por todas las instancias (p. ej. un servidor de caché externo).
+// Cada clave lleva una versión que cambia con cada invalidación: quien va al almacén lee antes la
+// versión y guarda con ella, y el guardado no se hace si entretanto alguien invalidó esa clave
+public interface CacheCompartida {
+    // null si no está en caché o ha caducado
+    Usuario obtener(long id);
+
+    // Consulta por lotes (un solo viaje en una caché remota); una posición null por cada fallo
+    default Usuario[] obtenerTodos(long[] ids) {
+        Usuario[] resultado = new Usuario[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            resultado[i] = obtener(ids[i]);
+        }
+        return resultado;
+    }
+
+    long version(long id);
+
+    default long[] versiones(long[] ids) {
+        long[] resultado = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            resultado[i] = version(ids[i]);
+        }
+        return resultado;
+    }
+
+    // Comparar e intercambiar: guarda solo si la versión de la clave sigue siendo la leída
+    boolean guardar(Usuario usuario, long version);
+
+    void invalidar(long id);
+}
@@ -0,0 +1,63 @@
+package com.ptwo.testing.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ptwo.testing.model.Usuario;
+
+// L2 dentro del proceso: compartida por las instancias que usan el mismo objeto (tests, una sola JVM).
+// Una invalidación deja una lápida con una versión nueva que dura lo mismo que una entrada: solo
+// una lectura del almacén más larga que el ttl podría guardar una copia anterior a ella
+public class CacheCompartidaEnMemoria implements CacheCompartida {
+    private final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong versiones = new AtomicLong();
+    private final long ttl;
+
+    public CacheCompartidaEnMemoria(Duration ttl) {
+        this.ttl = ttl.toNanos();
+    }
+
+    @Override
+    public Usuario obtener(long id) {
+        Entrada entrada = entradas.get(id);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.caduca() >= 0) {
+            entradas.remove(id, entrada);
+            return null;
+        }
+        return entrada.usuario() == null ? null : new Usuario(entrada.usuario());
+    }
+
+    @Override
+    public long version(long id) {
+        Entrada entrada = entradas.get(id);
+        return entrada == null ? 0 : entrada.version();
+    }
+
+    @Override
+    public boolean guardar(Usuario usuario, long version) {
+        Entrada nueva = new Entrada(new Usuario(usuario), version, System.nanoTime() + ttl);
+        while (true) {
+            Entrada actual = entradas.get(usuario.getId());
+            if ((actual == null ? 0 : actual.version()) != version) {
+                return false;
+            }
+            if (actual == null ? entradas.putIfAbsent(usuario.getId(), nueva) == null
+                    : entradas.replace(usuario.getId(), actual, nueva)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void invalidar(long id) {
+        entradas.put(id, new Entrada(null, versiones.incrementAndGet(), System.nanoTime() + ttl));
+    }
+
+    // usuario null es una lápida
+    private record Entrada(Usuario usuario, long version, long caduca) {
+    }
+}
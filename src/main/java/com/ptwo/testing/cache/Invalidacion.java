@@ -0,0 +1,7 @@
+package com.ptwo.testing.cache;
+
+import java.time.Instant;
+
+// Mensaje de difusión tras un save/delete: las demás instancias descartan su copia local
+public record Invalidacion(String nodoOrigen, long idUsuario, Instant emitida) {
+}
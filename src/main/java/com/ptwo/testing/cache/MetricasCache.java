@@ -0,0 +1,19 @@
+package com.ptwo.testing.cache;
+
+import java.time.Duration;
+
+// La ventana de obsolescencia es lo que tarda una invalidación de otro nodo en llegar a este:
+// el tiempo máximo durante el que L1 pudo servir un usuario ya modificado
+public record MetricasCache(long aciertosL1,
+                            long aciertosL2,
+                            long fallos,
+                            long invalidacionesRecibidas,
+                            Duration ventanaObsolescenciaMedia,
+                            Duration ventanaObsolescenciaMaxima,
+                            int tamanoL1) {
+
+    public double tasaAciertos() {
+        long lecturas = aciertosL1 + aciertosL2 + fallos;
+        return lecturas == 0 ? 0 : (double) (aciertosL1 + aciertosL2) / lecturas;
+    }
+}
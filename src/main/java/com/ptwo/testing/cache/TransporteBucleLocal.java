@@ -0,0 +1,22 @@
+package com.ptwo.testing.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Entrega síncrona a todos los suscriptores del mismo proceso; para tests y despliegues de una instancia
+public class TransporteBucleLocal implements TransporteInvalidaciones {
+    private final List<Consumer<Invalidacion>> receptores = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publicar(Invalidacion invalidacion) {
+        for (Consumer<Invalidacion> receptor : receptores) {
+            receptor.accept(invalidacion);
+        }
+    }
+
+    @Override
+    public void suscribir(Consumer<Invalidacion> receptor) {
+        receptores.add(receptor);
+    }
+}
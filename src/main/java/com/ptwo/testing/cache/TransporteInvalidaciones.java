@@ -0,0 +1,10 @@
+package com.ptwo.testing.cache;
+
+import java.util.function.Consumer;
+
+// Difusión de invalidaciones entre instancias; cada nodo recibe también las suyas y las ignora
+public interface TransporteInvalidaciones {
+    void publicar(Invalidacion invalidacion);
+
+    void suscribir(Consumer<Invalidacion> receptor);
+}
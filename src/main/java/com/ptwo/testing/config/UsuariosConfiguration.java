@@ -0,0 +1,291 @@
+package com.ptwo.testing.config;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+
+import com.ptwo.testing.cache.CacheCompartida;
+import com.ptwo.testing.cache.CacheCompartidaEnMemoria;
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.cache.TransporteInvalidaciones;
+import com.ptwo.testing.config.UsuariosProperties.TipoRepositorio;
+import com.ptwo.testing.correo.ClienteSmtp;
+import com.ptwo.testing.evento.BusEventosUsuario;
+import com.ptwo.testing.evento.PublicadorEventosUsuario;
+import com.ptwo.testing.evento.RegistroEventosArchivo;
+import com.ptwo.testing.exportacion.ExportacionColumnar;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.protocolo.ServidorBinario;
+import com.ptwo.testing.repository.BandejaSalida;
+import com.ptwo.testing.repository.Compactable;
+import com.ptwo.testing.repository.CompactadorEspacio;
+import com.ptwo.testing.repository.ContadoresUsuarios;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryCacheado;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryFiltrado;
+import com.ptwo.testing.repository.UsuarioRepositoryObservado;
+import com.ptwo.testing.repository.UsuarioRepositoryOffHeap;
+import com.ptwo.testing.repository.UsuarioRepositoryParticionado;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.repository.UsuarioRepositoryResiliente;
+import com.ptwo.testing.resiliencia.LimiteAdaptativo;
+import com.ptwo.testing.resiliencia.PoliticaResiliencia;
+import com.ptwo.testing.service.AuditoriaService;
+import com.ptwo.testing.service.AuditoriaServiceEnLotes;
+import com.ptwo.testing.service.AuditoriaServiceImpl;
+import com.ptwo.testing.service.DesactivacionesProgramadas;
+import com.ptwo.testing.service.NotificacionService;
+import com.ptwo.testing.service.NotificacionServiceAsincrono;
+import com.ptwo.testing.service.NotificacionServiceImpl;
+import com.ptwo.testing.service.NotificacionServiceResiliente;
+import com.ptwo.testing.service.NotificacionServiceSmtp;
+import com.ptwo.testing.service.RegistroIdempotencia;
+import com.ptwo.testing.service.RepartidorAvisos;
+import com.ptwo.testing.service.UsuarioService;
+import com.ptwo.testing.service.UsuarioServiceReactivo;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(UsuariosProperties.class)
+public class UsuariosConfiguration {
+
+    // Almacén elegido por usuarios.repositorio.tipo; el resto de la aplicación usa el repositorio observado
+    @Bean
+    UsuarioRepository almacenUsuarios(UsuariosProperties propiedades) {
+        UsuariosProperties.Repositorio repositorio = propiedades.getRepositorio();
+        if (repositorio.getTipo() != TipoRepositorio.PARTICIONADO) {
+            return crearAlmacen(repositorio.getTipo(), repositorio.getDirectorio(), repositorio);
+        }
+        if (repositorio.getTipoParticion() == TipoRepositorio.PARTICIONADO) {
+            throw new IllegalArgumentException("Una partición no puede ser a su vez particionada");
+        }
+        List<UsuarioRepository> particiones = new ArrayList<>();
+        for (int i = 0; i < repositorio.getParticiones(); i++) {
+            particiones.add(crearAlmacen(repositorio.getTipoParticion(),
+                    repositorio.getDirectorio().resolve("particion-" + i), repositorio));
+        }
+        return new UsuarioRepositoryParticionado(particiones);
+    }
+
+    @Bean
+    ContadoresUsuarios contadoresUsuarios(@Qualifier("almacenUsuarios") UsuarioRepository almacen) {
+        ContadoresUsuarios contadores = new ContadoresUsuarios();
+        try (Stream<Usuario> existentes = almacen.streamAll()) {
+            contadores.inicializar(existentes);
+        }
+        return contadores;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.eventos", name = "habilitado", havingValue = "true")
+    BusEventosUsuario busEventosUsuario(UsuariosProperties propiedades) {
+        UsuariosProperties.Eventos eventos = propiedades.getEventos();
+        RegistroEventosArchivo registro = eventos.getRegistro() == null
+                ? null
+                : new RegistroEventosArchivo(eventos.getRegistro());
+        return new BusEventosUsuario(eventos.getCapacidad(), registro);
+    }
+
+    @Bean
+    @Primary
+    UsuarioRepository usuarioRepository(@Qualifier("almacenUsuarios") UsuarioRepository almacen,
+                                        ContadoresUsuarios contadores,
+                                        ObjectProvider<BusEventosUsuario> bus,
+                                        ObjectProvider<CacheCompartida> cacheCompartida,
+                                        ObjectProvider<TransporteInvalidaciones> transporte,
+                                        UsuariosProperties propiedades) {
+        UsuarioRepositoryObservado observado = new UsuarioRepositoryObservado(almacen, contadores);
+        bus.ifAvailable(b -> observado.agregarObservador(new PublicadorEventosUsuario(b)));
+        UsuariosProperties.Politica resiliencia = propiedades.getResiliencia().getRepositorio();
+        UsuarioRepository repositorio = resiliencia.isHabilitado()
+                ? new UsuarioRepositoryResiliente(observado, politica("repositorio", resiliencia))
+                : observado;
+        // La caché va por fuera: un acierto no pasa por la capa de resiliencia
+        UsuariosProperties.Cache cache = propiedades.getCache();
+        if (cache.isHabilitado()) {
+            String nodo = cache.getNodo().isBlank() ? UUID.randomUUID().toString() : cache.getNodo();
+            repositorio = new UsuarioRepositoryCacheado(repositorio, cacheCompartida.getObject(),
+                    transporte.getObject(), nodo, cache.getTamanoL1(), cache.getTtl());
+        }
+        // Y el filtro más por fuera todavía: un id inexistente no llega ni a L2
+        UsuariosProperties.Filtro filtro = propiedades.getFiltro();
+        if (!filtro.isHabilitado()) {
+            return repositorio;
+        }
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(repositorio,
+                filtro.getCapacidadInicial(), filtro.getTasaFalsosPositivos(), filtro.getUmbralReconstruccion());
+        if (cache.isHabilitado()) {
+            filtrado.seguirInvalidaciones(transporte.getObject());
+        }
+        return filtrado;
+    }
+
+    // L2 y transporte por defecto dentro del proceso; otra configuración puede aportar los suyos
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.cache", name = "habilitado", havingValue = "true")
+    @ConditionalOnMissingBean
+    CacheCompartida cacheCompartida(UsuariosProperties propiedades) {
+        return new CacheCompartidaEnMemoria(propiedades.getCache().getTtl());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.cache", name = "habilitado", havingValue = "true")
+    @ConditionalOnMissingBean
+    TransporteInvalidaciones transporteInvalidaciones() {
+        return new TransporteBucleLocal();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.avisos", name = "diferidos", havingValue = "true")
+    RepartidorAvisos repartidorAvisos(@Qualifier("almacenUsuarios") UsuarioRepository almacen,
+                                      NotificacionService notificacionService,
+                                      UsuariosProperties propiedades) {
+        if (!(almacen instanceof BandejaSalida bandeja)) {
+            throw new IllegalArgumentException("Los avisos diferidos requieren un almacén con bandeja de salida, no "
+                    + propiedades.getRepositorio().getTipo());
+        }
+        UsuariosProperties.Avisos avisos = propiedades.getAvisos();
+        return new RepartidorAvisos(bandeja, notificacionService, avisos.getTamanoLote(), avisos.getIntervalo());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.compactacion", name = "habilitado", havingValue = "true")
+    CompactadorEspacio compactadorEspacio(@Qualifier("almacenUsuarios") UsuarioRepository almacen,
+                                          UsuariosProperties propiedades) {
+        if (!(almacen instanceof Compactable compactable)) {
+            throw new IllegalArgumentException("La compactación requiere un almacén off-heap, persistente o particionado, no "
+                    + propiedades.getRepositorio().getTipo());
+        }
+        UsuariosProperties.Compactacion compactacion = propiedades.getCompactacion();
+        return new CompactadorEspacio(compactable, compactacion.getRegistrosPorPaso(), compactacion.getPausa(),
+                compactacion.getUmbralHuecos());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.protocolo", name = "habilitado", havingValue = "true")
+    ServidorBinario servidorBinario(UsuarioService usuarioService, UsuariosProperties propiedades) {
+        UsuariosProperties.Protocolo protocolo = propiedades.getProtocolo();
+        return new ServidorBinario(usuarioService, new InetSocketAddress(protocolo.getDireccion(), protocolo.getPuerto()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.desactivaciones", name = "habilitado", havingValue = "true")
+    DesactivacionesProgramadas desactivacionesProgramadas(UsuariosProperties propiedades) {
+        UsuariosProperties.Desactivaciones desactivaciones = propiedades.getDesactivaciones();
+        return new DesactivacionesProgramadas(desactivaciones.getDirectorio(), desactivaciones.getResolucion(),
+                desactivaciones.getTamanoLote());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.idempotencia", name = "habilitado", havingValue = "true")
+    RegistroIdempotencia registroIdempotencia(UsuariosProperties propiedades) {
+        UsuariosProperties.Idempotencia idempotencia = propiedades.getIdempotencia();
+        return new RegistroIdempotencia(idempotencia.getTtl(), idempotencia.getMaximoEntradas());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.limite", name = "habilitado", havingValue = "true")
+    LimiteAdaptativo limiteEscrituras(UsuariosProperties propiedades) {
+        UsuariosProperties.Limite limite = propiedades.getLimite();
+        return new LimiteAdaptativo("escrituras-usuarios", limite.getInicial(), limite.getMinimo(), limite.getMaximo());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "usuarios.notificaciones.smtp", name = "habilitado", havingValue = "true")
+    ClienteSmtp clienteSmtp(UsuariosProperties propiedades) {
+        UsuariosProperties.Smtp smtp = propiedades.getNotificaciones().getSmtp();
+        return new ClienteSmtp(InetSocketAddress.createUnresolved(smtp.getServidor(), smtp.getPuerto()),
+                smtp.getDominioSaludo(), smtp.getConexionesPorDominio(), smtp.getTamanoTanda(),
+                smtp.getMensajesPorConexion(), smtp.getTiempoMaximo(), smtp.getInactividadMaxima());
+    }
+
+    @Bean
+    @Lazy
+    NotificacionService notificacionService(UsuariosProperties propiedades, ObjectProvider<ClienteSmtp> clienteSmtp) {
+        UsuariosProperties.Notificaciones notificaciones = propiedades.getNotificaciones();
+        UsuariosProperties.Politica resiliencia = propiedades.getResiliencia().getNotificaciones();
+        ClienteSmtp cliente = clienteSmtp.getIfAvailable();
+        NotificacionService envio = cliente != null
+                ? new NotificacionServiceSmtp(cliente, notificaciones.getSmtp().getRemitente(),
+                        notificaciones.getSmtp().getTiempoMaximo())
+                : new NotificacionServiceImpl();
+        NotificacionService base = resiliencia.isHabilitado()
+                ? new NotificacionServiceResiliente(envio, politica("notificaciones", resiliencia))
+                : envio;
+        return switch (notificaciones.getModo()) {
+            case SINCRONO -> base;
+            case ASINCRONO -> new NotificacionServiceAsincrono(base,
+                    notificaciones.getHilos(), notificaciones.getCapacidadCola());
+        };
+    }
+
+    @Bean
+    @Lazy
+    AuditoriaService auditoriaService(UsuariosProperties propiedades) {
+        UsuariosProperties.Auditoria auditoria = propiedades.getAuditoria();
+        AuditoriaService base = new AuditoriaServiceImpl();
+        return switch (auditoria.getModo()) {
+            case SINCRONO -> base;
+            case LOTES -> new AuditoriaServiceEnLotes(base, auditoria.getTamanoLote(),
+                    auditoria.getCapacidadCola(), auditoria.getIntervaloVaciado());
+        };
+    }
+
+    @Bean
+    @Lazy
+    UsuarioService usuarioService(UsuarioRepository usuarioRepository,
+                                  NotificacionService notificacionService,
+                                  AuditoriaService auditoriaService,
+                                  ContadoresUsuarios contadores,
+                                  ObjectProvider<DesactivacionesProgramadas> desactivaciones,
+                                  ObjectProvider<RegistroIdempotencia> idempotencia,
+                                  ObjectProvider<LimiteAdaptativo> limiteEscrituras,
+                                  UsuariosProperties propiedades) {
+        UsuarioService usuarioService = new UsuarioService(usuarioRepository, notificacionService, auditoriaService);
+        usuarioService.setContadores(contadores);
+        usuarioService.setModoDifusion(propiedades.getDifusion());
+        usuarioService.setAvisosDiferidos(propiedades.getAvisos().isDiferidos());
+        UsuariosProperties.Exportacion exportacion = propiedades.getExportacion();
+        usuarioService.setExportacion(new ExportacionColumnar(exportacion.getTamanoBloque(), exportacion.getHilos()));
+        desactivaciones.ifAvailable(usuarioService::setDesactivacionesProgramadas);
+        idempotencia.ifAvailable(usuarioService::setIdempotencia);
+        limiteEscrituras.ifAvailable(usuarioService::setLimiteEscrituras);
+        return usuarioService;
+    }
+
+    @Bean
+    @Lazy
+    UsuarioServiceReactivo usuarioServiceReactivo(UsuarioService usuarioService) {
+        return new UsuarioServiceReactivo(usuarioService);
+    }
+
+    private static PoliticaResiliencia politica(String nombre, UsuariosProperties.Politica propiedades) {
+        return new PoliticaResiliencia(nombre, propiedades.getTiempoMaximo(), propiedades.getMaxConcurrentes(),
+                propiedades.getEsperaPermiso(), propiedades.getFallosParaAbrir(), propiedades.getTiempoAbierto(),
+                propiedades.getReintentos(), propiedades.getEsperaBase(), propiedades.getEsperaMaxima());
+    }
+
+    private static UsuarioRepository crearAlmacen(TipoRepositorio tipo, Path directorio,
+                                                  UsuariosProperties.Repositorio repositorio) {
+        return switch (tipo) {
+            case MEMORIA -> new UsuarioRepositoryEnMemoria();
+            case PERSISTENTE -> new UsuarioRepositoryPersistente(directorio,
+                    repositorio.getTamanoSegmento().toBytes(), repositorio.getIntervaloSincronizacion());
+            case OFFHEAP -> new UsuarioRepositoryOffHeap((int) repositorio.getTamanoSlab().toBytes());
+            case PARTICIONADO -> throw new IllegalArgumentException("Tipo de partición no soportado: " + tipo);
+        };
+    }
+}
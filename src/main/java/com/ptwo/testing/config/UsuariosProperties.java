@@ -0,0 +1,348 @@
+package com.ptwo.testing.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.ptwo.testing.service.ModoDifusion;
+
+@ConfigurationProperties(prefix = "usuarios")
+public class UsuariosProperties {
+    private final Repositorio repositorio = new Repositorio();
+    private final Eventos eventos = new Eventos();
+    private final Notificaciones notificaciones = new Notificaciones();
+    private final Auditoria auditoria = new Auditoria();
+    private final Resiliencia resiliencia = new Resiliencia();
+    private final Avisos avisos = new Avisos();
+    private final Cache cache = new Cache();
+    private final Filtro filtro = new Filtro();
+    private final Exportacion exportacion = new Exportacion();
+    private final Protocolo protocolo = new Protocolo();
+    private final Desactivaciones desactivaciones = new Desactivaciones();
+    private final Compactacion compactacion = new Compactacion();
+    private final Idempotencia idempotencia = new Idempotencia();
+    private final Limite limite = new Limite();
+    // Notificación y auditoría tras guardar: secuencial, paralelo o paralelo-sin-espera
+    private ModoDifusion difusion = ModoDifusion.SECUENCIAL;
+
+    public Repositorio getRepositorio() { return repositorio; }
+    public Eventos getEventos() { return eventos; }
+    public Notificaciones getNotificaciones() { return notificaciones; }
+    public Auditoria getAuditoria() { return auditoria; }
+    public Resiliencia getResiliencia() { return resiliencia; }
+    public Avisos getAvisos() { return avisos; }
+    public Cache getCache() { return cache; }
+    public Filtro getFiltro() { return filtro; }
+    public Exportacion getExportacion() { return exportacion; }
+    public Protocolo getProtocolo() { return protocolo; }
+    public Desactivaciones getDesactivaciones() { return desactivaciones; }
+    public Compactacion getCompactacion() { return compactacion; }
+    public Idempotencia getIdempotencia() { return idempotencia; }
+    public Limite getLimite() { return limite; }
+    public ModoDifusion getDifusion() { return difusion; }
+    public void setDifusion(ModoDifusion difusion) { this.difusion = difusion; }
+
+    public enum TipoRepositorio { MEMORIA, PERSISTENTE, OFFHEAP, PARTICIONADO }
+
+    public enum ModoNotificaciones { SINCRONO, ASINCRONO }
+
+    public enum ModoAuditoria { SINCRONO, LOTES }
+
+    public static class Repositorio {
+        private TipoRepositorio tipo = TipoRepositorio.MEMORIA;
+        private Path directorio = Path.of("datos", "usuarios");
+        private DataSize tamanoSegmento = DataSize.ofMegabytes(64);
+        // 0 sincroniza a disco en cada escritura
+        private Duration intervaloSincronizacion = Duration.ofMillis(200);
+        private DataSize tamanoSlab = DataSize.ofMegabytes(8);
+        private int particiones = 8;
+        private TipoRepositorio tipoParticion = TipoRepositorio.MEMORIA;
+
+        public TipoRepositorio getTipo() { return tipo; }
+        public void setTipo(TipoRepositorio tipo) { this.tipo = tipo; }
+        public Path getDirectorio() { return directorio; }
+        public void setDirectorio(Path directorio) { this.directorio = directorio; }
+        public DataSize getTamanoSegmento() { return tamanoSegmento; }
+        public void setTamanoSegmento(DataSize tamanoSegmento) { this.tamanoSegmento = tamanoSegmento; }
+        public Duration getIntervaloSincronizacion() { return intervaloSincronizacion; }
+        public void setIntervaloSincronizacion(Duration intervaloSincronizacion) { this.intervaloSincronizacion = intervaloSincronizacion; }
+        public DataSize getTamanoSlab() { return tamanoSlab; }
+        public void setTamanoSlab(DataSize tamanoSlab) { this.tamanoSlab = tamanoSlab; }
+        public int getParticiones() { return particiones; }
+        public void setParticiones(int particiones) { this.particiones = particiones; }
+        public TipoRepositorio getTipoParticion() { return tipoParticion; }
+        public void setTipoParticion(TipoRepositorio tipoParticion) { this.tipoParticion = tipoParticion; }
+    }
+
+    public static class Eventos {
+        private boolean habilitado;
+        private int capacidad = 4096;
+        // Sin registro, un suscriptor que se quede atrás del anillo pierde la reanudación
+        private Path registro;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public int getCapacidad() { return capacidad; }
+        public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+        public Path getRegistro() { return registro; }
+        public void setRegistro(Path registro) { this.registro = registro; }
+    }
+
+    public static class Notificaciones {
+        private ModoNotificaciones modo = ModoNotificaciones.SINCRONO;
+        private int hilos = 4;
+        private int capacidadCola = 10_000;
+        private final Smtp smtp = new Smtp();
+
+        public ModoNotificaciones getModo() { return modo; }
+        public void setModo(ModoNotificaciones modo) { this.modo = modo; }
+        public int getHilos() { return hilos; }
+        public void setHilos(int hilos) { this.hilos = hilos; }
+        public int getCapacidadCola() { return capacidadCola; }
+        public void setCapacidadCola(int capacidadCola) { this.capacidadCola = capacidadCola; }
+        public Smtp getSmtp() { return smtp; }
+    }
+
+    public static class Smtp {
+        private boolean habilitado;
+        private String servidor = "localhost";
+        private int puerto = 25;
+        private String remitente = "no-responder@localhost";
+        private String dominioSaludo = "localhost";
+        private int conexionesPorDominio = 2;
+        private int tamanoTanda = 50;
+        private int mensajesPorConexion = 500;
+        private Duration tiempoMaximo = Duration.ofSeconds(10);
+        private Duration inactividadMaxima = Duration.ofSeconds(30);
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public String getServidor() { return servidor; }
+        public void setServidor(String servidor) { this.servidor = servidor; }
+        public int getPuerto() { return puerto; }
+        public void setPuerto(int puerto) { this.puerto = puerto; }
+        public String getRemitente() { return remitente; }
+        public void setRemitente(String remitente) { this.remitente = remitente; }
+        public String getDominioSaludo() { return dominioSaludo; }
+        public void setDominioSaludo(String dominioSaludo) { this.dominioSaludo = dominioSaludo; }
+        public int getConexionesPorDominio() { return conexionesPorDominio; }
+        public void setConexionesPorDominio(int conexionesPorDominio) { this.conexionesPorDominio = conexionesPorDominio; }
+        public int getTamanoTanda() { return tamanoTanda; }
+        public void setTamanoTanda(int tamanoTanda) { this.tamanoTanda = tamanoTanda; }
+        public int getMensajesPorConexion() { return mensajesPorConexion; }
+        public void setMensajesPorConexion(int mensajesPorConexion) { this.mensajesPorConexion = mensajesPorConexion; }
+        public Duration getTiempoMaximo() { return tiempoMaximo; }
+        public void setTiempoMaximo(Duration tiempoMaximo) { this.tiempoMaximo = tiempoMaximo; }
+        public Duration getInactividadMaxima() { return inactividadMaxima; }
+        public void setInactividadMaxima(Duration inactividadMaxima) { this.inactividadMaxima = inactividadMaxima; }
+    }
+
+    public static class Auditoria {
+        private ModoAuditoria modo = ModoAuditoria.SINCRONO;
+        private int tamanoLote = 100;
+        private int capacidadCola = 10_000;
+        private Duration intervaloVaciado = Duration.ofSeconds(1);
+
+        public ModoAuditoria getModo() { return modo; }
+        public void setModo(ModoAuditoria modo) { this.modo = modo; }
+        public int getTamanoLote() { return tamanoLote; }
+        public void setTamanoLote(int tamanoLote) { this.tamanoLote = tamanoLote; }
+        public int getCapacidadCola() { return capacidadCola; }
+        public void setCapacidadCola(int capacidadCola) { this.capacidadCola = capacidadCola; }
+        public Duration getIntervaloVaciado() { return intervaloVaciado; }
+        public void setIntervaloVaciado(Duration intervaloVaciado) { this.intervaloVaciado = intervaloVaciado; }
+    }
+
+    public static class Avisos {
+        // Bandeja de salida: solo con el almacén persistente
+        private boolean diferidos;
+        private int tamanoLote = 100;
+        private Duration intervalo = Duration.ofMillis(200);
+
+        public boolean isDiferidos() { return diferidos; }
+        public void setDiferidos(boolean diferidos) { this.diferidos = diferidos; }
+        public int getTamanoLote() { return tamanoLote; }
+        public void setTamanoLote(int tamanoLote) { this.tamanoLote = tamanoLote; }
+        public Duration getIntervalo() { return intervalo; }
+        public void setIntervalo(Duration intervalo) { this.intervalo = intervalo; }
+    }
+
+    public static class Cache {
+        private boolean habilitado;
+        // Identifica la instancia en las invalidaciones; vacío genera uno aleatorio al arrancar
+        private String nodo = "";
+        private int tamanoL1 = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public String getNodo() { return nodo; }
+        public void setNodo(String nodo) { this.nodo = nodo; }
+        public int getTamanoL1() { return tamanoL1; }
+        public void setTamanoL1(int tamanoL1) { this.tamanoL1 = tamanoL1; }
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+    }
+
+    public static class Filtro {
+        private boolean habilitado;
+        // Ids esperados en la primera etapa; al llenarse se añade otra del doble de tamaño
+        private long capacidadInicial = 100_000;
+        private double tasaFalsosPositivos = 0.01;
+        // Borrados pendientes, en proporción a los elementos del filtro, que disparan su reconstrucción; 0 no la hace nunca
+        private double umbralReconstruccion = 0.25;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public long getCapacidadInicial() { return capacidadInicial; }
+        public void setCapacidadInicial(long capacidadInicial) { this.capacidadInicial = capacidadInicial; }
+        public double getTasaFalsosPositivos() { return tasaFalsosPositivos; }
+        public void setTasaFalsosPositivos(double tasaFalsosPositivos) { this.tasaFalsosPositivos = tasaFalsosPositivos; }
+        public double getUmbralReconstruccion() { return umbralReconstruccion; }
+        public void setUmbralReconstruccion(double umbralReconstruccion) { this.umbralReconstruccion = umbralReconstruccion; }
+    }
+
+    public static class Exportacion {
+        // Usuarios por bloque comprimido; en memoria hay como mucho 2 * hilos bloques a la vez
+        private int tamanoBloque = 4096;
+        private int hilos = Runtime.getRuntime().availableProcessors();
+
+        public int getTamanoBloque() { return tamanoBloque; }
+        public void setTamanoBloque(int tamanoBloque) { this.tamanoBloque = tamanoBloque; }
+        public int getHilos() { return hilos; }
+        public void setHilos(int hilos) { this.hilos = hilos; }
+    }
+
+    public static class Protocolo {
+        private boolean habilitado;
+        // Pensado para servicios internos: por defecto solo escucha en la interfaz local
+        private String direccion = "127.0.0.1";
+        private int puerto = 7070;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public String getDireccion() { return direccion; }
+        public void setDireccion(String direccion) { this.direccion = direccion; }
+        public int getPuerto() { return puerto; }
+        public void setPuerto(int puerto) { this.puerto = puerto; }
+    }
+
+    public static class Desactivaciones {
+        private boolean habilitado;
+        private Path directorio = Path.of("datos/desactivaciones");
+        // Duración de un tick de la rueda: precisión con la que vence cada desactivación
+        private Duration resolucion = Duration.ofMillis(100);
+        private int tamanoLote = 500;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public Path getDirectorio() { return directorio; }
+        public void setDirectorio(Path directorio) { this.directorio = directorio; }
+        public Duration getResolucion() { return resolucion; }
+        public void setResolucion(Duration resolucion) { this.resolucion = resolucion; }
+        public int getTamanoLote() { return tamanoLote; }
+        public void setTamanoLote(int tamanoLote) { this.tamanoLote = tamanoLote; }
+    }
+
+    public static class Idempotencia {
+        private boolean habilitado;
+        // Cuánto se recuerda el resultado de un alta: debe cubrir la ventana de reintentos de los clientes
+        private Duration ttl = Duration.ofMinutes(10);
+        private int maximoEntradas = 100_000;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public int getMaximoEntradas() { return maximoEntradas; }
+        public void setMaximoEntradas(int maximoEntradas) { this.maximoEntradas = maximoEntradas; }
+    }
+
+    public static class Limite {
+        private boolean habilitado;
+        // Altas y desactivaciones en curso a la vez; el límite se mueve entre mínimo y máximo según la latencia
+        private int inicial = 20;
+        private int minimo = 4;
+        private int maximo = 500;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public int getInicial() { return inicial; }
+        public void setInicial(int inicial) { this.inicial = inicial; }
+        public int getMinimo() { return minimo; }
+        public void setMinimo(int minimo) { this.minimo = minimo; }
+        public int getMaximo() { return maximo; }
+        public void setMaximo(int maximo) { this.maximo = maximo; }
+    }
+
+    public static class Resiliencia {
+        private final Politica repositorio = new Politica(Duration.ofMillis(500), 32, Duration.ofMillis(50),
+                Duration.ofMillis(20), Duration.ofMillis(200));
+        private final Politica notificaciones = new Politica(Duration.ofSeconds(2), 16, Duration.ZERO,
+                Duration.ofMillis(100), Duration.ofSeconds(1));
+
+        public Politica getRepositorio() { return repositorio; }
+        public Politica getNotificaciones() { return notificaciones; }
+    }
+
+    public static class Politica {
+        private boolean habilitado;
+        private Duration tiempoMaximo;
+        private int maxConcurrentes;
+        // Lo que espera una llamada a que quede un hueco en el bulkhead antes de rechazarse
+        private Duration esperaPermiso;
+        private int fallosParaAbrir = 5;
+        private Duration tiempoAbierto = Duration.ofSeconds(5);
+        private int reintentos = 2;
+        private Duration esperaBase;
+        private Duration esperaMaxima;
+
+        public Politica(Duration tiempoMaximo, int maxConcurrentes, Duration esperaPermiso,
+                        Duration esperaBase, Duration esperaMaxima) {
+            this.tiempoMaximo = tiempoMaximo;
+            this.maxConcurrentes = maxConcurrentes;
+            this.esperaPermiso = esperaPermiso;
+            this.esperaBase = esperaBase;
+            this.esperaMaxima = esperaMaxima;
+        }
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public Duration getTiempoMaximo() { return tiempoMaximo; }
+        public void setTiempoMaximo(Duration tiempoMaximo) { this.tiempoMaximo = tiempoMaximo; }
+        public int getMaxConcurrentes() { return maxConcurrentes; }
+        public void setMaxConcurrentes(int maxConcurrentes) { this.maxConcurrentes = maxConcurrentes; }
+        public Duration getEsperaPermiso() { return esperaPermiso; }
+        public void setEsperaPermiso(Duration esperaPermiso) { this.esperaPermiso = esperaPermiso; }
+        public int getFallosParaAbrir() { return fallosParaAbrir; }
+        public void setFallosParaAbrir(int fallosParaAbrir) { this.fallosParaAbrir = fallosParaAbrir; }
+        public Duration getTiempoAbierto() { return tiempoAbierto; }
+        public void setTiempoAbierto(Duration tiempoAbierto) { this.tiempoAbierto = tiempoAbierto; }
+        public int getReintentos() { return reintentos; }
+        public void setReintentos(int reintentos) { this.reintentos = reintentos; }
+        public Duration getEsperaBase() { return esperaBase; }
+        public void setEsperaBase(Duration esperaBase) { this.esperaBase = esperaBase; }
+        public Duration getEsperaMaxima() { return esperaMaxima; }
+        public void setEsperaMaxima(Duration esperaMaxima) { this.esperaMaxima = esperaMaxima; }
+    }
+
+    public static class Compactacion {
+        private boolean habilitado;
+        // Registros examinados con el lock de escritura del almacén en cada paso
+        private int registrosPorPaso = 256;
+        private Duration pausa = Duration.ofMillis(10);
+        // Proporción de bytes muertos a partir de la cual un slab o segmento se compacta
+        private double umbralHuecos = 0.5;
+
+        public boolean isHabilitado() { return habilitado; }
+        public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+        public int getRegistrosPorPaso() { return registrosPorPaso; }
+        public void setRegistrosPorPaso(int registrosPorPaso) { this.registrosPorPaso = registrosPorPaso; }
+        public Duration getPausa() { return pausa; }
+        public void setPausa(Duration pausa) { this.pausa = pausa; }
+        public double getUmbralHuecos() { return umbralHuecos; }
+        public void setUmbralHuecos(double umbralHuecos) { this.umbralHuecos = umbralHuecos; }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ptwo.testing.controller;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException;
+import com.ptwo.testing.service.ClaveIdempotenciaReutilizadaException;
+import com.ptwo.testing.service.UsuarioService;
+
+@RestController
+@RequestMapping("/usuarios")
+public class UsuarioController {
+    private final UsuarioService usuarioService;
+
+    public UsuarioController(UsuarioService usuarioService) {
+        this.usuarioService = usuarioService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Usuario> obtener(@PathVariable Long id) {
+        return ResponseEntity.of(usuarioService.obtenerUsuario(id));
+    }
+
+    @GetMapping
+    public List<Usuario> obtenerTodos() {
+        return usuarioService.obtenerTodosLosUsuarios();
+    }
+
+    // Alternativa a GET /usuarios para volcados completos: formato columnar comprimido en streaming
+    @GetMapping(value = "/exportacion", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = usuarioService::exportarUsuarios;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios.usrc\"")
+                .body(cuerpo);
+    }
+
+    @PostMapping(value = "/importacion", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Map<String, Long> importar(InputStream cuerpo) {
+        return Map.of("importados", usuarioService.importarUsuarios(cuerpo));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Usuario crear(@RequestBody Usuario usuario,
+                         @RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia) {
+        // El constructor sin argumentos que usa Jackson deja activo a false; un alta siempre está activa
+        Usuario alta = new Usuario(usuario.getId(), usuario.getNombre(), usuario.getEmail());
+        return claveIdempotencia == null
+                ? usuarioService.crearUsuario(alta)
+                : usuarioService.crearUsuario(alta, claveIdempotencia);
+    }
+
+    @PostMapping("/{id}/desactivar")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void desactivar(@PathVariable Long id) {
+        usuarioService.desactivarUsuario(id);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> datosInvalidos(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(ClaveIdempotenciaReutilizadaException.class)
+    public ResponseEntity<String> claveReutilizada(ClaveIdempotenciaReutilizadaException e) {
+        return ResponseEntity.unprocessableEntity().body(e.getMessage());
+    }
+
+    // Carga rechazada o dependencia caída: el cliente puede reintentar en breve
+    @ExceptionHandler(DependenciaNoDisponibleException.class)
+    public ResponseEntity<String> noDisponible(DependenciaNoDisponibleException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,230 @@
+package com.ptwo.testing.correo;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pool de conexiones SMTP repartido por dominio del destinatario. Cada dominio tiene su cola y
+// hasta conexionesPorDominio conexiones propias, así que un dominio lento o que limita el ritmo
+// solo frena sus propios mensajes. Quien encola arranca un repartidor si al dominio le quedan
+// conexiones libres; cada repartidor vacía la cola en tandas de hasta tamanoTanda mensajes, cada
+// tanda por una sola conexión. Mientras todas las conexiones del dominio están ocupadas la cola
+// crece y la siguiente tanda sale más llena: con más carga, más mensajes por ida y vuelta.
+// Una conexión se retira tras mensajesPorConexion mensajes (la tanda en curso la puede pasar) y
+// se abre otra en su lugar, antes de que el servidor la corte por su cuenta y volviendo a resolver
+// su nombre; las libres se reutilizan mientras no lleven más de inactividadMaxima sin uso.
+// Cancelar el futuro de un mensaje que aún espera en la cola lo retira de ella; si ya salió en una
+// tanda no se puede parar. close() hace fallar todo lo que sigue en las colas.
+public class ClienteSmtp implements AutoCloseable {
+    private final InetSocketAddress servidor;
+    private final String dominioSaludo;
+    private final int conexionesPorDominio;
+    private final int tamanoTanda;
+    private final int mensajesPorConexion;
+    private final Duration tiempoMaximo;
+    private final Duration inactividadMaxima;
+    private final ConcurrentHashMap<String, Dominio> dominios = new ConcurrentHashMap<>();
+    private volatile boolean cerrado;
+
+    public ClienteSmtp(InetSocketAddress servidor, String dominioSaludo, int conexionesPorDominio, int tamanoTanda,
+                       int mensajesPorConexion, Duration tiempoMaximo, Duration inactividadMaxima) {
+        if (conexionesPorDominio <= 0 || tamanoTanda <= 0 || mensajesPorConexion <= 0) {
+            throw new IllegalArgumentException("Conexiones, tanda y mensajes por conexión deben ser positivos");
+        }
+        this.servidor = servidor;
+        this.dominioSaludo = dominioSaludo;
+        this.conexionesPorDominio = conexionesPorDominio;
+        this.tamanoTanda = tamanoTanda;
+        this.mensajesPorConexion = mensajesPorConexion;
+        this.tiempoMaximo = tiempoMaximo;
+        this.inactividadMaxima = inactividadMaxima;
+    }
+
+    // Se completa cuando el servidor acepta el mensaje; falla con RechazoSmtpException si lo
+    // rechaza o con UncheckedIOException si se pierde la conexión antes de saberlo
+    public CompletableFuture<Void> enviar(MensajeCorreo mensaje) {
+        if (cerrado) {
+            throw new IllegalStateException("El cliente SMTP está cerrado");
+        }
+        Dominio dominio = dominios.computeIfAbsent(dominioDe(mensaje.destinatario()), Dominio::new);
+        Pendiente pendiente = new Pendiente(mensaje, dominio);
+        dominio.cola.add(pendiente);
+        dominio.activar();
+        // Si close() vació las colas antes de que este llegase, nadie más lo haría fallar
+        if (cerrado) {
+            dominio.fallarCola();
+        }
+        return pendiente;
+    }
+
+    // Mensajes que esperan a salir, de todos los dominios
+    public int enCola() {
+        int total = 0;
+        for (Dominio dominio : dominios.values()) {
+            total += dominio.cola.size();
+        }
+        return total;
+    }
+
+    static String dominioDe(String direccion) {
+        return direccion.substring(direccion.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        for (Dominio dominio : dominios.values()) {
+            dominio.fallarCola();
+            ConexionSmtp conexion;
+            while ((conexion = dominio.libres.pollFirst()) != null) {
+                conexion.close();
+            }
+        }
+    }
+
+    // El futuro que recibe quien envía
+    private static final class Pendiente extends CompletableFuture<Void> {
+        final MensajeCorreo mensaje;
+        final Dominio dominio;
+
+        Pendiente(MensajeCorreo mensaje, Dominio dominio) {
+            this.mensaje = mensaje;
+            this.dominio = dominio;
+        }
+
+        @Override
+        public boolean cancel(boolean interrumpir) {
+            boolean cancelado = super.cancel(interrumpir);
+            if (cancelado) {
+                dominio.cola.remove(this);
+            }
+            return cancelado;
+        }
+    }
+
+    private final class Dominio {
+        final String nombre;
+        final ConcurrentLinkedQueue<Pendiente> cola = new ConcurrentLinkedQueue<>();
+        // Las más recientes delante: las del fondo son las que caducan por inactividad
+        final ConcurrentLinkedDeque<ConexionSmtp> libres = new ConcurrentLinkedDeque<>();
+        final AtomicInteger repartidores = new AtomicInteger();
+
+        Dominio(String nombre) {
+            this.nombre = nombre;
+        }
+
+        void activar() {
+            while (!cola.isEmpty()) {
+                int actuales = repartidores.get();
+                if (actuales >= conexionesPorDominio) {
+                    return;
+                }
+                if (repartidores.compareAndSet(actuales, actuales + 1)) {
+                    Thread.ofVirtual().name("smtp-" + nombre).start(this::repartir);
+                    return;
+                }
+            }
+        }
+
+        void repartir() {
+            try {
+                List<Pendiente> tanda;
+                while (!(tanda = tomarTanda()).isEmpty()) {
+                    enviarTanda(tanda);
+                }
+            } finally {
+                repartidores.decrementAndGet();
+            }
+            // Lo que llegó entre la última tanda y el decremento no arrancó a nadie
+            activar();
+        }
+
+        private List<Pendiente> tomarTanda() {
+            List<Pendiente> tanda = new ArrayList<>(Math.min(tamanoTanda, 64));
+            Pendiente pendiente;
+            while (!cerrado && tanda.size() < tamanoTanda && (pendiente = cola.poll()) != null) {
+                // Uno cancelado justo mientras se sacaba de la cola
+                if (!pendiente.isDone()) {
+                    tanda.add(pendiente);
+                }
+            }
+            return tanda;
+        }
+
+        void fallarCola() {
+            IllegalStateException cerradoError = new IllegalStateException("El cliente SMTP está cerrado");
+            Pendiente pendiente;
+            while ((pendiente = cola.poll()) != null) {
+                pendiente.completeExceptionally(cerradoError);
+            }
+        }
+
+        private void enviarTanda(List<Pendiente> tanda) {
+            ConexionSmtp conexion;
+            List<RespuestaSmtp> respuestas;
+            try {
+                conexion = tomarConexion();
+            } catch (RuntimeException e) {
+                fallar(tanda, e);
+                return;
+            }
+            List<MensajeCorreo> mensajes = new ArrayList<>(tanda.size());
+            for (Pendiente pendiente : tanda) {
+                mensajes.add(pendiente.mensaje);
+            }
+            try {
+                respuestas = conexion.enviar(mensajes);
+            } catch (RuntimeException e) {
+                // Cualquier fallo a mitad de diálogo deja la conexión en un estado desconocido
+                conexion.abortar();
+                fallar(tanda, e);
+                return;
+            }
+            devolver(conexion);
+            for (int i = 0; i < tanda.size(); i++) {
+                RespuestaSmtp respuesta = respuestas.get(i);
+                if (respuesta.positiva()) {
+                    tanda.get(i).complete(null);
+                } else {
+                    tanda.get(i).completeExceptionally(new RechazoSmtpException(respuesta));
+                }
+            }
+        }
+
+        private ConexionSmtp tomarConexion() {
+            ConexionSmtp conexion;
+            while ((conexion = libres.pollFirst()) != null) {
+                if (conexion.inactiva().compareTo(inactividadMaxima) < 0) {
+                    return conexion;
+                }
+                conexion.close();
+            }
+            return new ConexionSmtp(servidor, dominioSaludo, tiempoMaximo);
+        }
+
+        private void devolver(ConexionSmtp conexion) {
+            if (cerrado || conexion.enviados() >= mensajesPorConexion) {
+                conexion.close();
+                return;
+            }
+            libres.addFirst(conexion);
+            // Si close() ya pasó por aquí nadie más la cerraría
+            if (cerrado && libres.remove(conexion)) {
+                conexion.close();
+            }
+        }
+
+        private static void fallar(List<Pendiente> tanda, RuntimeException error) {
+            for (Pendiente pendiente : tanda) {
+                pendiente.completeExceptionally(error);
+            }
+        }
+    }
+}
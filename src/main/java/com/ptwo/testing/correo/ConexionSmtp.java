@@ -0,0 +1,243 @@
+package com.ptwo.testing.correo;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+// Una conexión SMTP ya saludada con EHLO. enviar entrega una tanda de mensajes por ella: si el
+// servidor anuncia PIPELINING (RFC 2920), MAIL, RCPT y DATA de cada mensaje salen juntos y con el
+// punto final del anterior, así que cada mensaje cuesta una ida y vuelta en lugar de cuatro.
+// Sin PIPELINING se espera cada respuesta antes del siguiente comando.
+// No admite llamadas desde varios hilos a la vez: ClienteSmtp da cada conexión a un solo repartidor.
+public class ConexionSmtp implements AutoCloseable {
+    private static final int BUFFER = 64 * 1024;
+    private static final byte[] FIN_LINEA = {'\r', '\n'};
+
+    private final Socket socket;
+    private final BufferedReader entrada;
+    private final OutputStream salida;
+    private final boolean pipelining;
+    // Respuestas ya leídas sin PIPELINING, en el orden en que se consumen
+    private final ArrayDeque<RespuestaSmtp> leidas = new ArrayDeque<>();
+    private int enviados;
+    private long ultimoUso = System.nanoTime();
+
+    public ConexionSmtp(InetSocketAddress servidor, String dominioSaludo, Duration tiempoMaximo) {
+        this.socket = new Socket();
+        try {
+            int milisegundos = (int) tiempoMaximo.toMillis();
+            // Una dirección sin resolver se resuelve en cada conexión nueva
+            socket.connect(servidor.isUnresolved()
+                    ? new InetSocketAddress(servidor.getHostString(), servidor.getPort())
+                    : servidor, milisegundos);
+            socket.setSoTimeout(milisegundos);
+            socket.setTcpNoDelay(true);
+            this.entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.salida = new BufferedOutputStream(socket.getOutputStream(), BUFFER);
+            exigir(leerRespuesta(), 220);
+            escribir("EHLO " + dominioSaludo);
+            salida.flush();
+            RespuestaSmtp ehlo = exigir(leerRespuesta(), 250);
+            this.pipelining = ehlo.lineas().stream()
+                    .anyMatch(linea -> linea.toUpperCase(Locale.ROOT).equals("PIPELINING"));
+        } catch (RechazoSmtpException e) {
+            cerrarSocket();
+            throw e;
+        } catch (IOException e) {
+            cerrarSocket();
+            throw new UncheckedIOException("No se pudo abrir la conexión SMTP con " + servidor, e);
+        }
+    }
+
+    // Devuelve la respuesta final de cada mensaje, en el mismo orden. Un fallo de E/S deja la
+    // conexión inservible y sin saber qué mensajes llegaron: se lanza para toda la tanda
+    public List<RespuestaSmtp> enviar(List<MensajeCorreo> mensajes) {
+        RespuestaSmtp[] respuestas = new RespuestaSmtp[mensajes.size()];
+        try {
+            // Mensaje cuyo punto final espera respuesta, y si hay que deshacer una transacción fallida
+            int conPunto = -1;
+            boolean reiniciar = false;
+            for (int i = 0; i < mensajes.size(); i++) {
+                MensajeCorreo mensaje = mensajes.get(i);
+                if (reiniciar) {
+                    comando("RSET");
+                }
+                comando("MAIL FROM:<" + mensaje.remitente() + ">");
+                comando("RCPT TO:<" + mensaje.destinatario() + ">");
+                // DATA cierra el grupo: hay que ver el 354 antes de mandar el contenido
+                comando("DATA");
+                salida.flush();
+                if (conPunto >= 0) {
+                    respuestas[conPunto] = siguiente();
+                    conPunto = -1;
+                }
+                if (reiniciar) {
+                    siguiente();
+                    reiniciar = false;
+                }
+                RespuestaSmtp mail = siguiente();
+                RespuestaSmtp rcpt = siguiente();
+                RespuestaSmtp data = siguiente();
+                if (data.codigo() == 354) {
+                    escribirContenido(mensaje);
+                    conPunto = i;
+                } else {
+                    respuestas[i] = !mail.positiva() ? mail : !rcpt.positiva() ? rcpt : data;
+                    reiniciar = true;
+                }
+            }
+            if (reiniciar) {
+                comando("RSET");
+            }
+            salida.flush();
+            if (conPunto >= 0) {
+                respuestas[conPunto] = siguiente();
+            }
+            if (reiniciar) {
+                siguiente();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Se perdió la conexión SMTP", e);
+        }
+        enviados += mensajes.size();
+        ultimoUso = System.nanoTime();
+        return Arrays.asList(respuestas);
+    }
+
+    public boolean admitePipelining() {
+        return pipelining;
+    }
+
+    // Mensajes enviados por esta conexión, aceptados o no
+    public int enviados() {
+        return enviados;
+    }
+
+    public Duration inactiva() {
+        return Duration.ofNanos(System.nanoTime() - ultimoUso);
+    }
+
+    @Override
+    public void close() {
+        try {
+            escribir("QUIT");
+            salida.flush();
+            leerRespuesta();
+        } catch (IOException e) {
+            // Se cierra de todos modos
+        } finally {
+            cerrarSocket();
+        }
+    }
+
+    // Tras un fallo a mitad de diálogo no se espera respuesta a QUIT: se corta sin más
+    public void abortar() {
+        cerrarSocket();
+    }
+
+    private void comando(String linea) throws IOException {
+        escribir(linea);
+        if (!pipelining) {
+            salida.flush();
+            leidas.add(leerRespuesta());
+        }
+    }
+
+    private RespuestaSmtp siguiente() throws IOException {
+        RespuestaSmtp leida = leidas.poll();
+        return leida != null ? leida : leerRespuesta();
+    }
+
+    // El cuerpo va en base64: las líneas nunca empiezan por punto, así que no hace falta duplicarlos,
+    // y no depende de que el servidor admita 8BITMIME
+    private void escribirContenido(MensajeCorreo mensaje) throws IOException {
+        escribir("Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()));
+        escribir("From: <" + mensaje.remitente() + ">");
+        escribir("To: <" + mensaje.destinatario() + ">");
+        escribir("Subject: " + encabezado(mensaje.asunto()));
+        if (mensaje.idMensaje() != null) {
+            escribir("Message-ID: <" + mensaje.idMensaje() + ">");
+        }
+        escribir("MIME-Version: 1.0");
+        escribir("Content-Type: text/plain; charset=UTF-8");
+        escribir("Content-Transfer-Encoding: base64");
+        escribir("");
+        byte[] cuerpo = Base64.getMimeEncoder().encode(mensaje.cuerpo().getBytes(StandardCharsets.UTF_8));
+        salida.write(cuerpo);
+        if (cuerpo.length > 0) {
+            salida.write(FIN_LINEA);
+        }
+        // Con PIPELINING el punto sale junto al grupo del mensaje siguiente
+        comando(".");
+    }
+
+    // RFC 2047 para asuntos con tildes o eñes
+    private static String encabezado(String texto) {
+        if (texto.chars().allMatch(c -> c >= 0x20 && c < 0x7f)) {
+            return texto;
+        }
+        return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(texto.getBytes(StandardCharsets.UTF_8)) + "?=";
+    }
+
+    private void escribir(String linea) throws IOException {
+        salida.write(linea.getBytes(StandardCharsets.UTF_8));
+        salida.write(FIN_LINEA);
+    }
+
+    private RespuestaSmtp leerRespuesta() throws IOException {
+        List<String> lineas = new ArrayList<>(1);
+        while (true) {
+            String linea = entrada.readLine();
+            if (linea == null) {
+                throw new EOFException("El servidor SMTP cerró la conexión");
+            }
+            if (linea.length() < 3 || !codigoValido(linea)) {
+                throw new IOException("Respuesta SMTP mal formada: " + linea);
+            }
+            lineas.add(linea.length() > 4 ? linea.substring(4) : "");
+            if (linea.length() == 3 || linea.charAt(3) == ' ') {
+                return new RespuestaSmtp(Integer.parseInt(linea.substring(0, 3)), lineas);
+            }
+        }
+    }
+
+    private static boolean codigoValido(String linea) {
+        for (int i = 0; i < 3; i++) {
+            if (linea.charAt(i) < '0' || linea.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return linea.length() == 3 || linea.charAt(3) == ' ' || linea.charAt(3) == '-';
+    }
+
+    private static RespuestaSmtp exigir(RespuestaSmtp respuesta, int codigo) {
+        if (respuesta.codigo() != codigo) {
+            throw new RechazoSmtpException(respuesta);
+        }
+        return respuesta;
+    }
+
+    private void cerrarSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nada que hacer
+        }
+    }
+}
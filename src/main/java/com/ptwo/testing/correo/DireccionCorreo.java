@@ -0,0 +1,64 @@
+package com.ptwo.testing.correo;
+
+// Validación de direcciones sin expresiones regulares: crearUsuario la hace en cada alta y no
+// debe asignar memoria. Admite un subconjunto de RFC 5321: parte local de átomos separados por
+// puntos, sin comillas ni comentarios, y dominio de etiquetas de letras, dígitos y guiones; las
+// letras pueden no ser ASCII (SMTPUTF8). Sin espacios, controles, '<' ni '>', una dirección
+// válida no puede cerrar antes de tiempo un comando SMTP ni una cabecera.
+public final class DireccionCorreo {
+    private static final int MAXIMO = 254;
+    private static final int MAXIMO_LOCAL = 64;
+    private static final int MAXIMO_ETIQUETA = 63;
+    private static final String SIGNOS_LOCAL = "!#$%&'*+-/=?^_`{|}~";
+
+    private DireccionCorreo() {
+    }
+
+    public static boolean valida(String direccion) {
+        if (direccion == null || direccion.length() > MAXIMO) {
+            return false;
+        }
+        int arroba = direccion.lastIndexOf('@');
+        if (arroba <= 0 || arroba > MAXIMO_LOCAL || arroba == direccion.length() - 1) {
+            return false;
+        }
+        return localValida(direccion, arroba) && dominioValido(direccion, arroba + 1);
+    }
+
+    public static String exigir(String direccion) {
+        if (!valida(direccion)) {
+            throw new IllegalArgumentException("Dirección de correo no válida: " + direccion);
+        }
+        return direccion;
+    }
+
+    // Sin puntos al principio, al final ni seguidos; '@' no es un signo admitido
+    private static boolean localValida(String direccion, int fin) {
+        char anterior = '.';
+        for (int i = 0; i < fin; i++) {
+            char c = direccion.charAt(i);
+            if (c == '.' ? anterior == '.' : !Character.isLetterOrDigit(c) && SIGNOS_LOCAL.indexOf(c) < 0) {
+                return false;
+            }
+            anterior = c;
+        }
+        return anterior != '.';
+    }
+
+    private static boolean dominioValido(String direccion, int inicio) {
+        int etiqueta = inicio;
+        for (int i = inicio; i <= direccion.length(); i++) {
+            if (i == direccion.length() || direccion.charAt(i) == '.') {
+                int longitud = i - etiqueta;
+                if (longitud == 0 || longitud > MAXIMO_ETIQUETA
+                        || direccion.charAt(etiqueta) == '-' || direccion.charAt(i - 1) == '-') {
+                    return false;
+                }
+                etiqueta = i + 1;
+            } else if (!Character.isLetterOrDigit(direccion.charAt(i)) && direccion.charAt(i) != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
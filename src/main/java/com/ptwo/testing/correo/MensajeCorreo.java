@@ -0,0 +1,16 @@
+package com.ptwo.testing.correo;
+
+// Un correo de texto para un único destinatario. idMensaje, si no es null, va en Message-ID
+// (sin los <>) para que el proveedor reconozca los reenvíos del mismo aviso. Direcciones e
+// idMensaje van tal cual en comandos y cabeceras: se validan aquí para que no puedan inyectar otros
+public record MensajeCorreo(String remitente, String destinatario, String asunto, String cuerpo,
+                            String idMensaje) {
+
+    public MensajeCorreo {
+        DireccionCorreo.exigir(remitente);
+        DireccionCorreo.exigir(destinatario);
+        if (idMensaje != null) {
+            DireccionCorreo.exigir(idMensaje);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ptwo.testing.correo;
+
+// El servidor rechazó el mensaje; un código 4xx es temporal y se puede reintentar
+public class RechazoSmtpException extends RuntimeException {
+    private final int codigo;
+
+    public RechazoSmtpException(RespuestaSmtp respuesta) {
+        super("El servidor SMTP rechazó el mensaje: " + respuesta.codigo() + " " + respuesta.texto());
+        this.codigo = respuesta.codigo();
+    }
+
+    public int getCodigo() { return codigo; }
+
+    public boolean isTemporal() { return codigo / 100 == 4; }
+}
@@ -0,0 +1,15 @@
+package com.ptwo.testing.correo;
+
+import java.util.List;
+
+// Respuesta del servidor, con una línea por cada línea de texto de una respuesta multilínea
+public record RespuestaSmtp(int codigo, List<String> lineas) {
+
+    public boolean positiva() {
+        return codigo / 100 == 2;
+    }
+
+    public String texto() {
+        return String.join(" ", lineas);
+    }
+}
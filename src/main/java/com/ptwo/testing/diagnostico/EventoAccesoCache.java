@@ -0,0 +1,48 @@
+package com.ptwo.testing.diagnostico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Una lectura de la caché de dos niveles, individual o por lotes, con lo resuelto en cada nivel.
+// Desactivado por defecto: sale una por lectura; el perfil jfr/usuarios.jfc lo activa
+@Name("com.ptwo.usuarios.AccesoCache")
+@Label("Acceso a la caché de usuarios")
+@Category({"Usuarios", "Caché"})
+@Description("Aciertos en L1 y L2 y fallos que llegan al almacén")
+@StackTrace(false)
+@Enabled(false)
+public class EventoAccesoCache extends Event {
+
+    @Label("Tamaño de lote")
+    int tamanoLote;
+
+    @Label("Aciertos L1")
+    int aciertosL1;
+
+    @Label("Aciertos L2")
+    int aciertosL2;
+
+    @Label("Fallos")
+    int fallos;
+
+    public static EventoAccesoCache iniciar(int tamanoLote) {
+        EventoAccesoCache evento = new EventoAccesoCache();
+        evento.tamanoLote = tamanoLote;
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(int aciertosL1, int aciertosL2, int fallos) {
+        if (shouldCommit()) {
+            this.aciertosL1 = aciertosL1;
+            this.aciertosL2 = aciertosL2;
+            this.fallos = fallos;
+            commit();
+        }
+    }
+}
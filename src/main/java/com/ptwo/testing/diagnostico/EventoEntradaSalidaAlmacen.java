@@ -0,0 +1,54 @@
+package com.ptwo.testing.diagnostico;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Escritura, lectura, sincronización o paso de compactación contra los archivos del almacén
+// persistente. Desactivado por defecto, como el de caché
+@Name("com.ptwo.usuarios.EntradaSalidaAlmacen")
+@Label("E/S del almacén de usuarios")
+@Category({"Usuarios", "Almacén"})
+@Description("Operación sobre los segmentos del almacén persistente")
+@StackTrace(false)
+@Enabled(false)
+public class EventoEntradaSalidaAlmacen extends Event {
+    public static final String ESCRITURA = "ESCRITURA";
+    public static final String LECTURA = "LECTURA";
+    public static final String SINCRONIZACION = "SINCRONIZACION";
+    public static final String COMPACTACION = "COMPACTACION";
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("Segmento")
+    long segmento;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Registros")
+    int registros;
+
+    public static EventoEntradaSalidaAlmacen iniciar(String operacion) {
+        EventoEntradaSalidaAlmacen evento = new EventoEntradaSalidaAlmacen();
+        evento.operacion = operacion;
+        evento.begin();
+        return evento;
+    }
+
+    public void terminar(long segmento, long bytes, int registros) {
+        if (shouldCommit()) {
+            this.segmento = segmento;
+            this.bytes = bytes;
+            this.registros = registros;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ptwo.testing.diagnostico;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import com.ptwo.testing.filtro.MetricasFiltro;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+// Foto periódica de cada filtro de Bloom vivo, con la tasa de falsos positivos observada frente a
+// la objetivo. Las fuentes se guardan con referencia débil: un filtro descartado deja de emitir
+// sin tener que darse de baja. Desactivado por defecto; el perfil jfr/usuarios.jfc lo activa
+@Name("com.ptwo.usuarios.FiltroBloom")
+@Label("Filtro de Bloom de usuarios")
+@Category({"Usuarios", "Filtro"})
+@Description("Tamaño, consultas descartadas y falsos positivos del filtro delante del almacén")
+@StackTrace(false)
+@Enabled(false)
+@Period("10 s")
+public class EventoFiltroBloom extends Event {
+    private static final Map<Supplier<MetricasFiltro>, Boolean> FUENTES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    static {
+        FlightRecorder.addPeriodicEvent(EventoFiltroBloom.class, EventoFiltroBloom::emitir);
+    }
+
+    @Label("Elementos")
+    long elementos;
+
+    @Label("Etapas")
+    int etapas;
+
+    @Label("Bits")
+    long bits;
+
+    @Label("Tasa objetivo")
+    @Percentage
+    double tasaObjetivo;
+
+    @Label("Tasa estimada")
+    @Percentage
+    double tasaEstimada;
+
+    @Label("Tasa observada")
+    @Percentage
+    double tasaObservada;
+
+    @Label("Consultas")
+    long consultas;
+
+    @Label("Descartadas")
+    long descartadas;
+
+    @Label("Falsos positivos")
+    long falsosPositivos;
+
+    @Label("Borrados pendientes")
+    long borradosPendientes;
+
+    @Label("Reconstrucciones")
+    long reconstrucciones;
+
+    // La fuente debe vivir lo mismo que el filtro: un lambda sin más referencias se recogería enseguida
+    public static void observar(Supplier<MetricasFiltro> fuente) {
+        FUENTES.put(fuente, Boolean.TRUE);
+    }
+
+    private static void emitir() {
+        List<Supplier<MetricasFiltro>> fuentes;
+        synchronized (FUENTES) {
+            fuentes = new ArrayList<>(FUENTES.keySet());
+        }
+        for (Supplier<MetricasFiltro> fuente : fuentes) {
+            MetricasFiltro metricas = fuente.get();
+            EventoFiltroBloom evento = new EventoFiltroBloom();
+            evento.elementos = metricas.elementos();
+            evento.etapas = metricas.etapas();
+            evento.bits = metricas.bits();
+            evento.tasaObjetivo = metricas.tasaFalsosPositivosObjetivo();
+            evento.tasaEstimada = metricas.tasaFalsosPositivosEstimada();
+            evento.tasaObservada = metricas.tasaFalsosPositivosObservada();
+            evento.consultas = metricas.consultas();
+            evento.descartadas = metricas.descartadas();
+            evento.falsosPositivos = metricas.falsosPositivos();
+            evento.borradosPendientes = metricas.borradosPendientes();
+            evento.reconstrucciones = metricas.reconstrucciones();
+            evento.commit();
+        }
+    }
+}
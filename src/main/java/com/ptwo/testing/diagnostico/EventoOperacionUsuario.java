@@ -0,0 +1,60 @@
+package com.ptwo.testing.diagnostico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Una llamada a UsuarioService. Con el evento desactivado begin/commit no hacen nada y el JIT
+// elimina la instancia; por eso se crea siempre y los campos caros (el resultado de un fallo)
+// solo se calculan al fallar.
+@Name("com.ptwo.usuarios.Operacion")
+@Label("Operación de usuarios")
+@Category({"Usuarios", "Servicio"})
+@Description("Llamada a UsuarioService con su resultado y su tamaño de lote")
+@StackTrace(false)
+public class EventoOperacionUsuario extends Event {
+    public static final String OK = "OK";
+    public static final String NO_ENCONTRADO = "NO_ENCONTRADO";
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("Resultado")
+    @Description("OK, NO_ENCONTRADO o la clase de la excepción")
+    String resultado = OK;
+
+    @Label("Tamaño de lote")
+    int tamanoLote;
+
+    @Label("Usuarios afectados")
+    int afectados;
+
+    public static EventoOperacionUsuario iniciar(String operacion, int tamanoLote) {
+        EventoOperacionUsuario evento = new EventoOperacionUsuario();
+        evento.operacion = operacion;
+        evento.tamanoLote = tamanoLote;
+        evento.begin();
+        return evento;
+    }
+
+    public void resultado(String resultado) {
+        this.resultado = resultado;
+    }
+
+    public void afectados(int afectados) {
+        this.afectados = afectados;
+    }
+
+    public void fallo(Throwable error) {
+        resultado = error.getClass().getSimpleName();
+    }
+
+    public void terminar() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ptwo.testing.evento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.ptwo.testing.model.Usuario;
+
+// Bus en proceso con un anillo acotado de los últimos eventos. Los publicadores
+// nunca se bloquean: si un suscriptor se queda atrás, los eventos que ya salieron
+// del anillo se recuperan del registro en archivo (si lo hay).
+public class BusEventosUsuario implements AutoCloseable {
+    private final EventoCambioUsuario[] anillo;
+    private final int mascara;
+    private final RegistroEventosArchivo registro;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition nuevosEventos = lock.newCondition();
+    // Tras un reinicio el anillo empieza vacío aunque el registro tenga historia
+    private final long primeraDelAnillo;
+    private long ultimaSecuencia;
+
+    public BusEventosUsuario(int capacidad) {
+        this(capacidad, null);
+    }
+
+    public BusEventosUsuario(int capacidad, RegistroEventosArchivo registro) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        int potencia = Integer.highestOneBit(capacidad);
+        if (potencia < capacidad) {
+            potencia <<= 1;
+        }
+        this.anillo = new EventoCambioUsuario[potencia];
+        this.mascara = potencia - 1;
+        this.registro = registro;
+        this.ultimaSecuencia = registro == null ? 0 : registro.ultimaSecuencia();
+        this.primeraDelAnillo = ultimaSecuencia + 1;
+    }
+
+    public EventoCambioUsuario publicar(TipoCambio tipo, long idUsuario, int camposCambiados, Usuario estado) {
+        lock.lock();
+        try {
+            EventoCambioUsuario evento = new EventoCambioUsuario(ultimaSecuencia + 1, tipo, idUsuario,
+                    camposCambiados, estado.getNombre(), estado.getEmail(), estado.isActivo());
+            if (registro != null) {
+                registro.anexar(evento);
+            }
+            anillo[(int) evento.secuencia() & mascara] = evento;
+            ultimaSecuencia = evento.secuencia();
+            nuevosEventos.signalAll();
+            return evento;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long ultimaSecuencia() {
+        lock.lock();
+        try {
+            return ultimaSecuencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // La suscripción entrega eventos a partir de desdeSecuencia (incluida);
+    // para reanudar, se pasa la última secuencia procesada + 1
+    public SuscripcionEventos suscribir(long desdeSecuencia) {
+        return new SuscripcionEventos(this, Math.max(1, desdeSecuencia));
+    }
+
+    public SuscripcionEventos suscribirDesdeAhora() {
+        return suscribir(ultimaSecuencia() + 1);
+    }
+
+    List<EventoCambioUsuario> leer(long desde, int maximo, long esperaNanos) throws InterruptedException {
+        List<EventoCambioUsuario> resultado = new ArrayList<>();
+        long primeraEnAnillo;
+        long hasta;
+        lock.lock();
+        try {
+            while (ultimaSecuencia < desde && esperaNanos > 0) {
+                esperaNanos = nuevosEventos.awaitNanos(esperaNanos);
+            }
+            hasta = Math.min(ultimaSecuencia, desde + maximo - 1);
+            primeraEnAnillo = Math.max(primeraDelAnillo, ultimaSecuencia - anillo.length + 1);
+            for (long s = Math.max(desde, primeraEnAnillo); s <= hasta; s++) {
+                resultado.add(anillo[(int) s & mascara]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (desde >= primeraEnAnillo || hasta < desde) {
+            return resultado;
+        }
+        if (registro == null) {
+            throw new IllegalStateException("Los eventos desde la secuencia " + desde
+                    + " ya no están disponibles en el bus");
+        }
+        // El tramo que ya salió del anillo se lee del archivo, fuera del lock
+        List<EventoCambioUsuario> antiguos = new ArrayList<>();
+        registro.reproducir(desde, Math.min(hasta, primeraEnAnillo - 1), antiguos::add);
+        antiguos.addAll(resultado);
+        return antiguos;
+    }
+
+    public void reproducir(long desde, long hasta, Consumer<EventoCambioUsuario> consumidor) {
+        if (registro == null) {
+            throw new IllegalStateException("El bus no tiene registro en archivo");
+        }
+        registro.reproducir(desde, hasta, consumidor);
+    }
+
+    @Override
+    public void close() {
+        if (registro != null) {
+            registro.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ptwo.testing.evento;
+
+import java.util.Set;
+
+import com.ptwo.testing.model.CampoUsuario;
+
+// Estado del usuario tras el cambio; en una eliminación, el último estado conocido
+public record EventoCambioUsuario(long secuencia,
+                                  TipoCambio tipo,
+                                  long idUsuario,
+                                  int camposCambiados,
+                                  String nombre,
+                                  String email,
+                                  boolean activo) {
+
+    public Set<CampoUsuario> campos() {
+        return CampoUsuario.deMascara(camposCambiados);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ptwo.testing.evento;
+
+import com.ptwo.testing.model.CampoUsuario;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.ObservadorUsuarios;
+
+public class PublicadorEventosUsuario implements ObservadorUsuarios {
+    private final BusEventosUsuario bus;
+
+    public PublicadorEventosUsuario(BusEventosUsuario bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public void alGuardar(Usuario anterior, Usuario actual) {
+        if (anterior == null) {
+            bus.publicar(TipoCambio.CREACION, actual.getId(), CampoUsuario.TODOS, actual);
+            return;
+        }
+        int cambios = CampoUsuario.diferencias(anterior, actual);
+        if (cambios == 0) {
+            return;
+        }
+        TipoCambio tipo = anterior.isActivo() && !actual.isActivo()
+                ? TipoCambio.DESACTIVACION
+                : TipoCambio.ACTUALIZACION;
+        bus.publicar(tipo, actual.getId(), cambios, actual);
+    }
+
+    @Override
+    public void alEliminar(Usuario anterior) {
+        bus.publicar(TipoCambio.ELIMINACION, anterior.getId(), 0, anterior);
+    }
+}
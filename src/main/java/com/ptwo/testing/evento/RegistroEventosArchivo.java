@@ -0,0 +1,198 @@
+package com.ptwo.testing.evento;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Registro binario de solo anexado con los eventos publicados, para reproducirlos
+// después de un reinicio o cuando un suscriptor se queda atrás del anillo en memoria.
+// Cada evento va enmarcado: [int longitud][contenido][int crc]. Al abrir se corta en el primer
+// registro incompleto o que no cuadra con su crc. Un índice disperso secuencia -> posición
+// permite reproducir desde cualquier secuencia sin leer el archivo desde el principio.
+public class RegistroEventosArchivo implements AutoCloseable {
+    // Una entrada del índice cada tantos eventos
+    private static final int PASO_INDICE = 256;
+    private static final int MAXIMO_CONTENIDO = 1 << 20;
+
+    private final Path archivo;
+    private final DataOutputStream salida;
+    private final TreeMap<Long, Long> indice = new TreeMap<>();
+    private long ultimaSecuencia;
+    private long longitud;
+
+    public RegistroEventosArchivo(Path archivo) {
+        this.archivo = archivo;
+        try {
+            long longitudValida = recuperar();
+            try (FileChannel canal = FileChannel.open(archivo,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Un registro a medio escribir o dañado tras una caída se descarta, con todo lo que le sigue
+                canal.truncate(longitudValida);
+            }
+            this.longitud = longitudValida;
+            this.salida = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(archivo, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de eventos " + archivo, e);
+        }
+    }
+
+    public synchronized void anexar(EventoCambioUsuario evento) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+            escribir(new DataOutputStream(buffer), evento);
+            byte[] contenido = buffer.toByteArray();
+            CRC32C crc = new CRC32C();
+            crc.update(contenido);
+            salida.writeInt(contenido.length);
+            salida.write(contenido);
+            salida.writeInt((int) crc.getValue());
+            salida.flush();
+            indexar(evento.secuencia(), longitud);
+            longitud += Integer.BYTES * 2 + contenido.length;
+            ultimaSecuencia = evento.secuencia();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el evento " + evento.secuencia(), e);
+        }
+    }
+
+    public synchronized long ultimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    // Entrega en orden los eventos con secuencia en [desde, hasta]
+    public void reproducir(long desde, long hasta, Consumer<EventoCambioUsuario> consumidor) {
+        long inicio;
+        long fin;
+        synchronized (this) {
+            Map.Entry<Long, Long> entrada = indice.floorEntry(desde);
+            inicio = entrada == null ? 0 : entrada.getValue();
+            fin = longitud;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            canal.position(inicio);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+            long posicion = inicio;
+            while (posicion < fin) {
+                int tamano = entrada.readInt();
+                byte[] contenido = new byte[tamano];
+                entrada.readFully(contenido);
+                entrada.readInt();
+                posicion += Integer.BYTES * 2 + tamano;
+                EventoCambioUsuario evento = leer(contenido);
+                if (evento.secuencia() > hasta) {
+                    return;
+                }
+                if (evento.secuencia() >= desde) {
+                    consumidor.accept(evento);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el registro de eventos " + archivo, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            salida.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void indexar(long secuencia, long posicion) {
+        if (indice.isEmpty() || secuencia - indice.lastKey() >= PASO_INDICE) {
+            indice.put(secuencia, posicion);
+        }
+    }
+
+    // Devuelve la longitud hasta el último registro válido
+    private long recuperar() throws IOException {
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+        long longitudValida = 0;
+        CRC32C crc = new CRC32C();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            while (true) {
+                EventoCambioUsuario evento;
+                int tamano;
+                try {
+                    tamano = entrada.readInt();
+                    if (tamano <= 0 || tamano > MAXIMO_CONTENIDO) {
+                        return longitudValida;
+                    }
+                    byte[] contenido = new byte[tamano];
+                    entrada.readFully(contenido);
+                    crc.reset();
+                    crc.update(contenido);
+                    if ((int) crc.getValue() != entrada.readInt()) {
+                        return longitudValida;
+                    }
+                    evento = leer(contenido);
+                } catch (EOFException e) {
+                    return longitudValida;
+                } catch (IOException | RuntimeException e) {
+                    // Contenido que cuadra con el crc pero no se puede decodificar: se trata como dañado
+                    return longitudValida;
+                }
+                indexar(evento.secuencia(), longitudValida);
+                ultimaSecuencia = evento.secuencia();
+                longitudValida += Integer.BYTES * 2 + tamano;
+            }
+        }
+    }
+
+    private static void escribir(DataOutputStream salida, EventoCambioUsuario evento) throws IOException {
+        salida.writeLong(evento.secuencia());
+        salida.writeByte(evento.tipo().ordinal());
+        salida.writeLong(evento.idUsuario());
+        salida.writeByte(evento.camposCambiados());
+        escribirTexto(salida, evento.nombre());
+        escribirTexto(salida, evento.email());
+        salida.writeBoolean(evento.activo());
+    }
+
+    private static EventoCambioUsuario leer(byte[] contenido) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido));
+        long secuencia = entrada.readLong();
+        int ordinal = entrada.readByte();
+        if (ordinal < 0 || ordinal >= TipoCambio.values().length) {
+            throw new IOException("Tipo de evento desconocido: " + ordinal);
+        }
+        TipoCambio tipo = TipoCambio.values()[ordinal];
+        long id = entrada.readLong();
+        int campos = entrada.readByte();
+        String nombre = leerTexto(entrada);
+        String email = leerTexto(entrada);
+        boolean activo = entrada.readBoolean();
+        return new EventoCambioUsuario(secuencia, tipo, id, campos, nombre, email, activo);
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        salida.writeBoolean(texto != null);
+        if (texto != null) {
+            salida.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+}
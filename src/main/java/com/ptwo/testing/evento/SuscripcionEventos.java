@@ -0,0 +1,39 @@
+package com.ptwo.testing.evento;
+
+import java.time.Duration;
+import java.util.List;
+
+// Cursor de un suscriptor sobre el bus; no es seguro compartirlo entre hilos
+public class SuscripcionEventos {
+    private final BusEventosUsuario bus;
+    private long siguiente;
+
+    SuscripcionEventos(BusEventosUsuario bus, long desdeSecuencia) {
+        this.bus = bus;
+        this.siguiente = desdeSecuencia;
+    }
+
+    public long siguienteSecuencia() {
+        return siguiente;
+    }
+
+    public List<EventoCambioUsuario> sondear(int maximo) {
+        try {
+            return avanzar(bus.leer(siguiente, maximo, 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+
+    public List<EventoCambioUsuario> esperar(int maximo, Duration espera) throws InterruptedException {
+        return avanzar(bus.leer(siguiente, maximo, espera.toNanos()));
+    }
+
+    private List<EventoCambioUsuario> avanzar(List<EventoCambioUsuario> eventos) {
+        if (!eventos.isEmpty()) {
+            siguiente = eventos.get(eventos.size() - 1).secuencia() + 1;
+        }
+        return eventos;
+    }
+}
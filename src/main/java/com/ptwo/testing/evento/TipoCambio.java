@@ -0,0 +1,8 @@
+package com.ptwo.testing.evento;
+
+public enum TipoCambio {
+    CREACION,
+    ACTUALIZACION,
+    DESACTIVACION,
+    ELIMINACION
+}
@@ -0,0 +1,262 @@
+package com.ptwo.testing.exportacion;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.ptwo.testing.model.Usuario;
+
+// Un bloque de usuarios en columnas, comprimido con Deflate. Marco en el archivo:
+// [int usuarios][int longitud original][int longitud comprimida][int crc][bytes comprimidos]
+// Columnas, todas con varints:
+//   ids ordenados, como diferencias con el anterior (zigzag, el primero respecto a 0)
+//   activo, un bit por usuario
+//   dominios de email: diccionario [n][texto]*n y por usuario 0 = sin email, 1 = sin '@', k + 2 = dominio k
+//   parte local del email y nombre: [longitud + 1][UTF-8], 0 = null
+// Las longitudes de la cabecera se comprueban antes de reservar nada: por usuario caben sus dos
+// varints, su bit y tres textos que juntos no pasan de los dos textos de Short.MAX_VALUE bytes
+// que admite el almacén (el dominio sale del email).
+final class BloqueColumnar {
+    static final int CABECERA = Integer.BYTES * 4;
+    static final int MAXIMO_POR_USUARIO = 10 + 1 + 5 + 3 * 3 + 2 * Short.MAX_VALUE;
+    // El varint con el número de dominios
+    private static final int MAXIMO_FIJO = 5;
+
+    private BloqueColumnar() {
+    }
+
+    static byte[] comprimir(List<Usuario> usuarios) {
+        byte[] columnas = codificar(usuarios);
+        if (columnas.length > longitudMaxima(usuarios.size())) {
+            throw new IllegalArgumentException("Un bloque de " + usuarios.size()
+                    + " usuarios no puede ocupar " + columnas.length + " bytes: hay textos demasiado largos");
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] comprimido;
+        try {
+            deflater.setInput(columnas);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(columnas.length / 2 + 64);
+            byte[] tramo = new byte[8192];
+            while (!deflater.finished()) {
+                salida.write(tramo, 0, deflater.deflate(tramo));
+            }
+            comprimido = salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(comprimido);
+        return ByteBuffer.allocate(CABECERA + comprimido.length)
+                .putInt(usuarios.size())
+                .putInt(columnas.length)
+                .putInt(comprimido.length)
+                .putInt((int) crc.getValue())
+                .put(comprimido)
+                .array();
+    }
+
+    static long longitudMaxima(int usuarios) {
+        return (long) usuarios * MAXIMO_POR_USUARIO + MAXIMO_FIJO;
+    }
+
+    // La cota de zlib para lo que puede ocupar comprimido
+    static long comprimidoMaximo(int longitudOriginal) {
+        return longitudOriginal + (longitudOriginal >> 12) + (longitudOriginal >> 14) + (longitudOriginal >> 25) + 13;
+    }
+
+    static List<Usuario> descomprimir(int usuarios, int longitudOriginal, int crcEsperado, byte[] comprimido) {
+        CRC32C crc = new CRC32C();
+        crc.update(comprimido);
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IllegalArgumentException("Bloque de exportación corrupto: el CRC no coincide");
+        }
+        byte[] columnas = new byte[longitudOriginal];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            int leidos = 0;
+            while (leidos < longitudOriginal && !inflater.finished()) {
+                int inflados = inflater.inflate(columnas, leidos, longitudOriginal - leidos);
+                if (inflados == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Se acabó la entrada sin terminar el flujo: sin esto el bucle no termina nunca
+                    break;
+                }
+                leidos += inflados;
+            }
+            if (leidos != longitudOriginal) {
+                throw new IllegalArgumentException("Bloque de exportación truncado");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Bloque de exportación corrupto", e);
+        } finally {
+            inflater.end();
+        }
+        return decodificar(usuarios, ByteBuffer.wrap(columnas));
+    }
+
+    static byte[] codificar(List<Usuario> usuarios) {
+        List<Usuario> ordenados = new ArrayList<>(usuarios);
+        ordenados.sort(Comparator.comparing(Usuario::getId));
+        Salida salida = new Salida(usuarios.size() * 24);
+
+        long anterior = 0;
+        for (Usuario usuario : ordenados) {
+            salida.varint(zigzag(usuario.getId() - anterior));
+            anterior = usuario.getId();
+        }
+
+        byte[] activos = new byte[(ordenados.size() + 7) / 8];
+        for (int i = 0; i < ordenados.size(); i++) {
+            if (ordenados.get(i).isActivo()) {
+                activos[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        salida.bytes(activos);
+
+        Map<String, Integer> diccionario = new HashMap<>();
+        List<String> dominios = new ArrayList<>();
+        int[] codigos = new int[ordenados.size()];
+        String[] locales = new String[ordenados.size()];
+        for (int i = 0; i < ordenados.size(); i++) {
+            String email = ordenados.get(i).getEmail();
+            int arroba = email == null ? -1 : email.lastIndexOf('@');
+            if (email == null) {
+                codigos[i] = 0;
+            } else if (arroba < 0) {
+                codigos[i] = 1;
+                locales[i] = email;
+            } else {
+                String dominio = email.substring(arroba + 1);
+                Integer indice = diccionario.get(dominio);
+                if (indice == null) {
+                    indice = dominios.size();
+                    diccionario.put(dominio, indice);
+                    dominios.add(dominio);
+                }
+                codigos[i] = indice + 2;
+                locales[i] = email.substring(0, arroba);
+            }
+        }
+        salida.varint(dominios.size());
+        for (String dominio : dominios) {
+            salida.texto(dominio);
+        }
+        for (int codigo : codigos) {
+            salida.varint(codigo);
+        }
+        for (String local : locales) {
+            salida.texto(local);
+        }
+        for (Usuario usuario : ordenados) {
+            salida.texto(usuario.getNombre());
+        }
+        return salida.toByteArray();
+    }
+
+    static List<Usuario> decodificar(int n, ByteBuffer origen) {
+        List<Usuario> usuarios = new ArrayList<>(n);
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            Usuario usuario = new Usuario();
+            anterior += unzigzag(leerVarint(origen));
+            usuario.setId(anterior);
+            usuarios.add(usuario);
+        }
+
+        byte[] activos = new byte[(n + 7) / 8];
+        origen.get(activos);
+        for (int i = 0; i < n; i++) {
+            usuarios.get(i).setActivo((activos[i >>> 3] & (1 << (i & 7))) != 0);
+        }
+
+        String[] dominios = new String[(int) leerVarint(origen)];
+        for (int i = 0; i < dominios.length; i++) {
+            dominios[i] = leerTexto(origen);
+        }
+        int[] codigos = new int[n];
+        for (int i = 0; i < n; i++) {
+            codigos[i] = (int) leerVarint(origen);
+        }
+        for (int i = 0; i < n; i++) {
+            String local = leerTexto(origen);
+            usuarios.get(i).setEmail(switch (codigos[i]) {
+                case 0 -> null;
+                case 1 -> local;
+                default -> local + "@" + dominios[codigos[i] - 2];
+            });
+        }
+        for (Usuario usuario : usuarios) {
+            usuario.setNombre(leerTexto(origen));
+        }
+        return usuarios;
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static long leerVarint(ByteBuffer origen) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte b = origen.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+
+    private static String leerTexto(ByteBuffer origen) {
+        int longitud = (int) leerVarint(origen) - 1;
+        if (longitud < 0) {
+            return null;
+        }
+        String texto = new String(origen.array(), origen.arrayOffset() + origen.position(), longitud,
+                StandardCharsets.UTF_8);
+        origen.position(origen.position() + longitud);
+        return texto;
+    }
+
+    private static final class Salida extends ByteArrayOutputStream {
+        Salida(int capacidad) {
+            super(capacidad);
+        }
+
+        void varint(long valor) {
+            while ((valor & ~0x7FL) != 0) {
+                write((int) ((valor & 0x7F) | 0x80));
+                valor >>>= 7;
+            }
+            write((int) valor);
+        }
+
+        void bytes(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+
+        void texto(String texto) {
+            if (texto == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            bytes(bytes);
+        }
+    }
+}
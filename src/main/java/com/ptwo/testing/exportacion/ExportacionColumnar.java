@@ -0,0 +1,154 @@
+package com.ptwo.testing.exportacion;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Exportación e importación de la tabla de usuarios en un archivo columnar comprimido:
+// [int mágico "USRC"][short versión] seguido de bloques (ver BloqueColumnar).
+// La codificación y compresión de cada bloque va en paralelo; como mucho hay 2 * hilos bloques
+// en vuelo, así que la memoria no depende del número de usuarios. El orden de los bloques se
+// conserva al exportar; al importar da igual, cada bloque trae ids distintos.
+public class ExportacionColumnar {
+    static final int MAGICO = 0x55535243;
+    static final short VERSION = 1;
+
+    private final int tamanoBloque;
+    private final int hilos;
+
+    public ExportacionColumnar(int tamanoBloque, int hilos) {
+        if (tamanoBloque <= 0 || hilos <= 0) {
+            throw new IllegalArgumentException("Tamaño de bloque e hilos deben ser positivos");
+        }
+        this.tamanoBloque = tamanoBloque;
+        this.hilos = hilos;
+    }
+
+    // Devuelve el número de usuarios exportados; no cierra el destino
+    public long exportar(Stream<Usuario> usuarios, OutputStream destino) {
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(destino, 1 << 16));
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, hilo("exportacion-usuarios"));
+        ArrayDeque<Future<byte[]>> enVuelo = new ArrayDeque<>();
+        long total = 0;
+        try {
+            salida.writeInt(MAGICO);
+            salida.writeShort(VERSION);
+            Iterator<Usuario> recorrido = usuarios.iterator();
+            while (recorrido.hasNext()) {
+                List<Usuario> bloque = new ArrayList<>(tamanoBloque);
+                while (bloque.size() < tamanoBloque && recorrido.hasNext()) {
+                    bloque.add(recorrido.next());
+                }
+                total += bloque.size();
+                enVuelo.add(ejecutor.submit(() -> BloqueColumnar.comprimir(bloque)));
+                while (enVuelo.size() >= hilos * 2) {
+                    salida.write(esperar(enVuelo.poll()));
+                }
+            }
+            while (!enVuelo.isEmpty()) {
+                salida.write(esperar(enVuelo.poll()));
+            }
+            salida.flush();
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la exportación", e);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    // Entrega los usuarios por bloques a destino (p. ej. UsuarioRepository::saveAll) desde varios
+    // hilos a la vez; devuelve el número de usuarios importados
+    public long importar(InputStream origen, Consumer<List<Usuario>> destino) {
+        DataInputStream entrada = new DataInputStream(origen);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, hilo("importacion-usuarios"));
+        ArrayDeque<Future<Integer>> enVuelo = new ArrayDeque<>();
+        long total = 0;
+        try {
+            if (entrada.readInt() != MAGICO) {
+                throw new IllegalArgumentException("El archivo no es una exportación de usuarios");
+            }
+            short version = entrada.readShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de exportación no soportada: " + version);
+            }
+            while (true) {
+                int usuarios;
+                try {
+                    usuarios = entrada.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int longitudOriginal = entrada.readInt();
+                int longitudComprimida = entrada.readInt();
+                comprobarCabecera(usuarios, longitudOriginal, longitudComprimida);
+                byte[] comprimido = new byte[longitudComprimida];
+                int crc = entrada.readInt();
+                entrada.readFully(comprimido);
+                enVuelo.add(ejecutor.submit(() -> {
+                    destino.accept(BloqueColumnar.descomprimir(usuarios, longitudOriginal, crc, comprimido));
+                    return usuarios;
+                }));
+                while (enVuelo.size() >= hilos * 2) {
+                    total += esperar(enVuelo.poll());
+                }
+            }
+            while (!enVuelo.isEmpty()) {
+                total += esperar(enVuelo.poll());
+            }
+            return total;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Exportación truncada", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la exportación", e);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    // Una cabecera dañada no debe llevar a reservar gigas (ni a un tamaño negativo) antes del CRC
+    private void comprobarCabecera(int usuarios, int longitudOriginal, int longitudComprimida) {
+        if (usuarios <= 0 || usuarios > tamanoBloque) {
+            throw new IllegalArgumentException("Bloque de exportación corrupto: " + usuarios
+                    + " usuarios con bloques de como mucho " + tamanoBloque);
+        }
+        if (longitudOriginal < 0 || longitudOriginal > BloqueColumnar.longitudMaxima(usuarios)
+                || longitudComprimida < 0 || longitudComprimida > BloqueColumnar.comprimidoMaximo(longitudOriginal)) {
+            throw new IllegalArgumentException("Bloque de exportación corrupto: longitudes " + longitudOriginal
+                    + " y " + longitudComprimida + " para " + usuarios + " usuarios");
+        }
+    }
+
+    private static <T> T esperar(Future<T> tarea) {
+        try {
+            return tarea.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando un bloque", e);
+        }
+    }
+
+    private static ThreadFactory hilo(String nombre) {
+        return Thread.ofPlatform().name(nombre + "-", 0).daemon().factory();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ptwo.testing.filtro;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Filtro de Bloom de tamaño fijo sobre claves long, sin locks: cada bit se activa con un OR atómico.
+// Dimensionado para capacidad elementos con la tasa de falsos positivos pedida:
+// m = -n ln p / (ln 2)^2 bits y k = m/n ln 2 funciones hash (doble hash sobre un mezclador de 64 bits).
+final class FiltroBloom {
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int funciones;
+    private final long capacidad;
+    private final LongAdder bitsActivos = new LongAdder();
+    private final LongAdder elementos = new LongAdder();
+
+    FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        if (tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        long optimo = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        int palabras = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimo + 63) / 64));
+        this.bits = new AtomicLongArray(palabras);
+        this.numeroBits = (long) palabras * 64;
+        this.funciones = Math.max(1, (int) Math.round((double) numeroBits / capacidad * Math.log(2)));
+        this.capacidad = capacidad;
+    }
+
+    boolean puedeContener(long clave) {
+        long h1 = mezclar(clave);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Solo cuenta como elemento nuevo si activó algún bit: volver a añadir una clave no llena el filtro
+    boolean agregar(long clave) {
+        long h1 = mezclar(clave);
+        long h2 = mezclar(h1) | 1;
+        boolean nueva = false;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+            long mascara = 1L << bit;
+            if ((bits.getAndAccumulate((int) (bit >>> 6), mascara, (a, b) -> a | b) & mascara) == 0) {
+                bitsActivos.increment();
+                nueva = true;
+            }
+        }
+        if (nueva) {
+            elementos.increment();
+        }
+        return nueva;
+    }
+
+    boolean lleno() {
+        return elementos.sum() >= capacidad;
+    }
+
+    long elementos() {
+        return elementos.sum();
+    }
+
+    long numeroBits() {
+        return numeroBits;
+    }
+
+    // Probabilidad de que una clave ausente pase el filtro con la ocupación actual: (bits activos / m)^k
+    double tasaFalsosPositivosEstimada() {
+        return Math.pow((double) bitsActivos.sum() / numeroBits, funciones);
+    }
+
+    // Finalizador de SplitMix64: reparte ids consecutivos por todo el espacio de 64 bits
+    private static long mezclar(long x) {
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
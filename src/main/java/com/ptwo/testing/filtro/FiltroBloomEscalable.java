@@ -0,0 +1,95 @@
+package com.ptwo.testing.filtro;
+
+// Filtro de Bloom que crece por etapas (Almeida et al., "Scalable Bloom Filters"): cuando la
+// etapa actual llega a su capacidad se añade otra del doble de tamaño y la mitad de tasa de error,
+// de modo que la tasa total queda acotada por p0 / (1 - 1/2) = la tasa pedida.
+// Una clave no puede borrarse; tras muchos borrados conviene reconstruirlo desde el almacén.
+public class FiltroBloomEscalable {
+    private static final int CRECIMIENTO = 2;
+    private static final double ENDURECIMIENTO = 0.5;
+
+    private final double tasaFalsosPositivos;
+    // Copia en escritura: las consultas recorren las etapas sin bloquear
+    private volatile FiltroBloom[] etapas;
+
+    public FiltroBloomEscalable(long capacidadInicial, double tasaFalsosPositivos) {
+        if (tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+        this.etapas = new FiltroBloom[] {
+            new FiltroBloom(capacidadInicial, tasaFalsosPositivos * (1 - ENDURECIMIENTO))
+        };
+    }
+
+    // false significa que la clave nunca se añadió; true, que probablemente sí
+    public boolean puedeContener(long clave) {
+        for (FiltroBloom etapa : etapas) {
+            if (etapa.puedeContener(clave)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void agregar(long clave) {
+        FiltroBloom[] actuales = etapas;
+        for (FiltroBloom etapa : actuales) {
+            if (etapa.puedeContener(clave)) {
+                return;
+            }
+        }
+        FiltroBloom ultima = actuales[actuales.length - 1];
+        if (ultima.lleno()) {
+            ultima = crecer(ultima);
+        }
+        ultima.agregar(clave);
+    }
+
+    public long elementos() {
+        long total = 0;
+        for (FiltroBloom etapa : etapas) {
+            total += etapa.elementos();
+        }
+        return total;
+    }
+
+    public int numeroEtapas() {
+        return etapas.length;
+    }
+
+    public long numeroBits() {
+        long total = 0;
+        for (FiltroBloom etapa : etapas) {
+            total += etapa.numeroBits();
+        }
+        return total;
+    }
+
+    public double tasaFalsosPositivos() {
+        return tasaFalsosPositivos;
+    }
+
+    // Una clave ausente es falso positivo si pasa cualquiera de las etapas
+    public double tasaFalsosPositivosEstimada() {
+        double ninguna = 1;
+        for (FiltroBloom etapa : etapas) {
+            ninguna *= 1 - etapa.tasaFalsosPositivosEstimada();
+        }
+        return 1 - ninguna;
+    }
+
+    private synchronized FiltroBloom crecer(FiltroBloom llena) {
+        FiltroBloom[] actuales = etapas;
+        FiltroBloom ultima = actuales[actuales.length - 1];
+        if (ultima != llena) {
+            return ultima;
+        }
+        FiltroBloom[] ampliadas = new FiltroBloom[actuales.length + 1];
+        System.arraycopy(actuales, 0, ampliadas, 0, actuales.length);
+        double tasa = tasaFalsosPositivos * (1 - ENDURECIMIENTO) * Math.pow(ENDURECIMIENTO, actuales.length);
+        ampliadas[actuales.length] = new FiltroBloom(llena.elementos() * CRECIMIENTO, tasa);
+        etapas = ampliadas;
+        return ampliadas[actuales.length];
+    }
+}
@@ -0,0 +1,22 @@
+package com.ptwo.testing.filtro;
+
+// descartadas: consultas resueltas por el filtro sin llegar al almacén.
+// falsosPositivos: consultas que pasaron el filtro y el almacén no encontró.
+// borradosPendientes: borrados desde la última reconstrucción, cuyas claves siguen en el filtro.
+// reconstrucciones: veces que se ha rehecho el filtro desde el almacén.
+public record MetricasFiltro(long elementos,
+                             int etapas,
+                             long bits,
+                             double tasaFalsosPositivosObjetivo,
+                             double tasaFalsosPositivosEstimada,
+                             long consultas,
+                             long descartadas,
+                             long falsosPositivos,
+                             long borradosPendientes,
+                             long reconstrucciones) {
+
+    public double tasaFalsosPositivosObservada() {
+        long ausentes = descartadas + falsosPositivos;
+        return ausentes == 0 ? 0 : (double) falsosPositivos / ausentes;
+    }
+}
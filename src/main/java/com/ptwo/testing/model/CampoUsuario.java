@@ -0,0 +1,46 @@
+package com.ptwo.testing.model;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+public enum CampoUsuario {
+    NOMBRE,
+    EMAIL,
+    ACTIVO;
+
+    public static final int TODOS = (1 << values().length) - 1;
+
+    public int mascara() {
+        return 1 << ordinal();
+    }
+
+    public boolean en(int mascara) {
+        return (mascara & mascara()) != 0;
+    }
+
+    // Máscara de los campos que difieren entre dos estados del mismo usuario
+    public static int diferencias(Usuario antes, Usuario despues) {
+        int mascara = 0;
+        if (!Objects.equals(antes.getNombre(), despues.getNombre())) {
+            mascara |= NOMBRE.mascara();
+        }
+        if (!Objects.equals(antes.getEmail(), despues.getEmail())) {
+            mascara |= EMAIL.mascara();
+        }
+        if (antes.isActivo() != despues.isActivo()) {
+            mascara |= ACTIVO.mascara();
+        }
+        return mascara;
+    }
+
+    public static Set<CampoUsuario> deMascara(int mascara) {
+        Set<CampoUsuario> campos = EnumSet.noneOf(CampoUsuario.class);
+        for (CampoUsuario campo : values()) {
+            if (campo.en(mascara)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.ptwo.testing.model;
+
+import java.util.Map;
+
+public record EstadisticasUsuarios(long total, long activos, Map<String, Long> porDominio) {
+
+    public long inactivos() {
+        return total - activos;
+    }
+}
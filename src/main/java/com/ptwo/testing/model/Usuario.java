@@ -1,10 +1,15 @@
 package com.ptwo.testing.model;
 
+import java.util.Objects;
+
 public class Usuario {
     private Long id;
     private String nombre;
     private String email;
     private boolean activo;
+    // Máscara de CampoUsuario con lo cambiado desde que un almacén lo cargó; lo que no viene de un
+    // almacén cuenta como cambiado entero. Sin getter a propósito: no forma parte del JSON
+    private int modificados = CampoUsuario.TODOS;
 
     public Usuario(Long id, String nombre, String email) {
         this.id = id;
@@ -15,12 +20,45 @@ public class Usuario {
 
     public Usuario (){}
 
+    public Usuario(Usuario otro) {
+        this.id = otro.id;
+        this.nombre = otro.nombre;
+        this.email = otro.email;
+        this.activo = otro.activo;
+        this.modificados = otro.modificados;
+    }
+
     public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
+    public void setId(Long id) {
+        // Con otro id ya no es lo que se cargó: el almacén tiene que guardarlo entero
+        if (!Objects.equals(this.id, id)) {
+            modificados = CampoUsuario.TODOS;
+        }
+        this.id = id;
+    }
     public String getNombre() { return nombre; }
-    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setNombre(String nombre) {
+        if (!Objects.equals(this.nombre, nombre)) {
+            modificados |= CampoUsuario.NOMBRE.mascara();
+        }
+        this.nombre = nombre;
+    }
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        if (!Objects.equals(this.email, email)) {
+            modificados |= CampoUsuario.EMAIL.mascara();
+        }
+        this.email = email;
+    }
     public boolean isActivo() { return activo; }
-    public void setActivo(boolean activo) { this.activo = activo; }
-}
\ No newline at end of file
+    public void setActivo(boolean activo) {
+        if (this.activo != activo) {
+            modificados |= CampoUsuario.ACTIVO.mascara();
+        }
+        this.activo = activo;
+    }
+
+    public int camposModificados() { return modificados; }
+    // Lo llama el almacén al cargarlo o guardarlo: desde aquí solo cuenta lo que cambie después
+    public void olvidarModificaciones() { modificados = 0; }
+}
@@ -0,0 +1,172 @@
+package com.ptwo.testing.programacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Registro de solo anexado de los temporizadores pendientes: [byte tipo][long id][long vencimiento][int crc].
+// Las escrituras se acumulan en un buffer y llegan al disco con sincronizar(); una caída pierde
+// como mucho lo anexado desde la última sincronización. Cuando los registros superan al doble de
+// los temporizadores vivos, el archivo se reescribe solo con estos.
+public class RegistroTemporizadores implements AutoCloseable {
+    private static final byte PROGRAMADO = 1;
+    private static final byte RETIRADO = 2;
+    private static final int CONTENIDO = 1 + Long.BYTES * 2;
+    private static final int REGISTRO = CONTENIDO + Integer.BYTES;
+    private static final int MINIMO_PARA_COMPACTAR = 1024;
+
+    private final Path archivo;
+    private final ByteBuffer pendiente = ByteBuffer.allocate(REGISTRO * 4096);
+    private final Map<Long, Long> recuperados = new HashMap<>();
+    private FileChannel canal;
+    private long registros;
+
+    public RegistroTemporizadores(Path archivo) {
+        this.archivo = archivo;
+        try {
+            Files.createDirectories(archivo.toAbsolutePath().getParent());
+            canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            recuperar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de temporizadores " + archivo, e);
+        }
+    }
+
+    // Temporizadores pendientes al abrir: id -> vencimiento en milisegundos
+    public Map<Long, Long> recuperados() {
+        return recuperados;
+    }
+
+    public synchronized void programado(long id, long vencimientoMillis) {
+        anexar(PROGRAMADO, id, vencimientoMillis);
+    }
+
+    public synchronized void retirado(long id) {
+        anexar(RETIRADO, id, 0);
+    }
+
+    public synchronized void sincronizar() {
+        try {
+            vaciar();
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sincronizar " + archivo, e);
+        }
+    }
+
+    public synchronized boolean necesitaCompactar(int vivos) {
+        return registros > MINIMO_PARA_COMPACTAR && registros > 2L * vivos;
+    }
+
+    // Escribe los vivos en un archivo nuevo y lo cambia por el actual de forma atómica
+    public synchronized void compactar(Map<Long, Long> vivos) {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            vaciar();
+            try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<Long, Long> vivo : vivos.entrySet()) {
+                    codificar(PROGRAMADO, vivo.getKey(), vivo.getValue());
+                    if (pendiente.remaining() < REGISTRO) {
+                        escribir(nuevo);
+                    }
+                }
+                escribir(nuevo);
+                nuevo.force(false);
+            }
+            canal.close();
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            registros = vivos.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo compactar " + archivo, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            vaciar();
+            canal.force(false);
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void anexar(byte tipo, long id, long vencimientoMillis) {
+        codificar(tipo, id, vencimientoMillis);
+        registros++;
+        if (pendiente.remaining() < REGISTRO) {
+            try {
+                vaciar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo escribir en " + archivo, e);
+            }
+        }
+    }
+
+    private void codificar(byte tipo, long id, long vencimientoMillis) {
+        int inicio = pendiente.position();
+        pendiente.put(tipo).putLong(id).putLong(vencimientoMillis);
+        CRC32C crc = new CRC32C();
+        crc.update(pendiente.array(), inicio, CONTENIDO);
+        pendiente.putInt((int) crc.getValue());
+    }
+
+    private void vaciar() throws IOException {
+        escribir(canal);
+    }
+
+    private void escribir(FileChannel destino) throws IOException {
+        pendiente.flip();
+        long posicion = destino.size();
+        while (pendiente.hasRemaining()) {
+            posicion += destino.write(pendiente, posicion);
+        }
+        pendiente.clear();
+    }
+
+    private void recuperar() throws IOException {
+        ByteBuffer lectura = ByteBuffer.allocate(REGISTRO * 4096);
+        long posicion = 0;
+        long valido = 0;
+        CRC32C crc = new CRC32C();
+        int leidos;
+        while ((leidos = canal.read(lectura, posicion)) > 0) {
+            posicion += leidos;
+            lectura.flip();
+            while (lectura.remaining() >= REGISTRO) {
+                int inicio = lectura.position();
+                crc.reset();
+                crc.update(lectura.array(), inicio, CONTENIDO);
+                byte tipo = lectura.get();
+                long id = lectura.getLong();
+                long vencimiento = lectura.getLong();
+                if ((int) crc.getValue() != lectura.getInt() || (tipo != PROGRAMADO && tipo != RETIRADO)) {
+                    canal.truncate(valido);
+                    return;
+                }
+                if (tipo == PROGRAMADO) {
+                    recuperados.put(id, vencimiento);
+                } else {
+                    recuperados.remove(id);
+                }
+                registros++;
+                valido += REGISTRO;
+            }
+            lectura.compact();
+        }
+        // Lo que queda tras el último registro completo es una escritura interrumpida
+        canal.truncate(valido);
+    }
+}
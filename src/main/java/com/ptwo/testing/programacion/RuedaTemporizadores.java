@@ -0,0 +1,151 @@
+package com.ptwo.testing.programacion;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Rueda de temporizadores jerárquica: NIVELES ruedas de 256 ranuras, donde una ranura del nivel n
+// abarca 256^n ticks. Un temporizador va al nivel más bajo cuyo bloque contiene ya el tick actual,
+// y baja de nivel cuando el tick actual llega al inicio de su ranura. Programar cuesta O(1) y cada
+// temporizador ocupa dos long en los arrays de su ranura, sin un objeto por temporizador.
+// Sin sincronización: la usa un solo hilo o el llamante bajo su lock.
+public class RuedaTemporizadores {
+    private static final int BITS = 8;
+    private static final int RANURAS = 1 << BITS;
+    private static final int NIVELES = 4;
+
+    private final long resolucionMillis;
+    private final Ranura[][] niveles = new Ranura[NIVELES][RANURAS];
+    // Más allá del último nivel (unos 13 años con ticks de 100 ms); se recolocan al dar la vuelta
+    private final Ranura lejanos = new Ranura();
+    private final Ranura vencidos = new Ranura();
+    private long tickActual;
+    private long pendientes;
+
+    public RuedaTemporizadores(Duration resolucion, long ahoraMillis) {
+        if (resolucion.toMillis() <= 0) {
+            throw new IllegalArgumentException("La resolución debe ser de al menos 1 ms");
+        }
+        this.resolucionMillis = resolucion.toMillis();
+        this.tickActual = Math.floorDiv(ahoraMillis, resolucionMillis);
+        for (Ranura[] nivel : niveles) {
+            for (int i = 0; i < RANURAS; i++) {
+                nivel[i] = new Ranura();
+            }
+        }
+    }
+
+    // Un vencimiento ya pasado se entrega en el siguiente avanzar
+    public void programar(long id, long vencimientoMillis) {
+        colocar(id, Math.floorDiv(vencimientoMillis + resolucionMillis - 1, resolucionMillis));
+        pendientes++;
+    }
+
+    // Avanza hasta ahoraMillis y entrega los ids vencidos en tandas de como mucho tamanoLote;
+    // devuelve cuántos entregó
+    public int avanzar(long ahoraMillis, int tamanoLote, Consumer<long[]> destino) {
+        long objetivo = Math.floorDiv(ahoraMillis, resolucionMillis);
+        while (tickActual < objetivo) {
+            tickActual++;
+            if ((tickActual & mascara(NIVELES)) == 0) {
+                recolocar(lejanos);
+            }
+            for (int nivel = NIVELES - 1; nivel >= 1; nivel--) {
+                if ((tickActual & mascara(nivel)) == 0) {
+                    recolocar(niveles[nivel][ranura(tickActual, nivel)]);
+                }
+            }
+            Ranura ranura = niveles[0][ranura(tickActual, 0)];
+            for (int i = 0; i < ranura.n; i++) {
+                vencidos.agregar(ranura.ids[i], ranura.ticks[i]);
+            }
+            ranura.vaciar();
+        }
+        // Se vacía antes de entregar: el destino puede volver a programar
+        long[] ids = vencidos.ids;
+        int entregados = vencidos.n;
+        vencidos.vaciar();
+        pendientes -= entregados;
+        for (int desde = 0; desde < entregados; desde += tamanoLote) {
+            destino.accept(Arrays.copyOfRange(ids, desde, Math.min(entregados, desde + tamanoLote)));
+        }
+        return entregados;
+    }
+
+    public long pendientes() {
+        return pendientes;
+    }
+
+    // Olvida todos los temporizadores sin mover el tick actual; el llamante vuelve a programar los que sigan vivos
+    public void vaciar() {
+        for (Ranura[] nivel : niveles) {
+            for (Ranura ranura : nivel) {
+                ranura.vaciar();
+            }
+        }
+        lejanos.vaciar();
+        vencidos.vaciar();
+        pendientes = 0;
+    }
+
+    private void colocar(long id, long tick) {
+        if (tick <= tickActual) {
+            vencidos.agregar(id, tick);
+            return;
+        }
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            int desplazamiento = BITS * (nivel + 1);
+            if ((tick >>> desplazamiento) == (tickActual >>> desplazamiento)) {
+                niveles[nivel][ranura(tick, nivel)].agregar(id, tick);
+                return;
+            }
+        }
+        lejanos.agregar(id, tick);
+    }
+
+    private void recolocar(Ranura ranura) {
+        if (ranura.n == 0) {
+            return;
+        }
+        long[] ids = ranura.ids;
+        long[] ticks = ranura.ticks;
+        int n = ranura.n;
+        ranura.vaciar();
+        for (int i = 0; i < n; i++) {
+            colocar(ids[i], ticks[i]);
+        }
+    }
+
+    private static long mascara(int nivel) {
+        return (1L << (BITS * nivel)) - 1;
+    }
+
+    private static int ranura(long tick, int nivel) {
+        return (int) (tick >>> (BITS * nivel)) & (RANURAS - 1);
+    }
+
+    private static final class Ranura {
+        private static final long[] VACIO = new long[0];
+
+        long[] ids = VACIO;
+        long[] ticks = VACIO;
+        int n;
+
+        void agregar(long id, long tick) {
+            if (n == ids.length) {
+                int capacidad = Math.max(8, n * 2);
+                ids = Arrays.copyOf(ids, capacidad);
+                ticks = Arrays.copyOf(ticks, capacidad);
+            }
+            ids[n] = id;
+            ticks[n++] = tick;
+        }
+
+        // Suelta los arrays: una ranura que ya venció no retiene memoria hasta la siguiente vuelta
+        void vaciar() {
+            ids = VACIO;
+            ticks = VACIO;
+            n = 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ptwo.testing.protocolo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+// Acumula marcos de salida y los envía de una vez; crece si un marco no cabe
+final class BufferSalida {
+    private ByteBuffer buffer;
+    private int inicioMarco = -1;
+
+    BufferSalida(int capacidad) {
+        this.buffer = ByteBuffer.allocate(capacidad);
+    }
+
+    BufferSalida comenzarMarco(byte operacion, int correlacion) {
+        inicioMarco = buffer.position();
+        return putInt(0).put(operacion).putInt(correlacion);
+    }
+
+    void terminarMarco() {
+        buffer.putInt(inicioMarco, buffer.position() - inicioMarco - Integer.BYTES);
+        inicioMarco = -1;
+    }
+
+    // Deshace el marco a medias, p. ej. para responder ERROR en su lugar
+    void descartarMarco() {
+        if (inicioMarco >= 0) {
+            buffer.position(inicioMarco);
+            inicioMarco = -1;
+        }
+    }
+
+    BufferSalida put(byte valor) {
+        reservar(1).put(valor);
+        return this;
+    }
+
+    BufferSalida putInt(int valor) {
+        reservar(Integer.BYTES).putInt(valor);
+        return this;
+    }
+
+    BufferSalida putLong(long valor) {
+        reservar(Long.BYTES).putLong(valor);
+        return this;
+    }
+
+    BufferSalida texto(String texto) {
+        if (texto == null) {
+            return putInt(-1);
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        reservar(bytes.length).put(bytes);
+        return this;
+    }
+
+    boolean vacio() {
+        return buffer.position() == 0;
+    }
+
+    void vaciar(SocketChannel canal) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private ByteBuffer reservar(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer ampliado = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            ampliado.put(buffer);
+            buffer = ampliado;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,164 @@
+package com.ptwo.testing.protocolo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.ptwo.testing.model.Usuario;
+
+// Cliente de ServidorBinario para una conexión. Los métodos envían la petición y vuelven en
+// seguida; un hilo lector completa cada futuro al llegar su respuesta, así que se pueden lanzar
+// muchas peticiones seguidas sobre la misma conexión sin esperar a las anteriores.
+// Admite llamadas desde varios hilos.
+public class ClienteBinario implements AutoCloseable {
+    private static final int BUFFER = 64 * 1024;
+
+    private final SocketChannel canal;
+    private final BufferSalida salida = new BufferSalida(BUFFER);
+    private final ConcurrentHashMap<Integer, Pendiente<?>> pendientes = new ConcurrentHashMap<>();
+    private final AtomicInteger correlaciones = new AtomicInteger();
+    private final Thread lector;
+    private volatile IOException caida;
+
+    public ClienteBinario(InetSocketAddress direccion) {
+        try {
+            this.canal = SocketChannel.open(direccion);
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo conectar con " + direccion, e);
+        }
+        this.lector = Thread.ofVirtual().name("cliente-binario-lector").start(this::leer);
+    }
+
+    public CompletableFuture<List<Optional<Usuario>>> obtener(long... ids) {
+        return enviar(ProtocoloBinario.OBTENER, salida -> {
+            salida.putInt(ids.length);
+            for (long id : ids) {
+                salida.putLong(id);
+            }
+        }, respuesta -> {
+            int n = respuesta.getInt();
+            List<Optional<Usuario>> usuarios = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                usuarios.add(respuesta.get() == 0
+                        ? Optional.empty()
+                        : Optional.of(ProtocoloBinario.leerUsuario(respuesta)));
+            }
+            return usuarios;
+        });
+    }
+
+    public CompletableFuture<List<ResultadoAlta>> crear(List<Usuario> usuarios) {
+        return enviar(ProtocoloBinario.CREAR, salida -> {
+            salida.putInt(usuarios.size());
+            for (Usuario usuario : usuarios) {
+                ProtocoloBinario.escribirUsuario(salida, usuario);
+            }
+        }, respuesta -> {
+            int n = respuesta.getInt();
+            List<ResultadoAlta> resultados = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                resultados.add(respuesta.get() == 1
+                        ? new ResultadoAlta(respuesta.getLong(), null)
+                        : new ResultadoAlta(null, ProtocoloBinario.leerTexto(respuesta)));
+            }
+            return resultados;
+        });
+    }
+
+    // Un error por id, null para los que se desactivaron (o no existían)
+    public CompletableFuture<List<String>> desactivar(long... ids) {
+        return enviar(ProtocoloBinario.DESACTIVAR, salida -> {
+            salida.putInt(ids.length);
+            for (long id : ids) {
+                salida.putLong(id);
+            }
+        }, respuesta -> {
+            int n = respuesta.getInt();
+            List<String> errores = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                errores.add(respuesta.get() == 1 ? null : ProtocoloBinario.leerTexto(respuesta));
+            }
+            return errores;
+        });
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        canal.close();
+        lector.join();
+    }
+
+    private <T> CompletableFuture<T> enviar(byte operacion, Consumer<BufferSalida> cuerpo,
+                                            Function<ByteBuffer, T> decodificador) {
+        int correlacion = correlaciones.incrementAndGet();
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        pendientes.put(correlacion, new Pendiente<>(futuro, decodificador));
+        try {
+            synchronized (salida) {
+                salida.comenzarMarco(operacion, correlacion);
+                cuerpo.accept(salida);
+                salida.terminarMarco();
+                salida.vaciar(canal);
+            }
+        } catch (IOException e) {
+            pendientes.remove(correlacion);
+            futuro.completeExceptionally(new UncheckedIOException(e));
+        }
+        // Si el lector ya terminó, nadie completaría este futuro
+        if (caida != null && pendientes.remove(correlacion) != null) {
+            futuro.completeExceptionally(new UncheckedIOException(caida));
+        }
+        return futuro;
+    }
+
+    private void leer() {
+        LectorMarcos marcos = new LectorMarcos(canal, BUFFER);
+        try {
+            ByteBuffer marco;
+            while ((marco = marcos.siguiente()) != null) {
+                byte operacion = marco.get();
+                Pendiente<?> pendiente = pendientes.remove(marco.getInt());
+                if (pendiente == null) {
+                    continue;
+                }
+                if (operacion == ProtocoloBinario.ERROR) {
+                    pendiente.futuro().completeExceptionally(
+                            new IllegalStateException("Error del servidor: " + ProtocoloBinario.leerTexto(marco)));
+                } else {
+                    pendiente.completar(marco);
+                }
+            }
+            caida = new IOException("El servidor cerró la conexión");
+        } catch (IOException e) {
+            caida = e;
+        }
+        for (Integer correlacion : pendientes.keySet()) {
+            Pendiente<?> pendiente = pendientes.remove(correlacion);
+            if (pendiente != null) {
+                pendiente.futuro().completeExceptionally(new UncheckedIOException(caida));
+            }
+        }
+    }
+
+    private record Pendiente<T>(CompletableFuture<T> futuro, Function<ByteBuffer, T> decodificador) {
+        void completar(ByteBuffer respuesta) {
+            try {
+                futuro.complete(decodificador.apply(respuesta));
+            } catch (RuntimeException e) {
+                futuro.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ptwo.testing.protocolo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Trocea en marcos lo que llega por un canal bloqueante. Cada lectura trae tantos bytes como
+// haya disponibles, de modo que varias peticiones encadenadas se procesan con una sola llamada
+final class LectorMarcos {
+    private final SocketChannel canal;
+    // Entre llamadas está en modo lectura: [position, limit) son los bytes aún sin consumir
+    private ByteBuffer entrada;
+
+    LectorMarcos(SocketChannel canal, int capacidad) {
+        this.canal = canal;
+        this.entrada = ByteBuffer.allocate(capacidad).flip();
+    }
+
+    // El marco devuelto (sin el prefijo de longitud) es válido hasta la siguiente llamada; null al cerrarse el canal
+    ByteBuffer siguiente() throws IOException {
+        while (!hayMarcoCompleto()) {
+            if (!leerMas()) {
+                return null;
+            }
+        }
+        int longitud = entrada.getInt();
+        ByteBuffer marco = entrada.slice(entrada.position(), longitud);
+        entrada.position(entrada.position() + longitud);
+        return marco;
+    }
+
+    boolean hayMarcoCompleto() throws IOException {
+        if (entrada.remaining() < Integer.BYTES) {
+            return false;
+        }
+        int longitud = entrada.getInt(entrada.position());
+        if (longitud < ProtocoloBinario.CABECERA || longitud > ProtocoloBinario.MAX_MARCO) {
+            throw new IOException("Longitud de marco inválida: " + longitud);
+        }
+        return entrada.remaining() >= Integer.BYTES + longitud;
+    }
+
+    private boolean leerMas() throws IOException {
+        entrada.compact();
+        if (!entrada.hasRemaining()) {
+            ByteBuffer ampliada = ByteBuffer.allocate(entrada.capacity() * 2);
+            entrada.flip();
+            ampliada.put(entrada);
+            entrada = ampliada;
+        }
+        int leidos = canal.read(entrada);
+        entrada.flip();
+        return leidos >= 0;
+    }
+}
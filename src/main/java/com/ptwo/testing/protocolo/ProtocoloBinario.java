@@ -0,0 +1,73 @@
+package com.ptwo.testing.protocolo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.ptwo.testing.model.Usuario;
+
+// Protocolo binario de ServidorBinario. Cada marco es [int longitud][byte operación][int correlación][cuerpo],
+// donde la longitud cuenta lo que la sigue. La respuesta lleva la misma operación y correlación que la
+// petición (o ERROR con un texto) y las respuestas de una conexión salen en el orden de las peticiones,
+// así que el cliente puede encadenar peticiones sin esperar.
+//   OBTENER     [int n][long id]*n            -> [int n]([byte 0] | [byte 1][usuario])*n
+//   CREAR       [int n][usuario]*n            -> [int n]([byte 1][long id] | [byte 0][texto error])*n
+//   DESACTIVAR  [int n][long id]*n            -> [int n]([byte 1] | [byte 0][texto error])*n
+// Un marco mal formado recibe ERROR sin que se haya aplicado nada; un fallo del servicio con
+// un elemento solo marca ese elemento, y los demás del lote se aplican igual.
+// usuario: [byte 1 = tiene id | 2 = activo][long id][texto nombre][texto email]
+// texto: [int longitud, -1 = null][UTF-8]
+public final class ProtocoloBinario {
+    public static final byte OBTENER = 1;
+    public static final byte CREAR = 2;
+    public static final byte DESACTIVAR = 3;
+    public static final byte ERROR = 0x7F;
+
+    static final int MAX_MARCO = 16 << 20;
+    static final int CABECERA = 1 + Integer.BYTES;
+
+    private static final byte CON_ID = 1;
+    private static final byte ACTIVO = 2;
+
+    private ProtocoloBinario() {
+    }
+
+    static void escribirUsuario(BufferSalida salida, Usuario usuario) {
+        byte marcas = (byte) ((usuario.getId() != null ? CON_ID : 0) | (usuario.isActivo() ? ACTIVO : 0));
+        salida.put(marcas).putLong(usuario.getId() == null ? 0 : usuario.getId());
+        salida.texto(usuario.getNombre()).texto(usuario.getEmail());
+    }
+
+    static Usuario leerUsuario(ByteBuffer origen) {
+        byte marcas = origen.get();
+        long id = origen.getLong();
+        Usuario usuario = new Usuario();
+        usuario.setId((marcas & CON_ID) != 0 ? id : null);
+        usuario.setActivo((marcas & ACTIVO) != 0);
+        usuario.setNombre(leerTexto(origen));
+        usuario.setEmail(leerTexto(origen));
+        return usuario;
+    }
+
+    static String leerTexto(ByteBuffer origen) {
+        int longitud = origen.getInt();
+        if (longitud < 0) {
+            return null;
+        }
+        if (longitud > origen.remaining()) {
+            throw new IllegalArgumentException("Texto de " + longitud + " bytes fuera del marco");
+        }
+        String texto = new String(origen.array(), origen.arrayOffset() + origen.position(), longitud,
+                StandardCharsets.UTF_8);
+        origen.position(origen.position() + longitud);
+        return texto;
+    }
+
+    // Un n que no cabe en lo que queda del marco es un marco mal formado, no una reserva enorme
+    static int leerCuenta(ByteBuffer origen, int bytesMinimosPorElemento) {
+        int n = origen.getInt();
+        if (n < 0 || (long) n * bytesMinimosPorElemento > origen.remaining()) {
+            throw new IllegalArgumentException("Número de elementos inválido: " + n);
+        }
+        return n;
+    }
+}
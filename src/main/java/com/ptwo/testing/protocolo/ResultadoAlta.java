@@ -0,0 +1,9 @@
+package com.ptwo.testing.protocolo;
+
+// Resultado de cada usuario de un CREAR: el id asignado o el motivo del rechazo
+public record ResultadoAlta(Long id, String error) {
+
+    public boolean correcto() {
+        return error == null;
+    }
+}
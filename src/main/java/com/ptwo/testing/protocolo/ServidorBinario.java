@@ -0,0 +1,175 @@
+package com.ptwo.testing.protocolo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.service.UsuarioService;
+
+// Punto de entrada binario junto a la API REST (ver ProtocoloBinario). Un hilo virtual por conexión
+// sobre canales NIO bloqueantes: lee todos los marcos que hayan llegado, los atiende en orden y
+// envía las respuestas juntas, así una ráfaga de peticiones encadenadas cuesta una escritura.
+public class ServidorBinario implements AutoCloseable {
+    private static final int BUFFER = 64 * 1024;
+
+    private final UsuarioService usuarioService;
+    private final ServerSocketChannel canal;
+    private final Set<SocketChannel> conexiones = ConcurrentHashMap.newKeySet();
+    private final Thread aceptador;
+    private final LongAdder marcos = new LongAdder();
+    private volatile boolean cerrado;
+
+    public ServidorBinario(UsuarioService usuarioService, InetSocketAddress direccion) {
+        this.usuarioService = usuarioService;
+        try {
+            this.canal = ServerSocketChannel.open().bind(direccion);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escuchar en " + direccion, e);
+        }
+        this.aceptador = Thread.ofPlatform().name("protocolo-binario").daemon().start(this::aceptar);
+    }
+
+    public InetSocketAddress direccion() {
+        try {
+            return (InetSocketAddress) canal.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long marcosAtendidos() {
+        return marcos.sum();
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        cerrado = true;
+        canal.close();
+        for (SocketChannel conexion : conexiones) {
+            conexion.close();
+        }
+        aceptador.join();
+    }
+
+    private void aceptar() {
+        while (!cerrado) {
+            try {
+                SocketChannel conexion = canal.accept();
+                conexion.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                conexiones.add(conexion);
+                Thread.ofVirtual().name("protocolo-binario-conexion").start(() -> atender(conexion));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (cerrado) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void atender(SocketChannel conexion) {
+        LectorMarcos lector = new LectorMarcos(conexion, BUFFER);
+        BufferSalida salida = new BufferSalida(BUFFER);
+        try (conexion) {
+            ByteBuffer marco;
+            while ((marco = lector.siguiente()) != null) {
+                atender(marco, salida);
+                marcos.increment();
+                if (!lector.hayMarcoCompleto()) {
+                    salida.vaciar(conexion);
+                }
+            }
+        } catch (IOException e) {
+            // Conexión cerrada o marco ilegible: no hay a quién responder
+        } finally {
+            conexiones.remove(conexion);
+        }
+    }
+
+    private void atender(ByteBuffer marco, BufferSalida salida) {
+        byte operacion = marco.get();
+        int correlacion = marco.getInt();
+        try {
+            salida.comenzarMarco(operacion, correlacion);
+            switch (operacion) {
+                case ProtocoloBinario.OBTENER -> obtener(marco, salida);
+                case ProtocoloBinario.CREAR -> crear(marco, salida);
+                case ProtocoloBinario.DESACTIVAR -> desactivar(marco, salida);
+                default -> throw new IllegalArgumentException("Operación desconocida: " + operacion);
+            }
+            salida.terminarMarco();
+        } catch (RuntimeException e) {
+            salida.descartarMarco();
+            salida.comenzarMarco(ProtocoloBinario.ERROR, correlacion).texto(mensaje(e));
+            salida.terminarMarco();
+        }
+    }
+
+    private void obtener(ByteBuffer marco, BufferSalida salida) {
+        int n = ProtocoloBinario.leerCuenta(marco, Long.BYTES);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = marco.getLong();
+        }
+        salida.putInt(n);
+        for (Optional<Usuario> usuario : usuarioService.obtenerUsuarios(ids)) {
+            if (usuario.isPresent()) {
+                ProtocoloBinario.escribirUsuario(salida.put((byte) 1), usuario.get());
+            } else {
+                salida.put((byte) 0);
+            }
+        }
+    }
+
+    // Primero se lee el marco entero: uno mal formado se rechaza sin haber dado de alta a nadie.
+    // Después cada alta se resuelve por separado: un email inválido o un almacén caído a mitad
+    // del lote fallan esa alta, y la respuesta dice cuáles de las anteriores ya quedaron hechas
+    private void crear(ByteBuffer marco, BufferSalida salida) {
+        int n = ProtocoloBinario.leerCuenta(marco, 1 + Long.BYTES + 2 * Integer.BYTES);
+        Usuario[] altas = new Usuario[n];
+        for (int i = 0; i < n; i++) {
+            altas[i] = ProtocoloBinario.leerUsuario(marco);
+        }
+        salida.putInt(n);
+        for (Usuario alta : altas) {
+            try {
+                Usuario creado = usuarioService.crearUsuario(new Usuario(alta.getId(), alta.getNombre(), alta.getEmail()));
+                salida.put((byte) 1).putLong(creado.getId());
+            } catch (RuntimeException e) {
+                salida.put((byte) 0).texto(mensaje(e));
+            }
+        }
+    }
+
+    private void desactivar(ByteBuffer marco, BufferSalida salida) {
+        int n = ProtocoloBinario.leerCuenta(marco, Long.BYTES);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = marco.getLong();
+        }
+        salida.putInt(n);
+        for (long id : ids) {
+            try {
+                usuarioService.desactivarUsuario(id);
+                salida.put((byte) 1);
+            } catch (RuntimeException e) {
+                salida.put((byte) 0).texto(mensaje(e));
+            }
+        }
+    }
+
+    private static String mensaje(RuntimeException e) {
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+}
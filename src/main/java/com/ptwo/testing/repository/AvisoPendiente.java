@@ -0,0 +1,12 @@
+package com.ptwo.testing.repository;
+
+import com.ptwo.testing.model.Usuario;
+
+// Aviso de la bandeja de salida con el estado del usuario en el momento de la escritura
+public record AvisoPendiente(long clave, TipoAviso tipo, Usuario usuario) {
+
+    // Estable entre reintentos y reinicios: el receptor la usa para descartar duplicados
+    public String claveIdempotencia() {
+        return "aviso-" + clave;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ptwo.testing.repository;
+
+import java.util.List;
+
+// Avisos escritos junto con el usuario (saveConAviso) a la espera de que el repartidor los entregue
+public interface BandejaSalida {
+    // Los más antiguos primero
+    List<AvisoPendiente> avisosPendientes(int maximo);
+
+    void confirmarEntregados(List<Long> claves);
+}
@@ -0,0 +1,272 @@
+package com.ptwo.testing.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ptwo.testing.model.CampoUsuario;
+import com.ptwo.testing.model.Usuario;
+
+// Formato binario compartido por los almacenes persistente y off-heap:
+// [byte tipo][long id][byte activo][short longitud + UTF-8 nombre][short longitud + UTF-8 email]
+// Una longitud de -1 representa un texto null.
+// USUARIO_CON_AVISO añade [long clave][byte tipo de aviso] tras el email, de modo que usuario
+// y aviso de la bandeja de salida se escriben en un único registro; AVISOS_ENTREGADOS es
+// [byte tipo][int n][long clave]*n. AVISO tiene el formato de USUARIO_CON_AVISO pero solo aporta el
+// aviso: es lo que la compactación conserva de un aviso pendiente cuyo usuario ya se sobrescribió.
+// DELTAS es [byte tipo][int n] seguido de n entradas [varint id][byte máscara de CampoUsuario] con
+// solo los campos de la máscara, en el orden activo, nombre, email: cambiar un campo de un usuario
+// ya guardado cuesta unos pocos bytes en lugar del registro completo.
+// MARCAS es [byte tipo][long último id][long última clave de aviso]: la compactación lo escribe
+// antes de borrar un segmento, para que los máximos no dependan de los registros que se lleva.
+final class CodificadorUsuario {
+    static final byte USUARIO = 1;
+    static final byte BORRADO = 2;
+    static final byte USUARIO_CON_AVISO = 3;
+    static final byte AVISOS_ENTREGADOS = 4;
+    static final byte AVISO = 5;
+    static final byte DELTAS = 6;
+    static final byte MARCAS = 7;
+
+    static final int CABECERA = 1 + Long.BYTES;
+    static final int CABECERA_DELTAS = 1 + Integer.BYTES;
+
+    private CodificadorUsuario() {
+    }
+
+    static byte[] codificar(Usuario usuario) {
+        byte[] nombre = bytes(usuario.getNombre());
+        byte[] email = bytes(usuario.getEmail());
+        ByteBuffer destino = ByteBuffer.allocate(CABECERA + 1 + longitudTexto(nombre) + longitudTexto(email));
+        destino.put(USUARIO).putLong(usuario.getId()).put((byte) (usuario.isActivo() ? 1 : 0));
+        escribirTexto(destino, nombre);
+        escribirTexto(destino, email);
+        return destino.array();
+    }
+
+    static byte[] codificarConAviso(Usuario usuario, long clave, TipoAviso aviso) {
+        byte[] registro = codificar(usuario);
+        ByteBuffer destino = ByteBuffer.allocate(registro.length + Long.BYTES + 1);
+        destino.put(registro).putLong(clave).put((byte) aviso.ordinal());
+        destino.put(0, USUARIO_CON_AVISO);
+        return destino.array();
+    }
+
+    static byte[] codificarEntregados(List<Long> claves) {
+        ByteBuffer destino = ByteBuffer.allocate(1 + Integer.BYTES + claves.size() * Long.BYTES);
+        destino.put(AVISOS_ENTREGADOS).putInt(claves.size());
+        for (long clave : claves) {
+            destino.putLong(clave);
+        }
+        return destino.array();
+    }
+
+    static byte[] codificarBorrado(long id) {
+        return ByteBuffer.allocate(CABECERA).put(BORRADO).putLong(id).array();
+    }
+
+    static byte[] codificarMarcas(long ultimoId, long ultimaClave) {
+        return ByteBuffer.allocate(1 + Long.BYTES * 2).put(MARCAS).putLong(ultimoId).putLong(ultimaClave).array();
+    }
+
+    static byte[] codificarDelta(Usuario usuario, int mascara) {
+        byte[] nombre = CampoUsuario.NOMBRE.en(mascara) ? bytes(usuario.getNombre()) : null;
+        byte[] email = CampoUsuario.EMAIL.en(mascara) ? bytes(usuario.getEmail()) : null;
+        int longitud = longitudVarint(usuario.getId()) + 1
+                + (CampoUsuario.ACTIVO.en(mascara) ? 1 : 0)
+                + (CampoUsuario.NOMBRE.en(mascara) ? longitudTexto(nombre) : 0)
+                + (CampoUsuario.EMAIL.en(mascara) ? longitudTexto(email) : 0);
+        ByteBuffer destino = ByteBuffer.allocate(longitud);
+        escribirVarint(destino, usuario.getId());
+        destino.put((byte) mascara);
+        if (CampoUsuario.ACTIVO.en(mascara)) {
+            destino.put((byte) (usuario.isActivo() ? 1 : 0));
+        }
+        if (CampoUsuario.NOMBRE.en(mascara)) {
+            escribirTexto(destino, nombre);
+        }
+        if (CampoUsuario.EMAIL.en(mascara)) {
+            escribirTexto(destino, email);
+        }
+        return destino.array();
+    }
+
+    static byte[] codificarDeltas(List<byte[]> entradas) {
+        int longitud = CABECERA_DELTAS;
+        for (byte[] entrada : entradas) {
+            longitud += entrada.length;
+        }
+        ByteBuffer destino = ByteBuffer.allocate(longitud);
+        destino.put(DELTAS).putInt(entradas.size());
+        for (byte[] entrada : entradas) {
+            destino.put(entrada);
+        }
+        return destino.array();
+    }
+
+    static byte[] comoAviso(byte[] conAviso) {
+        byte[] aviso = conAviso.clone();
+        aviso[0] = AVISO;
+        return aviso;
+    }
+
+    // El usuario de un USUARIO_CON_AVISO, sin el aviso
+    static byte[] sinAviso(byte[] conAviso) {
+        byte[] usuario = Arrays.copyOf(conAviso, finUsuario(ByteBuffer.wrap(conAviso), 0));
+        usuario[0] = USUARIO;
+        return usuario;
+    }
+
+    static byte tipo(ByteBuffer origen, int posicion) {
+        return origen.get(posicion);
+    }
+
+    static long id(ByteBuffer origen, int posicion) {
+        return origen.getLong(posicion + 1);
+    }
+
+    // Lectura con índices absolutos: no modifica la posición del buffer
+    static Usuario decodificar(ByteBuffer origen, int posicion) {
+        Usuario usuario = new Usuario();
+        usuario.setId(origen.getLong(posicion + 1));
+        usuario.setActivo(origen.get(posicion + CABECERA) != 0);
+        int cursor = posicion + CABECERA + 1;
+        short longitudNombre = origen.getShort(cursor);
+        usuario.setNombre(leerTexto(origen, cursor));
+        cursor += Short.BYTES + Math.max(0, longitudNombre);
+        usuario.setEmail(leerTexto(origen, cursor));
+        usuario.olvidarModificaciones();
+        return usuario;
+    }
+
+    static AvisoPendiente decodificarAviso(ByteBuffer origen, int posicion) {
+        Usuario usuario = decodificar(origen, posicion);
+        int cursor = finUsuario(origen, posicion);
+        return new AvisoPendiente(origen.getLong(cursor), TipoAviso.values()[origen.get(cursor + Long.BYTES)], usuario);
+    }
+
+    static long claveAviso(ByteBuffer origen, int posicion) {
+        return origen.getLong(finUsuario(origen, posicion));
+    }
+
+    static long ultimaClaveMarcas(ByteBuffer origen, int posicion) {
+        return origen.getLong(posicion + CABECERA);
+    }
+
+    static long[] decodificarEntregados(ByteBuffer origen, int posicion) {
+        long[] claves = new long[origen.getInt(posicion + 1)];
+        for (int i = 0; i < claves.length; i++) {
+            claves[i] = origen.getLong(posicion + 1 + Integer.BYTES + i * Long.BYTES);
+        }
+        return claves;
+    }
+
+    static int numeroDeltas(ByteBuffer origen, int posicion) {
+        return origen.getInt(posicion + 1);
+    }
+
+    static long idDelta(ByteBuffer origen, int posicion) {
+        long valor = 0;
+        for (int desplazamiento = 0; ; desplazamiento += 7) {
+            byte b = origen.get(posicion++);
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+    }
+
+    static int longitudDelta(ByteBuffer origen, int posicion) {
+        int cursor = finVarint(origen, posicion);
+        int mascara = origen.get(cursor++);
+        if (CampoUsuario.ACTIVO.en(mascara)) {
+            cursor++;
+        }
+        if (CampoUsuario.NOMBRE.en(mascara)) {
+            cursor += Short.BYTES + Math.max(0, origen.getShort(cursor));
+        }
+        if (CampoUsuario.EMAIL.en(mascara)) {
+            cursor += Short.BYTES + Math.max(0, origen.getShort(cursor));
+        }
+        return cursor - posicion;
+    }
+
+    // Aplica sobre el usuario los campos de la entrada; el resto queda como estaba
+    static void aplicarDelta(ByteBuffer origen, int posicion, Usuario usuario) {
+        int cursor = finVarint(origen, posicion);
+        int mascara = origen.get(cursor++);
+        if (CampoUsuario.ACTIVO.en(mascara)) {
+            usuario.setActivo(origen.get(cursor++) != 0);
+        }
+        if (CampoUsuario.NOMBRE.en(mascara)) {
+            usuario.setNombre(leerTexto(origen, cursor));
+            cursor += Short.BYTES + Math.max(0, origen.getShort(cursor));
+        }
+        if (CampoUsuario.EMAIL.en(mascara)) {
+            usuario.setEmail(leerTexto(origen, cursor));
+        }
+    }
+
+    private static int finVarint(ByteBuffer origen, int posicion) {
+        while (origen.get(posicion) < 0) {
+            posicion++;
+        }
+        return posicion + 1;
+    }
+
+    private static int longitudVarint(long valor) {
+        int longitud = 1;
+        while ((valor >>>= 7) != 0) {
+            longitud++;
+        }
+        return longitud;
+    }
+
+    private static void escribirVarint(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    private static int finUsuario(ByteBuffer origen, int posicion) {
+        int cursor = posicion + CABECERA + 1;
+        cursor += Short.BYTES + Math.max(0, origen.getShort(cursor));
+        return cursor + Short.BYTES + Math.max(0, origen.getShort(cursor));
+    }
+
+    private static byte[] bytes(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Texto demasiado largo para almacenar: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int longitudTexto(byte[] bytes) {
+        return Short.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void escribirTexto(ByteBuffer destino, byte[] bytes) {
+        if (bytes == null) {
+            destino.putShort((short) -1);
+        } else {
+            destino.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String leerTexto(ByteBuffer origen, int posicion) {
+        short longitud = origen.getShort(posicion);
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        origen.get(posicion + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
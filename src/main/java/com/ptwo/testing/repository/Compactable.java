@@ -0,0 +1,13 @@
+package com.ptwo.testing.repository;
+
+// Almacén que recupera por pasos cortos el espacio de los registros muertos (actualizaciones y borrados)
+public interface Compactable {
+
+    // Examina como mucho maxRegistros registros de la zona más antigua cuya proporción de huecos
+    // alcance umbralHuecos, moviendo los vivos al final; devuelve cuántos examinó (0 sin trabajo)
+    int compactar(int maxRegistros, double umbralHuecos);
+
+    long bytesReservados();
+
+    long bytesMuertos();
+}
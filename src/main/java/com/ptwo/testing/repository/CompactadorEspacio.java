@@ -0,0 +1,65 @@
+package com.ptwo.testing.repository;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Compactación en segundo plano: cada paso examina como mucho registrosPorPaso registros con el
+// lock de escritura del almacén y después espera la pausa, así que un save nunca espera más que
+// un paso y las lecturas, que no bloquean, no se enteran. Sin trabajo, cada pasada solo mira
+// las estadísticas de huecos.
+public class CompactadorEspacio implements AutoCloseable {
+    private final Compactable almacen;
+    private final int registrosPorPaso;
+    private final double umbralHuecos;
+    private final ScheduledExecutorService planificador;
+    private final LongAdder examinados = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public CompactadorEspacio(Compactable almacen, int registrosPorPaso, Duration pausa, double umbralHuecos) {
+        if (registrosPorPaso <= 0) {
+            throw new IllegalArgumentException("Los registros por paso deben ser positivos");
+        }
+        if (umbralHuecos <= 0 || umbralHuecos > 1) {
+            throw new IllegalArgumentException("El umbral de huecos debe estar en (0, 1]");
+        }
+        this.almacen = almacen;
+        this.registrosPorPaso = registrosPorPaso;
+        this.umbralHuecos = umbralHuecos;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "compactador-espacio");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1, pausa.toMillis());
+        planificador.scheduleWithFixedDelay(this::pasoSinPropagar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    public long examinados() {
+        return examinados.sum();
+    }
+
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    @Override
+    public void close() {
+        planificador.shutdown();
+        try {
+            planificador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pasoSinPropagar() {
+        try {
+            examinados.add(almacen.compactar(registrosPorPaso, umbralHuecos));
+        } catch (RuntimeException e) {
+            fallos.increment();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ptwo.testing.repository;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.EstadisticasUsuarios;
+import com.ptwo.testing.model.Usuario;
+
+// Agregados mantenidos en cada escritura, para no recorrer findAll() al consultarlos.
+// Se registra como observador de UsuarioRepositoryObservado.
+public class ContadoresUsuarios implements ObservadorUsuarios {
+    private final LongAdder total = new LongAdder();
+    private final LongAdder activos = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> porDominio = new ConcurrentHashMap<>();
+
+    // Carga inicial a partir de los datos ya existentes, antes de empezar a observar. Con un
+    // recorrido y no una lista: no hace falta tener el almacén entero en memoria para contarlo
+    public void inicializar(Stream<Usuario> existentes) {
+        existentes.forEach(usuario -> sumar(usuario, 1));
+    }
+
+    @Override
+    public void alGuardar(Usuario anterior, Usuario actual) {
+        if (anterior != null) {
+            sumar(anterior, -1);
+        }
+        sumar(actual, 1);
+    }
+
+    @Override
+    public void alEliminar(Usuario anterior) {
+        sumar(anterior, -1);
+    }
+
+    public EstadisticasUsuarios instantanea() {
+        Map<String, Long> dominios = new TreeMap<>();
+        porDominio.forEach((dominio, contador) -> {
+            long valor = contador.sum();
+            if (valor > 0) {
+                dominios.put(dominio, valor);
+            }
+        });
+        return new EstadisticasUsuarios(total.sum(), activos.sum(), dominios);
+    }
+
+    private void sumar(Usuario usuario, int delta) {
+        total.add(delta);
+        if (usuario.isActivo()) {
+            activos.add(delta);
+        }
+        String dominio = dominio(usuario.getEmail());
+        if (dominio != null) {
+            porDominio.computeIfAbsent(dominio, d -> new LongAdder()).add(delta);
+        }
+    }
+
+    public static String dominio(String email) {
+        if (email == null) {
+            return null;
+        }
+        int arroba = email.lastIndexOf('@');
+        return arroba < 0 ? null : email.substring(arroba + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,52 @@
+package com.ptwo.testing.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Vista del almacén en memoria tal como estaba al abrirla. Las escrituras posteriores no se ven
+// y no se bloquean; las lecturas repetidas devuelven siempre lo mismo hasta cerrarla.
+public final class InstantaneaUsuarios implements AutoCloseable {
+    private final UsuarioRepositoryEnMemoria almacen;
+    private final long version;
+    private final AtomicBoolean cerrada = new AtomicBoolean();
+
+    InstantaneaUsuarios(UsuarioRepositoryEnMemoria almacen, long version) {
+        this.almacen = almacen;
+        this.version = version;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Optional<Usuario> findById(Long id) {
+        comprobarAbierta();
+        return Optional.ofNullable(almacen.leer(id, version));
+    }
+
+    public List<Usuario> findAll() {
+        return stream().toList();
+    }
+
+    public Stream<Usuario> stream() {
+        comprobarAbierta();
+        return almacen.recorrer(version);
+    }
+
+    @Override
+    public void close() {
+        if (cerrada.compareAndSet(false, true)) {
+            almacen.cerrar(version);
+        }
+    }
+
+    private void comprobarAbierta() {
+        if (cerrada.get()) {
+            throw new IllegalStateException("La instantánea " + version + " ya está cerrada");
+        }
+    }
+}
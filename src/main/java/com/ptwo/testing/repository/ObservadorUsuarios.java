@@ -0,0 +1,10 @@
+package com.ptwo.testing.repository;
+
+import com.ptwo.testing.model.Usuario;
+
+public interface ObservadorUsuarios {
+    // anterior es null cuando el usuario se da de alta
+    void alGuardar(Usuario anterior, Usuario actual);
+
+    void alEliminar(Usuario anterior);
+}
@@ -0,0 +1,6 @@
+package com.ptwo.testing.repository;
+
+// El orden forma parte del formato en disco: solo se añaden valores al final
+public enum TipoAviso {
+    REGISTRO, DESACTIVACION
+}
@@ -1,7 +1,9 @@
 package com.ptwo.testing.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.ptwo.testing.model.Usuario;
 
@@ -11,4 +13,33 @@ public interface UsuarioRepository {
     Usuario save(Usuario usuario);
     void delete(Long id);
     boolean existsById(Long id);
-}
\ No newline at end of file
+
+    // Guarda el usuario y deja un aviso en la bandeja de salida en la misma escritura atómica;
+    // solo lo admiten los almacenes que implementan BandejaSalida
+    default Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " no tiene bandeja de salida");
+    }
+
+    // Recorrido sin materializar la lista completa, para los almacenes que lo permiten
+    default Stream<Usuario> streamAll() {
+        return findAll().stream();
+    }
+
+    // Lectura por lotes: una posición por id, en el orden de entrada, vacía si el id no existe
+    default List<Optional<Usuario>> findAllById(long[] ids) {
+        List<Optional<Usuario>> resultado = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            resultado.add(findById(id));
+        }
+        return resultado;
+    }
+
+    // Alta masiva; los almacenes que pueden agrupan las escrituras en una sola operación
+    default List<Usuario> saveAll(List<Usuario> usuarios) {
+        List<Usuario> guardados = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            guardados.add(save(usuario));
+        }
+        return guardados;
+    }
+}
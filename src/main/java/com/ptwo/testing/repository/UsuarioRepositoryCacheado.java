@@ -0,0 +1,303 @@
+package com.ptwo.testing.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.cache.CacheCompartida;
+import com.ptwo.testing.cache.Invalidacion;
+import com.ptwo.testing.cache.MetricasCache;
+import com.ptwo.testing.cache.TransporteInvalidaciones;
+import com.ptwo.testing.diagnostico.EventoAccesoCache;
+import com.ptwo.testing.model.Usuario;
+
+// Caché de dos niveles delante de findById: L1 LRU propia de la instancia y L2 compartida.
+// Cada save/delete invalida L1 y L2 y difunde una invalidación para que las demás instancias
+// descarten su copia en L1. Una lectura que empezó antes de una invalidación del mismo id no
+// rellena ninguno de los dos niveles: L1 lleva una generación por id mientras haya lecturas de ese
+// id en curso, y L2 solo acepta el guardado si la versión de la clave no cambió desde antes de ir
+// al almacén. Escribir un id no impide rellenar la caché con los demás.
+public class UsuarioRepositoryCacheado implements UsuarioRepository {
+    private final UsuarioRepository delegado;
+    private final CacheCompartida l2;
+    private final TransporteInvalidaciones transporte;
+    private final String nodo;
+    private final long ttl;
+    private final Map<Long, Entrada> l1;
+    private final ConcurrentHashMap<Long, Generacion> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder aciertosL1 = new LongAdder();
+    private final LongAdder aciertosL2 = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder invalidacionesRecibidas = new LongAdder();
+    private final LongAdder ventanaTotalMicros = new LongAdder();
+    private final LongAccumulator ventanaMaximaMicros = new LongAccumulator(Math::max, 0);
+
+    public UsuarioRepositoryCacheado(UsuarioRepository delegado, CacheCompartida l2,
+                                     TransporteInvalidaciones transporte, String nodo,
+                                     int tamanoL1, Duration ttl) {
+        this.delegado = delegado;
+        this.l2 = l2;
+        this.transporte = transporte;
+        this.nodo = nodo;
+        this.ttl = ttl.toNanos();
+        this.l1 = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> mayor) {
+                return size() > tamanoL1;
+            }
+        };
+        transporte.suscribir(this::recibir);
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        EventoAccesoCache evento = EventoAccesoCache.iniciar(1);
+        Usuario usuario = leerL1(id);
+        if (usuario != null) {
+            aciertosL1.increment();
+            evento.terminar(1, 0, 0);
+            return Optional.of(usuario);
+        }
+        Generacion generacionId = empezarLectura(id);
+        try {
+            long leida = generacionId.valor;
+            usuario = l2.obtener(id);
+            if (usuario != null) {
+                aciertosL2.increment();
+                guardarL1(usuario, generacionId, leida);
+                evento.terminar(0, 1, 0);
+                return Optional.of(usuario);
+            }
+            fallos.increment();
+            long version = l2.version(id);
+            Optional<Usuario> resultado = delegado.findById(id);
+            if (resultado.isPresent()) {
+                l2.guardar(resultado.get(), version);
+                guardarL1(resultado.get(), generacionId, leida);
+            }
+            evento.terminar(0, 0, 1);
+            return resultado;
+        } finally {
+            terminarLectura(id);
+        }
+    }
+
+    // Mismo recorrido que findById pero por niveles: L1 con un solo lock, L2 en una consulta
+    // por lotes y el almacén en un solo findAllById con los fallos que quedan
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        EventoAccesoCache evento = EventoAccesoCache.iniciar(ids.length);
+        List<Optional<Usuario>> resultado = new ArrayList<>(Collections.nCopies(ids.length, Optional.empty()));
+        int[] pendientes = new int[ids.length];
+        int n = 0;
+        synchronized (l1) {
+            long ahora = System.nanoTime();
+            for (int i = 0; i < ids.length; i++) {
+                Entrada entrada = l1.get(ids[i]);
+                if (entrada != null && ahora - entrada.caduca() < 0) {
+                    resultado.set(i, Optional.of(new Usuario(entrada.usuario())));
+                } else {
+                    if (entrada != null) {
+                        l1.remove(ids[i]);
+                    }
+                    pendientes[n++] = i;
+                }
+            }
+        }
+        aciertosL1.add(ids.length - n);
+        if (n == 0) {
+            evento.terminar(ids.length, 0, 0);
+            return resultado;
+        }
+        long[] buscados = seleccionar(ids, pendientes, n);
+        // Indexadas como buscados; un id repetido en la consulta comparte generación
+        Generacion[] generaciones = new Generacion[n];
+        long[] leidas = new long[n];
+        for (int k = 0; k < n; k++) {
+            generaciones[k] = empezarLectura(buscados[k]);
+            leidas[k] = generaciones[k].valor;
+        }
+        try {
+            Usuario[] enL2 = l2.obtenerTodos(buscados);
+            int fallosL2 = 0;
+            for (int k = 0; k < n; k++) {
+                if (enL2[k] != null) {
+                    resultado.set(pendientes[k], Optional.of(enL2[k]));
+                    guardarL1(enL2[k], generaciones[k], leidas[k]);
+                } else {
+                    generaciones[fallosL2] = generaciones[k];
+                    leidas[fallosL2] = leidas[k];
+                    pendientes[fallosL2++] = pendientes[k];
+                }
+            }
+            aciertosL2.add(n - fallosL2);
+            fallos.add(fallosL2);
+            if (fallosL2 == 0) {
+                evento.terminar(ids.length - n, n, 0);
+                return resultado;
+            }
+            long[] fallidos = seleccionar(ids, pendientes, fallosL2);
+            long[] versiones = l2.versiones(fallidos);
+            List<Optional<Usuario>> delAlmacen = delegado.findAllById(fallidos);
+            for (int k = 0; k < fallosL2; k++) {
+                Optional<Usuario> encontrado = delAlmacen.get(k);
+                resultado.set(pendientes[k], encontrado);
+                if (encontrado.isPresent()) {
+                    l2.guardar(encontrado.get(), versiones[k]);
+                    guardarL1(encontrado.get(), generaciones[k], leidas[k]);
+                }
+            }
+            evento.terminar(ids.length - n, n - fallosL2, fallosL2);
+            return resultado;
+        } finally {
+            for (long id : buscados) {
+                terminarLectura(id);
+            }
+        }
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return delegado.streamAll();
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        Usuario guardado = delegado.save(usuario);
+        invalidar(guardado.getId());
+        return guardado;
+    }
+
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        List<Usuario> guardados = delegado.saveAll(usuarios);
+        for (Usuario guardado : guardados) {
+            invalidar(guardado.getId());
+        }
+        return guardados;
+    }
+
+    @Override
+    public Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        Usuario guardado = delegado.saveConAviso(usuario, aviso);
+        invalidar(guardado.getId());
+        return guardado;
+    }
+
+    @Override
+    public void delete(Long id) {
+        delegado.delete(id);
+        invalidar(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    public MetricasCache metricas() {
+        long recibidas = invalidacionesRecibidas.sum();
+        int tamano;
+        synchronized (l1) {
+            tamano = l1.size();
+        }
+        return new MetricasCache(aciertosL1.sum(), aciertosL2.sum(), fallos.sum(), recibidas,
+                Duration.ofNanos(recibidas == 0 ? 0 : ventanaTotalMicros.sum() * 1000 / recibidas),
+                Duration.ofNanos(ventanaMaximaMicros.get() * 1000), tamano);
+    }
+
+    private void invalidar(long id) {
+        l2.invalidar(id);
+        descartarL1(id);
+        transporte.publicar(new Invalidacion(nodo, id, Instant.now()));
+    }
+
+    private void recibir(Invalidacion invalidacion) {
+        if (nodo.equals(invalidacion.nodoOrigen())) {
+            return;
+        }
+        descartarL1(invalidacion.idUsuario());
+        invalidacionesRecibidas.increment();
+        long micros = Math.max(0, Duration.between(invalidacion.emitida(), Instant.now()).toNanos() / 1000);
+        ventanaTotalMicros.add(micros);
+        ventanaMaximaMicros.accumulate(micros);
+    }
+
+    private Usuario leerL1(long id) {
+        synchronized (l1) {
+            Entrada entrada = l1.get(id);
+            if (entrada == null) {
+                return null;
+            }
+            if (System.nanoTime() - entrada.caduca() >= 0) {
+                l1.remove(id);
+                return null;
+            }
+            return new Usuario(entrada.usuario());
+        }
+    }
+
+    // La generación se lee después de apuntarse: una invalidación anterior ya no afecta a lo que se lea
+    private Generacion empezarLectura(long id) {
+        return enCurso.compute(id, (clave, actual) -> {
+            Generacion generacion = actual != null ? actual : new Generacion();
+            generacion.lectores++;
+            return generacion;
+        });
+    }
+
+    private void terminarLectura(long id) {
+        enCurso.computeIfPresent(id, (clave, generacion) -> --generacion.lectores == 0 ? null : generacion);
+    }
+
+    // Se descarta si hubo una invalidación de este id desde que empezó la lectura. Comprobar y
+    // guardar bajo el lock de L1, que descartarL1 toma después de subir la generación
+    private void guardarL1(Usuario usuario, Generacion generacion, long leida) {
+        synchronized (l1) {
+            if (generacion.valor == leida) {
+                l1.put(usuario.getId(), new Entrada(new Usuario(usuario), System.nanoTime() + ttl));
+            }
+        }
+    }
+
+    private void descartarL1(long id) {
+        enCurso.computeIfPresent(id, (clave, generacion) -> {
+            generacion.valor++;
+            return generacion;
+        });
+        synchronized (l1) {
+            l1.remove(id);
+        }
+    }
+
+    private static long[] seleccionar(long[] ids, int[] posiciones, int n) {
+        long[] seleccion = new long[n];
+        for (int k = 0; k < n; k++) {
+            seleccion[k] = ids[posiciones[k]];
+        }
+        return seleccion;
+    }
+
+    private record Entrada(Usuario usuario, long caduca) {
+    }
+
+    // Solo existe mientras haya lecturas del id en curso; se modifica dentro de compute
+    private static final class Generacion {
+        int lectores;
+        volatile long valor;
+    }
+}
@@ -0,0 +1,226 @@
+package com.ptwo.testing.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Almacén en memoria multiversión: cada id apunta a su versión más reciente y, mientras haya
+// instantáneas abiertas, a la cadena de versiones anteriores que alguna de ellas todavía puede ver.
+// Una instantánea fija un número de versión y lee, para cada id, la última versión no posterior;
+// findAll y streamAll leen siempre sobre una instantánea, así que nunca devuelven una vista a medias.
+// Las escrituras no esperan a los lectores: solo la creación de una instantánea espera a que
+// terminen las escrituras en curso. Al cerrarse la instantánea más antigua, un hilo virtual
+// recorta las versiones que ya nadie puede ver; una instantánea sin cerrar las retiene.
+public class UsuarioRepositoryEnMemoria implements UsuarioRepository {
+    private final ConcurrentHashMap<Long, Version> usuarios = new ConcurrentHashMap<>();
+    private final AtomicLong ultimoId = new AtomicLong();
+    private final AtomicLong reloj = new AtomicLong();
+    // Versión -> instantáneas abiertas con esa versión
+    private final ConcurrentSkipListMap<Long, Integer> abiertas = new ConcurrentSkipListMap<>();
+    // Las escrituras la toman compartida; una instantánea nueva, exclusiva y solo para leer el reloj
+    private final ReentrantReadWriteLock puerta = new ReentrantReadWriteLock();
+    private final AtomicInteger recoleccionesPedidas = new AtomicInteger();
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        Version version = usuarios.get(id);
+        return version == null || version.usuario == null
+                ? Optional.empty()
+                : Optional.of(new Usuario(version.usuario));
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        try (InstantaneaUsuarios instantanea = instantanea()) {
+            return instantanea.findAll();
+        }
+    }
+
+    // La instantánea se cierra al cerrar el stream
+    @Override
+    public Stream<Usuario> streamAll() {
+        InstantaneaUsuarios instantanea = instantanea();
+        return instantanea.stream().onClose(instantanea::close);
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        if (usuario.getId() == null) {
+            usuario.setId(ultimoId.incrementAndGet());
+        } else {
+            ultimoId.accumulateAndGet(usuario.getId(), Math::max);
+        }
+        // Guardamos una copia para que los cambios del llamante no se filtren al almacén
+        Usuario copia = new Usuario(usuario);
+        copia.olvidarModificaciones();
+        puerta.readLock().lock();
+        try {
+            escribir(copia.getId(), copia);
+        } finally {
+            puerta.readLock().unlock();
+        }
+        return new Usuario(copia);
+    }
+
+    // El lote entero entra bajo la misma puerta: una instantánea lo ve completo o no ve nada de él
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        List<Usuario> guardados = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            if (usuario.getId() == null) {
+                usuario.setId(ultimoId.incrementAndGet());
+            } else {
+                ultimoId.accumulateAndGet(usuario.getId(), Math::max);
+            }
+            Usuario guardado = new Usuario(usuario);
+            guardado.olvidarModificaciones();
+            guardados.add(guardado);
+        }
+        puerta.readLock().lock();
+        try {
+            for (Usuario guardado : guardados) {
+                escribir(guardado.getId(), new Usuario(guardado));
+            }
+        } finally {
+            puerta.readLock().unlock();
+        }
+        return guardados;
+    }
+
+    @Override
+    public void delete(Long id) {
+        puerta.readLock().lock();
+        try {
+            if (abiertas.isEmpty()) {
+                usuarios.remove(id);
+            } else {
+                escribir(id, null);
+            }
+        } finally {
+            puerta.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        Version version = usuarios.get(id);
+        return version != null && version.usuario != null;
+    }
+
+    // Vista fija del almacén en este momento; hay que cerrarla para liberar las versiones que retiene
+    public InstantaneaUsuarios instantanea() {
+        long numero;
+        puerta.writeLock().lock();
+        try {
+            numero = reloj.get();
+            abiertas.merge(numero, 1, Integer::sum);
+        } finally {
+            puerta.writeLock().unlock();
+        }
+        return new InstantaneaUsuarios(this, numero);
+    }
+
+    // Versiones anteriores y borrados que siguen en memoria por alguna instantánea
+    public long versionesRetenidas() {
+        long total = 0;
+        for (Version version : usuarios.values()) {
+            if (version.usuario == null) {
+                total++;
+            }
+            for (Version anterior = version.anterior; anterior != null; anterior = anterior.anterior) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    // Recorta cada cadena por debajo de la versión visible para la instantánea más antigua y
+    // quita los borrados que ya ninguna instantánea ve como vivos
+    public void recolectar() {
+        long horizonte = reloj.get();
+        Map.Entry<Long, Integer> masAntigua = abiertas.firstEntry();
+        if (masAntigua != null) {
+            horizonte = Math.min(horizonte, masAntigua.getKey());
+        }
+        for (Map.Entry<Long, Version> entrada : usuarios.entrySet()) {
+            Version cabeza = entrada.getValue();
+            Version visible = cabeza;
+            while (visible != null && visible.numero > horizonte) {
+                visible = visible.anterior;
+            }
+            if (visible == null) {
+                continue;
+            }
+            visible.anterior = null;
+            if (visible == cabeza && cabeza.usuario == null) {
+                usuarios.remove(entrada.getKey(), cabeza);
+            }
+        }
+    }
+
+    Usuario leer(long id, long numero) {
+        Version version = usuarios.get(id);
+        while (version != null && version.numero > numero) {
+            version = version.anterior;
+        }
+        return version == null || version.usuario == null ? null : new Usuario(version.usuario);
+    }
+
+    Stream<Usuario> recorrer(long numero) {
+        return usuarios.keySet().stream()
+                .map(id -> leer(id, numero))
+                .filter(usuario -> usuario != null);
+    }
+
+    void cerrar(long numero) {
+        abiertas.computeIfPresent(numero, (clave, cuenta) -> cuenta == 1 ? null : cuenta - 1);
+        Map.Entry<Long, Integer> masAntigua = abiertas.firstEntry();
+        if (masAntigua == null || masAntigua.getKey() > numero) {
+            programarRecoleccion();
+        }
+    }
+
+    // Como mucho un recolector a la vez; las peticiones que llegan mientras trabaja se atienden
+    // con una pasada más
+    private void programarRecoleccion() {
+        if (recoleccionesPedidas.getAndIncrement() == 0) {
+            Thread.ofVirtual().name("recolector-versiones").start(() -> {
+                int atendidas;
+                do {
+                    atendidas = recoleccionesPedidas.get();
+                    recolectar();
+                } while (recoleccionesPedidas.addAndGet(-atendidas) != 0);
+            });
+        }
+    }
+
+    // Con la puerta compartida tomada no puede abrirse ninguna instantánea: si no hay ninguna,
+    // la versión nueva no necesita enlazar con las anteriores
+    private void escribir(long id, Usuario usuario) {
+        boolean conservar = !abiertas.isEmpty();
+        usuarios.compute(id, (clave, anterior) -> new Version(reloj.incrementAndGet(), usuario,
+                conservar ? anterior : null));
+    }
+
+    static final class Version {
+        final long numero;
+        // null en un borrado
+        final Usuario usuario;
+        volatile Version anterior;
+
+        Version(long numero, Usuario usuario, Version anterior) {
+            this.numero = numero;
+            this.usuario = usuario;
+            this.anterior = anterior;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.ptwo.testing.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.cache.TransporteInvalidaciones;
+import com.ptwo.testing.diagnostico.EventoFiltroBloom;
+import com.ptwo.testing.filtro.FiltroBloomEscalable;
+import com.ptwo.testing.filtro.MetricasFiltro;
+import com.ptwo.testing.model.Usuario;
+
+// Filtro de Bloom delante de findById y existsById: un id que nunca se guardó se responde sin
+// consultar el almacén. El id se añade antes y después de delegar el save, así que ninguna
+// lectura posterior al save puede ver un falso negativo. Los borrados dejan la clave en el
+// filtro (solo cuesta algún falso positivo más) hasta que reconstruir() lo rehace desde el almacén;
+// cuando los borrados pendientes pasan de umbralReconstruccion veces los elementos del filtro se
+// reconstruye solo, en segundo plano. Las métricas salen periódicamente como evento JFR.
+public class UsuarioRepositoryFiltrado implements UsuarioRepository {
+    static final double UMBRAL_RECONSTRUCCION = 0.25;
+
+    private final UsuarioRepository delegado;
+    private final long capacidadInicial;
+    private final double tasaFalsosPositivos;
+    // 0 desactiva la reconstrucción automática
+    private final double umbralReconstruccion;
+    private volatile FiltroBloomEscalable filtro;
+    // Durante una reconstrucción las escrituras también van al filtro nuevo
+    private volatile FiltroBloomEscalable siguiente;
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+    private final LongAdder borradosPendientes = new LongAdder();
+    private final LongAdder reconstrucciones = new LongAdder();
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+    // Referencia fuerte mientras viva el filtro: el registro de eventos solo la guarda débil
+    private final Supplier<MetricasFiltro> fuenteMetricas = this::metricas;
+
+    public UsuarioRepositoryFiltrado(UsuarioRepository delegado, long capacidadInicial, double tasaFalsosPositivos) {
+        this(delegado, capacidadInicial, tasaFalsosPositivos, UMBRAL_RECONSTRUCCION);
+    }
+
+    public UsuarioRepositoryFiltrado(UsuarioRepository delegado, long capacidadInicial, double tasaFalsosPositivos,
+                                     double umbralReconstruccion) {
+        if (umbralReconstruccion < 0) {
+            throw new IllegalArgumentException("El umbral de reconstrucción no puede ser negativo");
+        }
+        this.delegado = delegado;
+        this.capacidadInicial = capacidadInicial;
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+        this.umbralReconstruccion = umbralReconstruccion;
+        this.filtro = cargar(new FiltroBloomEscalable(capacidadInicial, tasaFalsosPositivos));
+        EventoFiltroBloom.observar(fuenteMetricas);
+    }
+
+    // Con varias instancias sobre el mismo almacén, los ids guardados en otra llegan como invalidaciones
+    public void seguirInvalidaciones(TransporteInvalidaciones transporte) {
+        transporte.suscribir(invalidacion -> agregar(invalidacion.idUsuario()));
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        if (descartar(id)) {
+            return Optional.empty();
+        }
+        Optional<Usuario> resultado = delegado.findById(id);
+        if (resultado.isEmpty()) {
+            falsosPositivos.increment();
+        }
+        return resultado;
+    }
+
+    // Solo llegan al almacén, en una llamada, los ids que el filtro no descarta
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        List<Optional<Usuario>> resultado = new ArrayList<>(Collections.nCopies(ids.length, Optional.empty()));
+        int[] posiciones = new int[ids.length];
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!descartar(ids[i])) {
+                posiciones[n++] = i;
+            }
+        }
+        if (n == 0) {
+            return resultado;
+        }
+        long[] candidatos = new long[n];
+        for (int k = 0; k < n; k++) {
+            candidatos[k] = ids[posiciones[k]];
+        }
+        List<Optional<Usuario>> encontrados = delegado.findAllById(candidatos);
+        for (int k = 0; k < n; k++) {
+            if (encontrados.get(k).isEmpty()) {
+                falsosPositivos.increment();
+            }
+            resultado.set(posiciones[k], encontrados.get(k));
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return delegado.streamAll();
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        if (usuario.getId() != null) {
+            agregar(usuario.getId());
+        }
+        Usuario guardado = delegado.save(usuario);
+        agregar(guardado.getId());
+        return guardado;
+    }
+
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        for (Usuario usuario : usuarios) {
+            if (usuario.getId() != null) {
+                agregar(usuario.getId());
+            }
+        }
+        List<Usuario> guardados = delegado.saveAll(usuarios);
+        for (Usuario guardado : guardados) {
+            agregar(guardado.getId());
+        }
+        return guardados;
+    }
+
+    @Override
+    public Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        if (usuario.getId() != null) {
+            agregar(usuario.getId());
+        }
+        Usuario guardado = delegado.saveConAviso(usuario, aviso);
+        agregar(guardado.getId());
+        return guardado;
+    }
+
+    @Override
+    public void delete(Long id) {
+        delegado.delete(id);
+        borradosPendientes.increment();
+        if (umbralReconstruccion > 0 && borradosPendientes.sum() > umbralReconstruccion * filtro.elementos()) {
+            programarReconstruccion();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        if (descartar(id)) {
+            return false;
+        }
+        boolean existe = delegado.existsById(id);
+        if (!existe) {
+            falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    // Rehace el filtro sin las claves borradas. El filtro nuevo se publica antes de recorrer el
+    // almacén: un save que termina antes del recorrido aparece en él y uno posterior lo añade él mismo
+    public synchronized void reconstruir() {
+        long borrados = borradosPendientes.sum();
+        FiltroBloomEscalable nuevo = new FiltroBloomEscalable(capacidadInicial, tasaFalsosPositivos);
+        siguiente = nuevo;
+        try {
+            cargar(nuevo);
+        } catch (RuntimeException e) {
+            siguiente = null;
+            throw e;
+        }
+        filtro = nuevo;
+        siguiente = null;
+        borradosPendientes.add(-borrados);
+        reconstrucciones.increment();
+    }
+
+    public MetricasFiltro metricas() {
+        FiltroBloomEscalable actual = filtro;
+        return new MetricasFiltro(actual.elementos(), actual.numeroEtapas(), actual.numeroBits(),
+                actual.tasaFalsosPositivos(), actual.tasaFalsosPositivosEstimada(), consultas.sum(),
+                descartadas.sum(), falsosPositivos.sum(), borradosPendientes.sum(), reconstrucciones.sum());
+    }
+
+    // Como mucho una reconstrucción en segundo plano a la vez. Si falla, el filtro viejo sigue
+    // valiendo y el siguiente borrado lo vuelve a intentar
+    private void programarReconstruccion() {
+        if (reconstruyendo.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("filtro-reconstruccion").start(() -> {
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    // Se queda el filtro anterior
+                } finally {
+                    reconstruyendo.set(false);
+                }
+            });
+        }
+    }
+
+    private boolean descartar(Long id) {
+        consultas.increment();
+        if (id == null || filtro.puedeContener(id)) {
+            return false;
+        }
+        descartadas.increment();
+        return true;
+    }
+
+    // siguiente se lee antes que filtro: si ya era null, o la reconstrucción terminó y filtro es el
+    // nuevo, o aún no había empezado y su recorrido verá este save
+    private void agregar(long id) {
+        FiltroBloomEscalable enConstruccion = siguiente;
+        if (enConstruccion != null) {
+            enConstruccion.agregar(id);
+        }
+        filtro.agregar(id);
+    }
+
+    // Recorre el almacén sin copiarlo entero en memoria
+    private FiltroBloomEscalable cargar(FiltroBloomEscalable destino) {
+        try (Stream<Usuario> usuarios = delegado.streamAll()) {
+            usuarios.forEach(usuario -> destino.agregar(usuario.getId()));
+        }
+        return destino;
+    }
+}
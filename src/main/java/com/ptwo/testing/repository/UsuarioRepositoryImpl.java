@@ -19,15 +19,23 @@ public class UsuarioRepositoryImpl implements UsuarioRepository {
         return Collections.emptyList();
     }
     
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        // Implementación real: una sola consulta con WHERE id IN (...)
+        return Collections.nCopies(ids.length, Optional.empty());
+    }
+
     @Override
     public Usuario save(Usuario usuario) {
-        // Implementación real que conectaría con la base de datos
+        // Implementación real que conectaría con la base de datos; si el usuario se cargó de ella,
+        // camposModificados() dice qué columnas debe llevar el UPDATE
         return usuario;
     }
 
     @Override
     public void delete(Long id) {
-        // Implementación real que conectaría con la base de datos
+        // Implementación real que conectaría con la base de datos; el espacio de los borrados lo
+        // recupera el motor, no este repositorio (ver Compactable en los almacenes propios)
     }
 
     @Override
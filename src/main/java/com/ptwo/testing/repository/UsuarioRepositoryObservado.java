@@ -0,0 +1,142 @@
+package com.ptwo.testing.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+public class UsuarioRepositoryObservado implements UsuarioRepository {
+    private static final int FRANJAS = 64;
+
+    private final UsuarioRepository delegado;
+    private final List<ObservadorUsuarios> observadores = new CopyOnWriteArrayList<>();
+    // Serializa lectura del estado anterior, escritura y aviso por id,
+    // de modo que los observadores ven los cambios de cada usuario en orden
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+
+    public UsuarioRepositoryObservado(UsuarioRepository delegado, ObservadorUsuarios... observadores) {
+        this.delegado = delegado;
+        this.observadores.addAll(List.of(observadores));
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    public void agregarObservador(ObservadorUsuarios observador) {
+        observadores.add(observador);
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        return delegado.findById(id);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return delegado.streamAll();
+    }
+
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        return delegado.findAllById(ids);
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        return guardar(usuario, delegado::save);
+    }
+
+    // Toma todas las franjas (en orden, sin riesgo de interbloqueo con los save sueltos) para
+    // leer los estados anteriores y delegar el lote entero en una sola llamada
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        for (ReentrantLock franja : franjas) {
+            franja.lock();
+        }
+        try {
+            // Por id: un almacén particionado devuelve el lote en otro orden
+            Map<Long, Usuario> anteriores = new HashMap<>();
+            for (Usuario usuario : usuarios) {
+                if (usuario.getId() != null) {
+                    delegado.findById(usuario.getId()).ifPresent(anterior -> anteriores.put(anterior.getId(), anterior));
+                }
+            }
+            List<Usuario> guardados = delegado.saveAll(usuarios);
+            for (Usuario guardado : guardados) {
+                avisarGuardado(anteriores.put(guardado.getId(), new Usuario(guardado)), guardado);
+            }
+            return guardados;
+        } finally {
+            for (int i = franjas.length - 1; i >= 0; i--) {
+                franjas[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        return guardar(usuario, u -> delegado.saveConAviso(u, aviso));
+    }
+
+    private Usuario guardar(Usuario usuario, UnaryOperator<Usuario> escritura) {
+        if (usuario.getId() == null) {
+            Usuario guardado = escritura.apply(usuario);
+            avisarGuardado(null, guardado);
+            return guardado;
+        }
+        ReentrantLock franja = franja(usuario.getId());
+        franja.lock();
+        try {
+            Usuario anterior = delegado.findById(usuario.getId()).map(Usuario::new).orElse(null);
+            Usuario guardado = escritura.apply(usuario);
+            avisarGuardado(anterior, guardado);
+            return guardado;
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        ReentrantLock franja = franja(id);
+        franja.lock();
+        try {
+            Optional<Usuario> anterior = delegado.findById(id).map(Usuario::new);
+            delegado.delete(id);
+            if (anterior.isPresent()) {
+                for (ObservadorUsuarios observador : observadores) {
+                    observador.alEliminar(anterior.get());
+                }
+            }
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    private void avisarGuardado(Usuario anterior, Usuario guardado) {
+        Usuario actual = new Usuario(guardado);
+        for (ObservadorUsuarios observador : observadores) {
+            observador.alGuardar(anterior, actual);
+        }
+    }
+
+    private ReentrantLock franja(Long id) {
+        return franjas[Long.hashCode(id) & (FRANJAS - 1)];
+    }
+}
@@ -0,0 +1,246 @@
+package com.ptwo.testing.repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Almacén fuera del heap: los registros se anexan en slabs de memoria directa y el
+// heap solo guarda el índice id -> dirección (slab en los 32 bits altos, offset en los bajos).
+// Una actualización escribe un registro nuevo y deja el anterior como hueco.
+// La compactación copia los vivos de un slab con huecos al slab actual y lo retira: su número no
+// se reutiliza, así que un lector con una dirección vieja encuentra null y vuelve al índice.
+public class UsuarioRepositoryOffHeap implements UsuarioRepository, Compactable, AutoCloseable {
+    private final int tamanoSlab;
+    private final ConcurrentHashMap<Long, Long> indice = new ConcurrentHashMap<>();
+    private final AtomicLong ultimoId = new AtomicLong();
+    // Copia en escritura: los lectores acceden a los slabs sin bloquear
+    private volatile Slab[] slabs = new Slab[0];
+    private Slab actual;
+    // Slab a medio compactar entre pasos
+    private Slab victima;
+
+    public UsuarioRepositoryOffHeap(int tamanoSlab) {
+        this.tamanoSlab = tamanoSlab;
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        Long direccion = indice.get(id);
+        return direccion == null ? Optional.empty() : Optional.ofNullable(leer(id, direccion));
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        List<Usuario> resultado = new ArrayList<>(indice.size());
+        for (Map.Entry<Long, Long> entrada : indice.entrySet()) {
+            Usuario usuario = leer(entrada.getKey(), entrada.getValue());
+            if (usuario != null) {
+                resultado.add(usuario);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return indice.entrySet().stream()
+                .map(entrada -> leer(entrada.getKey(), entrada.getValue()))
+                .filter(Objects::nonNull);
+    }
+
+    // Se resuelven todas las direcciones y se leen en orden de slab y offset, hacia delante
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        List<Optional<Usuario>> resultado = new ArrayList<>(Collections.nCopies(ids.length, Optional.empty()));
+        long[] direcciones = new long[ids.length];
+        List<Integer> encontrados = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Long direccion = indice.get(ids[i]);
+            if (direccion != null) {
+                direcciones[i] = direccion;
+                encontrados.add(i);
+            }
+        }
+        encontrados.sort(Comparator.comparingLong(i -> direcciones[i]));
+        for (int i : encontrados) {
+            resultado.set(i, Optional.ofNullable(leer(ids[i], direcciones[i])));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        if (usuario.getId() == null) {
+            usuario.setId(ultimoId.incrementAndGet());
+        } else {
+            ultimoId.accumulateAndGet(usuario.getId(), Math::max);
+        }
+        byte[] contenido = CodificadorUsuario.codificar(usuario);
+        synchronized (this) {
+            long direccion = anexar(contenido);
+            Long anterior = indice.put(usuario.getId(), direccion);
+            if (anterior != null) {
+                liberar(anterior);
+            }
+        }
+        return new Usuario(usuario);
+    }
+
+    @Override
+    public void delete(Long id) {
+        synchronized (this) {
+            Long anterior = indice.remove(id);
+            if (anterior != null) {
+                liberar(anterior);
+            }
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return indice.containsKey(id);
+    }
+
+    @Override
+    public long bytesReservados() {
+        long total = 0;
+        for (Slab slab : slabs) {
+            if (slab != null) {
+                total += tamanoSlab;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long bytesMuertos() {
+        long total = 0;
+        for (Slab slab : slabs) {
+            if (slab != null) {
+                total += slab.bytesMuertos;
+            }
+        }
+        return total;
+    }
+
+    // Recorre el slab víctima desde donde lo dejó el paso anterior; un registro está vivo si el
+    // índice aún apunta a su dirección. Al terminar el recorrido el slab deja de ser accesible
+    // y su memoria vuelve al sistema cuando el último lector lo suelta
+    @Override
+    public synchronized int compactar(int maxRegistros, double umbralHuecos) {
+        if (victima == null) {
+            victima = elegirVictima(umbralHuecos);
+            if (victima == null) {
+                return 0;
+            }
+        }
+        int examinados = 0;
+        while (examinados < maxRegistros && victima.compactadoHasta < victima.ocupado) {
+            int offset = victima.compactadoHasta;
+            int longitud = victima.memoria.getInt(offset);
+            long direccion = ((long) victima.numero << 32) | offset;
+            long id = CodificadorUsuario.id(victima.memoria, offset + Integer.BYTES);
+            Long vigente = indice.get(id);
+            if (vigente != null && vigente == direccion) {
+                byte[] contenido = new byte[longitud];
+                victima.memoria.get(offset + Integer.BYTES, contenido);
+                indice.put(id, anexar(contenido));
+            }
+            victima.compactadoHasta += Integer.BYTES + longitud;
+            examinados++;
+        }
+        if (victima.compactadoHasta >= victima.ocupado) {
+            Slab[] reducido = slabs.clone();
+            reducido[victima.numero] = null;
+            slabs = reducido;
+            victima = null;
+        }
+        return examinados;
+    }
+
+    @Override
+    public synchronized void close() {
+        indice.clear();
+        slabs = new Slab[0];
+        actual = null;
+        victima = null;
+    }
+
+    private long anexar(byte[] contenido) {
+        int longitud = Integer.BYTES + contenido.length;
+        if (longitud > tamanoSlab) {
+            throw new IllegalArgumentException("Registro de " + longitud + " bytes mayor que el slab");
+        }
+        if (actual == null || actual.ocupado + longitud > tamanoSlab) {
+            nuevoSlab();
+        }
+        int offset = actual.ocupado;
+        actual.memoria.putInt(offset, contenido.length);
+        actual.memoria.put(offset + Integer.BYTES, contenido);
+        actual.ocupado += longitud;
+        return ((long) actual.numero << 32) | offset;
+    }
+
+    private void liberar(long direccion) {
+        Slab slab = slabs[(int) (direccion >>> 32)];
+        slab.bytesMuertos += Integer.BYTES + slab.memoria.getInt((int) direccion);
+    }
+
+    // El más antiguo de los que superan el umbral, sin contar el slab en el que se anexa
+    private Slab elegirVictima(double umbralHuecos) {
+        for (Slab slab : slabs) {
+            if (slab != null && slab != actual && slab.ocupado > 0
+                    && slab.bytesMuertos >= umbralHuecos * slab.ocupado) {
+                return slab;
+            }
+        }
+        return null;
+    }
+
+    private void nuevoSlab() {
+        Slab[] ampliado = new Slab[slabs.length + 1];
+        System.arraycopy(slabs, 0, ampliado, 0, slabs.length);
+        actual = new Slab(slabs.length, ByteBuffer.allocateDirect(tamanoSlab));
+        ampliado[actual.numero] = actual;
+        slabs = ampliado;
+    }
+
+    // Un slab retirado entre la consulta al índice y la lectura obliga a consultarlo de nuevo;
+    // devuelve null si el usuario se borró entretanto
+    private Usuario leer(long id, long direccion) {
+        while (true) {
+            Slab slab = slabs[(int) (direccion >>> 32)];
+            if (slab != null) {
+                return CodificadorUsuario.decodificar(slab.memoria, (int) direccion + Integer.BYTES);
+            }
+            Long vigente = indice.get(id);
+            if (vigente == null) {
+                return null;
+            }
+            direccion = vigente;
+        }
+    }
+
+    static final class Slab {
+        final int numero;
+        final ByteBuffer memoria;
+        int ocupado;
+        long bytesMuertos;
+        int compactadoHasta;
+
+        Slab(int numero, ByteBuffer memoria) {
+            this.numero = numero;
+            this.memoria = memoria;
+        }
+    }
+}
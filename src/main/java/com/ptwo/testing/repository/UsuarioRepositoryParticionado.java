@@ -0,0 +1,192 @@
+package com.ptwo.testing.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Reparte los usuarios entre varias particiones según el id. Los ids nuevos se
+// asignan aquí, antes de elegir partición, para que sean únicos entre todas.
+public class UsuarioRepositoryParticionado implements UsuarioRepository, Compactable, AutoCloseable {
+    private final UsuarioRepository[] particiones;
+    private final AtomicLong ultimoId = new AtomicLong();
+    // Partición por la que empieza el siguiente paso de compactación
+    private final AtomicInteger turnoCompactacion = new AtomicInteger();
+
+    public UsuarioRepositoryParticionado(List<? extends UsuarioRepository> particiones) {
+        if (particiones.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos una partición");
+        }
+        this.particiones = particiones.toArray(new UsuarioRepository[0]);
+        // Con streamAll no se copia cada partición entera solo para ver su id más alto
+        for (UsuarioRepository particion : this.particiones) {
+            try (Stream<Usuario> usuarios = particion.streamAll()) {
+                usuarios.mapToLong(Usuario::getId).max().ifPresent(id -> ultimoId.accumulateAndGet(id, Math::max));
+            }
+        }
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        return particion(id).findById(id);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        List<Usuario> resultado = new ArrayList<>();
+        for (UsuarioRepository particion : particiones) {
+            resultado.addAll(particion.findAll());
+        }
+        return resultado;
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return Stream.of(particiones).flatMap(UsuarioRepository::streamAll);
+    }
+
+    // Un findAllById por partición con sus ids; las respuestas vuelven a su posición de entrada
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        int[] particionDe = new int[ids.length];
+        int[] cuentas = new int[particiones.length];
+        for (int i = 0; i < ids.length; i++) {
+            particionDe[i] = indiceParticion(ids[i]);
+            cuentas[particionDe[i]]++;
+        }
+        long[][] idsPorParticion = new long[particiones.length][];
+        int[][] posiciones = new int[particiones.length][];
+        for (int p = 0; p < particiones.length; p++) {
+            idsPorParticion[p] = new long[cuentas[p]];
+            posiciones[p] = new int[cuentas[p]];
+        }
+        Arrays.fill(cuentas, 0);
+        for (int i = 0; i < ids.length; i++) {
+            int p = particionDe[i];
+            idsPorParticion[p][cuentas[p]] = ids[i];
+            posiciones[p][cuentas[p]++] = i;
+        }
+        List<Optional<Usuario>> resultado = new ArrayList<>(Collections.nCopies(ids.length, Optional.empty()));
+        for (int p = 0; p < particiones.length; p++) {
+            if (idsPorParticion[p].length == 0) {
+                continue;
+            }
+            List<Optional<Usuario>> encontrados = particiones[p].findAllById(idsPorParticion[p]);
+            for (int k = 0; k < posiciones[p].length; k++) {
+                resultado.set(posiciones[p][k], encontrados.get(k));
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        asignarId(usuario);
+        return particion(usuario.getId()).save(usuario);
+    }
+
+    // Un saveAll por partición; el resultado sale agrupado por partición, no en el orden de entrada
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        List<List<Usuario>> porParticion = new ArrayList<>(particiones.length);
+        for (int i = 0; i < particiones.length; i++) {
+            porParticion.add(new ArrayList<>());
+        }
+        for (Usuario usuario : usuarios) {
+            asignarId(usuario);
+            porParticion.get(indiceParticion(usuario.getId())).add(usuario);
+        }
+        List<Usuario> guardados = new ArrayList<>(usuarios.size());
+        for (int i = 0; i < particiones.length; i++) {
+            if (!porParticion.get(i).isEmpty()) {
+                guardados.addAll(particiones[i].saveAll(porParticion.get(i)));
+            }
+        }
+        return guardados;
+    }
+
+    @Override
+    public void delete(Long id) {
+        particion(id).delete(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return particion(id).existsById(id);
+    }
+
+    // Cada paso compacta una sola partición, por turnos, para que el presupuesto por paso no se
+    // multiplique por el número de particiones
+    @Override
+    public int compactar(int maxRegistros, double umbralHuecos) {
+        int inicio = Math.floorMod(turnoCompactacion.getAndIncrement(), particiones.length);
+        for (int i = 0; i < particiones.length; i++) {
+            if (particiones[(inicio + i) % particiones.length] instanceof Compactable compactable) {
+                int examinados = compactable.compactar(maxRegistros, umbralHuecos);
+                if (examinados > 0) {
+                    return examinados;
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long bytesReservados() {
+        long total = 0;
+        for (UsuarioRepository particion : particiones) {
+            if (particion instanceof Compactable compactable) {
+                total += compactable.bytesReservados();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long bytesMuertos() {
+        long total = 0;
+        for (UsuarioRepository particion : particiones) {
+            if (particion instanceof Compactable compactable) {
+                total += compactable.bytesMuertos();
+            }
+        }
+        return total;
+    }
+
+    public int numeroParticiones() {
+        return particiones.length;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (UsuarioRepository particion : particiones) {
+            if (particion instanceof AutoCloseable cerrable) {
+                cerrable.close();
+            }
+        }
+    }
+
+    int indiceParticion(long id) {
+        // Mezcla de bits para que ids consecutivos no caigan en la misma partición por patrones
+        long mezcla = id * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mezcla ^ (mezcla >>> 32), (long) particiones.length);
+    }
+
+    private void asignarId(Usuario usuario) {
+        if (usuario.getId() == null) {
+            usuario.setId(ultimoId.incrementAndGet());
+        } else {
+            ultimoId.accumulateAndGet(usuario.getId(), Math::max);
+        }
+    }
+
+    private UsuarioRepository particion(Long id) {
+        return particiones[indiceParticion(id)];
+    }
+}
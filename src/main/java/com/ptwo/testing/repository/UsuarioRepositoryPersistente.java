@@ -0,0 +1,767 @@
+package com.ptwo.testing.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.ptwo.testing.diagnostico.EventoEntradaSalidaAlmacen;
+import com.ptwo.testing.model.CampoUsuario;
+import com.ptwo.testing.model.Usuario;
+
+// Almacén de solo anexado en segmentos de archivo con un índice en memoria id -> ubicación.
+// Cada registro se enmarca como [int longitud][int crc][contenido] para descartar
+// escrituras a medias al recuperar. Los borrados escriben una lápida.
+// La bandeja de salida vive en el mismo registro: saveConAviso escribe usuario y aviso en un
+// único marco y las confirmaciones del repartidor se anexan como otro registro.
+// La compactación reescribe al final lo que sigue haciendo falta de un segmento con huecos y lo
+// borra: usuarios vivos, avisos sin confirmar y, salvo en el segmento más antiguo, las lápidas y
+// confirmaciones que aún anulan registros de segmentos anteriores.
+// Guardar un usuario cargado del almacén escribe solo los campos que cambiaron, como entrada de un
+// registro DELTAS; el índice encadena cada entrada a la ubicación anterior del usuario y la
+// compactación consolida la cadena en un registro completo.
+public class UsuarioRepositoryPersistente implements UsuarioRepository, BandejaSalida, Compactable, AutoCloseable {
+    private static final int MARCO = Integer.BYTES * 2;
+    // findAllById junta en una sola lectura los registros separados por menos de esto
+    private static final int HUECO_MAXIMO_LECTURA = 4096;
+    private static final int LECTURA_MAXIMA = 1 << 20;
+    // Deltas como mucho sobre un registro completo: acota las lecturas que cuesta un usuario
+    private static final int MAXIMO_DELTAS = 8;
+
+    private final Path directorio;
+    private final long tamanoSegmento;
+    private final boolean sincronizarCadaEscritura;
+    private final TreeMap<Long, Segmento> segmentos = new TreeMap<>();
+    private final ConcurrentHashMap<Long, Ubicacion> indice = new ConcurrentHashMap<>();
+    private final AtomicLong ultimoId = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, AvisoPendiente> avisos = new ConcurrentSkipListMap<>();
+    private final AtomicLong ultimaClaveAviso = new AtomicLong();
+    private final ScheduledExecutorService sincronizador;
+    private Segmento activo;
+    // Segmento a medio compactar entre pasos
+    private Segmento victima;
+    private boolean pendienteSincronizar;
+
+    public UsuarioRepositoryPersistente(Path directorio, long tamanoSegmento, Duration intervaloSincronizacion) {
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.sincronizarCadaEscritura = intervaloSincronizacion.isZero();
+        try {
+            Files.createDirectories(directorio);
+            recuperar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el almacén de usuarios en " + directorio, e);
+        }
+        if (sincronizarCadaEscritura) {
+            this.sincronizador = null;
+        } else {
+            this.sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "sincronizador-usuarios");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            long periodo = intervaloSincronizacion.toMillis();
+            sincronizador.scheduleWithFixedDelay(this::sincronizar, periodo, periodo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        Ubicacion ubicacion = indice.get(id);
+        return ubicacion == null ? Optional.empty() : Optional.ofNullable(leer(id, ubicacion));
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        List<Usuario> resultado = new ArrayList<>(indice.size());
+        for (Map.Entry<Long, Ubicacion> entrada : indice.entrySet()) {
+            Usuario usuario = leer(entrada.getKey(), entrada.getValue());
+            if (usuario != null) {
+                resultado.add(usuario);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() {
+        return indice.entrySet().stream()
+                .map(entrada -> leer(entrada.getKey(), entrada.getValue()))
+                .filter(Objects::nonNull);
+    }
+
+    // Las ubicaciones se ordenan por segmento y offset y los registros cercanos del mismo
+    // segmento se leen de una vez, en lugar de una lectura aleatoria por id
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        List<Optional<Usuario>> resultado = new ArrayList<>(Collections.nCopies(ids.length, Optional.empty()));
+        Ubicacion[] ubicaciones = new Ubicacion[ids.length];
+        List<Integer> encontrados = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ubicaciones[i] = indice.get(ids[i]);
+            if (ubicaciones[i] != null && ubicaciones[i].anterior() != null) {
+                resultado.set(i, Optional.ofNullable(leer(ids[i], ubicaciones[i])));
+            } else if (ubicaciones[i] != null) {
+                encontrados.add(i);
+            }
+        }
+        encontrados.sort(Comparator.<Integer>comparingLong(i -> ubicaciones[i].segmento().numero)
+                .thenComparingLong(i -> ubicaciones[i].offset()));
+        int inicio = 0;
+        while (inicio < encontrados.size()) {
+            Ubicacion primera = ubicaciones[encontrados.get(inicio)];
+            long fin = primera.offset() + primera.longitud();
+            int siguiente = inicio + 1;
+            while (siguiente < encontrados.size()) {
+                Ubicacion ubicacion = ubicaciones[encontrados.get(siguiente)];
+                long nuevoFin = Math.max(fin, ubicacion.offset() + ubicacion.longitud());
+                if (ubicacion.segmento() != primera.segmento() || ubicacion.offset() - fin > HUECO_MAXIMO_LECTURA
+                        || nuevoFin - primera.offset() > LECTURA_MAXIMA) {
+                    break;
+                }
+                fin = nuevoFin;
+                siguiente++;
+            }
+            ByteBuffer tramo;
+            try {
+                EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.LECTURA);
+                tramo = leer(primera.segmento(), primera.offset(), (int) (fin - primera.offset()));
+                evento.terminar(primera.segmento().numero, fin - primera.offset(), siguiente - inicio);
+            } catch (UncheckedIOException e) {
+                if (!primera.segmento().retirado) {
+                    throw e;
+                }
+                // Segmento compactado entretanto: cada id vuelve a pasar por el índice
+                for (int k = inicio; k < siguiente; k++) {
+                    int i = encontrados.get(k);
+                    resultado.set(i, Optional.ofNullable(leer(ids[i], ubicaciones[i])));
+                }
+                inicio = siguiente;
+                continue;
+            }
+            for (int k = inicio; k < siguiente; k++) {
+                int i = encontrados.get(k);
+                int posicion = (int) (ubicaciones[i].offset() - primera.offset()) + MARCO;
+                resultado.set(i, Optional.of(CodificadorUsuario.decodificar(tramo, posicion)));
+            }
+            inicio = siguiente;
+        }
+        return resultado;
+    }
+
+    // Un usuario cargado del almacén y sin cambios no escribe nada. Devuelve lo que queda guardado:
+    // con un cambio parcial, los campos no tocados son los del almacén y no los de quien llama
+    @Override
+    public Usuario save(Usuario usuario) {
+        asignarId(usuario);
+        int modificados = usuario.camposModificados();
+        byte[] contenido = codificar(usuario, modificados);
+        synchronized (this) {
+            Usuario resultado = fusionado(usuario, modificados);
+            if (!admiteDelta(indice.get(usuario.getId()), modificados)) {
+                indexar(usuario.getId(), anexar(completo(resultado, modificados, contenido)));
+            } else if (contenido != null) {
+                anexarDeltas(List.of(contenido), sincronizarCadaEscritura);
+            }
+            return resultado;
+        }
+    }
+
+    // Todos los registros se anexan bajo un mismo lock y se sincronizan a disco una sola vez; las
+    // deltas del lote van juntas en un único registro
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        byte[][] contenidos = new byte[usuarios.size()][];
+        List<Usuario> guardados = new ArrayList<>(usuarios.size());
+        for (int i = 0; i < contenidos.length; i++) {
+            Usuario usuario = usuarios.get(i);
+            asignarId(usuario);
+            contenidos[i] = codificar(usuario, usuario.camposModificados());
+        }
+        synchronized (this) {
+            List<byte[]> deltas = new ArrayList<>();
+            Set<Long> conDelta = new HashSet<>();
+            for (int i = 0; i < contenidos.length; i++) {
+                Usuario usuario = usuarios.get(i);
+                int modificados = usuario.camposModificados();
+                // Una delta pendiente del mismo id tiene que quedar antes en el registro y contar al fusionar
+                if (conDelta.contains(usuario.getId())) {
+                    anexarDeltas(deltas, false);
+                    deltas.clear();
+                    conDelta.clear();
+                }
+                Usuario resultado = fusionado(usuario, modificados);
+                guardados.add(resultado);
+                if (admiteDelta(indice.get(usuario.getId()), modificados)) {
+                    if (contenidos[i] != null) {
+                        deltas.add(contenidos[i]);
+                        conDelta.add(usuario.getId());
+                    }
+                    continue;
+                }
+                indexar(usuario.getId(), anexar(completo(resultado, modificados, contenidos[i]), false));
+            }
+            if (!deltas.isEmpty()) {
+                anexarDeltas(deltas, false);
+            }
+            if (sincronizarCadaEscritura) {
+                sincronizar();
+            }
+        }
+        return guardados;
+    }
+
+    @Override
+    public Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        asignarId(usuario);
+        long clave = ultimaClaveAviso.incrementAndGet();
+        byte[] contenido = CodificadorUsuario.codificarConAviso(usuario, clave, aviso);
+        synchronized (this) {
+            indexar(usuario.getId(), anexar(contenido));
+            avisos.put(clave, new AvisoPendiente(clave, aviso, new Usuario(usuario)));
+        }
+        return guardado(usuario);
+    }
+
+    @Override
+    public List<AvisoPendiente> avisosPendientes(int maximo) {
+        return avisos.values().stream().limit(maximo).toList();
+    }
+
+    @Override
+    public void confirmarEntregados(List<Long> claves) {
+        if (claves.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            anexarMuerto(CodificadorUsuario.codificarEntregados(claves), sincronizarCadaEscritura);
+            claves.forEach(avisos::remove);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        synchronized (this) {
+            Ubicacion anterior = indice.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            descartar(anterior);
+            anexarMuerto(CodificadorUsuario.codificarBorrado(id), sincronizarCadaEscritura);
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return indice.containsKey(id);
+    }
+
+    @Override
+    public synchronized long bytesReservados() {
+        long total = 0;
+        for (Segmento segmento : segmentos.values()) {
+            total += segmento.tamano;
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long bytesMuertos() {
+        long total = 0;
+        for (Segmento segmento : segmentos.values()) {
+            total += segmento.bytesMuertos.get();
+        }
+        return total;
+    }
+
+    // Las copias se anexan sin sincronizar y llegan al disco, todas a la vez, antes de borrar el
+    // segmento; una caída a mitad deja registros duplicados que la reproducción resuelve igual
+    @Override
+    public synchronized int compactar(int maxRegistros, double umbralHuecos) {
+        if (victima == null) {
+            victima = elegirVictima(umbralHuecos);
+            if (victima == null) {
+                return 0;
+            }
+        }
+        EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.COMPACTACION);
+        long desde = victima.compactadoHasta;
+        int examinados = 0;
+        while (examinados < maxRegistros && victima.compactadoHasta < victima.tamano) {
+            long offset = victima.compactadoHasta;
+            int longitudContenido = leer(victima, offset, Integer.BYTES).getInt(0);
+            ByteBuffer contenido = leer(victima, offset + MARCO, longitudContenido);
+            conservar(contenido, new Ubicacion(victima, offset, MARCO + longitudContenido));
+            victima.compactadoHasta += MARCO + longitudContenido;
+            examinados++;
+        }
+        evento.terminar(victima.numero, victima.compactadoHasta - desde, examinados);
+        if (victima.compactadoHasta >= victima.tamano) {
+            retirar(victima);
+            victima = null;
+        }
+        return examinados;
+    }
+
+    @Override
+    public void close() {
+        if (sincronizador != null) {
+            sincronizador.shutdown();
+        }
+        synchronized (this) {
+            sincronizar();
+            for (Segmento segmento : segmentos.values()) {
+                try {
+                    segmento.canal.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void asignarId(Usuario usuario) {
+        if (usuario.getId() == null) {
+            usuario.setId(ultimoId.incrementAndGet());
+        } else {
+            ultimoId.accumulateAndGet(usuario.getId(), Math::max);
+        }
+    }
+
+    // Lo completo si viene entero o no hay nada que cambiar; si no, la entrada de delta, o null
+    // si no cambió nada
+    private static byte[] codificar(Usuario usuario, int modificados) {
+        if (modificados == CampoUsuario.TODOS) {
+            return CodificadorUsuario.codificar(usuario);
+        }
+        return modificados == 0 ? null : CodificadorUsuario.codificarDelta(usuario, modificados);
+    }
+
+    private static byte[] completo(Usuario usuario, int modificados, byte[] contenido) {
+        return modificados == CampoUsuario.TODOS ? contenido : CodificadorUsuario.codificar(usuario);
+    }
+
+    private static boolean admiteDelta(Ubicacion actual, int modificados) {
+        return modificados != CampoUsuario.TODOS && actual != null && actual.deltas() < MAXIMO_DELTAS;
+    }
+
+    // Un cambio parcial sobre un usuario ya guardado se aplica sobre lo que hay, también cuando toca
+    // reescribirlo entero: los campos que no cambió quien llama no vuelven a un valor viejo
+    private Usuario fusionado(Usuario usuario, int modificados) {
+        Ubicacion actual = modificados == CampoUsuario.TODOS ? null : indice.get(usuario.getId());
+        Usuario resultado = actual == null ? null : leer(usuario.getId(), actual);
+        if (resultado == null) {
+            return guardado(usuario);
+        }
+        if (CampoUsuario.ACTIVO.en(modificados)) {
+            resultado.setActivo(usuario.isActivo());
+        }
+        if (CampoUsuario.NOMBRE.en(modificados)) {
+            resultado.setNombre(usuario.getNombre());
+        }
+        if (CampoUsuario.EMAIL.en(modificados)) {
+            resultado.setEmail(usuario.getEmail());
+        }
+        resultado.olvidarModificaciones();
+        return resultado;
+    }
+
+    private static Usuario guardado(Usuario usuario) {
+        Usuario copia = new Usuario(usuario);
+        copia.olvidarModificaciones();
+        return copia;
+    }
+
+    // Solo para registros completos: dejan muerta la cadena entera a la que sustituyen
+    private void indexar(long id, Ubicacion nueva) {
+        descartar(indice.put(id, nueva));
+    }
+
+    private static void descartar(Ubicacion ubicacion) {
+        for (; ubicacion != null; ubicacion = ubicacion.anterior()) {
+            ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+        }
+    }
+
+    private void anexarDeltas(List<byte[]> entradas, boolean sincronizarAhora) {
+        byte[] contenido = CodificadorUsuario.codificarDeltas(entradas);
+        indexarDeltas(ByteBuffer.wrap(contenido), anexar(contenido, sincronizarAhora));
+    }
+
+    // Cada entrada se encadena a la ubicación vigente de su usuario. Sin ella (el registro completo
+    // se compactó y su copia consolidada viene después) la entrada ya no aporta nada. Marco y
+    // cabecera no guardan ningún usuario y cuentan como hueco desde el principio
+    private void indexarDeltas(ByteBuffer contenido, Ubicacion registro) {
+        Segmento segmento = registro.segmento();
+        segmento.bytesMuertos.addAndGet(MARCO + CodificadorUsuario.CABECERA_DELTAS);
+        int posicion = CodificadorUsuario.CABECERA_DELTAS;
+        for (int i = 0, n = CodificadorUsuario.numeroDeltas(contenido, 0); i < n; i++) {
+            long id = CodificadorUsuario.idDelta(contenido, posicion);
+            int longitud = CodificadorUsuario.longitudDelta(contenido, posicion);
+            Ubicacion anterior = indice.get(id);
+            if (anterior == null) {
+                segmento.bytesMuertos.addAndGet(longitud);
+            } else {
+                indice.put(id, new Ubicacion(segmento, registro.offset() + MARCO + posicion, longitud, anterior,
+                        anterior.deltas() + 1));
+            }
+            posicion += longitud;
+        }
+    }
+
+    private static boolean enCadena(Ubicacion actual, Segmento segmento, long offset) {
+        for (; actual != null; actual = actual.anterior()) {
+            if (actual.segmento() == segmento && actual.offset() == offset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean retirada(Ubicacion ubicacion) {
+        for (; ubicacion != null; ubicacion = ubicacion.anterior()) {
+            if (ubicacion.segmento().retirado) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Registro que no guarda un usuario vivo: cuenta como hueco desde que se escribe
+    private void anexarMuerto(byte[] contenido, boolean sincronizarAhora) {
+        Ubicacion ubicacion = anexar(contenido, sincronizarAhora);
+        ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+    }
+
+    private Ubicacion anexar(byte[] contenido) {
+        return anexar(contenido, sincronizarCadaEscritura);
+    }
+
+    private Ubicacion anexar(byte[] contenido, boolean sincronizarAhora) {
+        int longitud = MARCO + contenido.length;
+        if (activo.tamano + longitud > tamanoSegmento && activo.tamano > 0) {
+            // Que lo pendiente del segmento que se cierra no quede sin sincronizar
+            sincronizar();
+            activo = abrirSegmento(activo.numero + 1);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(contenido);
+        ByteBuffer marco = ByteBuffer.allocate(longitud)
+                .putInt(contenido.length)
+                .putInt((int) crc.getValue())
+                .put(contenido)
+                .flip();
+        long posicion = activo.tamano;
+        EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.ESCRITURA);
+        try {
+            while (marco.hasRemaining()) {
+                activo.canal.write(marco, posicion + marco.position());
+            }
+            if (sincronizarAhora) {
+                activo.canal.force(false);
+            } else {
+                pendienteSincronizar = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en " + activo.ruta, e);
+        }
+        evento.terminar(activo.numero, longitud, 1);
+        activo.tamano += longitud;
+        return new Ubicacion(activo, posicion, longitud);
+    }
+
+    // Si el segmento se compactó entre la consulta al índice y la lectura, se vuelve al índice;
+    // devuelve null si el usuario se borró entretanto
+    private Usuario leer(long id, Ubicacion ubicacion) {
+        while (true) {
+            try {
+                return leer(ubicacion);
+            } catch (UncheckedIOException e) {
+                if (!retirada(ubicacion)) {
+                    throw e;
+                }
+            }
+            ubicacion = indice.get(id);
+            if (ubicacion == null) {
+                return null;
+            }
+        }
+    }
+
+    // Una delta se lee sobre lo que resulta de leer su cadena anterior
+    private Usuario leer(Ubicacion ubicacion) {
+        if (ubicacion.anterior() != null) {
+            Usuario usuario = leer(ubicacion.anterior());
+            EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.LECTURA);
+            ByteBuffer entrada = leer(ubicacion.segmento(), ubicacion.offset(), ubicacion.longitud());
+            evento.terminar(ubicacion.segmento().numero, ubicacion.longitud(), 1);
+            CodificadorUsuario.aplicarDelta(entrada, 0, usuario);
+            usuario.olvidarModificaciones();
+            return usuario;
+        }
+        EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.LECTURA);
+        ByteBuffer buffer = leer(ubicacion.segmento(), ubicacion.offset() + MARCO, ubicacion.longitud() - MARCO);
+        evento.terminar(ubicacion.segmento().numero, ubicacion.longitud(), 1);
+        return CodificadorUsuario.decodificar(buffer, 0);
+    }
+
+    private static ByteBuffer leer(Segmento segmento, long posicion, int longitud) {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        try {
+            while (buffer.hasRemaining()) {
+                if (segmento.canal.read(buffer, posicion + buffer.position()) < 0) {
+                    throw new IOException("Fin de archivo inesperado en " + segmento.ruta);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    // El segmento más antiguo que supera el umbral, sin contar el activo: compactar primero los
+    // antiguos permite descartar sus lápidas en lugar de arrastrarlas
+    private Segmento elegirVictima(double umbralHuecos) {
+        for (Segmento segmento : segmentos.values()) {
+            if (segmento != activo && segmento.tamano > 0
+                    && segmento.bytesMuertos.get() >= umbralHuecos * segmento.tamano) {
+                return segmento;
+            }
+        }
+        return null;
+    }
+
+    // Reanexa lo que del registro sigue haciendo falta para que reproducir el almacén sin su
+    // segmento dé el mismo estado. Lápidas y confirmaciones solo anulan registros anteriores: en el
+    // segmento más antiguo ya no queda nada que anular, y una lápida de un id vivo ya está superada.
+    // Un registro que forma parte de una cadena de deltas vigente consolida la cadena entera
+    private void conservar(ByteBuffer contenido, Ubicacion ubicacion) {
+        byte tipo = CodificadorUsuario.tipo(contenido, 0);
+        if (tipo == CodificadorUsuario.DELTAS) {
+            int posicion = CodificadorUsuario.CABECERA_DELTAS;
+            for (int i = 0, n = CodificadorUsuario.numeroDeltas(contenido, 0); i < n; i++) {
+                long id = CodificadorUsuario.idDelta(contenido, posicion);
+                if (enCadena(indice.get(id), ubicacion.segmento(), ubicacion.offset() + MARCO + posicion)) {
+                    consolidar(id);
+                }
+                posicion += CodificadorUsuario.longitudDelta(contenido, posicion);
+            }
+            return;
+        }
+        if (tipo == CodificadorUsuario.MARCAS) {
+            // retirar escribe unas nuevas
+            return;
+        }
+        boolean masAntiguo = segmentos.firstKey() == ubicacion.segmento().numero;
+        if (tipo == CodificadorUsuario.AVISOS_ENTREGADOS) {
+            if (!masAntiguo) {
+                anexarMuerto(contenido.array(), false);
+            }
+            return;
+        }
+        long id = CodificadorUsuario.id(contenido, 0);
+        if (tipo == CodificadorUsuario.BORRADO) {
+            if (!masAntiguo && !indice.containsKey(id)) {
+                anexarMuerto(contenido.array(), false);
+            }
+            return;
+        }
+        boolean avisoPendiente = tipo != CodificadorUsuario.USUARIO
+                && avisos.containsKey(CodificadorUsuario.claveAviso(contenido, 0));
+        Ubicacion actual = indice.get(id);
+        boolean vivo = tipo != CodificadorUsuario.AVISO
+                && enCadena(actual, ubicacion.segmento(), ubicacion.offset());
+        if (vivo && actual.anterior() == null) {
+            byte[] copia = tipo == CodificadorUsuario.USUARIO_CON_AVISO && !avisoPendiente
+                    ? CodificadorUsuario.sinAviso(contenido.array())
+                    : contenido.array();
+            indexar(id, anexar(copia, false));
+            return;
+        }
+        if (vivo) {
+            consolidar(id);
+        }
+        if (avisoPendiente) {
+            anexarMuerto(tipo == CodificadorUsuario.AVISO ? contenido.array()
+                    : CodificadorUsuario.comoAviso(contenido.array()), false);
+        }
+    }
+
+    private void consolidar(long id) {
+        indexar(id, anexar(CodificadorUsuario.codificar(leer(indice.get(id))), false));
+    }
+
+    // Las marcas van al segmento activo, que nunca es la víctima: aunque la compactación se lleve
+    // la lápida del mayor id o la confirmación de la mayor clave, no se vuelven a repartir
+    private void retirar(Segmento segmento) {
+        anexarMuerto(CodificadorUsuario.codificarMarcas(ultimoId.get(), ultimaClaveAviso.get()), false);
+        sincronizar();
+        segmentos.remove(segmento.numero);
+        // Antes de cerrar: un lector que falle al leerlo sabrá que debe volver al índice
+        segmento.retirado = true;
+        try {
+            segmento.canal.close();
+            Files.deleteIfExists(segmento.ruta);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el segmento compactado " + segmento.ruta, e);
+        }
+    }
+
+    private synchronized void sincronizar() {
+        if (!pendienteSincronizar) {
+            return;
+        }
+        try {
+            EventoEntradaSalidaAlmacen evento = EventoEntradaSalidaAlmacen.iniciar(EventoEntradaSalidaAlmacen.SINCRONIZACION);
+            activo.canal.force(false);
+            evento.terminar(activo.numero, 0, 0);
+            pendienteSincronizar = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recuperar() throws IOException {
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.filter(p -> p.getFileName().toString().matches("segmento-\\d+\\.log")).sorted().toList();
+        }
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            long numero = Long.parseLong(nombre.substring("segmento-".length(), nombre.length() - ".log".length()));
+            Segmento segmento = abrirSegmento(numero);
+            reproducir(segmento);
+        }
+        activo = segmentos.isEmpty() ? abrirSegmento(1) : segmentos.lastEntry().getValue();
+    }
+
+    private void reproducir(Segmento segmento) throws IOException {
+        long tamanoArchivo = segmento.canal.size();
+        long posicion = 0;
+        ByteBuffer cabecera = ByteBuffer.allocate(MARCO);
+        while (posicion + MARCO <= tamanoArchivo) {
+            cabecera.clear();
+            segmento.canal.read(cabecera, posicion);
+            int longitudContenido = cabecera.getInt(0);
+            if (longitudContenido <= 0 || posicion + MARCO + longitudContenido > tamanoArchivo) {
+                break;
+            }
+            ByteBuffer contenido = ByteBuffer.allocate(longitudContenido);
+            segmento.canal.read(contenido, posicion + MARCO);
+            CRC32C crc = new CRC32C();
+            crc.update(contenido.array());
+            if ((int) crc.getValue() != cabecera.getInt(Integer.BYTES)) {
+                break;
+            }
+            int longitud = MARCO + longitudContenido;
+            aplicar(contenido, new Ubicacion(segmento, posicion, longitud));
+            posicion += longitud;
+        }
+        // Lo que queda tras el último registro válido es una escritura interrumpida
+        segmento.canal.truncate(posicion);
+        segmento.tamano = posicion;
+    }
+
+    private void aplicar(ByteBuffer contenido, Ubicacion ubicacion) {
+        byte tipo = CodificadorUsuario.tipo(contenido, 0);
+        if (tipo == CodificadorUsuario.AVISOS_ENTREGADOS) {
+            for (long clave : CodificadorUsuario.decodificarEntregados(contenido, 0)) {
+                avisos.remove(clave);
+                // Una confirmación arrastrada por la compactación no debe anular una clave reutilizada
+                ultimaClaveAviso.accumulateAndGet(clave, Math::max);
+            }
+            ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+            return;
+        }
+        if (tipo == CodificadorUsuario.AVISO) {
+            AvisoPendiente aviso = CodificadorUsuario.decodificarAviso(contenido, 0);
+            avisos.put(aviso.clave(), aviso);
+            ultimaClaveAviso.accumulateAndGet(aviso.clave(), Math::max);
+            ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+            return;
+        }
+        if (tipo == CodificadorUsuario.DELTAS) {
+            indexarDeltas(contenido, ubicacion);
+            return;
+        }
+        long id = CodificadorUsuario.id(contenido, 0);
+        if (tipo == CodificadorUsuario.MARCAS) {
+            ultimoId.accumulateAndGet(id, Math::max);
+            ultimaClaveAviso.accumulateAndGet(CodificadorUsuario.ultimaClaveMarcas(contenido, 0), Math::max);
+            ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+            return;
+        }
+        if (tipo == CodificadorUsuario.BORRADO) {
+            descartar(indice.remove(id));
+            ubicacion.segmento().bytesMuertos.addAndGet(ubicacion.longitud());
+            return;
+        }
+        indexar(id, ubicacion);
+        ultimoId.accumulateAndGet(id, Math::max);
+        if (tipo == CodificadorUsuario.USUARIO_CON_AVISO) {
+            AvisoPendiente aviso = CodificadorUsuario.decodificarAviso(contenido, 0);
+            avisos.put(aviso.clave(), aviso);
+            ultimaClaveAviso.accumulateAndGet(aviso.clave(), Math::max);
+        }
+    }
+
+    private Segmento abrirSegmento(long numero) {
+        Path ruta = directorio.resolve(String.format("segmento-%06d.log", numero));
+        try {
+            FileChannel canal = FileChannel.open(ruta,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segmento segmento = new Segmento(numero, ruta, canal);
+            segmento.tamano = canal.size();
+            segmentos.put(numero, segmento);
+            return segmento;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el segmento " + ruta, e);
+        }
+    }
+
+    static final class Segmento {
+        final long numero;
+        final Path ruta;
+        final FileChannel canal;
+        final AtomicLong bytesMuertos = new AtomicLong();
+        long tamano;
+        long compactadoHasta;
+        volatile boolean retirado;
+
+        Segmento(long numero, Path ruta, FileChannel canal) {
+            this.numero = numero;
+            this.ruta = ruta;
+            this.canal = canal;
+        }
+    }
+
+    // En una entrada de DELTAS, offset y longitud son los de la entrada, sin marco, y anterior es la
+    // ubicación del usuario a la que se aplica
+    record Ubicacion(Segmento segmento, long offset, int longitud, Ubicacion anterior, int deltas) {
+        Ubicacion(Segmento segmento, long offset, int longitud) {
+            this(segmento, offset, longitud, null, 0);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ptwo.testing.repository;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.MetricasResiliencia;
+import com.ptwo.testing.resiliencia.PoliticaResiliencia;
+import com.ptwo.testing.resiliencia.Resiliencia;
+
+// Aplica la política de resiliencia a cada llamada del almacén. Se reintentan las lecturas,
+// los borrados y los save con id; un save sin id no, porque un intento abandonado por tiempo
+// puede haber creado ya el usuario. saveConAviso tampoco: cada intento deja un aviso nuevo.
+// Las escrituras con id van en orden por id: un intento abandonado que aún no ha terminado no
+// puede pisar al reintento ni a la escritura siguiente del mismo usuario, aunque quien lo lanzó
+// ya haya soltado su cerrojo. findAll y streamAll no tienen tiempo máximo: un recorrido completo
+// tarda lo que mida el almacén.
+public class UsuarioRepositoryResiliente implements UsuarioRepository, AutoCloseable {
+    private final UsuarioRepository delegado;
+    private final Resiliencia resiliencia;
+
+    public UsuarioRepositoryResiliente(UsuarioRepository delegado, PoliticaResiliencia politica) {
+        this.delegado = delegado;
+        this.resiliencia = new Resiliencia(politica);
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        return resiliencia.ejecutar(() -> delegado.findById(id), true);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return resiliencia.ejecutarSinTiempoMaximo(delegado::findAll, true);
+    }
+
+    // La política cubre la apertura del recorrido, no su consumo
+    @Override
+    public Stream<Usuario> streamAll() {
+        return resiliencia.ejecutarSinTiempoMaximo(delegado::streamAll, true);
+    }
+
+    // El lote entero es un único intento: un reintento repite todas las lecturas
+    @Override
+    public List<Optional<Usuario>> findAllById(long[] ids) {
+        return resiliencia.ejecutar(() -> delegado.findAllById(ids), true);
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        return resiliencia.ejecutarEnOrden(() -> delegado.save(usuario), usuario.getId() != null, ids(usuario));
+    }
+
+    @Override
+    public List<Usuario> saveAll(List<Usuario> usuarios) {
+        boolean conIds = usuarios.stream().allMatch(usuario -> usuario.getId() != null);
+        List<Long> ids = usuarios.stream().map(Usuario::getId).filter(Objects::nonNull).toList();
+        return resiliencia.ejecutarEnOrden(() -> delegado.saveAll(usuarios), conIds, ids);
+    }
+
+    @Override
+    public Usuario saveConAviso(Usuario usuario, TipoAviso aviso) {
+        return resiliencia.ejecutarEnOrden(() -> delegado.saveConAviso(usuario, aviso), false, ids(usuario));
+    }
+
+    @Override
+    public void delete(Long id) {
+        resiliencia.ejecutarEnOrden(() -> delegado.delete(id), true, id == null ? List.of() : List.of(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return resiliencia.ejecutar(() -> delegado.existsById(id), true);
+    }
+
+    public MetricasResiliencia metricas() {
+        return resiliencia.metricas();
+    }
+
+    // Un alta sin id no puede chocar con nada: su id aún no lo conoce nadie
+    private static List<Long> ids(Usuario usuario) {
+        return usuario.getId() == null ? List.of() : List.of(usuario.getId());
+    }
+
+    @Override
+    public void close() {
+        resiliencia.close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.ptwo.testing.resiliencia;
+
+// La llamada no llegó a completarse por la capa de resiliencia (no por un error de la dependencia)
+public class DependenciaNoDisponibleException extends RuntimeException {
+
+    public enum Motivo { TIEMPO_AGOTADO, BULKHEAD_LLENO, CIRCUITO_ABIERTO, INTERRUMPIDA, LIMITE_ALCANZADO }
+
+    private final String dependencia;
+    private final Motivo motivo;
+
+    public DependenciaNoDisponibleException(String dependencia, Motivo motivo) {
+        super(dependencia + " no disponible: " + motivo);
+        this.dependencia = dependencia;
+        this.motivo = motivo;
+    }
+
+    public String getDependencia() { return dependencia; }
+    public Motivo getMotivo() { return motivo; }
+}
@@ -0,0 +1,5 @@
+package com.ptwo.testing.resiliencia;
+
+public enum EstadoCircuito {
+    CERRADO, ABIERTO, SEMIABIERTO
+}
@@ -0,0 +1,146 @@
+package com.ptwo.testing.resiliencia;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+
+// Límite de llamadas en curso que se ajusta con la latencia observada, al estilo de TCP Vegas:
+// con la latencia sin carga como referencia, limite * (1 - sinCarga / latencia) estima cuántas
+// llamadas esperan en cola. Con poca cola el límite sube, con mucha baja, y un rechazo aguas abajo
+// (tiempo agotado, circuito abierto) lo multiplica por 0.9. Por encima del límite se rechaza al
+// instante, sin esperar permiso.
+// La latencia sin carga es la mínima observada; cada cierto número de muestras se olvida y se
+// vuelve a medir, para seguir a un almacén que se ha vuelto más lento en lugar de castigarlo.
+public class LimiteAdaptativo {
+    // Muestras entre dos sondeos de la latencia sin carga, por unidad de límite
+    private static final int SONDEO = 30;
+    private static final double REDUCCION = 0.9;
+
+    private final String nombre;
+    private final int minimo;
+    private final int maximo;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final LongAdder admitidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private volatile int limite;
+    private volatile long latenciaReciente;
+    // Lo que sigue solo se toca bajo el monitor
+    private double limiteExacto;
+    private long latenciaSinCarga;
+    private long muestrasHastaSondeo;
+    private long subidas;
+    private long bajadas;
+
+    public LimiteAdaptativo(String nombre, int inicial, int minimo, int maximo) {
+        if (minimo <= 0 || minimo > maximo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Se necesita 0 < mínimo <= inicial <= máximo");
+        }
+        this.nombre = nombre;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.limite = inicial;
+        this.limiteExacto = inicial;
+        programarSondeo();
+    }
+
+    public <T> T ejecutar(Supplier<T> llamada) {
+        int enVuelo = adquirir();
+        if (enVuelo < 0) {
+            rechazadas.increment();
+            throw new DependenciaNoDisponibleException(nombre, Motivo.LIMITE_ALCANZADO);
+        }
+        admitidas.increment();
+        long inicio = System.nanoTime();
+        T resultado;
+        try {
+            resultado = llamada.get();
+        } catch (DependenciaNoDisponibleException e) {
+            enCurso.decrementAndGet();
+            reducir();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // Un error de la operación no dice nada de la carga
+            enCurso.decrementAndGet();
+            throw e;
+        }
+        enCurso.decrementAndGet();
+        observar(System.nanoTime() - inicio, enVuelo);
+        return resultado;
+    }
+
+    public void ejecutar(Runnable llamada) {
+        ejecutar(() -> {
+            llamada.run();
+            return null;
+        });
+    }
+
+    public int limite() {
+        return limite;
+    }
+
+    public synchronized MetricasLimite metricas() {
+        return new MetricasLimite(nombre, limite, enCurso.get(), admitidas.sum(), rechazadas.sum(), subidas, bajadas,
+                latenciaSinCarga / 1000, latenciaReciente / 1000);
+    }
+
+    // Devuelve las llamadas en curso contando esta, o -1 si no cabe
+    private int adquirir() {
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limite) {
+                return -1;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return actual + 1;
+            }
+        }
+    }
+
+    synchronized void observar(long latencia, int enVuelo) {
+        latenciaReciente = latencia;
+        if (--muestrasHastaSondeo <= 0) {
+            latenciaSinCarga = 0;
+            programarSondeo();
+        }
+        if (latenciaSinCarga == 0 || latencia < latenciaSinCarga) {
+            latenciaSinCarga = latencia;
+            return;
+        }
+        double umbral = Math.max(1, Math.log10(limiteExacto));
+        double cola = Math.ceil(limiteExacto * (1 - (double) latenciaSinCarga / latencia));
+        // Con menos de medio límite en uso la latencia no dice si cabría más: no se sube
+        boolean aprovechado = enVuelo * 2 >= limiteExacto;
+        if (cola <= umbral && aprovechado) {
+            fijar(limiteExacto + 6 * umbral);
+        } else if (cola < 3 * umbral && aprovechado) {
+            fijar(limiteExacto + umbral);
+        } else if (cola > 6 * umbral) {
+            fijar(limiteExacto - umbral);
+        }
+    }
+
+    private synchronized void reducir() {
+        fijar(limiteExacto * REDUCCION);
+    }
+
+    private void fijar(double nuevo) {
+        limiteExacto = Math.max(minimo, Math.min(maximo, nuevo));
+        int entero = (int) limiteExacto;
+        if (entero > limite) {
+            subidas++;
+        } else if (entero < limite) {
+            bajadas++;
+        }
+        limite = entero;
+    }
+
+    // Con algo de azar, para que varias instancias no sondeen a la vez
+    private void programarSondeo() {
+        long base = (long) (SONDEO * limiteExacto);
+        muestrasHastaSondeo = base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ptwo.testing.resiliencia;
+
+// Instantánea de un LimiteAdaptativo; subidas y bajadas cuentan los cambios del límite entero
+public record MetricasLimite(String nombre,
+                             int limite,
+                             int enCurso,
+                             long admitidas,
+                             long rechazadas,
+                             long subidas,
+                             long bajadas,
+                             long latenciaSinCargaMicros,
+                             long latenciaRecienteMicros) {
+}
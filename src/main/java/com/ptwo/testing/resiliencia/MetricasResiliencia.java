@@ -0,0 +1,14 @@
+package com.ptwo.testing.resiliencia;
+
+// Instantánea de los contadores de una dependencia; llamadas cuenta cada ejecutar(), no cada intento
+public record MetricasResiliencia(String dependencia,
+                                  EstadoCircuito circuito,
+                                  long llamadas,
+                                  long exitos,
+                                  long fallos,
+                                  long tiemposAgotados,
+                                  long rechazadasBulkhead,
+                                  long rechazadasCircuito,
+                                  long reintentos,
+                                  int enCurso) {
+}
@@ -0,0 +1,23 @@
+package com.ptwo.testing.resiliencia;
+
+import java.time.Duration;
+
+// tiempoMaximo: corte de cada intento; maxConcurrentes/esperaPermiso: bulkhead;
+// fallosParaAbrir/tiempoAbierto: circuito; reintentos con espera exponencial y jitter completo
+// entre 0 y min(esperaMaxima, esperaBase * 2^intento)
+public record PoliticaResiliencia(String nombre,
+                                  Duration tiempoMaximo,
+                                  int maxConcurrentes,
+                                  Duration esperaPermiso,
+                                  int fallosParaAbrir,
+                                  Duration tiempoAbierto,
+                                  int reintentos,
+                                  Duration esperaBase,
+                                  Duration esperaMaxima) {
+
+    public PoliticaResiliencia {
+        if (maxConcurrentes <= 0 || fallosParaAbrir <= 0 || reintentos < 0) {
+            throw new IllegalArgumentException("Política de resiliencia no válida: " + nombre);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ptwo.testing.resiliencia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+
+// Envuelve las llamadas a una dependencia con circuito, bulkhead, tiempo máximo y reintentos.
+// Cada intento corre en un hilo virtual propio para poder abandonarlo al agotar el tiempo;
+// el permiso del bulkhead no se devuelve hasta que la llamada abandonada termina de verdad,
+// así que una dependencia colgada nunca tiene más de maxConcurrentes hilos ocupados.
+// La llamada abandonada no se interrumpe: un FileChannel interrumpido se cierra y dejaría
+// inservible al almacén persistente para todas las llamadas siguientes. Por eso las escrituras
+// van con claves: los intentos que comparten alguna se ejecutan en orden de llegada, abandonados
+// incluidos, y ni el reintento ni la escritura siguiente sobre el mismo id pueden adelantar a uno
+// que sigue en marcha. Una llamada abandonada antes de empezar ya no empieza.
+public class Resiliencia implements AutoCloseable {
+    private final PoliticaResiliencia politica;
+    private final Semaphore permisos;
+    private final Circuito circuito;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder exitos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder tiemposAgotados = new LongAdder();
+    private final LongAdder rechazadasBulkhead = new LongAdder();
+    private final LongAdder rechazadasCircuito = new LongAdder();
+    private final LongAdder reintentos = new LongAdder();
+    // Último intento anotado por clave; protegido por su propio monitor
+    private final Map<Object, CompletableFuture<Void>> turnos = new HashMap<>();
+
+    public Resiliencia(PoliticaResiliencia politica) {
+        this.politica = politica;
+        this.permisos = new Semaphore(politica.maxConcurrentes());
+        this.circuito = new Circuito(politica.fallosParaAbrir(), politica.tiempoAbierto().toNanos());
+    }
+
+    // Solo las operaciones idempotentes deben marcarse como reintentables
+    public <T> T ejecutar(Callable<T> llamada, boolean reintentable) {
+        return ejecutar(llamada, reintentable, true, List.of());
+    }
+
+    public void ejecutar(Runnable llamada, boolean reintentable) {
+        ejecutarEnOrden(llamada, reintentable, List.of());
+    }
+
+    // Para escrituras: no se solapa con ningún intento anterior, terminado o abandonado, que
+    // comparta alguna de las claves. La espera por ellos cuenta dentro del tiempo máximo
+    public <T> T ejecutarEnOrden(Callable<T> llamada, boolean reintentable, Collection<?> claves) {
+        return ejecutar(llamada, reintentable, true, claves);
+    }
+
+    public void ejecutarEnOrden(Runnable llamada, boolean reintentable, Collection<?> claves) {
+        ejecutar(() -> {
+            llamada.run();
+            return null;
+        }, reintentable, true, claves);
+    }
+
+    // Para recorridos completos, que tardan lo que mida el almacén: circuito, bulkhead y
+    // reintentos, pero sin tiempo máximo
+    public <T> T ejecutarSinTiempoMaximo(Callable<T> llamada, boolean reintentable) {
+        return ejecutar(llamada, reintentable, false, List.of());
+    }
+
+    private <T> T ejecutar(Callable<T> llamada, boolean reintentable, boolean conTiempoMaximo,
+                           Collection<?> claves) {
+        llamadas.increment();
+        for (int intento = 0; ; intento++) {
+            try {
+                return intentar(llamada, conTiempoMaximo, claves);
+            } catch (RuntimeException e) {
+                if (!reintentable || intento >= politica.reintentos() || esRechazo(e)) {
+                    throw e;
+                }
+                reintentos.increment();
+                esperar(intento);
+            }
+        }
+    }
+
+    public MetricasResiliencia metricas() {
+        return new MetricasResiliencia(politica.nombre(), circuito.estado(), llamadas.sum(), exitos.sum(),
+                fallos.sum(), tiemposAgotados.sum(), rechazadasBulkhead.sum(), rechazadasCircuito.sum(),
+                reintentos.sum(), politica.maxConcurrentes() - permisos.availablePermits());
+    }
+
+    @Override
+    public void close() {
+        ejecutor.shutdown();
+    }
+
+    private <T> T intentar(Callable<T> llamada, boolean conTiempoMaximo, Collection<?> claves) {
+        if (!circuito.permitir()) {
+            rechazadasCircuito.increment();
+            throw new DependenciaNoDisponibleException(politica.nombre(), Motivo.CIRCUITO_ABIERTO);
+        }
+        if (!adquirirPermiso()) {
+            circuito.liberarSonda();
+            rechazadasBulkhead.increment();
+            throw new DependenciaNoDisponibleException(politica.nombre(), Motivo.BULKHEAD_LLENO);
+        }
+        Turno turno = pedirTurno(claves);
+        // La reclama quien llegue antes: el hilo para ejecutarla o quien la abandona para que no empiece
+        AtomicBoolean reclamada = new AtomicBoolean();
+        Future<T> futuro = ejecutor.submit(() -> {
+            if (!reclamada.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                turno.anteriores.join();
+                return llamada.call();
+            } finally {
+                liberar(turno);
+            }
+        });
+        try {
+            T resultado = conTiempoMaximo
+                    ? futuro.get(politica.tiempoMaximo().toNanos(), TimeUnit.NANOSECONDS)
+                    : futuro.get();
+            circuito.exito();
+            exitos.increment();
+            return resultado;
+        } catch (TimeoutException e) {
+            abandonar(futuro, reclamada, turno);
+            circuito.fallo();
+            tiemposAgotados.increment();
+            throw new DependenciaNoDisponibleException(politica.nombre(), Motivo.TIEMPO_AGOTADO);
+        } catch (ExecutionException e) {
+            circuito.fallo();
+            fallos.increment();
+            if (e.getCause() instanceof RuntimeException error) {
+                throw error;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            abandonar(futuro, reclamada, turno);
+            circuito.liberarSonda();
+            Thread.currentThread().interrupt();
+            throw new DependenciaNoDisponibleException(politica.nombre(), Motivo.INTERRUMPIDA);
+        }
+    }
+
+    private void abandonar(Future<?> futuro, AtomicBoolean reclamada, Turno turno) {
+        futuro.cancel(false);
+        if (reclamada.compareAndSet(false, true)) {
+            liberar(turno);
+        }
+    }
+
+    // El permiso se devuelve ya; el turno, cuando terminen los anteriores, aunque este no llegara a empezar
+    private void liberar(Turno turno) {
+        permisos.release();
+        turno.anteriores.whenComplete((ignorado, error) -> {
+            synchronized (turnos) {
+                for (Object clave : turno.claves) {
+                    turnos.remove(clave, turno.hecho);
+                }
+            }
+            turno.hecho.complete(null);
+        });
+    }
+
+    private Turno pedirTurno(Collection<?> claves) {
+        if (claves.isEmpty()) {
+            return Turno.SIN_CLAVES;
+        }
+        CompletableFuture<Void> hecho = new CompletableFuture<>();
+        List<CompletableFuture<Void>> anteriores = new ArrayList<>();
+        // Todas las claves de golpe: dos intentos con claves comunes no pueden esperarse mutuamente
+        synchronized (turnos) {
+            for (Object clave : claves) {
+                CompletableFuture<Void> anterior = turnos.put(clave, hecho);
+                if (anterior != null && anterior != hecho) {
+                    anteriores.add(anterior);
+                }
+            }
+        }
+        return new Turno(claves, hecho, CompletableFuture.allOf(anteriores.toArray(CompletableFuture[]::new)));
+    }
+
+    private boolean adquirirPermiso() {
+        try {
+            return permisos.tryAcquire(politica.esperaPermiso().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void esperar(int intento) {
+        long tope = Math.min(politica.esperaMaxima().toNanos(),
+                politica.esperaBase().toNanos() << Math.min(intento, 20));
+        if (tope <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(tope + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependenciaNoDisponibleException(politica.nombre(), Motivo.INTERRUMPIDA);
+        }
+    }
+
+    private static boolean esRechazo(RuntimeException e) {
+        return e instanceof DependenciaNoDisponibleException rechazo
+                && rechazo.getMotivo() != Motivo.TIEMPO_AGOTADO;
+    }
+
+    private record Turno(Collection<?> claves, CompletableFuture<Void> hecho, CompletableFuture<Void> anteriores) {
+        static final Turno SIN_CLAVES = new Turno(List.of(), new CompletableFuture<>(),
+                CompletableFuture.completedFuture(null));
+    }
+
+    // Abre tras fallosParaAbrir fallos seguidos; pasado tiempoAbierto deja pasar una única
+    // llamada de prueba que lo cierra si tiene éxito o lo vuelve a abrir si falla
+    static final class Circuito {
+        private final int fallosParaAbrir;
+        private final long tiempoAbierto;
+        private EstadoCircuito estado = EstadoCircuito.CERRADO;
+        private int fallosSeguidos;
+        private long abiertoHasta;
+        private boolean sondaEnCurso;
+
+        Circuito(int fallosParaAbrir, long tiempoAbierto) {
+            this.fallosParaAbrir = fallosParaAbrir;
+            this.tiempoAbierto = tiempoAbierto;
+        }
+
+        synchronized boolean permitir() {
+            if (estado == EstadoCircuito.ABIERTO && System.nanoTime() - abiertoHasta >= 0) {
+                estado = EstadoCircuito.SEMIABIERTO;
+            }
+            return switch (estado) {
+                case CERRADO -> true;
+                case ABIERTO -> false;
+                case SEMIABIERTO -> {
+                    if (sondaEnCurso) {
+                        yield false;
+                    }
+                    sondaEnCurso = true;
+                    yield true;
+                }
+            };
+        }
+
+        synchronized void exito() {
+            estado = EstadoCircuito.CERRADO;
+            fallosSeguidos = 0;
+            sondaEnCurso = false;
+        }
+
+        synchronized void fallo() {
+            fallosSeguidos++;
+            if (estado == EstadoCircuito.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+                estado = EstadoCircuito.ABIERTO;
+                abiertoHasta = System.nanoTime() + tiempoAbierto;
+                sondaEnCurso = false;
+            }
+        }
+
+        synchronized void liberarSonda() {
+            sondaEnCurso = false;
+        }
+
+        synchronized EstadoCircuito estado() {
+            return estado;
+        }
+    }
+}
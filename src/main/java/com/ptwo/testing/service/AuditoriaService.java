@@ -1,5 +1,13 @@
 package com.ptwo.testing.service;
 
+import java.util.List;
+
 public interface AuditoriaService {
     void registrarOperacion(String tipoOperacion, String detalles);
+
+    default void registrarOperaciones(List<RegistroAuditoria> lote) {
+        for (RegistroAuditoria registro : lote) {
+            registrarOperacion(registro.tipoOperacion(), registro.detalles());
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.ptwo.testing.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Acumula los registros y los entrega al delegado en lotes, desde un hilo propio,
+// cada intervaloVaciado o en cuanto se llena un lote. Con la cola llena, el llamante
+// vacía él mismo para no perder registros.
+public class AuditoriaServiceEnLotes implements AuditoriaService, AutoCloseable {
+    private final AuditoriaService delegado;
+    private final int tamanoLote;
+    private final BlockingQueue<RegistroAuditoria> pendientes;
+    private final ScheduledExecutorService vaciador;
+
+    public AuditoriaServiceEnLotes(AuditoriaService delegado, int tamanoLote, int capacidadCola,
+                                   Duration intervaloVaciado) {
+        this.delegado = delegado;
+        this.tamanoLote = tamanoLote;
+        this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+        this.vaciador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "auditoria-lotes");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = intervaloVaciado.toMillis();
+        vaciador.scheduleWithFixedDelay(this::vaciar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void registrarOperacion(String tipoOperacion, String detalles) {
+        RegistroAuditoria registro = new RegistroAuditoria(tipoOperacion, detalles);
+        while (!pendientes.offer(registro)) {
+            vaciar();
+        }
+        if (pendientes.size() >= tamanoLote) {
+            vaciador.execute(this::vaciar);
+        }
+    }
+
+    public int pendientes() {
+        return pendientes.size();
+    }
+
+    public synchronized void vaciar() {
+        while (true) {
+            // Lista nueva en cada lote: el delegado puede quedarse con la referencia
+            List<RegistroAuditoria> lote = new ArrayList<>(tamanoLote);
+            if (pendientes.drainTo(lote, tamanoLote) == 0) {
+                return;
+            }
+            delegado.registrarOperaciones(lote);
+        }
+    }
+
+    @Override
+    public void close() {
+        vaciador.shutdown();
+        vaciar();
+    }
+}
@@ -0,0 +1,21 @@
+package com.ptwo.testing.service;
+
+import java.util.List;
+
+public class AuditoriaServiceImpl implements AuditoriaService {
+    @Override
+    public void registrarOperacion(String tipoOperacion, String detalles) {
+        System.out.println("[AUDITORIA] " + tipoOperacion + ": " + detalles);
+    }
+
+    @Override
+    public void registrarOperaciones(List<RegistroAuditoria> lote) {
+        // Una sola escritura para todo el lote
+        StringBuilder salida = new StringBuilder();
+        for (RegistroAuditoria registro : lote) {
+            salida.append("[AUDITORIA] ").append(registro.tipoOperacion())
+                    .append(": ").append(registro.detalles()).append(System.lineSeparator());
+        }
+        System.out.print(salida);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ptwo.testing.service;
+
+// Una clave de idempotencia ya usada llega con otra petición: no es un reintento, es un error del cliente
+public class ClaveIdempotenciaReutilizadaException extends RuntimeException {
+    private final String clave;
+
+    public ClaveIdempotenciaReutilizadaException(String clave) {
+        super("La clave de idempotencia " + clave + " ya se usó con otra petición");
+        this.clave = clave;
+    }
+
+    public String getClave() { return clave; }
+}
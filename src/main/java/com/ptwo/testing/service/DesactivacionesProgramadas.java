@@ -0,0 +1,228 @@
+package com.ptwo.testing.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.ptwo.testing.programacion.RegistroTemporizadores;
+import com.ptwo.testing.programacion.RuedaTemporizadores;
+
+// Desactivaciones a una hora fija sobre una rueda de temporizadores. Cada tick entrega los ids
+// vencidos en lotes a la acción (la desactivación masiva de UsuarioService) y solo después los
+// retira del registro en disco, así que tras una caída se repiten en lugar de perderse.
+// Reprogramar un id sustituye su vencimiento anterior: la rueda conserva la entrada vieja y se
+// descarta al vencer porque ya no coincide con la vigente. Cuando esas entradas descartadas superan
+// a las vigentes la rueda se rehace solo con estas, así que no crecen sin límite con cancelaciones
+// y reprogramaciones lejanas.
+public class DesactivacionesProgramadas implements AutoCloseable {
+    // Por debajo de esto no compensa rehacer la rueda
+    static final int MINIMO_DESCARTADAS = 1024;
+
+    private final int tamanoLote;
+    private final Duration resolucion;
+    private final RuedaTemporizadores rueda;
+    private final RegistroTemporizadores registro;
+    // id -> vencimiento en milisegundos; rueda, vigentes y registro se modifican juntos bajo este lock
+    private final Map<Long, Long> vigentes = new HashMap<>();
+    private final ReentrantLock procesando = new ReentrantLock();
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder reconstrucciones = new LongAdder();
+    private ScheduledExecutorService planificador;
+    private Consumer<long[]> accion;
+    private long ultimoProcesado;
+
+    public DesactivacionesProgramadas(Path directorio, Duration resolucion, int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+        this.tamanoLote = tamanoLote;
+        this.resolucion = resolucion;
+        this.rueda = new RuedaTemporizadores(resolucion, System.currentTimeMillis());
+        this.registro = new RegistroTemporizadores(directorio.resolve("desactivaciones.log"));
+        vigentes.putAll(registro.recuperados());
+        vigentes.forEach(rueda::programar);
+    }
+
+    // Arranca la pasada periódica; UsuarioService se conecta así al recibir el motor
+    public synchronized void iniciar(Consumer<long[]> accion) {
+        if (this.accion != null) {
+            throw new IllegalStateException("Las desactivaciones programadas ya están iniciadas");
+        }
+        this.accion = accion;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "desactivaciones-programadas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = resolucion.toMillis();
+        planificador.scheduleWithFixedDelay(() -> procesarSinPropagar(Instant.now()), periodo, periodo,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void programar(long id, Instant cuando) {
+        long vencimiento = cuando.toEpochMilli();
+        synchronized (vigentes) {
+            vigentes.put(id, vencimiento);
+            registro.programado(id, vencimiento);
+            rueda.programar(id, vencimiento);
+            reconstruirSiHaceFalta();
+        }
+    }
+
+    public boolean cancelar(long id) {
+        synchronized (vigentes) {
+            if (vigentes.remove(id) == null) {
+                return false;
+            }
+            registro.retirado(id);
+            reconstruirSiHaceFalta();
+            return true;
+        }
+    }
+
+    public int pendientes() {
+        synchronized (vigentes) {
+            return vigentes.size();
+        }
+    }
+
+    // Entradas de la rueda que ya no corresponden a ningún vencimiento vigente
+    public long descartadas() {
+        synchronized (vigentes) {
+            return Math.max(0, rueda.pendientes() - vigentes.size());
+        }
+    }
+
+    public long reconstrucciones() {
+        return reconstrucciones.sum();
+    }
+
+    public long ejecutadas() {
+        return ejecutadas.sum();
+    }
+
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    // Entrega lo vencido hasta ahora; devuelve cuántas desactivaciones se ejecutaron.
+    // Un lote que falla vuelve a la rueda para el siguiente tick
+    public int procesarVencidos(Instant ahora) {
+        if (accion == null) {
+            throw new IllegalStateException("Las desactivaciones programadas no están iniciadas");
+        }
+        procesando.lock();
+        try {
+            // La hora no retrocede: lo que la rueda entrega ya está vencido para la hora usada
+            long ahoraMillis = Math.max(ahora.toEpochMilli(), ultimoProcesado);
+            ultimoProcesado = ahoraMillis;
+            List<long[]> lotes = new ArrayList<>();
+            List<long[]> vencimientos = new ArrayList<>();
+            synchronized (vigentes) {
+                rueda.avanzar(ahoraMillis, tamanoLote, candidatos -> filtrarVigentes(candidatos, ahoraMillis,
+                        lotes, vencimientos));
+            }
+            int total = 0;
+            for (int i = 0; i < lotes.size(); i++) {
+                total += ejecutar(lotes.get(i), vencimientos.get(i), ahoraMillis);
+            }
+            synchronized (vigentes) {
+                registro.sincronizar();
+                if (registro.necesitaCompactar(vigentes.size())) {
+                    registro.compactar(vigentes);
+                }
+            }
+            return total;
+        } finally {
+            procesando.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (planificador != null) {
+            planificador.shutdown();
+        }
+        procesando.lock();
+        try {
+            synchronized (vigentes) {
+                registro.close();
+            }
+        } finally {
+            procesando.unlock();
+        }
+    }
+
+    // Rehacer cuesta lo que hay vigente y solo ocurre tras al menos otras tantas entradas descartadas.
+    // Lo que está ejecutándose sigue en vigentes y vuelve a la rueda; si termina bien, se descarta al vencer
+    private void reconstruirSiHaceFalta() {
+        long descartadas = rueda.pendientes() - vigentes.size();
+        if (descartadas > Math.max(MINIMO_DESCARTADAS, vigentes.size())) {
+            rueda.vaciar();
+            vigentes.forEach(rueda::programar);
+            reconstrucciones.increment();
+        }
+    }
+
+    // Descarta las entradas reprogramadas o canceladas desde que entraron en la rueda
+    private void filtrarVigentes(long[] candidatos, long ahoraMillis, List<long[]> lotes, List<long[]> vencimientos) {
+        long[] ids = new long[candidatos.length];
+        long[] vencimientosLote = new long[candidatos.length];
+        int n = 0;
+        for (long id : candidatos) {
+            Long vencimiento = vigentes.get(id);
+            if (vencimiento != null && vencimiento <= ahoraMillis) {
+                ids[n] = id;
+                vencimientosLote[n++] = vencimiento;
+            }
+        }
+        if (n > 0) {
+            lotes.add(Arrays.copyOf(ids, n));
+            vencimientos.add(Arrays.copyOf(vencimientosLote, n));
+        }
+    }
+
+    private int ejecutar(long[] ids, long[] vencimientosLote, long ahoraMillis) {
+        try {
+            accion.accept(ids);
+        } catch (RuntimeException e) {
+            fallos.increment();
+            synchronized (vigentes) {
+                for (long id : ids) {
+                    rueda.programar(id, ahoraMillis);
+                }
+            }
+            return 0;
+        }
+        // Solo se retira lo que nadie ha reprogramado mientras se ejecutaba la acción
+        synchronized (vigentes) {
+            for (int i = 0; i < ids.length; i++) {
+                if (vigentes.remove(ids[i], vencimientosLote[i])) {
+                    registro.retirado(ids[i]);
+                }
+            }
+        }
+        ejecutadas.add(ids.length);
+        return ids.length;
+    }
+
+    private void procesarSinPropagar(Instant ahora) {
+        try {
+            procesarVencidos(ahora);
+        } catch (RuntimeException e) {
+            fallos.increment();
+        }
+    }
+}
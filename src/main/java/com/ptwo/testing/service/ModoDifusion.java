@@ -0,0 +1,11 @@
+package com.ptwo.testing.service;
+
+// Cómo se lanzan notificación y auditoría tras un guardado correcto
+public enum ModoDifusion {
+    // Una detrás de otra en el hilo llamante: save -> notificación -> auditoría
+    SECUENCIAL,
+    // En paralelo; el llamante espera a ambas y recibe el primer error
+    PARALELO,
+    // En paralelo y sin esperar; los errores no llegan al llamante
+    PARALELO_SIN_ESPERA
+}
@@ -5,4 +5,13 @@ import com.ptwo.testing.model.Usuario;
 public interface NotificacionService {
     void enviarNotificacionRegistro(Usuario usuario);
     void enviarNotificacionDesactivacion(Usuario usuario);
-}
\ No newline at end of file
+
+    // La clave identifica el aviso entre reintentos; un proveedor idempotente descarta las repeticiones
+    default void enviarNotificacionRegistro(Usuario usuario, String claveIdempotencia) {
+        enviarNotificacionRegistro(usuario);
+    }
+
+    default void enviarNotificacionDesactivacion(Usuario usuario, String claveIdempotencia) {
+        enviarNotificacionDesactivacion(usuario);
+    }
+}
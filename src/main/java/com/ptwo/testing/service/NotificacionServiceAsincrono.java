@@ -0,0 +1,58 @@
+package com.ptwo.testing.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ptwo.testing.model.Usuario;
+
+// Envía las notificaciones desde un pool propio para sacarlas del camino de la petición.
+// Si la cola se llena, la notificación se envía en el hilo llamante (contrapresión).
+public class NotificacionServiceAsincrono implements NotificacionService, AutoCloseable {
+    private final NotificacionService delegado;
+    private final ThreadPoolExecutor ejecutor;
+
+    public NotificacionServiceAsincrono(NotificacionService delegado, int hilos, int capacidadCola) {
+        this.delegado = delegado;
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                r -> {
+                    Thread hilo = new Thread(r, "notificaciones-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario) {
+        Usuario copia = new Usuario(usuario);
+        ejecutor.execute(() -> delegado.enviarNotificacionRegistro(copia));
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario) {
+        Usuario copia = new Usuario(usuario);
+        ejecutor.execute(() -> delegado.enviarNotificacionDesactivacion(copia));
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario, String claveIdempotencia) {
+        Usuario copia = new Usuario(usuario);
+        ejecutor.execute(() -> delegado.enviarNotificacionRegistro(copia, claveIdempotencia));
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario, String claveIdempotencia) {
+        Usuario copia = new Usuario(usuario);
+        ejecutor.execute(() -> delegado.enviarNotificacionDesactivacion(copia, claveIdempotencia));
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
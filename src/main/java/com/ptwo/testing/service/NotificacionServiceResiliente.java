@@ -0,0 +1,50 @@
+package com.ptwo.testing.service;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.MetricasResiliencia;
+import com.ptwo.testing.resiliencia.PoliticaResiliencia;
+import com.ptwo.testing.resiliencia.Resiliencia;
+
+// Las notificaciones se reintentan: un aviso duplicado es preferible a uno perdido
+public class NotificacionServiceResiliente implements NotificacionService, AutoCloseable {
+    private final NotificacionService delegado;
+    private final Resiliencia resiliencia;
+
+    public NotificacionServiceResiliente(NotificacionService delegado, PoliticaResiliencia politica) {
+        this.delegado = delegado;
+        this.resiliencia = new Resiliencia(politica);
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario) {
+        Usuario copia = new Usuario(usuario);
+        resiliencia.ejecutar(() -> delegado.enviarNotificacionRegistro(copia), true);
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario) {
+        Usuario copia = new Usuario(usuario);
+        resiliencia.ejecutar(() -> delegado.enviarNotificacionDesactivacion(copia), true);
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario, String claveIdempotencia) {
+        Usuario copia = new Usuario(usuario);
+        resiliencia.ejecutar(() -> delegado.enviarNotificacionRegistro(copia, claveIdempotencia), true);
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario, String claveIdempotencia) {
+        Usuario copia = new Usuario(usuario);
+        resiliencia.ejecutar(() -> delegado.enviarNotificacionDesactivacion(copia, claveIdempotencia), true);
+    }
+
+    public MetricasResiliencia metricas() {
+        return resiliencia.metricas();
+    }
+
+    @Override
+    public void close() {
+        resiliencia.close();
+    }
+}
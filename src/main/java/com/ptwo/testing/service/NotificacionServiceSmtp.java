@@ -0,0 +1,77 @@
+package com.ptwo.testing.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ptwo.testing.correo.ClienteSmtp;
+import com.ptwo.testing.correo.MensajeCorreo;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+
+// Avisos por correo a través del pool de ClienteSmtp. Cada llamada espera a que el servidor acepte
+// su mensaje, así que un rechazo llega al llamante (y a NotificacionServiceResiliente si lo envuelve);
+// las llamadas concurrentes a un mismo dominio salen juntas por la misma conexión.
+// La clave de idempotencia va en Message-ID: el reintento de un aviso lleva el mismo
+public class NotificacionServiceSmtp implements NotificacionService {
+    private final ClienteSmtp cliente;
+    private final String remitente;
+    private final Duration tiempoMaximo;
+
+    public NotificacionServiceSmtp(ClienteSmtp cliente, String remitente, Duration tiempoMaximo) {
+        this.cliente = cliente;
+        this.remitente = remitente;
+        this.tiempoMaximo = tiempoMaximo;
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario) {
+        enviarNotificacionRegistro(usuario, null);
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario) {
+        enviarNotificacionDesactivacion(usuario, null);
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario, String claveIdempotencia) {
+        enviar(usuario, "Bienvenido/a, " + usuario.getNombre(),
+                "Hola " + usuario.getNombre() + ",\n\ntu cuenta se ha creado correctamente.\n",
+                claveIdempotencia);
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario, String claveIdempotencia) {
+        enviar(usuario, "Tu cuenta se ha desactivado",
+                "Hola " + usuario.getNombre() + ",\n\ntu cuenta se ha desactivado.\n",
+                claveIdempotencia);
+    }
+
+    private void enviar(Usuario usuario, String asunto, String cuerpo, String claveIdempotencia) {
+        String idMensaje = claveIdempotencia == null
+                ? null
+                : claveIdempotencia + "@" + remitente.substring(remitente.lastIndexOf('@') + 1);
+        MensajeCorreo mensaje = new MensajeCorreo(remitente, usuario.getEmail(), asunto, cuerpo, idMensaje);
+        CompletableFuture<Void> envio = cliente.enviar(mensaje);
+        try {
+            envio.get(tiempoMaximo.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Si aún no ha salido, que no salga además del reintento
+            envio.cancel(false);
+            throw new DependenciaNoDisponibleException("smtp", Motivo.TIEMPO_AGOTADO);
+        } catch (InterruptedException e) {
+            envio.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new DependenciaNoDisponibleException("smtp", Motivo.INTERRUMPIDA);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ptwo.testing.service;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Publisher en frío sobre un Stream: cada suscripción abre el suyo con la primera petición y
+// saca del iterador, uno a uno, lo pedido y como mucho uno más para saber si ha terminado, así
+// que la memoria no depende del tamaño del resultado. Las señales salen siempre del ejecutor,
+// serializadas por un contador de trabajo pendiente; request y cancel solo anotan y programan
+// una pasada.
+final class PublicadorFlujo<T> implements Flow.Publisher<T> {
+    private final Supplier<Stream<T>> origen;
+    private final Executor ejecutor;
+
+    PublicadorFlujo(Supplier<Stream<T>> origen, Executor ejecutor) {
+        this.origen = origen;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> suscriptor) {
+        Objects.requireNonNull(suscriptor, "suscriptor");
+        suscriptor.onSubscribe(new Suscripcion<>(origen, ejecutor, suscriptor));
+    }
+
+    private static final class Suscripcion<T> implements Flow.Subscription {
+        private final Supplier<Stream<T>> origen;
+        private final Executor ejecutor;
+        private final Flow.Subscriber<? super T> suscriptor;
+        private final AtomicLong demanda = new AtomicLong();
+        private final AtomicInteger pasadasPendientes = new AtomicInteger();
+        private volatile boolean cancelada;
+        private volatile Throwable peticionInvalida;
+        // Solo los toca la pasada en curso
+        private Stream<T> flujo;
+        private Iterator<T> iterador;
+        private boolean terminada;
+
+        Suscripcion(Supplier<Stream<T>> origen, Executor ejecutor, Flow.Subscriber<? super T> suscriptor) {
+            this.origen = origen;
+            this.ejecutor = ejecutor;
+            this.suscriptor = suscriptor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                peticionInvalida = new IllegalArgumentException("Se deben pedir elementos en positivo, no " + n);
+            } else {
+                demanda.getAndAccumulate(n, (actual, pedido) -> actual + pedido < 0 ? Long.MAX_VALUE : actual + pedido);
+            }
+            programar();
+        }
+
+        @Override
+        public void cancel() {
+            cancelada = true;
+            programar();
+        }
+
+        private void programar() {
+            if (pasadasPendientes.getAndIncrement() == 0) {
+                ejecutor.execute(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            int pendientes = 1;
+            do {
+                if (!terminada) {
+                    try {
+                        emitir();
+                    } catch (RuntimeException e) {
+                        fallar(e);
+                    }
+                }
+                pendientes = pasadasPendientes.addAndGet(-pendientes);
+            } while (pendientes != 0);
+        }
+
+        private void emitir() {
+            while (true) {
+                if (cancelada) {
+                    terminar();
+                    return;
+                }
+                if (peticionInvalida != null) {
+                    terminar();
+                    suscriptor.onError(peticionInvalida);
+                    return;
+                }
+                if (demanda.get() == 0 && iterador == null) {
+                    return;
+                }
+                if (iterador == null) {
+                    flujo = origen.get();
+                    iterador = flujo.iterator();
+                }
+                // Sin demanda solo se mira si ya no queda nada, para completar sin esperar otra petición
+                boolean quedan = iterador.hasNext();
+                if (quedan && demanda.get() == 0) {
+                    return;
+                }
+                if (!quedan) {
+                    terminar();
+                    suscriptor.onComplete();
+                    return;
+                }
+                T siguiente = iterador.next();
+                if (demanda.get() != Long.MAX_VALUE) {
+                    demanda.decrementAndGet();
+                }
+                suscriptor.onNext(siguiente);
+            }
+        }
+
+        // Falló el origen o lanzó el suscriptor. Un suscriptor que lanza desde onError u onComplete
+        // incumple la especificación (§2.13): se descarta lo que lance, sin señales tras la final, y
+        // la pasada sigue hasta descontarse, o no volvería a programarse ninguna
+        private void fallar(RuntimeException e) {
+            boolean yaTerminada = terminada;
+            try {
+                terminar();
+            } catch (RuntimeException alCerrar) {
+                e.addSuppressed(alCerrar);
+            }
+            if (yaTerminada) {
+                return;
+            }
+            try {
+                suscriptor.onError(e);
+            } catch (RuntimeException ignorada) {
+                // Ya no hay a quién avisar
+            }
+        }
+
+        private void terminar() {
+            terminada = true;
+            if (flujo != null) {
+                flujo.close();
+                flujo = null;
+                iterador = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.ptwo.testing.service;
+
+public record RegistroAuditoria(String tipoOperacion, String detalles) {
+}
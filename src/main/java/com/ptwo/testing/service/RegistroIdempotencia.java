@@ -0,0 +1,134 @@
+package com.ptwo.testing.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.ptwo.testing.model.Usuario;
+
+// Resultado de cada alta por clave de idempotencia. La primera llamada con una clave ejecuta la
+// operación; las repetidas mientras sigue en curso esperan a su resultado y las posteriores lo
+// reciben sin ejecutar nada hasta que caduca. Un fallo no se guarda: quien esperaba recibe el
+// mismo error y el siguiente reintento vuelve a ejecutar. Cada clave guarda la huella de la
+// petición que la estrenó: la misma clave con otra huella se rechaza en lugar de devolver un
+// resultado que no le corresponde.
+// Con un único ttl el orden de llegada es casi el de caducidad: al anotar una clave se retiran
+// por delante las caducadas y, por encima del máximo, las más antiguas. Las que siguen en curso se
+// saltan sin frenar la purga de las de detrás, así que el máximo solo puede superarse en tantas
+// altas como haya a la vez
+public class RegistroIdempotencia {
+    private final long ttl;
+    private final int maximoEntradas;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entrada> llegada = new ConcurrentLinkedQueue<>();
+    private final LongAdder reutilizados = new LongAdder();
+
+    public RegistroIdempotencia(Duration ttl, int maximoEntradas) {
+        if (maximoEntradas <= 0) {
+            throw new IllegalArgumentException("El máximo de entradas debe ser positivo");
+        }
+        this.ttl = ttl.toNanos();
+        this.maximoEntradas = maximoEntradas;
+    }
+
+    public Usuario ejecutar(String clave, int huella, Supplier<Usuario> operacion) {
+        while (true) {
+            Entrada nueva = new Entrada(clave, huella);
+            Entrada existente = entradas.putIfAbsent(clave, nueva);
+            if (existente == null) {
+                llegada.add(nueva);
+                purgar();
+                return nueva.ejecutar(operacion);
+            }
+            if (existente.caducada(System.nanoTime())) {
+                entradas.remove(clave, existente);
+                continue;
+            }
+            if (existente.huella != huella) {
+                throw new ClaveIdempotenciaReutilizadaException(clave);
+            }
+            Usuario resultado = existente.esperar();
+            reutilizados.increment();
+            return resultado;
+        }
+    }
+
+    // Llamadas respondidas con el resultado de otra, incluidas las que esperaron a que terminara
+    public long reutilizados() {
+        return reutilizados.sum();
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    private void purgar() {
+        long ahora = System.nanoTime();
+        Iterator<Entrada> iterador = llegada.iterator();
+        while (iterador.hasNext()) {
+            Entrada entrada = iterador.next();
+            if (!entrada.resultado.isDone()) {
+                continue;
+            }
+            if (!entrada.caducada(ahora) && entradas.size() <= maximoEntradas) {
+                return;
+            }
+            iterador.remove();
+            entradas.remove(entrada.clave, entrada);
+        }
+    }
+
+    private final class Entrada {
+        final String clave;
+        final int huella;
+        final CompletableFuture<Usuario> resultado = new CompletableFuture<>();
+        // Se fija antes de completar el resultado: solo vale una vez terminada
+        volatile long caduca;
+
+        Entrada(String clave, int huella) {
+            this.clave = clave;
+            this.huella = huella;
+        }
+
+        Usuario ejecutar(Supplier<Usuario> operacion) {
+            Usuario usuario;
+            try {
+                usuario = operacion.get();
+            } catch (RuntimeException | Error e) {
+                entradas.remove(clave, this);
+                resultado.completeExceptionally(e);
+                throw e;
+            }
+            caduca = System.nanoTime() + ttl;
+            // Se guarda una copia para que lo que haga el llamante con la suya no llegue a los reintentos
+            resultado.complete(new Usuario(usuario));
+            return usuario;
+        }
+
+        Usuario esperar() {
+            try {
+                return new Usuario(resultado.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException r) {
+                    throw r;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando el alta con clave " + clave, e);
+            }
+        }
+
+        boolean caducada(long ahora) {
+            return resultado.isCompletedExceptionally() || resultado.isDone() && ahora - caduca >= 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ptwo.testing.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.ptwo.testing.repository.AvisoPendiente;
+import com.ptwo.testing.repository.BandejaSalida;
+
+// Entrega en segundo plano los avisos de la bandeja de salida, en lotes y en orden.
+// Un aviso se confirma después de entregarse, así que una caída entre medias lo repite
+// (al menos una vez) con la misma clave de idempotencia. Si una entrega falla, se confirma
+// lo entregado hasta ahí y el resto espera a la siguiente pasada.
+public class RepartidorAvisos implements AutoCloseable {
+    private final BandejaSalida bandeja;
+    private final NotificacionService notificacionService;
+    private final int tamanoLote;
+    private final ScheduledExecutorService planificador;
+    private final LongAdder entregados = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public RepartidorAvisos(BandejaSalida bandeja, NotificacionService notificacionService,
+                            int tamanoLote, Duration intervalo) {
+        this.bandeja = bandeja;
+        this.notificacionService = notificacionService;
+        this.tamanoLote = tamanoLote;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "repartidor-avisos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = intervalo.toMillis();
+        planificador.scheduleWithFixedDelay(this::repartirSinPropagar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    // Vacía la bandeja lote a lote; devuelve cuántos avisos se entregaron
+    public synchronized int repartir() {
+        int total = 0;
+        while (true) {
+            List<AvisoPendiente> lote = bandeja.avisosPendientes(tamanoLote);
+            if (lote.isEmpty()) {
+                return total;
+            }
+            List<Long> confirmados = new ArrayList<>(lote.size());
+            try {
+                for (AvisoPendiente aviso : lote) {
+                    entregar(aviso);
+                    confirmados.add(aviso.clave());
+                }
+            } catch (RuntimeException e) {
+                fallos.increment();
+                bandeja.confirmarEntregados(confirmados);
+                entregados.add(confirmados.size());
+                throw e;
+            }
+            bandeja.confirmarEntregados(confirmados);
+            entregados.add(confirmados.size());
+            total += confirmados.size();
+        }
+    }
+
+    public long entregados() {
+        return entregados.sum();
+    }
+
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        planificador.shutdown();
+        planificador.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void entregar(AvisoPendiente aviso) {
+        switch (aviso.tipo()) {
+            case REGISTRO -> notificacionService.enviarNotificacionRegistro(aviso.usuario(), aviso.claveIdempotencia());
+            case DESACTIVACION ->
+                    notificacionService.enviarNotificacionDesactivacion(aviso.usuario(), aviso.claveIdempotencia());
+        }
+    }
+
+    private void repartirSinPropagar() {
+        try {
+            repartir();
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente pasada; el fallo queda contado en fallos()
+        }
+    }
+}
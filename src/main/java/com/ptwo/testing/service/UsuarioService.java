@@ -1,16 +1,42 @@
 package com.ptwo.testing.service;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+import com.ptwo.testing.correo.DireccionCorreo;
+import com.ptwo.testing.diagnostico.EventoOperacionUsuario;
+import com.ptwo.testing.exportacion.ExportacionColumnar;
+import com.ptwo.testing.model.EstadisticasUsuarios;
 import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.ContadoresUsuarios;
+import com.ptwo.testing.repository.TipoAviso;
 import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.resiliencia.LimiteAdaptativo;
 
 public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final NotificacionService notificacionService;
     private final AuditoriaService auditoriaService;
+    // Serializa las lecturas-modificación-escritura sobre un mismo id (ver desactivarUsuario)
+    private final ReentrantLock[] franjas = new ReentrantLock[64];
+    private ContadoresUsuarios contadores;
+    private ModoDifusion modoDifusion = ModoDifusion.SECUENCIAL;
+    private boolean avisosDiferidos;
+    private DesactivacionesProgramadas desactivacionesProgramadas;
+    private RegistroIdempotencia idempotencia;
+    private LimiteAdaptativo limiteEscrituras;
+    private ExportacionColumnar exportacion = new ExportacionColumnar(4096, Runtime.getRuntime().availableProcessors());
 
     public UsuarioService(UsuarioRepository usuarioRepository,
                           NotificacionService notificacionService,
@@ -18,38 +44,302 @@ public class UsuarioService {
         this.usuarioRepository = usuarioRepository;
         this.notificacionService = notificacionService;
         this.auditoriaService = auditoriaService;
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    // Contadores mantenidos por el repositorio observado; sin ellos, estadisticas() recorre findAll()
+    public void setContadores(ContadoresUsuarios contadores) {
+        this.contadores = contadores;
+    }
+
+    public void setModoDifusion(ModoDifusion modoDifusion) {
+        this.modoDifusion = modoDifusion;
+    }
+
+    // Con avisos diferidos, la notificación se escribe en la bandeja de salida del almacén junto
+    // con el usuario y la entrega RepartidorAvisos; el almacén tiene que admitir saveConAviso
+    public void setAvisosDiferidos(boolean avisosDiferidos) {
+        this.avisosDiferidos = avisosDiferidos;
+    }
+
+    public void setExportacion(ExportacionColumnar exportacion) {
+        this.exportacion = exportacion;
+    }
+
+    // Los vencimientos del motor entran por desactivarUsuarios
+    public void setDesactivacionesProgramadas(DesactivacionesProgramadas desactivacionesProgramadas) {
+        this.desactivacionesProgramadas = desactivacionesProgramadas;
+        desactivacionesProgramadas.iniciar(this::desactivarUsuarios);
+    }
+
+    // Sin registro, las claves de idempotencia se ignoran y cada llamada crea
+    public void setIdempotencia(RegistroIdempotencia idempotencia) {
+        this.idempotencia = idempotencia;
+    }
+
+    // Altas y desactivaciones pasan por el límite; lo que lo supera se rechaza con
+    // DependenciaNoDisponibleException (LIMITE_ALCANZADO) sin llegar al almacén
+    public void setLimiteEscrituras(LimiteAdaptativo limiteEscrituras) {
+        this.limiteEscrituras = limiteEscrituras;
     }
 
     public Usuario crearUsuario(Usuario usuario) {
-        if (usuario.getEmail() == null || !usuario.getEmail().contains("@")) {
-            throw new IllegalArgumentException("Email inválido");
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("CREAR_USUARIO", 1);
+        try {
+            if (!DireccionCorreo.valida(usuario.getEmail())) {
+                throw new IllegalArgumentException("Email inválido");
+            }
+
+            Usuario usuarioGuardado = limiteEscrituras == null
+                    ? crear(usuario)
+                    : limiteEscrituras.ejecutar(() -> crear(usuario));
+            evento.afectados(1);
+            return usuarioGuardado;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
         }
+    }
 
-        Usuario usuarioGuardado = usuarioRepository.save(usuario);
-        notificacionService.enviarNotificacionRegistro(usuario);
-        auditoriaService.registrarOperacion("CREAR_USUARIO",
-                "Usuario creado: " + usuario.getNombre() + " (" + usuario.getEmail() + ")");
+    private Usuario crear(Usuario usuario) {
+        Usuario usuarioGuardado;
+        if (usuario.getId() == null) {
+            usuarioGuardado = guardar(usuario, TipoAviso.REGISTRO);
+        } else {
+            ReentrantLock franja = franja(usuario.getId());
+            franja.lock();
+            try {
+                usuarioGuardado = guardar(usuario, TipoAviso.REGISTRO);
+            } finally {
+                franja.unlock();
+            }
+        }
+        difundir(() -> notificacionService.enviarNotificacionRegistro(usuario),
+                () -> auditoriaService.registrarOperacion("CREAR_USUARIO",
+                        "Usuario creado: " + usuario.getNombre() + " (" + usuario.getEmail() + ")"));
         return usuarioGuardado;
     }
 
+    // Un reintento con la misma clave recibe el resultado del primero sin volver a guardar, notificar
+    // ni auditar; si el primero sigue en curso, lo espera. La misma clave con otros datos se rechaza
+    // con ClaveIdempotenciaReutilizadaException
+    public Usuario crearUsuario(Usuario usuario, String claveIdempotencia) {
+        if (claveIdempotencia == null || idempotencia == null) {
+            return crearUsuario(usuario);
+        }
+        // Antes de ejecutar: crearUsuario le pone el id al usuario
+        int huella = Objects.hash(usuario.getId(), usuario.getNombre(), usuario.getEmail());
+        return idempotencia.ejecutar(claveIdempotencia, huella, () -> crearUsuario(usuario));
+    }
+
     public Optional<Usuario> obtenerUsuario(Long id) {
-        return usuarioRepository.findById(id);
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("OBTENER_USUARIO", 1);
+        try {
+            Optional<Usuario> usuario = usuarioRepository.findById(id);
+            if (usuario.isPresent()) {
+                evento.afectados(1);
+            } else {
+                evento.resultado(EventoOperacionUsuario.NO_ENCONTRADO);
+            }
+            return usuario;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    // Una posición por id, en el orden de entrada, vacía si el usuario no existe
+    public List<Optional<Usuario>> obtenerUsuarios(long... ids) {
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("OBTENER_USUARIOS", ids.length);
+        try {
+            List<Optional<Usuario>> usuarios = usuarioRepository.findAllById(ids);
+            if (evento.shouldCommit()) {
+                evento.afectados((int) usuarios.stream().filter(Optional::isPresent).count());
+            }
+            return usuarios;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    public List<Optional<Usuario>> obtenerUsuarios(Collection<Long> ids) {
+        long[] primitivos = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Id de usuario nulo en la posición " + i);
+            }
+            primitivos[i++] = id;
+        }
+        return obtenerUsuarios(primitivos);
     }
 
     public List<Usuario> obtenerTodosLosUsuarios() {
-        return usuarioRepository.findAll();
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("LISTAR_USUARIOS", 0);
+        try {
+            List<Usuario> usuarios = usuarioRepository.findAll();
+            evento.afectados(usuarios.size());
+            return usuarios;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    // Recorre el almacén sin materializar la lista; el llamante debe cerrar el Stream
+    public Stream<Usuario> streamUsuarios() {
+        return usuarioRepository.streamAll();
+    }
+
+    // Vuelca la tabla entera en formato columnar comprimido recorriendo el almacén, sin cargarlo en memoria
+    public long exportarUsuarios(OutputStream destino) {
+        try (Stream<Usuario> usuarios = usuarioRepository.streamAll()) {
+            return exportacion.exportar(usuarios, destino);
+        }
+    }
+
+    // Carga masiva de una exportación por bloques con saveAll: sin notificaciones por usuario
+    // y un único registro de auditoría al terminar
+    public long importarUsuarios(InputStream origen) {
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("IMPORTAR_USUARIOS", 0);
+        try {
+            long importados = exportacion.importar(origen, usuarioRepository::saveAll);
+            auditoriaService.registrarOperacion("IMPORTAR_USUARIOS", "Usuarios importados: " + importados);
+            evento.afectados((int) Math.min(importados, Integer.MAX_VALUE));
+            return importados;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    public EstadisticasUsuarios estadisticas() {
+        if (contadores != null) {
+            return contadores.instantanea();
+        }
+        ContadoresUsuarios recalculados = new ContadoresUsuarios();
+        try (Stream<Usuario> usuarios = usuarioRepository.streamAll()) {
+            recalculados.inicializar(usuarios);
+        }
+        return recalculados.instantanea();
     }
 
     public void desactivarUsuario(Long id) {
-        Optional<Usuario> usuarioOpt = usuarioRepository.findById(id);
-        if (usuarioOpt.isPresent()) {
-            Usuario usuario = usuarioOpt.get();
-            usuario.setActivo(false);
-            usuarioRepository.save(usuario);
-            notificacionService.enviarNotificacionDesactivacion(usuario);
-            auditoriaService.registrarOperacion("DESACTIVAR_USUARIO",
-                    "Usuario desactivado: " + usuario.getNombre());
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("DESACTIVAR_USUARIO", 1);
+        try {
+            boolean desactivado = limiteEscrituras == null
+                    ? desactivar(id)
+                    : limiteEscrituras.ejecutar(() -> desactivar(id));
+            if (desactivado) {
+                evento.afectados(1);
+            } else {
+                evento.resultado(EventoOperacionUsuario.NO_ENCONTRADO);
+            }
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    private boolean desactivar(Long id) {
+        // Sin el lock, un crearUsuario concurrente con el mismo id se pierde al guardar la copia leída
+        Optional<Usuario> usuarioOpt;
+        ReentrantLock franja = franja(id);
+        franja.lock();
+        try {
+            usuarioOpt = usuarioRepository.findById(id);
+            usuarioOpt.ifPresent(usuario -> {
+                usuario.setActivo(false);
+                guardar(usuario, TipoAviso.DESACTIVACION);
+            });
+        } finally {
+            franja.unlock();
+        }
+        if (usuarioOpt.isEmpty()) {
+            return false;
         }
+        Usuario usuario = usuarioOpt.get();
+        difundir(() -> notificacionService.enviarNotificacionDesactivacion(usuario),
+                () -> auditoriaService.registrarOperacion("DESACTIVAR_USUARIO",
+                        "Usuario desactivado: " + usuario.getNombre()));
+        return true;
+    }
+
+    // Desactivación masiva: una lectura por lotes, un saveAll y un único registro de auditoría.
+    // Toma las franjas de todos los ids en orden, como desactivarUsuario toma la suya.
+    // Devuelve cuántos usuarios estaban activos y se desactivaron
+    public int desactivarUsuarios(long... ids) {
+        EventoOperacionUsuario evento = EventoOperacionUsuario.iniciar("DESACTIVAR_USUARIOS", ids.length);
+        try {
+            int desactivados = limiteEscrituras == null
+                    ? desactivarEnLote(ids)
+                    : limiteEscrituras.ejecutar(() -> desactivarEnLote(ids));
+            evento.afectados(desactivados);
+            return desactivados;
+        } catch (RuntimeException e) {
+            evento.fallo(e);
+            throw e;
+        } finally {
+            evento.terminar();
+        }
+    }
+
+    private int desactivarEnLote(long[] ids) {
+        List<ReentrantLock> tomadas = franjas(ids);
+        List<Usuario> desactivados = new ArrayList<>();
+        tomadas.forEach(ReentrantLock::lock);
+        try {
+            for (Optional<Usuario> usuario : usuarioRepository.findAllById(ids)) {
+                if (usuario.isPresent() && usuario.get().isActivo()) {
+                    usuario.get().setActivo(false);
+                    desactivados.add(usuario.get());
+                }
+            }
+            if (desactivados.isEmpty()) {
+                return 0;
+            }
+            if (avisosDiferidos) {
+                desactivados.forEach(usuario -> usuarioRepository.saveConAviso(usuario, TipoAviso.DESACTIVACION));
+            } else {
+                usuarioRepository.saveAll(desactivados);
+            }
+        } finally {
+            for (int i = tomadas.size() - 1; i >= 0; i--) {
+                tomadas.get(i).unlock();
+            }
+        }
+        difundir(() -> desactivados.forEach(notificacionService::enviarNotificacionDesactivacion),
+                () -> auditoriaService.registrarOperacion("DESACTIVAR_USUARIOS",
+                        "Usuarios desactivados: " + desactivados.size()));
+        return desactivados.size();
+    }
+
+    // Reprogramar un usuario sustituye la hora anterior
+    public void programarDesactivacion(Long id, Instant cuando) {
+        if (desactivacionesProgramadas == null) {
+            throw new IllegalStateException("Las desactivaciones programadas no están habilitadas");
+        }
+        if (!usuarioRepository.existsById(id)) {
+            throw new IllegalArgumentException("Usuario inexistente: " + id);
+        }
+        desactivacionesProgramadas.programar(id, cuando);
+        auditoriaService.registrarOperacion("PROGRAMAR_DESACTIVACION",
+                "Desactivación del usuario " + id + " programada para " + cuando);
     }
 
      public CompletableFuture<Usuario> crearUsuarioAsync(Usuario usuario) {
@@ -57,4 +347,79 @@ public class UsuarioService {
             return crearUsuario(usuario);
         });
     }
+
+    public CompletableFuture<Usuario> crearUsuarioAsync(Usuario usuario, String claveIdempotencia) {
+        return CompletableFuture.supplyAsync(() -> crearUsuario(usuario, claveIdempotencia));
+    }
+
+    private Usuario guardar(Usuario usuario, TipoAviso aviso) {
+        return avisosDiferidos ? usuarioRepository.saveConAviso(usuario, aviso) : usuarioRepository.save(usuario);
+    }
+
+    private void difundir(Runnable notificacion, Runnable auditoria) {
+        if (avisosDiferidos) {
+            auditoria.run();
+            return;
+        }
+        switch (modoDifusion) {
+            case SECUENCIAL -> {
+                notificacion.run();
+                auditoria.run();
+            }
+            case PARALELO -> difundirEnParalelo(notificacion, auditoria);
+            case PARALELO_SIN_ESPERA -> {
+                Thread.ofVirtual().name("notificacion-usuarios").start(notificacion);
+                Thread.ofVirtual().name("auditoria-usuarios").start(auditoria);
+            }
+        }
+    }
+
+    // La auditoría va en un hilo virtual y la notificación en el llamante; no se vuelve
+    // hasta que terminan las dos, aunque una falle
+    private void difundirEnParalelo(Runnable notificacion, Runnable auditoria) {
+        FutureTask<Void> auditada = new FutureTask<>(auditoria, null);
+        Thread.ofVirtual().name("auditoria-usuarios").start(auditada);
+        RuntimeException error = null;
+        try {
+            notificacion.run();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        try {
+            auditada.get();
+        } catch (ExecutionException e) {
+            RuntimeException causa = e.getCause() instanceof RuntimeException r
+                    ? r
+                    : new IllegalStateException(e.getCause());
+            if (error == null) {
+                error = causa;
+            } else {
+                error.addSuppressed(causa);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la auditoría", e);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private List<ReentrantLock> franjas(long[] ids) {
+        boolean[] necesarias = new boolean[franjas.length];
+        for (long id : ids) {
+            necesarias[Long.hashCode(id) & (franjas.length - 1)] = true;
+        }
+        List<ReentrantLock> tomadas = new ArrayList<>();
+        for (int i = 0; i < franjas.length; i++) {
+            if (necesarias[i]) {
+                tomadas.add(franjas[i]);
+            }
+        }
+        return tomadas;
+    }
+
+    private ReentrantLock franja(Long id) {
+        return franjas[Long.hashCode(id) & (franjas.length - 1)];
+    }
 }
\ No newline at end of file
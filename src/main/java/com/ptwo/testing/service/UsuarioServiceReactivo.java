@@ -0,0 +1,47 @@
+package com.ptwo.testing.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+import com.ptwo.testing.model.Usuario;
+
+// Fachada reactiva de UsuarioService sobre java.util.concurrent.Flow. Todo es en frío: nada se
+// ejecuta hasta la primera petición del suscriptor, y el trabajo bloqueante contra el almacén
+// corre en el ejecutor (hilos virtuales por defecto), nunca en el hilo que pide. Las operaciones
+// de un solo resultado emiten como mucho un elemento; las de Void solo completan.
+public class UsuarioServiceReactivo {
+    private final UsuarioService usuarioService;
+    private final Executor ejecutor;
+
+    public UsuarioServiceReactivo(UsuarioService usuarioService) {
+        this(usuarioService, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public UsuarioServiceReactivo(UsuarioService usuarioService, Executor ejecutor) {
+        this.usuarioService = usuarioService;
+        this.ejecutor = ejecutor;
+    }
+
+    public Flow.Publisher<Usuario> crearUsuario(Usuario usuario) {
+        return new PublicadorFlujo<>(() -> Stream.of(usuarioService.crearUsuario(usuario)), ejecutor);
+    }
+
+    // Vacío si no existe
+    public Flow.Publisher<Usuario> obtenerUsuario(Long id) {
+        return new PublicadorFlujo<>(() -> usuarioService.obtenerUsuario(id).stream(), ejecutor);
+    }
+
+    // Recorre el almacén al ritmo de la demanda, sin construir la lista completa
+    public Flow.Publisher<Usuario> listarUsuarios() {
+        return new PublicadorFlujo<>(usuarioService::streamUsuarios, ejecutor);
+    }
+
+    public Flow.Publisher<Void> desactivarUsuario(Long id) {
+        return new PublicadorFlujo<>(() -> {
+            usuarioService.desactivarUsuario(id);
+            return Stream.empty();
+        }, ejecutor);
+    }
+}
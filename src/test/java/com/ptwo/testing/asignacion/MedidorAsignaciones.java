@@ -0,0 +1,34 @@
+package com.ptwo.testing.asignacion;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import com.sun.management.ThreadMXBean;
+
+// Bytes asignados en el heap por el hilo actual, según el contador de TLAB de la JVM, promediados
+// sobre muchas llamadas tras un calentamiento que deja cargadas las clases y llenas las cachés.
+// Surefire limita el JIT a C1, sin análisis de escape: lo medido es la cota alta de cada camino,
+// la que se ve antes de que C2 elimine los objetos que no escapan.
+final class MedidorAsignaciones {
+    private static final ThreadMXBean HILOS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private MedidorAsignaciones() {
+    }
+
+    static boolean disponible() {
+        return HILOS.isThreadAllocatedMemorySupported() && HILOS.isThreadAllocatedMemoryEnabled();
+    }
+
+    // La operación recibe el número de iteración para repartir ids sin asignar nada al elegirlos
+    static long bytesPorOperacion(int calentamiento, int iteraciones, IntConsumer operacion) {
+        for (int i = 0; i < calentamiento; i++) {
+            operacion.accept(i);
+        }
+        long antes = HILOS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iteraciones; i++) {
+            operacion.accept(i);
+        }
+        long despues = HILOS.getCurrentThreadAllocatedBytes();
+        return Math.round((double) (despues - antes) / iteraciones);
+    }
+}
@@ -0,0 +1,168 @@
+package com.ptwo.testing.asignacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.cache.CacheCompartidaEnMemoria;
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryCacheado;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryOffHeap;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.service.UsuarioService;
+
+// Presupuesto de bytes por llamada de los caminos calientes. Un cambio que añade basura a uno
+// de ellos hace fallar su test; si la asignación nueva es intencionada, se sube el presupuesto
+// en el mismo cambio. Los presupuestos dejan un margen de alrededor del 25 % sobre lo medido.
+// Surefire los ejecuta en su propia JVM (ejecución asignaciones del pom), lejos de los mocks inline.
+@Tag("asignaciones")
+@Isolated
+class PresupuestoAsignacionesTest {
+
+    private static final int CLAVES = 1_000;
+    private static final int CALENTAMIENTO = 20_000;
+    private static final int ITERACIONES = 50_000;
+
+    @TempDir
+    Path directorio;
+
+    @BeforeAll
+    static void comprobarMedidor() {
+        assumeTrue(MedidorAsignaciones.disponible(), "La JVM no mide la asignación por hilo");
+    }
+
+    @Test
+    void obtenerUsuarioExistente() {
+        UsuarioService servicio = servicio(precargado(new UsuarioRepositoryEnMemoria()));
+
+        comprobar("UsuarioService.obtenerUsuario", 144, i -> servicio.obtenerUsuario(id(i)));
+    }
+
+    @Test
+    void obtenerUsuarioInexistente() {
+        UsuarioService servicio = servicio(precargado(new UsuarioRepositoryEnMemoria()));
+
+        comprobar("UsuarioService.obtenerUsuario sin resultado", 120, i -> servicio.obtenerUsuario(CLAVES + id(i)));
+    }
+
+    @Test
+    void crearUsuario() {
+        UsuarioService servicio = servicio(precargado(new UsuarioRepositoryEnMemoria()));
+        Usuario[] usuarios = usuarios();
+
+        comprobar("UsuarioService.crearUsuario", 400, i -> servicio.crearUsuario(usuarios[i % CLAVES]));
+    }
+
+    @Test
+    void desactivarUsuario() {
+        UsuarioService servicio = servicio(precargado(new UsuarioRepositoryEnMemoria()));
+
+        comprobar("UsuarioService.desactivarUsuario", 496, i -> servicio.desactivarUsuario(id(i)));
+    }
+
+    @Test
+    void obtenerUsuariosPorLotes() {
+        UsuarioService servicio = servicio(precargado(new UsuarioRepositoryEnMemoria()));
+        long[] lote = new long[100];
+        for (int i = 0; i < lote.length; i++) {
+            lote[i] = i * 7 + 1;
+        }
+
+        comprobar("UsuarioService.obtenerUsuarios x100", 9_000, i -> servicio.obtenerUsuarios(lote));
+    }
+
+    @Test
+    void findByIdEnMemoria() {
+        UsuarioRepository almacen = precargado(new UsuarioRepositoryEnMemoria());
+
+        comprobar("UsuarioRepositoryEnMemoria.findById", 88, i -> almacen.findById(id(i)));
+    }
+
+    @Test
+    void saveEnMemoria() {
+        UsuarioRepository almacen = precargado(new UsuarioRepositoryEnMemoria());
+        Usuario[] usuarios = usuarios();
+
+        comprobar("UsuarioRepositoryEnMemoria.save", 176, i -> almacen.save(usuarios[i % CLAVES]));
+    }
+
+    @Test
+    void findByIdOffHeap() {
+        UsuarioRepository almacen = precargado(new UsuarioRepositoryOffHeap(1 << 20));
+
+        comprobar("UsuarioRepositoryOffHeap.findById", 336, i -> almacen.findById(id(i)));
+    }
+
+    @Test
+    void saveOffHeap() {
+        UsuarioRepository almacen = precargado(new UsuarioRepositoryOffHeap(1 << 20));
+        Usuario[] usuarios = usuarios();
+
+        comprobar("UsuarioRepositoryOffHeap.save", 296, i -> almacen.save(usuarios[i % CLAVES]));
+    }
+
+    @Test
+    void findByIdPersistente() throws Exception {
+        try (UsuarioRepositoryPersistente almacen = new UsuarioRepositoryPersistente(directorio, 64 << 20,
+                Duration.ofSeconds(10))) {
+            precargado(almacen);
+
+            comprobar("UsuarioRepositoryPersistente.findById", 544, i -> almacen.findById(id(i)));
+        }
+    }
+
+    @Test
+    void findByIdCacheadoEnL1() {
+        Duration ttl = Duration.ofMinutes(10);
+        UsuarioRepository almacen = new UsuarioRepositoryCacheado(precargado(new UsuarioRepositoryEnMemoria()),
+                new CacheCompartidaEnMemoria(ttl), new TransporteBucleLocal(), "nodo", CLAVES, ttl);
+
+        comprobar("UsuarioRepositoryCacheado.findById (L1)", 176, i -> almacen.findById(id(i)));
+    }
+
+    private static void comprobar(String camino, long presupuesto, IntConsumer operacion) {
+        long medido = MedidorAsignaciones.bytesPorOperacion(CALENTAMIENTO, ITERACIONES, operacion);
+        assertThat(medido)
+                .as("%s asigna %d B por llamada; presupuesto %d B", camino, medido, presupuesto)
+                .isLessThanOrEqualTo(presupuesto);
+    }
+
+    private static UsuarioService servicio(UsuarioRepository almacen) {
+        return new UsuarioService(almacen, NotificacionServiceFake.sinHistorial(), AuditoriaServiceFake.sinHistorial());
+    }
+
+    private static <R extends UsuarioRepository> R precargado(R almacen) {
+        for (Usuario usuario : usuarios()) {
+            almacen.save(usuario);
+        }
+        return almacen;
+    }
+
+    private static Usuario[] usuarios() {
+        Usuario[] usuarios = new Usuario[CLAVES];
+        for (int i = 0; i < CLAVES; i++) {
+            usuarios[i] = new Usuario((long) i + 1, "Usuario" + (i + 1), "u" + (i + 1) + "@ejemplo.com");
+        }
+        return usuarios;
+    }
+
+    // Por encima de 127 el autoboxing asigna un Long en cada llamada, como en un llamante real,
+    // y cuenta en el presupuesto
+    private static Long id(int iteracion) {
+        return (long) (iteracion % CLAVES) + 1;
+    }
+}
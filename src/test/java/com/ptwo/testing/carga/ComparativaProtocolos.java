@@ -0,0 +1,301 @@
+package com.ptwo.testing.carga;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ptwo.testing.TestingApplication;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.protocolo.ClienteBinario;
+import com.ptwo.testing.protocolo.ResultadoAlta;
+import com.ptwo.testing.protocolo.ServidorBinario;
+import com.sun.management.OperatingSystemMXBean;
+
+// Rendimiento máximo (bucle cerrado) de las lecturas por id: JSON sobre HTTP frente al protocolo
+// binario con una id por petición y con multi-get encadenado. Arranca la aplicación en proceso, así
+// que la CPU por id incluye cliente y servidor; en los dos casos el cliente decodifica el usuario.
+//
+// mvn -Pcarga test-compile exec:java -Dexec.mainClass=com.ptwo.testing.carga.ComparativaProtocolos
+public final class ComparativaProtocolos {
+    private final ObjectMapper json = new ObjectMapper();
+    private final int clientes;
+    private final int lote;
+    private final int enVuelo;
+    private final Duration duracion;
+    private final Duration calentamiento;
+    private final long[] ids;
+
+    private ComparativaProtocolos(int clientes, int lote, int enVuelo, Duration duracion, Duration calentamiento,
+                                  long[] ids) {
+        this.clientes = clientes;
+        this.lote = lote;
+        this.enVuelo = enVuelo;
+        this.duracion = duracion;
+        this.calentamiento = calentamiento;
+        this.ids = ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int claves = Integer.getInteger("carga.claves", 10_000);
+        SpringApplication aplicacion = new SpringApplication(TestingApplication.class);
+        // Como argumentos para que prevalezcan sobre application.properties
+        try (ConfigurableApplicationContext contexto = aplicacion.run("--server.port=0",
+                "--usuarios.protocolo.habilitado=true", "--usuarios.protocolo.puerto=0",
+                "--logging.level.root=warn", "--spring.main.banner-mode=off")) {
+            InetSocketAddress binario = contexto.getBean(ServidorBinario.class).direccion();
+            URI http = URI.create("http://127.0.0.1:" + contexto.getEnvironment().getProperty("local.server.port") + "/");
+            ComparativaProtocolos comparativa = new ComparativaProtocolos(
+                    Integer.getInteger("carga.clientes", 8),
+                    Integer.getInteger("carga.lote", 64),
+                    Integer.getInteger("carga.en-vuelo", 8),
+                    DurationStyle.detectAndParse(System.getProperty("carga.duracion", "10s")),
+                    DurationStyle.detectAndParse(System.getProperty("carga.calentamiento", "3s")),
+                    precargar(binario, claves));
+            comparativa.ejecutar(http, binario);
+        }
+    }
+
+    private static long[] precargar(InetSocketAddress direccion, int claves) throws Exception {
+        long[] ids = new long[claves];
+        try (ClienteBinario cliente = new ClienteBinario(direccion)) {
+            for (int inicio = 0; inicio < claves; inicio += 1_000) {
+                List<Usuario> altas = new ArrayList<>();
+                for (int i = inicio; i < Math.min(claves, inicio + 1_000); i++) {
+                    altas.add(new Usuario(null, "Usuario " + i, "usuario" + i + "@ejemplo.com"));
+                }
+                List<Long> asignados = cliente.crear(altas).join().stream().map(ResultadoAlta::id).toList();
+                for (int i = 0; i < asignados.size(); i++) {
+                    ids[inicio + i] = asignados.get(i);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void ejecutar(URI http, InetSocketAddress binario) throws Exception {
+        System.out.printf(Locale.ROOT, "%d clientes, %s por prueba%n", clientes, duracion);
+        System.out.printf(Locale.ROOT, "%-34s %12s %12s%n", "prueba", "ids/s", "CPU µs/id");
+        List<ConexionHttp> http11 = new ArrayList<>();
+        try {
+            for (int i = 0; i < clientes; i++) {
+                http11.add(new ConexionHttp(http));
+            }
+            medir("json, GET /usuarios/{id}", (aleatorio, c) -> {
+                byte[] cuerpo = http11.get(c).get("/usuarios/" + ids[aleatorio.nextInt(ids.length)]);
+                json.readValue(cuerpo, Usuario.class);
+                return 1;
+            });
+        } finally {
+            for (ConexionHttp conexion : http11) {
+                conexion.close();
+            }
+        }
+        List<ClienteBinario> conexiones = new ArrayList<>();
+        try {
+            for (int i = 0; i < clientes; i++) {
+                conexiones.add(new ClienteBinario(binario));
+            }
+            medir("binario, 1 id por petición", (aleatorio, c) -> {
+                conexiones.get(c).obtener(ids[aleatorio.nextInt(ids.length)]).join();
+                return 1;
+            });
+            medir("binario, multi-get " + lote + " x " + enVuelo + " en vuelo", (aleatorio, c) -> {
+                ArrayDeque<CompletableFuture<List<Optional<Usuario>>>> pendientes = new ArrayDeque<>();
+                for (int p = 0; p < enVuelo; p++) {
+                    long[] peticion = new long[lote];
+                    for (int i = 0; i < lote; i++) {
+                        peticion[i] = ids[aleatorio.nextInt(ids.length)];
+                    }
+                    pendientes.add(conexiones.get(c).obtener(peticion));
+                }
+                int leidos = 0;
+                while (!pendientes.isEmpty()) {
+                    leidos += pendientes.poll().join().size();
+                }
+                return leidos;
+            });
+        } finally {
+            for (ClienteBinario conexion : conexiones) {
+                conexion.close();
+            }
+        }
+    }
+
+    private void medir(String nombre, Paso paso) throws InterruptedException {
+        ronda(paso, calentamiento);
+        OperatingSystemMXBean sistema = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpu = sistema.getProcessCpuTime();
+        long leidos = ronda(paso, duracion);
+        cpu = sistema.getProcessCpuTime() - cpu;
+        System.out.printf(Locale.ROOT, "%-34s %12.0f %12.2f%n", nombre, leidos / (duracion.toNanos() / 1e9),
+                cpu / 1e3 / Math.max(1, leidos));
+    }
+
+    private long ronda(Paso paso, Duration tiempo) throws InterruptedException {
+        LongAdder leidos = new LongAdder();
+        LongAdder errores = new LongAdder();
+        long fin = System.nanoTime() + tiempo.toNanos();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int cliente = c;
+                SplittableRandom aleatorio = new SplittableRandom(c);
+                ejecutor.execute(() -> {
+                    while (System.nanoTime() < fin) {
+                        try {
+                            leidos.add(paso.ejecutar(aleatorio, cliente));
+                        } catch (Exception e) {
+                            errores.increment();
+                        }
+                    }
+                });
+            }
+        }
+        if (errores.sum() > 0) {
+            System.out.println("  errores: " + errores.sum());
+        }
+        return leidos.sum();
+    }
+
+    // Cliente HTTP/1.1 mínimo con keep-alive sobre una conexión: java.net.http gasta más CPU por
+    // petición que el propio servidor y falsearía la comparación en contra de JSON
+    private static final class ConexionHttp implements AutoCloseable {
+        private final InetSocketAddress direccion;
+        private final String host;
+        private SocketChannel canal;
+        private final ByteBuffer entrada = ByteBuffer.allocate(64 * 1024);
+
+        ConexionHttp(URI url) throws IOException {
+            this.direccion = new InetSocketAddress(url.getHost(), url.getPort());
+            this.host = url.getHost() + ":" + url.getPort();
+            conectar();
+        }
+
+        byte[] get(String ruta) throws IOException {
+            ByteBuffer peticion = ByteBuffer.wrap(("GET " + ruta + " HTTP/1.1\r\nHost: " + host
+                    + "\r\nAccept: application/json\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            while (peticion.hasRemaining()) {
+                canal.write(peticion);
+            }
+            entrada.clear();
+            int finCabeceras;
+            while ((finCabeceras = finCabeceras()) < 0) {
+                leer();
+            }
+            String cabeceras = new String(entrada.array(), 0, finCabeceras, StandardCharsets.US_ASCII);
+            if (!cabeceras.startsWith("HTTP/1.1 200")) {
+                throw new IOException(cabeceras.lines().findFirst().orElse(cabeceras));
+            }
+            byte[] cuerpo = cuerpo(cabeceras, finCabeceras);
+            // Tomcat cierra la conexión cada maxKeepAliveRequests peticiones
+            if (cabeceras.toLowerCase(Locale.ROOT).contains("connection: close")) {
+                canal.close();
+                conectar();
+            }
+            return cuerpo;
+        }
+
+        private byte[] cuerpo(String cabeceras, int finCabeceras) throws IOException {
+            int longitud = longitudCuerpo(cabeceras);
+            if (longitud >= 0) {
+                esperar(finCabeceras + longitud);
+                return Arrays.copyOfRange(entrada.array(), finCabeceras, finCabeceras + longitud);
+            }
+            // Transfer-Encoding: chunked, que es lo que usa Tomcat cuando el conversor JSON vacía la salida
+            ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+            int cursor = finCabeceras;
+            while (true) {
+                int finLinea;
+                while ((finLinea = buscar(cursor, "\r\n")) < 0) {
+                    leer();
+                }
+                int tamano = Integer.parseInt(new String(entrada.array(), cursor, finLinea - cursor,
+                        StandardCharsets.US_ASCII).trim(), 16);
+                cursor = finLinea + 2;
+                esperar(cursor + tamano + 2);
+                if (tamano == 0) {
+                    return cuerpo.toByteArray();
+                }
+                cuerpo.write(entrada.array(), cursor, tamano);
+                cursor += tamano + 2;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+
+        private void leer() throws IOException {
+            if (canal.read(entrada) < 0) {
+                throw new IOException("El servidor cerró la conexión");
+            }
+        }
+
+        private void conectar() throws IOException {
+            canal = SocketChannel.open(direccion);
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        private void esperar(int bytes) throws IOException {
+            while (entrada.position() < bytes) {
+                leer();
+            }
+        }
+
+        private int finCabeceras() {
+            int fin = buscar(0, "\r\n\r\n");
+            return fin < 0 ? -1 : fin + 4;
+        }
+
+        private int buscar(int desde, String separador) {
+            byte[] datos = entrada.array();
+            for (int i = desde; i + separador.length() <= entrada.position(); i++) {
+                int j = 0;
+                while (j < separador.length() && datos[i + j] == separador.charAt(j)) {
+                    j++;
+                }
+                if (j == separador.length()) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int longitudCuerpo(String cabeceras) {
+            for (String linea : cabeceras.split("\r\n")) {
+                if (linea.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    return Integer.parseInt(linea.substring(15).trim());
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Una iteración del cliente número cliente; devuelve cuántos usuarios leyó
+    private interface Paso {
+        int ejecutar(SplittableRandom aleatorio, int cliente) throws Exception;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ptwo.testing.carga;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+import org.springframework.boot.convert.DurationStyle;
+
+// Parámetros de GeneradorCarga; se leen de propiedades del sistema carga.*
+record ConfiguracionCarga(String objetivo, String url, double tasa, Duration duracion, Duration calentamiento,
+                          MezclaOperaciones mezcla, int claves, double zipf, long semilla, Path informe) {
+
+    static ConfiguracionCarga desde(Properties propiedades) {
+        return new ConfiguracionCarga(
+                propiedades.getProperty("carga.objetivo", "servicio"),
+                propiedades.getProperty("carga.url", "http://localhost:8080"),
+                Double.parseDouble(propiedades.getProperty("carga.tasa", "1000")),
+                DurationStyle.detectAndParse(propiedades.getProperty("carga.duracion", "30s")),
+                DurationStyle.detectAndParse(propiedades.getProperty("carga.calentamiento", "5s")),
+                MezclaOperaciones.desde(propiedades.getProperty("carga.mezcla", "obtener=80,crear=15,desactivar=5")),
+                Integer.parseInt(propiedades.getProperty("carga.claves", "10000")),
+                Double.parseDouble(propiedades.getProperty("carga.zipf", "0.99")),
+                Long.parseLong(propiedades.getProperty("carga.semilla", "42")),
+                Path.of(propiedades.getProperty("carga.informe", "target/carga")));
+    }
+
+    ObjetivoCarga crearObjetivo() {
+        return switch (objetivo) {
+            case "servicio" -> new ObjetivoServicio();
+            case "http" -> new ObjetivoHttp(url);
+            case "binario" -> new ObjetivoBinario(url);
+            default -> throw new IllegalArgumentException("Objetivo de carga desconocido: " + objetivo);
+        };
+    }
+}
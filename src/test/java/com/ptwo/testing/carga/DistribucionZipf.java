@@ -0,0 +1,30 @@
+package com.ptwo.testing.carga;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// Rango 0..n-1 con probabilidad proporcional a 1/(rango+1)^exponente.
+// Con exponente 0 la distribución es uniforme.
+final class DistribucionZipf {
+    private final double[] acumulada;
+
+    DistribucionZipf(int n, double exponente) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("El número de claves debe ser positivo");
+        }
+        acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1.0 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < n; i++) {
+            acumulada[i] /= suma;
+        }
+    }
+
+    int siguiente(RandomGenerator aleatorio) {
+        int posicion = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+        return Math.min(posicion >= 0 ? posicion : -posicion - 1, acumulada.length - 1);
+    }
+}
@@ -0,0 +1,168 @@
+package com.ptwo.testing.carga;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+// Generador de carga de bucle abierto: las operaciones se lanzan a la tasa fijada
+// sin esperar a que terminen las anteriores, y la latencia se mide desde el instante
+// en que debían empezar. Así un parón del sistema cuenta para todas las operaciones
+// que retrasa (sin omisión coordinada).
+//
+// mvn -Pcarga test-compile exec:java -Dcarga.tasa=5000 -Dcarga.duracion=60s
+public final class GeneradorCarga {
+    private final ConfiguracionCarga configuracion;
+    private final ObjetivoCarga objetivo;
+    private final AtomicLong altas = new AtomicLong();
+    private long[] ids;
+
+    GeneradorCarga(ConfiguracionCarga configuracion, ObjetivoCarga objetivo) {
+        this.configuracion = configuracion;
+        this.objetivo = objetivo;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desde(System.getProperties());
+        try (ObjetivoCarga objetivo = configuracion.crearObjetivo()) {
+            InformeCarga informe = new GeneradorCarga(configuracion, objetivo).ejecutar();
+            informe.imprimir(System.out);
+            informe.guardar(configuracion.informe());
+        }
+    }
+
+    InformeCarga ejecutar() throws Exception {
+        precargar();
+        if (!configuracion.calentamiento().isZero()) {
+            ejecutarFase(configuracion.calentamiento(), new SplittableRandom(configuracion.semilla() - 1));
+        }
+        return ejecutarFase(configuracion.duracion(), new SplittableRandom(configuracion.semilla()));
+    }
+
+    private void precargar() throws Exception {
+        ids = new long[configuracion.claves()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = crear();
+        }
+    }
+
+    private InformeCarga ejecutarFase(Duration duracion, SplittableRandom aleatorio) {
+        DistribucionZipf claves = new DistribucionZipf(ids.length, configuracion.zipf());
+        Medidas medidas = new Medidas();
+        double periodo = 1e9 / configuracion.tasa();
+        long total = (long) (duracion.toNanos() / periodo);
+        long inicio = System.nanoTime();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long previsto = inicio + (long) (i * periodo);
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                TipoOperacionCarga tipo = configuracion.mezcla().elegir(aleatorio);
+                long id = ids[claves.siguiente(aleatorio)];
+                ejecutor.execute(() -> medir(tipo, id, previsto, medidas));
+            }
+        }
+        return medidas.informe(System.nanoTime() - inicio);
+    }
+
+    private void medir(TipoOperacionCarga tipo, long id, long previsto, Medidas medidas) {
+        long comienzo = System.nanoTime();
+        try {
+            switch (tipo) {
+                case OBTENER -> objetivo.obtener(id);
+                case CREAR -> crear();
+                case DESACTIVAR -> objetivo.desactivar(id);
+            }
+        } catch (Exception e) {
+            medidas.errores.get(tipo).increment();
+            return;
+        }
+        long fin = System.nanoTime();
+        medidas.latencia.get(tipo).recordValue(fin - previsto);
+        medidas.servicio.get(tipo).recordValue(fin - comienzo);
+    }
+
+    private long crear() throws Exception {
+        long n = altas.incrementAndGet();
+        return objetivo.crear("Carga " + n, "carga" + n + "@ejemplo.com");
+    }
+
+    private static final class Medidas {
+        final Map<TipoOperacionCarga, Recorder> latencia = new EnumMap<>(TipoOperacionCarga.class);
+        final Map<TipoOperacionCarga, Recorder> servicio = new EnumMap<>(TipoOperacionCarga.class);
+        final Map<TipoOperacionCarga, LongAdder> errores = new EnumMap<>(TipoOperacionCarga.class);
+
+        Medidas() {
+            for (TipoOperacionCarga tipo : TipoOperacionCarga.values()) {
+                latencia.put(tipo, new Recorder(3));
+                servicio.put(tipo, new Recorder(3));
+                errores.put(tipo, new LongAdder());
+            }
+        }
+
+        InformeCarga informe(long nanos) {
+            Map<TipoOperacionCarga, Histogram> latencias = new EnumMap<>(TipoOperacionCarga.class);
+            Map<TipoOperacionCarga, Histogram> servicios = new EnumMap<>(TipoOperacionCarga.class);
+            Map<TipoOperacionCarga, Long> fallos = new EnumMap<>(TipoOperacionCarga.class);
+            for (TipoOperacionCarga tipo : TipoOperacionCarga.values()) {
+                latencias.put(tipo, latencia.get(tipo).getIntervalHistogram());
+                servicios.put(tipo, servicio.get(tipo).getIntervalHistogram());
+                fallos.put(tipo, errores.get(tipo).sum());
+            }
+            return new InformeCarga(Duration.ofNanos(nanos), latencias, servicios, fallos);
+        }
+    }
+
+    record InformeCarga(Duration duracion, Map<TipoOperacionCarga, Histogram> latencias,
+                        Map<TipoOperacionCarga, Histogram> servicios, Map<TipoOperacionCarga, Long> errores) {
+
+        long completadas() {
+            return latencias.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        // Latencia en µs medida desde el instante previsto; "servicio p99" es la medida ingenua desde
+        // el comienzo real, para ver cuánto esconde la omisión coordinada
+        void imprimir(PrintStream salida) {
+            salida.printf(Locale.ROOT, "%d operaciones en %.1f s (%.0f op/s)%n", completadas(),
+                    duracion.toNanos() / 1e9, completadas() / (duracion.toNanos() / 1e9));
+            salida.printf(Locale.ROOT, "%-11s %9s %10s %10s %10s %10s %14s %8s%n", "operacion", "n",
+                    "p50", "p99", "p99.9", "max", "servicio p99", "errores");
+            for (TipoOperacionCarga tipo : TipoOperacionCarga.values()) {
+                Histogram latencia = latencias.get(tipo);
+                salida.printf(Locale.ROOT, "%-11s %9d %10.1f %10.1f %10.1f %10.1f %14.1f %8d%n",
+                        tipo.name().toLowerCase(Locale.ROOT), latencia.getTotalCount(),
+                        micros(latencia, 50), micros(latencia, 99), micros(latencia, 99.9),
+                        latencia.getMaxValue() / 1e3, micros(servicios.get(tipo), 99), errores.get(tipo));
+            }
+        }
+
+        // Distribuciones completas en formato .hgrm (HdrHistogram plotter)
+        void guardar(Path directorio) throws Exception {
+            Files.createDirectories(directorio);
+            for (TipoOperacionCarga tipo : TipoOperacionCarga.values()) {
+                Path archivo = directorio.resolve(tipo.name().toLowerCase(Locale.ROOT) + ".hgrm");
+                try (PrintStream salida = new PrintStream(Files.newOutputStream(archivo))) {
+                    latencias.get(tipo).outputPercentileDistribution(salida, 1e3);
+                }
+            }
+        }
+
+        private static double micros(Histogram histograma, double percentil) {
+            return histograma.getValueAtPercentile(percentil) / 1e3;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ptwo.testing.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.carga.GeneradorCarga.InformeCarga;
+
+@Isolated
+class GeneradorCargaTest {
+
+    @Test
+    void deberiaLanzarLaMezclaALaTasaConfigurada() throws Exception {
+        ConfiguracionCarga configuracion = new ConfiguracionCarga("servicio", null, 2000, Duration.ofMillis(500),
+                Duration.ZERO, MezclaOperaciones.desde("obtener=80,crear=15,desactivar=5"), 100, 0.99, 42,
+                Path.of("target", "carga"));
+
+        InformeCarga informe;
+        try (ObjetivoCarga objetivo = configuracion.crearObjetivo()) {
+            informe = new GeneradorCarga(configuracion, objetivo).ejecutar();
+        }
+
+        assertThat(informe.completadas()).isEqualTo(1000);
+        assertThat(informe.errores().values()).containsOnly(0L);
+        assertThat(informe.latencias().get(TipoOperacionCarga.OBTENER).getTotalCount()).isBetween(700L, 900L);
+        assertThat(informe.latencias().get(TipoOperacionCarga.CREAR).getTotalCount()).isBetween(100L, 200L);
+    }
+
+    @Test
+    void laDistribucionZipfDeberiaConcentrarseEnLosPrimerosRangos() {
+        DistribucionZipf zipf = new DistribucionZipf(1000, 1.0);
+        SplittableRandom aleatorio = new SplittableRandom(1);
+        int[] frecuencias = new int[1000];
+        for (int i = 0; i < 100_000; i++) {
+            frecuencias[zipf.siguiente(aleatorio)]++;
+        }
+
+        // Con exponente 1 el primer rango se lleva ~1/H(1000) ≈ 13% de las muestras
+        assertThat(frecuencias[0]).isBetween(12_000, 15_000);
+        assertThat(frecuencias[0]).isGreaterThan(frecuencias[1]);
+        assertThat(frecuencias[999]).isLessThan(50);
+    }
+
+    @Test
+    void conExponenteCeroLaDistribucionDeberiaSerUniforme() {
+        DistribucionZipf zipf = new DistribucionZipf(10, 0);
+        SplittableRandom aleatorio = new SplittableRandom(1);
+        int[] frecuencias = new int[10];
+        for (int i = 0; i < 100_000; i++) {
+            frecuencias[zipf.siguiente(aleatorio)]++;
+        }
+
+        for (int frecuencia : frecuencias) {
+            assertThat(frecuencia).isBetween(9_000, 11_000);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ptwo.testing.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.carga.GeneradorCarga.InformeCarga;
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.resiliencia.LimiteAdaptativo;
+import com.ptwo.testing.resiliencia.MetricasLimite;
+import com.ptwo.testing.service.UsuarioService;
+
+// Altas al doble de lo que admite el almacén. Sin límite la cola crece durante toda la prueba y con
+// ella la latencia; con el límite adaptativo el exceso se rechaza y la latencia de lo admitido se
+// queda cerca de la del almacén. Se ejecuta con mvn -Pestres test
+@Tag("estres")
+@Isolated
+class LimiteAdaptativoCargaTest {
+    // 4 escrituras a la vez de 2 ms: unas 2000 altas por segundo
+    private static final int ESCRITURAS_SIMULTANEAS = 4;
+    private static final Duration ESCRITURA = Duration.ofMillis(2);
+    private static final double TASA = 4000;
+
+    @Test
+    void conElLimiteLaLatenciaDeLoAdmitidoDeberiaQuedarAcotadaPorEncimaDeLaCapacidad() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo("escrituras", 20, 2, 200);
+
+        InformeCarga sinLimite = ejecutar(null);
+        InformeCarga conLimite = ejecutar(limite);
+
+        long p99Sin = sinLimite.latencias().get(TipoOperacionCarga.CREAR).getValueAtPercentile(99);
+        long p99Con = conLimite.latencias().get(TipoOperacionCarga.CREAR).getValueAtPercentile(99);
+        MetricasLimite metricas = limite.metricas();
+        assertThat(sinLimite.errores().get(TipoOperacionCarga.CREAR)).isZero();
+        assertThat(conLimite.errores().get(TipoOperacionCarga.CREAR)).isPositive();
+        assertThat(metricas.rechazadas()).isPositive();
+        assertThat(metricas.limite()).isLessThan(200);
+        assertThat(Duration.ofNanos(p99Con)).isLessThan(Duration.ofMillis(100));
+        assertThat(p99Sin).isGreaterThan(5 * p99Con);
+    }
+
+    private static InformeCarga ejecutar(LimiteAdaptativo limite) throws Exception {
+        ConfiguracionCarga configuracion = new ConfiguracionCarga("servicio", null, TASA, Duration.ofSeconds(3),
+                Duration.ZERO, MezclaOperaciones.desde("crear=1"), 10, 0.99, 42, Path.of("target", "carga"));
+        InformeCarga informe = new GeneradorCarga(configuracion, new ObjetivoSaturable(limite)).ejecutar();
+        informe.imprimir(System.out);
+        return informe;
+    }
+
+    private static final class ObjetivoSaturable implements ObjetivoCarga {
+        private final UsuarioService usuarioService;
+
+        ObjetivoSaturable(LimiteAdaptativo limite) {
+            Semaphore escrituras = new Semaphore(ESCRITURAS_SIMULTANEAS, true);
+            UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria() {
+                @Override
+                public Usuario save(Usuario usuario) {
+                    escrituras.acquireUninterruptibly();
+                    try {
+                        Thread.sleep(ESCRITURA);
+                        return super.save(usuario);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        escrituras.release();
+                    }
+                }
+            };
+            usuarioService = new UsuarioService(almacen, NotificacionServiceFake.sinHistorial(),
+                    AuditoriaServiceFake.sinHistorial());
+            usuarioService.setLimiteEscrituras(limite);
+        }
+
+        @Override
+        public long crear(String nombre, String email) {
+            return usuarioService.crearUsuario(new Usuario(null, nombre, email)).getId();
+        }
+
+        @Override
+        public void obtener(long id) {
+            usuarioService.obtenerUsuario(id);
+        }
+
+        @Override
+        public void desactivar(long id) {
+            usuarioService.desactivarUsuario(id);
+        }
+    }
+}
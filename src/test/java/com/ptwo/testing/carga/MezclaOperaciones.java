@@ -0,0 +1,51 @@
+package com.ptwo.testing.carga;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+// Proporción de cada operación, p. ej. "obtener=80,crear=15,desactivar=5"
+final class MezclaOperaciones {
+    private final TipoOperacionCarga[] tipos;
+    private final double[] acumulada;
+
+    private MezclaOperaciones(Map<TipoOperacionCarga, Double> pesos) {
+        tipos = pesos.keySet().toArray(new TipoOperacionCarga[0]);
+        acumulada = new double[tipos.length];
+        double total = pesos.values().stream().mapToDouble(Double::doubleValue).sum();
+        double suma = 0;
+        for (int i = 0; i < tipos.length; i++) {
+            suma += pesos.get(tipos[i]);
+            acumulada[i] = suma / total;
+        }
+    }
+
+    static MezclaOperaciones desde(String texto) {
+        Map<TipoOperacionCarga, Double> pesos = new EnumMap<>(TipoOperacionCarga.class);
+        for (String parte : texto.split(",")) {
+            String[] claveValor = parte.trim().split("=");
+            if (claveValor.length != 2) {
+                throw new IllegalArgumentException("Mezcla mal formada: " + texto);
+            }
+            double peso = Double.parseDouble(claveValor[1].trim());
+            if (peso > 0) {
+                pesos.put(TipoOperacionCarga.valueOf(claveValor[0].trim().toUpperCase(Locale.ROOT)), peso);
+            }
+        }
+        if (pesos.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene ninguna operación: " + texto);
+        }
+        return new MezclaOperaciones(pesos);
+    }
+
+    TipoOperacionCarga elegir(RandomGenerator aleatorio) {
+        double valor = aleatorio.nextDouble();
+        for (int i = 0; i < acumulada.length - 1; i++) {
+            if (valor < acumulada[i]) {
+                return tipos[i];
+            }
+        }
+        return tipos[tipos.length - 1];
+    }
+}
@@ -0,0 +1,47 @@
+package com.ptwo.testing.carga;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.protocolo.ClienteBinario;
+import com.ptwo.testing.protocolo.ResultadoAlta;
+
+// Protocolo binario de ServidorBinario (url tcp://host:puerto), una operación por petición
+// para que la comparación con ObjetivoHttp sea de igual a igual
+final class ObjetivoBinario implements ObjetivoCarga {
+    private final ClienteBinario cliente;
+
+    ObjetivoBinario(String url) {
+        URI uri = URI.create(url);
+        this.cliente = new ClienteBinario(new InetSocketAddress(uri.getHost(), uri.getPort()));
+    }
+
+    @Override
+    public long crear(String nombre, String email) {
+        ResultadoAlta alta = cliente.crear(List.of(new Usuario(null, nombre, email))).join().get(0);
+        if (!alta.correcto()) {
+            throw new IllegalStateException(alta.error());
+        }
+        return alta.id();
+    }
+
+    @Override
+    public void obtener(long id) {
+        cliente.obtener(id).join();
+    }
+
+    @Override
+    public void desactivar(long id) {
+        String error = cliente.desactivar(id).join().get(0);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        cliente.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ptwo.testing.carga;
+
+// Lo que recibe la carga: el servicio en proceso o la API HTTP
+interface ObjetivoCarga extends AutoCloseable {
+    // Devuelve el id asignado
+    long crear(String nombre, String email) throws Exception;
+
+    void obtener(long id) throws Exception;
+
+    void desactivar(long id) throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+}
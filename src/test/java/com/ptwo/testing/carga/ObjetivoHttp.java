@@ -0,0 +1,66 @@
+package com.ptwo.testing.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// API REST de UsuarioController; la aplicación tiene que estar arrancada en urlBase
+final class ObjetivoHttp implements ObjetivoCarga {
+    private final URI urlBase;
+    private final HttpClient cliente;
+    private final ObjectMapper json = new ObjectMapper();
+
+    ObjetivoHttp(String urlBase) {
+        this.urlBase = URI.create(urlBase.endsWith("/") ? urlBase : urlBase + "/");
+        this.cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    public long crear(String nombre, String email) throws Exception {
+        String cuerpo = json.writeValueAsString(new Alta(nombre, email));
+        HttpRequest peticion = HttpRequest.newBuilder(urlBase.resolve("usuarios"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+        HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+        return json.readTree(respuesta.body()).get("id").asLong();
+    }
+
+    @Override
+    public void obtener(long id) throws Exception {
+        enviar(HttpRequest.newBuilder(urlBase.resolve("usuarios/" + id)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    @Override
+    public void desactivar(long id) throws Exception {
+        enviar(HttpRequest.newBuilder(urlBase.resolve("usuarios/" + id + "/desactivar"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    @Override
+    public void close() {
+        cliente.close();
+    }
+
+    private <T> HttpResponse<T> enviar(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador) throws Exception {
+        HttpResponse<T> respuesta = cliente.send(peticion, manejador);
+        if (respuesta.statusCode() >= 400) {
+            throw new IOException(peticion.method() + " " + peticion.uri() + " -> " + respuesta.statusCode());
+        }
+        return respuesta;
+    }
+
+    record Alta(String nombre, String email) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.ptwo.testing.carga;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.service.UsuarioService;
+
+// UsuarioService en proceso sobre el almacén en memoria; notificación y auditoría no hacen nada
+// para que la medida sea la del servicio y no la de escribir en consola
+final class ObjetivoServicio implements ObjetivoCarga {
+    private final UsuarioService usuarioService;
+
+    ObjetivoServicio() {
+        usuarioService = new UsuarioService(new UsuarioRepositoryEnMemoria(), NotificacionServiceFake.sinHistorial(),
+                AuditoriaServiceFake.sinHistorial());
+    }
+
+    @Override
+    public long crear(String nombre, String email) {
+        return usuarioService.crearUsuario(new Usuario(null, nombre, email)).getId();
+    }
+
+    @Override
+    public void obtener(long id) {
+        usuarioService.obtenerUsuario(id);
+    }
+
+    @Override
+    public void desactivar(long id) {
+        usuarioService.desactivarUsuario(id);
+    }
+}
@@ -0,0 +1,5 @@
+package com.ptwo.testing.carga;
+
+enum TipoOperacionCarga {
+    OBTENER, CREAR, DESACTIVAR
+}
@@ -0,0 +1,265 @@
+package com.ptwo.testing.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.correo.ClienteSmtp;
+import com.ptwo.testing.evento.BusEventosUsuario;
+import com.ptwo.testing.fakes.ServidorSmtpFake;
+import com.ptwo.testing.fakes.ServidorSmtpFake.MensajeRecibido;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryCacheado;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryFiltrado;
+import com.ptwo.testing.repository.UsuarioRepositoryObservado;
+import com.ptwo.testing.repository.UsuarioRepositoryOffHeap;
+import com.ptwo.testing.repository.UsuarioRepositoryParticionado;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.repository.UsuarioRepositoryResiliente;
+import com.ptwo.testing.resiliencia.LimiteAdaptativo;
+import com.ptwo.testing.resiliencia.MetricasLimite;
+import com.ptwo.testing.service.AuditoriaService;
+import com.ptwo.testing.service.AuditoriaServiceEnLotes;
+import com.ptwo.testing.service.DesactivacionesProgramadas;
+import com.ptwo.testing.service.NotificacionService;
+import com.ptwo.testing.service.NotificacionServiceAsincrono;
+import com.ptwo.testing.service.NotificacionServiceResiliente;
+import com.ptwo.testing.service.RegistroIdempotencia;
+import com.ptwo.testing.service.RepartidorAvisos;
+import com.ptwo.testing.service.UsuarioService;
+
+class UsuariosConfigurationTest {
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withUserConfiguration(UsuariosConfiguration.class);
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void deberiaUsarMemoriaYModosSincronosPorDefecto() {
+        contexto.run(ctx -> {
+            assertThat(ctx.getBean("almacenUsuarios")).isInstanceOf(UsuarioRepositoryEnMemoria.class);
+            assertThat(ctx.getBean(UsuarioRepository.class)).isInstanceOf(UsuarioRepositoryObservado.class);
+            assertThat(ctx.getBean(NotificacionService.class)).isNotInstanceOf(NotificacionServiceAsincrono.class);
+            assertThat(ctx.getBean(AuditoriaService.class)).isNotInstanceOf(AuditoriaServiceEnLotes.class);
+            assertThat(ctx).doesNotHaveBean(BusEventosUsuario.class);
+        });
+    }
+
+    @Test
+    void deberiaCrearLosServiciosDeUsuarioBajoDemanda() {
+        contexto.run(ctx -> {
+            assertThat(ctx.getBeanFactory().containsSingleton("usuarioService")).isFalse();
+
+            UsuarioService usuarioService = ctx.getBean(UsuarioService.class);
+            usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+
+            assertThat(usuarioService.estadisticas().total()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void deberiaElegirElAlmacenPersistente() {
+        contexto.withPropertyValues(
+                "usuarios.repositorio.tipo=persistente",
+                "usuarios.repositorio.directorio=" + directorio,
+                "usuarios.repositorio.intervalo-sincronizacion=0")
+            .run(ctx -> {
+                assertThat(ctx.getBean("almacenUsuarios")).isInstanceOf(UsuarioRepositoryPersistente.class);
+                ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+            });
+
+        contexto.withPropertyValues(
+                "usuarios.repositorio.tipo=persistente",
+                "usuarios.repositorio.directorio=" + directorio)
+            .run(ctx -> assertThat(ctx.getBean(UsuarioService.class).estadisticas().total()).isEqualTo(1));
+    }
+
+    @Test
+    void deberiaElegirElAlmacenOffHeap() {
+        contexto.withPropertyValues("usuarios.repositorio.tipo=offheap", "usuarios.repositorio.tamano-slab=64KB")
+            .run(ctx -> assertThat(ctx.getBean("almacenUsuarios")).isInstanceOf(UsuarioRepositoryOffHeap.class));
+    }
+
+    @Test
+    void deberiaElegirElAlmacenParticionado() {
+        contexto.withPropertyValues(
+                "usuarios.repositorio.tipo=particionado",
+                "usuarios.repositorio.particiones=3",
+                "usuarios.repositorio.tipo-particion=offheap")
+            .run(ctx -> {
+                UsuarioRepositoryParticionado almacen = ctx.getBean("almacenUsuarios", UsuarioRepositoryParticionado.class);
+                assertThat(almacen.numeroParticiones()).isEqualTo(3);
+            });
+    }
+
+    @Test
+    void deberiaActivarModosAsincronosYEventos() {
+        contexto.withPropertyValues(
+                "usuarios.notificaciones.modo=asincrono",
+                "usuarios.notificaciones.hilos=2",
+                "usuarios.auditoria.modo=lotes",
+                "usuarios.auditoria.intervalo-vaciado=50ms",
+                "usuarios.eventos.habilitado=true",
+                "usuarios.difusion=paralelo")
+            .run(ctx -> {
+                assertThat(ctx.getBean(NotificacionService.class)).isInstanceOf(NotificacionServiceAsincrono.class);
+                assertThat(ctx.getBean(AuditoriaService.class)).isInstanceOf(AuditoriaServiceEnLotes.class);
+
+                BusEventosUsuario bus = ctx.getBean(BusEventosUsuario.class);
+                ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+                assertThat(bus.ultimaSecuencia()).isEqualTo(1);
+            });
+    }
+
+    @Test
+    void deberiaEnvolverRepositorioYNotificacionesConResiliencia() {
+        contexto.withPropertyValues(
+                "usuarios.resiliencia.repositorio.habilitado=true",
+                "usuarios.resiliencia.repositorio.tiempo-maximo=1s",
+                "usuarios.resiliencia.notificaciones.habilitado=true")
+            .run(ctx -> {
+                assertThat(ctx.getBean(UsuarioRepository.class)).isInstanceOf(UsuarioRepositoryResiliente.class);
+                assertThat(ctx.getBean(NotificacionService.class)).isInstanceOf(NotificacionServiceResiliente.class);
+
+                ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+                UsuarioRepositoryResiliente repositorio = (UsuarioRepositoryResiliente) ctx.getBean(UsuarioRepository.class);
+                assertThat(repositorio.metricas().exitos()).isEqualTo(1);
+            });
+    }
+
+    @Test
+    void deberiaRepartirLosAvisosDiferidosDesdeLaBandejaDelAlmacenPersistente() {
+        contexto.withPropertyValues(
+                "usuarios.repositorio.tipo=persistente",
+                "usuarios.repositorio.directorio=" + directorio,
+                "usuarios.avisos.diferidos=true",
+                "usuarios.avisos.intervalo=1h")
+            .run(ctx -> {
+                ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+                UsuarioRepositoryPersistente almacen = ctx.getBean("almacenUsuarios", UsuarioRepositoryPersistente.class);
+                assertThat(almacen.avisosPendientes(10)).hasSize(1);
+
+                assertThat(ctx.getBean(RepartidorAvisos.class).repartir()).isEqualTo(1);
+                assertThat(almacen.avisosPendientes(10)).isEmpty();
+            });
+    }
+
+    @Test
+    void losAvisosDiferidosDeberianRechazarUnAlmacenSinBandeja() {
+        contexto.withPropertyValues("usuarios.avisos.diferidos=true")
+            .run(ctx -> assertThat(ctx).hasFailed());
+    }
+
+    @Test
+    void deberiaPonerLaCacheDelanteDelRepositorio() {
+        contexto.withPropertyValues(
+                "usuarios.cache.habilitado=true",
+                "usuarios.cache.tamano-l1=10")
+            .run(ctx -> {
+                assertThat(ctx.getBean(UsuarioRepository.class)).isInstanceOf(UsuarioRepositoryCacheado.class);
+                assertThat(ctx).hasSingleBean(TransporteBucleLocal.class);
+
+                UsuarioService usuarioService = ctx.getBean(UsuarioService.class);
+                usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+                usuarioService.obtenerUsuario(1L);
+                usuarioService.desactivarUsuario(1L);
+                assertThat(usuarioService.obtenerUsuario(1L)).hasValueSatisfying(u -> assertThat(u.isActivo()).isFalse());
+            });
+    }
+
+    @Test
+    void deberiaPonerElFiltroPorFueraDeLaCache() {
+        contexto.withPropertyValues(
+                "usuarios.cache.habilitado=true",
+                "usuarios.filtro.habilitado=true",
+                "usuarios.filtro.capacidad-inicial=100",
+                "usuarios.filtro.tasa-falsos-positivos=0.001")
+            .run(ctx -> {
+                UsuarioRepository repositorio = ctx.getBean(UsuarioRepository.class);
+                assertThat(repositorio).isInstanceOf(UsuarioRepositoryFiltrado.class);
+
+                UsuarioService usuarioService = ctx.getBean(UsuarioService.class);
+                usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+                assertThat(usuarioService.obtenerUsuario(1L)).isPresent();
+                assertThat(usuarioService.obtenerUsuario(2L)).isEmpty();
+                assertThat(((UsuarioRepositoryFiltrado) repositorio).metricas().tasaFalsosPositivosObjetivo())
+                    .isEqualTo(0.001);
+            });
+    }
+
+    @Test
+    void deberiaConectarLasDesactivacionesProgramadasAlServicio() {
+        contexto.withPropertyValues(
+                "usuarios.desactivaciones.habilitado=true",
+                "usuarios.desactivaciones.directorio=" + directorio,
+                "usuarios.desactivaciones.resolucion=1h")
+            .run(ctx -> {
+                UsuarioService usuarioService = ctx.getBean(UsuarioService.class);
+                usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+                Instant cuando = Instant.now().plus(Duration.ofHours(1));
+                usuarioService.programarDesactivacion(1L, cuando);
+
+                DesactivacionesProgramadas desactivaciones = ctx.getBean(DesactivacionesProgramadas.class);
+                assertThat(desactivaciones.pendientes()).isEqualTo(1);
+                assertThat(desactivaciones.procesarVencidos(cuando.plus(Duration.ofHours(1)))).isEqualTo(1);
+                assertThat(usuarioService.obtenerUsuario(1L)).hasValueSatisfying(u -> assertThat(u.isActivo()).isFalse());
+            });
+    }
+
+    @Test
+    void deberiaConectarElRegistroDeIdempotenciaAlServicio() {
+        contexto.withPropertyValues("usuarios.idempotencia.habilitado=true", "usuarios.idempotencia.maximo-entradas=10")
+            .run(ctx -> {
+                UsuarioService usuarioService = ctx.getBean(UsuarioService.class);
+                Usuario primero = usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+                Usuario reintento = usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+                assertThat(reintento.getId()).isEqualTo(primero.getId());
+                assertThat(ctx.getBean(RegistroIdempotencia.class).reutilizados()).isEqualTo(1);
+                assertThat(usuarioService.obtenerTodosLosUsuarios()).hasSize(1);
+            });
+    }
+
+    @Test
+    void deberiaLimitarLasEscriturasDelServicio() {
+        contexto.withPropertyValues("usuarios.limite.habilitado=true", "usuarios.limite.inicial=8",
+                "usuarios.limite.minimo=2", "usuarios.limite.maximo=16")
+            .run(ctx -> {
+                ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+
+                MetricasLimite metricas = ctx.getBean(LimiteAdaptativo.class).metricas();
+                assertThat(metricas.nombre()).isEqualTo("escrituras-usuarios");
+                assertThat(metricas.admitidas()).isEqualTo(1);
+                assertThat(metricas.limite()).isEqualTo(8);
+            });
+    }
+
+    @Test
+    void deberiaEnviarLasNotificacionesPorSmtp() throws Exception {
+        try (ServidorSmtpFake servidor = new ServidorSmtpFake(true)) {
+            contexto.withPropertyValues("usuarios.notificaciones.smtp.habilitado=true",
+                    "usuarios.notificaciones.smtp.servidor=" + servidor.direccion().getHostString(),
+                    "usuarios.notificaciones.smtp.puerto=" + servidor.direccion().getPort(),
+                    "usuarios.notificaciones.smtp.remitente=avisos@ptwo.com")
+                .run(ctx -> {
+                    assertThat(ctx).hasSingleBean(ClienteSmtp.class);
+                    ctx.getBean(UsuarioService.class).crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+
+                    assertThat(servidor.recibidos()).extracting(MensajeRecibido::destinatarios)
+                            .containsExactly(List.of("ana@ejemplo.com"));
+                });
+        }
+    }
+}
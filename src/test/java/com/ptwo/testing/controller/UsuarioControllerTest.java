@@ -0,0 +1,166 @@
+package com.ptwo.testing.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+import com.ptwo.testing.service.ClaveIdempotenciaReutilizadaException;
+import com.ptwo.testing.service.UsuarioService;
+
+@WebMvcTest(UsuarioController.class)
+class UsuarioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UsuarioService usuarioService;
+
+    @Test
+    void deberiaDevolverElUsuarioPorId() throws Exception {
+        when(usuarioService.obtenerUsuario(1L))
+                .thenReturn(Optional.of(new Usuario(1L, "Juan", "juan@ejemplo.com")));
+
+        mockMvc.perform(get("/usuarios/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Juan"))
+                .andExpect(jsonPath("$.activo").value(true));
+    }
+
+    @Test
+    void deberiaDevolver404SiElUsuarioNoExiste() throws Exception {
+        when(usuarioService.obtenerUsuario(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/usuarios/99")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deberiaCrearUsuario() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class)))
+                .thenReturn(new Usuario(7L, "Ana", "ana@ejemplo.com"));
+
+        mockMvc.perform(post("/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Ana\",\"email\":\"ana@ejemplo.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(7));
+    }
+
+    @Test
+    void deberiaCrearElUsuarioActivoAunqueElJsonNoLoIndique() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        mockMvc.perform(post("/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Ana\",\"email\":\"ana@ejemplo.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.activo").value(true));
+    }
+
+    @Test
+    void deberiaPasarLaClaveDeIdempotenciaAlServicio() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class), eq("alta-1")))
+                .thenReturn(new Usuario(7L, "Ana", "ana@ejemplo.com"));
+
+        mockMvc.perform(post("/usuarios")
+                        .header("Idempotency-Key", "alta-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Ana\",\"email\":\"ana@ejemplo.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(7));
+    }
+
+    @Test
+    void deberiaResponder422SiLaClaveDeIdempotenciaLlegaConOtrosDatos() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class), eq("alta-1")))
+                .thenThrow(new ClaveIdempotenciaReutilizadaException("alta-1"));
+
+        mockMvc.perform(post("/usuarios")
+                        .header("Idempotency-Key", "alta-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Luis\",\"email\":\"luis@ejemplo.com\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void deberiaResponder400ConEmailInvalido() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class)))
+                .thenThrow(new IllegalArgumentException("Email inválido"));
+
+        mockMvc.perform(post("/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Ana\",\"email\":\"sin-arroba\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deberiaResponder503SiSeRechazaPorCarga() throws Exception {
+        when(usuarioService.crearUsuario(any(Usuario.class)))
+                .thenThrow(new DependenciaNoDisponibleException("escrituras-usuarios", Motivo.LIMITE_ALCANZADO));
+
+        mockMvc.perform(post("/usuarios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Ana\",\"email\":\"ana@ejemplo.com\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void deberiaDesactivarUsuario() throws Exception {
+        mockMvc.perform(post("/usuarios/3/desactivar")).andExpect(status().isNoContent());
+
+        verify(usuarioService).desactivarUsuario(3L);
+    }
+
+    @Test
+    void deberiaExportarEnStreaming() throws Exception {
+        when(usuarioService.exportarUsuarios(any(OutputStream.class))).thenAnswer(invocacion -> {
+            invocacion.<OutputStream>getArgument(0).write(new byte[] {1, 2, 3});
+            return 3L;
+        });
+
+        MvcResult resultado = mockMvc.perform(get("/usuarios/exportacion"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().bytes(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    void deberiaImportarElCuerpoBinario() throws Exception {
+        when(usuarioService.importarUsuarios(any(InputStream.class))).thenReturn(42L);
+
+        mockMvc.perform(post("/usuarios/importacion")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[] {1, 2, 3}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importados").value(42));
+    }
+}
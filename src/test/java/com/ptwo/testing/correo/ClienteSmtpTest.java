@@ -0,0 +1,212 @@
+package com.ptwo.testing.correo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.ptwo.testing.fakes.ServidorSmtpFake;
+import com.ptwo.testing.fakes.ServidorSmtpFake.MensajeRecibido;
+
+class ClienteSmtpTest {
+
+    private ServidorSmtpFake servidor;
+
+    @AfterEach
+    void parar() throws Exception {
+        if (servidor != null) {
+            servidor.close();
+        }
+    }
+
+    @Test
+    void conPipeliningCadaMensajeDeberiaCostarUnaSolaIdaYVuelta() {
+        servidor = new ServidorSmtpFake(true);
+        try (ConexionSmtp conexion = conectar()) {
+            List<RespuestaSmtp> respuestas = conexion.enviar(mensajes("ana@ejemplo.com", 10));
+
+            assertThat(conexion.admitePipelining()).isTrue();
+            assertThat(respuestas).allMatch(RespuestaSmtp::positiva);
+        }
+
+        assertThat(servidor.recibidos()).hasSize(10);
+        // Saludo, EHLO, un grupo MAIL+RCPT+DATA por mensaje (con el punto del anterior) y el último punto
+        assertThat(servidor.rondas()).isLessThanOrEqualTo(2 + 10 + 1);
+    }
+
+    @Test
+    void sinPipeliningDeberiaEsperarCadaRespuesta() {
+        servidor = new ServidorSmtpFake(false);
+        try (ConexionSmtp conexion = conectar()) {
+            List<RespuestaSmtp> respuestas = conexion.enviar(mensajes("ana@ejemplo.com", 10));
+
+            assertThat(conexion.admitePipelining()).isFalse();
+            assertThat(respuestas).allMatch(RespuestaSmtp::positiva);
+        }
+
+        assertThat(servidor.recibidos()).hasSize(10);
+        assertThat(servidor.rondas()).isGreaterThanOrEqualTo(2 + 4 * 10);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void unDestinatarioRechazadoNoDeberiaAfectarAlRestoDeLaTanda(boolean pipelining) {
+        servidor = new ServidorSmtpFake(pipelining);
+        servidor.rechazar("nadie@ejemplo.com");
+        List<MensajeCorreo> tanda = List.of(mensaje("ana@ejemplo.com", 1), mensaje("nadie@ejemplo.com", 2),
+                mensaje("nadie@ejemplo.com", 3), mensaje("mario@ejemplo.com", 4));
+
+        List<RespuestaSmtp> respuestas;
+        try (ConexionSmtp conexion = conectar()) {
+            respuestas = conexion.enviar(tanda);
+            // La conexión sigue en buen estado tras los RSET
+            assertThat(conexion.enviar(List.of(mensaje("luis@ejemplo.com", 5))).get(0).positiva()).isTrue();
+        }
+
+        assertThat(respuestas).extracting(RespuestaSmtp::codigo).containsExactly(250, 550, 550, 250);
+        assertThat(servidor.recibidos()).extracting(m -> m.destinatarios().get(0))
+                .containsExactly("ana@ejemplo.com", "mario@ejemplo.com", "luis@ejemplo.com");
+    }
+
+    @Test
+    void cadaDominioDeberiaIrPorSusPropiasConexiones() throws Exception {
+        servidor = new ServidorSmtpFake(true);
+        List<CompletableFuture<Void>> envios = new ArrayList<>();
+        try (ClienteSmtp cliente = cliente(2, 1_000)) {
+            for (int i = 0; i < 40; i++) {
+                envios.add(cliente.enviar(mensaje((i % 2 == 0 ? "ana" : "mario") + i + "@"
+                        + (i % 2 == 0 ? "ejemplo.com" : "Otro.org"), i)));
+            }
+            CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        }
+
+        List<MensajeRecibido> recibidos = servidor.recibidos();
+        assertThat(recibidos).hasSize(40);
+        Map<Integer, Set<String>> dominiosPorConexion = recibidos.stream().collect(Collectors.groupingBy(
+                MensajeRecibido::conexion,
+                Collectors.mapping(m -> ClienteSmtp.dominioDe(m.destinatarios().get(0)), Collectors.toSet())));
+        assertThat(dominiosPorConexion.values()).allMatch(dominios -> dominios.size() == 1);
+        assertThat(servidor.conexiones()).isBetween(2, 4);
+    }
+
+    @Test
+    void deberiaRotarLaConexionTrasMensajesPorConexion() throws Exception {
+        servidor = new ServidorSmtpFake(true);
+        try (ClienteSmtp cliente = cliente(1, 5)) {
+            for (int i = 0; i < 12; i++) {
+                cliente.enviar(mensaje("ana@ejemplo.com", i)).get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(servidor.recibidos()).hasSize(12);
+        assertThat(servidor.conexiones()).isEqualTo(3);
+        assertThat(servidor.despedidas()).isEqualTo(3);
+    }
+
+    @Test
+    void cancelarUnMensajeEnColaDeberiaRetirarloYCerrarDeberiaFallarElResto() throws Exception {
+        CompletableFuture<Void> enVuelo;
+        // Acepta la conexión (en la cola del sistema) pero nunca saluda: la primera tanda se queda esperando
+        try (ServerSocket mudo = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+            ClienteSmtp cliente = cliente(mudo, 1);
+            enVuelo = cliente.enviar(mensaje("ana@ejemplo.com", 1));
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cliente.enCola() > 0 && System.nanoTime() < limite) {
+                Thread.sleep(1);
+            }
+            CompletableFuture<Void> cancelado = cliente.enviar(mensaje("ana@ejemplo.com", 2));
+            CompletableFuture<Void> esperando = cliente.enviar(mensaje("ana@ejemplo.com", 3));
+            assertThat(cliente.enCola()).isEqualTo(2);
+
+            cancelado.cancel(false);
+            assertThat(cliente.enCola()).isEqualTo(1);
+
+            cliente.close();
+            assertThat(cliente.enCola()).isZero();
+            assertThatThrownBy(esperando::join).hasCauseInstanceOf(IllegalStateException.class);
+        }
+        // Al cerrar el socket de escucha se corta la conexión que esperaba el saludo
+        assertThatThrownBy(() -> enVuelo.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    void unaRespuestaMalFormadaDeberiaFallarLaTanda() throws Exception {
+        try (ServerSocket roto = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> responderMal(roto));
+            try (ClienteSmtp cliente = cliente(roto, 1)) {
+                CompletableFuture<Void> envio = cliente.enviar(mensaje("ana@ejemplo.com", 1));
+
+                assertThatThrownBy(() -> envio.get(5, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(UncheckedIOException.class);
+            }
+        }
+    }
+
+    // Saluda bien y contesta a MAIL con un código que no es un número
+    private static void responderMal(ServerSocket roto) {
+        try (Socket socket = roto.accept()) {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream salida = socket.getOutputStream();
+            salida.write("220 hola\r\n".getBytes(StandardCharsets.US_ASCII));
+            entrada.readLine();
+            salida.write("250 hola\r\n".getBytes(StandardCharsets.US_ASCII));
+            entrada.readLine();
+            salida.write("2x0 roto\r\n".getBytes(StandardCharsets.US_ASCII));
+            while (entrada.readLine() != null) {
+                // hasta que el cliente cierre
+            }
+        } catch (IOException e) {
+            // El cliente cortó
+        }
+    }
+
+    private static ClienteSmtp cliente(ServerSocket servidor, int conexionesPorDominio) {
+        return new ClienteSmtp(new InetSocketAddress(InetAddress.getLoopbackAddress(), servidor.getLocalPort()),
+                "prueba.local", conexionesPorDominio, 50, 100, Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    private ConexionSmtp conectar() {
+        return new ConexionSmtp(servidor.direccion(), "prueba.local", Duration.ofSeconds(5));
+    }
+
+    private ClienteSmtp cliente(int conexionesPorDominio, int mensajesPorConexion) {
+        return new ClienteSmtp(servidor.direccion(), "prueba.local", conexionesPorDominio, 50, mensajesPorConexion,
+                Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    private static List<MensajeCorreo> mensajes(String destinatario, int n) {
+        List<MensajeCorreo> mensajes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            mensajes.add(mensaje(destinatario, i));
+        }
+        return mensajes;
+    }
+
+    private static MensajeCorreo mensaje(String destinatario, int n) {
+        return new MensajeCorreo("avisos@ptwo.com", destinatario, "Aviso " + n, "Cuerpo del aviso " + n, null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ptwo.testing.correo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DireccionCorreoTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ana@ejemplo.com", "ñandú@ejemplo.com", "ana.gil+avisos@correo.ejemplo.es",
+            "no-responder@localhost", "aviso-12@ptwo.com", "o'brien@ejemplo.com"})
+    void deberiaAdmitir(String direccion) {
+        assertThat(DireccionCorreo.valida(direccion)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "sin-arroba", "@ejemplo.com", "ana@", "ana@@ejemplo.com", "ana@b@ejemplo.com",
+            "ana@ejemplo.com\r\nRCPT TO:<otro@ejemplo.com>", "ana@ejemplo.com>", "<ana@ejemplo.com",
+            "ana gil@ejemplo.com", ".ana@ejemplo.com", "ana.@ejemplo.com", "ana..gil@ejemplo.com",
+            "ana@.ejemplo.com", "ana@ejemplo..com", "ana@ejemplo.com.", "ana@-ejemplo.com", "ana@ejemplo_1.com",
+            "ana@ejemplo.com\n"})
+    void deberiaRechazar(String direccion) {
+        assertThat(DireccionCorreo.valida(direccion)).isFalse();
+    }
+
+    @Test
+    void deberiaRechazarNullYDireccionesDemasiadoLargas() {
+        assertThat(DireccionCorreo.valida(null)).isFalse();
+        assertThat(DireccionCorreo.valida("a".repeat(65) + "@ejemplo.com")).isFalse();
+        assertThat(DireccionCorreo.valida("ana@" + "a".repeat(64) + ".com")).isFalse();
+        assertThat(DireccionCorreo.valida("ana@" + ("a".repeat(60) + ".").repeat(5) + "com")).isFalse();
+    }
+
+    @Test
+    void unMensajeNoDeberiaAceptarDireccionesQueRompanElDialogo() {
+        assertThatThrownBy(() -> new MensajeCorreo("avisos@ptwo.com", "ana@ejemplo.com>\r\nDATA", "Aviso", "Cuerpo", null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MensajeCorreo("avisos@ptwo.com", "ana@ejemplo.com", "Aviso", "Cuerpo",
+                "aviso-1@ptwo.com>\r\nBcc: <otro@ejemplo.com"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package com.ptwo.testing.diagnostico;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.cache.CacheCompartidaEnMemoria;
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryCacheado;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryFiltrado;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.service.UsuarioService;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Isolated
+class EventosJfrTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cadaOperacionDelServicioDeberiaDejarSuEvento() throws IOException {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        UsuarioService usuarioService = new UsuarioService(almacen, new NotificacionServiceFake(),
+                new AuditoriaServiceFake());
+
+        List<RecordedEvent> eventos = grabar(EventoOperacionUsuario.class, () -> {
+            usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+            usuarioService.crearUsuario(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+            usuarioService.obtenerUsuario(99L);
+            usuarioService.desactivarUsuarios(1L, 2L, 99L);
+            assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(3L, "Sin Email", null)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        });
+
+        assertThat(eventos).extracting(e -> e.getString("operacion"))
+                .containsExactly("CREAR_USUARIO", "CREAR_USUARIO", "OBTENER_USUARIO", "DESACTIVAR_USUARIOS",
+                        "CREAR_USUARIO");
+        assertThat(eventos.get(2).getString("resultado")).isEqualTo(EventoOperacionUsuario.NO_ENCONTRADO);
+        assertThat(eventos.get(3).getInt("tamanoLote")).isEqualTo(3);
+        assertThat(eventos.get(3).getInt("afectados")).isEqualTo(2);
+        assertThat(eventos.get(4).getString("resultado")).isEqualTo("IllegalArgumentException");
+        assertThat(eventos).allSatisfy(e -> assertThat(e.getDuration()).isGreaterThanOrEqualTo(Duration.ZERO));
+    }
+
+    @Test
+    void laCacheDeberiaContarAciertosYFallosPorNivel() throws IOException {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        almacen.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        almacen.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        Duration ttl = Duration.ofMinutes(1);
+        UsuarioRepositoryCacheado cacheado = new UsuarioRepositoryCacheado(almacen, new CacheCompartidaEnMemoria(ttl),
+                new TransporteBucleLocal(), "nodo", 100, ttl);
+
+        List<RecordedEvent> eventos = grabar(EventoAccesoCache.class, () -> {
+            cacheado.findById(1L);
+            cacheado.findById(1L);
+            cacheado.findAllById(new long[] {1L, 2L});
+        });
+
+        assertThat(eventos).hasSize(3);
+        assertThat(eventos.get(0).getInt("fallos")).isEqualTo(1);
+        assertThat(eventos.get(1).getInt("aciertosL1")).isEqualTo(1);
+        assertThat(eventos.get(2).getInt("tamanoLote")).isEqualTo(2);
+        assertThat(eventos.get(2).getInt("aciertosL1")).isEqualTo(1);
+        assertThat(eventos.get(2).getInt("fallos")).isEqualTo(1);
+    }
+
+    @Test
+    void elAlmacenPersistenteDeberiaRegistrarSuEntradaSalida() throws IOException {
+        try (UsuarioRepositoryPersistente almacen = new UsuarioRepositoryPersistente(directorio.resolve("almacen"),
+                1 << 20, Duration.ZERO)) {
+            List<RecordedEvent> eventos = grabar(EventoEntradaSalidaAlmacen.class, () -> {
+                almacen.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+                almacen.findById(1L);
+            });
+
+            assertThat(eventos).extracting(e -> e.getString("operacion"))
+                    .containsExactly(EventoEntradaSalidaAlmacen.ESCRITURA, EventoEntradaSalidaAlmacen.LECTURA);
+            assertThat(eventos).allSatisfy(e -> assertThat(e.getLong("bytes")).isPositive());
+        }
+    }
+
+    @Test
+    void elFiltroDeberiaPublicarSusMetricasPeriodicamente() throws Exception {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        almacen.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        // Una tasa objetivo que no usa ningún otro test distingue este filtro de los demás vivos
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 1_000, 0.0007);
+        for (long id = 1; id <= 100; id++) {
+            filtrado.findById(id);
+        }
+
+        Path archivo = directorio.resolve("filtro.jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable(EventoFiltroBloom.class).withPeriod(Duration.ofMillis(20));
+            grabacion.start();
+            Thread.sleep(200);
+            grabacion.stop();
+            grabacion.dump(archivo);
+        }
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(archivo).stream()
+                .filter(e -> e.getEventType().getName().equals("com.ptwo.usuarios.FiltroBloom"))
+                .filter(e -> e.getDouble("tasaObjetivo") == 0.0007)
+                .toList();
+
+        assertThat(eventos).isNotEmpty();
+        RecordedEvent evento = eventos.get(eventos.size() - 1);
+        assertThat(evento.getLong("consultas")).isEqualTo(100);
+        assertThat(evento.getLong("elementos")).isEqualTo(1);
+        assertThat(evento.getDouble("tasaObservada"))
+                .isEqualTo(filtrado.metricas().tasaFalsosPositivosObservada());
+    }
+
+    @Test
+    void elPerfilIncluidoDeberiaActivarLosEventosPropios() throws Exception {
+        Configuration perfil;
+        try (Reader lector = new InputStreamReader(getClass().getResourceAsStream("/jfr/usuarios.jfc"),
+                StandardCharsets.UTF_8)) {
+            perfil = Configuration.create(lector);
+        }
+        Map<String, String> ajustes = perfil.getSettings();
+
+        assertThat(ajustes).containsEntry("com.ptwo.usuarios.Operacion#enabled", "true")
+                .containsEntry("com.ptwo.usuarios.AccesoCache#enabled", "true")
+                .containsEntry("com.ptwo.usuarios.EntradaSalidaAlmacen#enabled", "true")
+                .containsEntry("com.ptwo.usuarios.FiltroBloom#enabled", "true");
+    }
+
+    private List<RecordedEvent> grabar(Class<? extends Event> tipo, Runnable operaciones) throws IOException {
+        Path archivo = directorio.resolve(tipo.getSimpleName() + ".jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable(tipo).withThreshold(Duration.ZERO).withoutStackTrace();
+            grabacion.start();
+            operaciones.run();
+            grabacion.stop();
+            grabacion.dump(archivo);
+        }
+        // La grabación es de todo el proceso: las clases de test que corren a la vez también dejan eventos
+        String nombre = EventType.getEventType(tipo).getName();
+        long hilo = Thread.currentThread().threadId();
+        return RecordingFile.readAllEvents(archivo).stream()
+                .filter(e -> e.getEventType().getName().equals(nombre))
+                .filter(e -> e.getThread() != null && e.getThread().getJavaThreadId() == hilo)
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ptwo.testing.estres;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ptwo.testing.estres.Operacion.TipoOperacion;
+
+// Lanza varios hilos contra un sistema nuevo en cada ronda, registra la historia de
+// llamadas y la pasa por el verificador. Las historias no linealizables se guardan.
+final class ArnesConcurrencia {
+
+    interface Sistema extends AutoCloseable {
+        void guardar(long id, String nombre);
+
+        String obtener(long id);
+
+        void desactivar(long id);
+
+        void eliminar(long id);
+
+        @Override
+        default void close() throws Exception {
+        }
+    }
+
+    interface FabricaSistemas {
+        Sistema crear() throws Exception;
+    }
+
+    private ArnesConcurrencia() {
+    }
+
+    static List<List<Operacion>> buscarViolaciones(FabricaSistemas fabrica, List<TipoOperacion> tipos,
+                                                   int rondas, int hilos, int operacionesPorHilo) throws Exception {
+        List<List<Operacion>> violaciones = new ArrayList<>();
+        Random semillas = new Random(42);
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            List<Operacion> historia;
+            try (Sistema sistema = fabrica.crear()) {
+                historia = ejecutarRonda(sistema, tipos, hilos, operacionesPorHilo, semillas.nextLong());
+            }
+            if (!VerificadorLinealizabilidad.esLinealizable(historia)) {
+                violaciones.add(historia);
+            }
+        }
+        return violaciones;
+    }
+
+    static void registrar(String nombre, List<List<Operacion>> violaciones) throws Exception {
+        Path directorio = Path.of("target", "estres");
+        Files.createDirectories(directorio);
+        List<String> lineas = new ArrayList<>();
+        lineas.add(violaciones.size() + " historias no linealizables");
+        for (List<Operacion> historia : violaciones) {
+            lineas.add("");
+            historia.stream().map(Operacion::toString).forEach(lineas::add);
+        }
+        Files.write(directorio.resolve("violaciones-" + nombre + ".txt"), lineas);
+    }
+
+    // Cede el procesador en puntos aleatorios para provocar entrelazados poco frecuentes
+    static void perturbar() {
+        int dado = ThreadLocalRandom.current().nextInt(8);
+        if (dado == 0) {
+            Thread.yield();
+        } else if (dado == 1) {
+            LockSupport.parkNanos(20_000);
+        }
+    }
+
+    private static List<Operacion> ejecutarRonda(Sistema sistema, List<TipoOperacion> tipos, int hilos,
+                                                 int operacionesPorHilo, long semilla) throws InterruptedException {
+        List<Operacion> historia = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            Random aleatorio = new Random(semilla + h);
+            Thread trabajador = new Thread(() -> {
+                try {
+                    salida.await();
+                    for (int i = 0; i < operacionesPorHilo; i++) {
+                        TipoOperacion tipo = tipos.get(aleatorio.nextInt(tipos.size()));
+                        long id = 1 + aleatorio.nextInt(2);
+                        String nombre = tipo == TipoOperacion.GUARDAR ? "n" + hilo + "_" + i : null;
+                        historia.add(invocar(sistema, hilo, tipo, id, nombre));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            trabajador.start();
+            trabajadores.add(trabajador);
+        }
+        salida.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        return historia;
+    }
+
+    private static Operacion invocar(Sistema sistema, int hilo, TipoOperacion tipo, long id, String nombre) {
+        long inicio = System.nanoTime();
+        Object resultado = null;
+        switch (tipo) {
+            case GUARDAR -> sistema.guardar(id, nombre);
+            case OBTENER -> resultado = sistema.obtener(id);
+            case DESACTIVAR -> sistema.desactivar(id);
+            case ELIMINAR -> sistema.eliminar(id);
+        }
+        return new Operacion(hilo, tipo, id, nombre, resultado, inicio, System.nanoTime());
+    }
+}
@@ -0,0 +1,182 @@
+package com.ptwo.testing.estres;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.ptwo.testing.estres.ArnesConcurrencia.Sistema;
+import com.ptwo.testing.estres.Operacion.TipoOperacion;
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.ContadoresUsuarios;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryObservado;
+import com.ptwo.testing.repository.UsuarioRepositoryOffHeap;
+import com.ptwo.testing.repository.UsuarioRepositoryParticionado;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.service.UsuarioService;
+
+// Se ejecuta con mvn -Pestres test; el número de rondas se ajusta con -Destres.rondas
+@Tag("estres")
+@Isolated
+class LinealizabilidadUsuariosTest {
+
+    private static final int RONDAS = Integer.getInteger("estres.rondas", 300);
+    private static final int HILOS = 3;
+    private static final int OPERACIONES_POR_HILO = 4;
+
+    @TempDir
+    static Path directorio;
+
+    static Stream<Arguments> almacenes() {
+        return Stream.of(
+                Arguments.of("memoria", (Supplier<UsuarioRepository>) UsuarioRepositoryEnMemoria::new),
+                Arguments.of("persistente", (Supplier<UsuarioRepository>) () -> new UsuarioRepositoryPersistente(
+                        directorioNuevo(), 4096, Duration.ofMillis(100))),
+                Arguments.of("offheap", (Supplier<UsuarioRepository>) () -> new UsuarioRepositoryOffHeap(4096)),
+                Arguments.of("particionado", (Supplier<UsuarioRepository>) () -> new UsuarioRepositoryParticionado(
+                        List.of(new UsuarioRepositoryEnMemoria(), new UsuarioRepositoryEnMemoria()))),
+                Arguments.of("observado", (Supplier<UsuarioRepository>) () -> new UsuarioRepositoryObservado(
+                        new UsuarioRepositoryEnMemoria(), new ContadoresUsuarios())));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("almacenes")
+    void elRepositorioDeberiaSerLinealizable(String nombre, Supplier<UsuarioRepository> almacen) throws Exception {
+        List<List<Operacion>> violaciones = ArnesConcurrencia.buscarViolaciones(
+                () -> sobreRepositorio(new RepositorioPerturbado(almacen.get())),
+                List.of(TipoOperacion.GUARDAR, TipoOperacion.OBTENER, TipoOperacion.ELIMINAR),
+                RONDAS, HILOS, OPERACIONES_POR_HILO);
+
+        ArnesConcurrencia.registrar("repositorio-" + nombre, violaciones);
+        assertTrue(violaciones.isEmpty(), "Historia no linealizable: " + primera(violaciones));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("almacenes")
+    void elServicioDeberiaSerLinealizable(String nombre, Supplier<UsuarioRepository> almacen) throws Exception {
+        List<List<Operacion>> violaciones = ArnesConcurrencia.buscarViolaciones(
+                () -> sobreServicio(new RepositorioPerturbado(almacen.get())),
+                List.of(TipoOperacion.GUARDAR, TipoOperacion.OBTENER, TipoOperacion.DESACTIVAR),
+                RONDAS, HILOS, OPERACIONES_POR_HILO);
+
+        ArnesConcurrencia.registrar("servicio-" + nombre, violaciones);
+        assertTrue(violaciones.isEmpty(), "Historia no linealizable: " + primera(violaciones));
+    }
+
+    @Test
+    void crearUsuarioAsyncDeberiaAsignarIdsUnicosBajoContencion() {
+        UsuarioRepository almacen = new RepositorioPerturbado(new UsuarioRepositoryEnMemoria());
+        NotificacionServiceFake notificaciones = new NotificacionServiceFake();
+        UsuarioService usuarioService = new UsuarioService(almacen, notificaciones, new AuditoriaServiceFake());
+
+        List<CompletableFuture<Usuario>> futuros = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            futuros.add(usuarioService.crearUsuarioAsync(new Usuario(null, "Usuario" + i, "u" + i + "@ejemplo.com")));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (CompletableFuture<Usuario> futuro : futuros) {
+            ids.add(futuro.join().getId());
+        }
+
+        assertEquals(2000, ids.size());
+        assertEquals(2000, almacen.findAll().size());
+        assertEquals(2000, notificaciones.registros().size());
+    }
+
+    private static Sistema sobreRepositorio(UsuarioRepository repositorio) {
+        return new Sistema() {
+            @Override
+            public void guardar(long id, String nombre) {
+                repositorio.save(new Usuario(id, nombre, nombre + "@ejemplo.com"));
+            }
+
+            @Override
+            public String obtener(long id) {
+                return repositorio.findById(id).map(LinealizabilidadUsuariosTest::estado).orElse(null);
+            }
+
+            @Override
+            public void desactivar(long id) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void eliminar(long id) {
+                repositorio.delete(id);
+            }
+
+            @Override
+            public void close() throws Exception {
+                ((AutoCloseable) repositorio).close();
+            }
+        };
+    }
+
+    private static Sistema sobreServicio(UsuarioRepository repositorio) {
+        UsuarioService usuarioService = new UsuarioService(repositorio,
+                new NotificacionServiceFake(), new AuditoriaServiceFake());
+        return new Sistema() {
+            @Override
+            public void guardar(long id, String nombre) {
+                usuarioService.crearUsuario(new Usuario(id, nombre, nombre + "@ejemplo.com"));
+            }
+
+            @Override
+            public String obtener(long id) {
+                return usuarioService.obtenerUsuario(id).map(LinealizabilidadUsuariosTest::estado).orElse(null);
+            }
+
+            @Override
+            public void desactivar(long id) {
+                usuarioService.desactivarUsuario(id);
+            }
+
+            @Override
+            public void eliminar(long id) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() throws Exception {
+                ((AutoCloseable) repositorio).close();
+            }
+        };
+    }
+
+    private static String estado(Usuario usuario) {
+        return usuario.getNombre() + (usuario.isActivo() ? ":activo" : ":inactivo");
+    }
+
+    private static Path directorioNuevo() {
+        try {
+            return Files.createTempDirectory(directorio, "ronda");
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private static String primera(List<List<Operacion>> violaciones) {
+        return violaciones.isEmpty() ? "" : violaciones.get(0).toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.ptwo.testing.estres;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Especificación secuencial: un mapa id -> (nombre, activo). Inmutable para poder
+// explorar y memorizar estados durante la búsqueda de linealizaciones.
+record ModeloUsuarios(Map<Long, String> estados) {
+
+    static ModeloUsuarios vacio() {
+        return new ModeloUsuarios(new TreeMap<>());
+    }
+
+    // Devuelve el estado siguiente si la operación es compatible con su resultado observado, o null
+    ModeloUsuarios aplicar(Operacion operacion) {
+        String actual = estados.get(operacion.id());
+        switch (operacion.tipo()) {
+            case OBTENER:
+                return Objects.equals(actual, operacion.resultado()) ? this : null;
+            case GUARDAR:
+                return con(operacion.id(), operacion.nombre() + ":activo");
+            case DESACTIVAR:
+                if (actual == null) {
+                    return this;
+                }
+                return con(operacion.id(), actual.substring(0, actual.indexOf(':')) + ":inactivo");
+            case ELIMINAR:
+                return con(operacion.id(), null);
+            default:
+                throw new IllegalArgumentException(operacion.tipo().name());
+        }
+    }
+
+    private ModeloUsuarios con(long id, String estado) {
+        TreeMap<Long, String> copia = new TreeMap<>(estados);
+        if (estado == null) {
+            copia.remove(id);
+        } else {
+            copia.put(id, estado);
+        }
+        return new ModeloUsuarios(copia);
+    }
+}
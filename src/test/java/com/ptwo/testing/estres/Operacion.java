@@ -0,0 +1,13 @@
+package com.ptwo.testing.estres;
+
+// Una llamada concurrente ya completada: qué se pidió, qué devolvió y cuándo
+record Operacion(int hilo, TipoOperacion tipo, long id, String nombre, Object resultado, long inicio, long fin) {
+
+    enum TipoOperacion { GUARDAR, OBTENER, DESACTIVAR, ELIMINAR }
+
+    @Override
+    public String toString() {
+        return String.format("h%d %s(%d%s) -> %s [%d, %d]", hilo, tipo, id,
+                nombre == null ? "" : ", " + nombre, resultado, inicio, fin);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ptwo.testing.estres;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+
+// Decorador que cede el procesador antes y después de cada llamada al repositorio real
+class RepositorioPerturbado implements UsuarioRepository, AutoCloseable {
+    private final UsuarioRepository delegado;
+
+    RepositorioPerturbado(UsuarioRepository delegado) {
+        this.delegado = delegado;
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        ArnesConcurrencia.perturbar();
+        Optional<Usuario> resultado = delegado.findById(id);
+        ArnesConcurrencia.perturbar();
+        return resultado;
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        ArnesConcurrencia.perturbar();
+        Usuario guardado = delegado.save(usuario);
+        ArnesConcurrencia.perturbar();
+        return guardado;
+    }
+
+    @Override
+    public void delete(Long id) {
+        ArnesConcurrencia.perturbar();
+        delegado.delete(id);
+        ArnesConcurrencia.perturbar();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegado instanceof AutoCloseable cerrable) {
+            cerrable.close();
+        }
+    }
+}
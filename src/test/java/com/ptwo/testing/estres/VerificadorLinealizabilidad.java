@@ -0,0 +1,54 @@
+package com.ptwo.testing.estres;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Búsqueda de Wing y Gong con memorización (como en Lincheck/Knossos): una historia es
+// linealizable si existe un orden total de las operaciones, compatible con su orden
+// en tiempo real, que el modelo secuencial acepta con los mismos resultados.
+final class VerificadorLinealizabilidad {
+    private final List<Operacion> operaciones;
+    private final Set<String> visitados = new HashSet<>();
+
+    private VerificadorLinealizabilidad(List<Operacion> operaciones) {
+        if (operaciones.size() > 62) {
+            throw new IllegalArgumentException("Historia demasiado larga para verificar: " + operaciones.size());
+        }
+        this.operaciones = operaciones;
+    }
+
+    static boolean esLinealizable(List<Operacion> historia) {
+        return new VerificadorLinealizabilidad(new ArrayList<>(historia)).buscar(0L, ModeloUsuarios.vacio());
+    }
+
+    private boolean buscar(long hechas, ModeloUsuarios modelo) {
+        int total = operaciones.size();
+        if (Long.bitCount(hechas) == total) {
+            return true;
+        }
+        if (!visitados.add(hechas + "|" + modelo.estados())) {
+            return false;
+        }
+        // Solo puede ir la siguiente una operación que empezó antes de que terminara
+        // cualquier otra pendiente
+        long primerFin = Long.MAX_VALUE;
+        for (int i = 0; i < total; i++) {
+            if ((hechas & (1L << i)) == 0) {
+                primerFin = Math.min(primerFin, operaciones.get(i).fin());
+            }
+        }
+        for (int i = 0; i < total; i++) {
+            Operacion operacion = operaciones.get(i);
+            if ((hechas & (1L << i)) != 0 || operacion.inicio() > primerFin) {
+                continue;
+            }
+            ModeloUsuarios siguiente = modelo.aplicar(operacion);
+            if (siguiente != null && buscar(hechas | (1L << i), siguiente)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
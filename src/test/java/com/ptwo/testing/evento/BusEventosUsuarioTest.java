@@ -0,0 +1,164 @@
+package com.ptwo.testing.evento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ptwo.testing.model.CampoUsuario;
+import com.ptwo.testing.model.Usuario;
+
+class BusEventosUsuarioTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void deberiaAsignarSecuenciasConsecutivas() {
+        BusEventosUsuario bus = new BusEventosUsuario(8);
+
+        EventoCambioUsuario primero = publicar(bus, 1L);
+        EventoCambioUsuario segundo = publicar(bus, 2L);
+
+        assertEquals(1, primero.secuencia());
+        assertEquals(2, segundo.secuencia());
+        assertEquals(2, bus.ultimaSecuencia());
+    }
+
+    @Test
+    void deberiaReanudarDesdeUnaSecuencia() {
+        BusEventosUsuario bus = new BusEventosUsuario(8);
+        for (long id = 1; id <= 5; id++) {
+            publicar(bus, id);
+        }
+
+        SuscripcionEventos suscripcion = bus.suscribir(4);
+        List<EventoCambioUsuario> eventos = suscripcion.sondear(10);
+
+        assertEquals(List.of(4L, 5L), eventos.stream().map(EventoCambioUsuario::idUsuario).toList());
+        assertEquals(6, suscripcion.siguienteSecuencia());
+        assertTrue(suscripcion.sondear(10).isEmpty());
+    }
+
+    @Test
+    void deberiaFallarSiLosEventosSalieronDelAnilloSinRegistro() {
+        BusEventosUsuario bus = new BusEventosUsuario(4);
+        for (long id = 1; id <= 10; id++) {
+            publicar(bus, id);
+        }
+
+        SuscripcionEventos suscripcion = bus.suscribir(1);
+
+        assertThrows(IllegalStateException.class, () -> suscripcion.sondear(10));
+    }
+
+    @Test
+    void deberiaRecuperarDelRegistroLoQueSalioDelAnillo() {
+        try (BusEventosUsuario bus = new BusEventosUsuario(4,
+                new RegistroEventosArchivo(directorio.resolve("eventos.log")))) {
+            for (long id = 1; id <= 10; id++) {
+                publicar(bus, id);
+            }
+
+            List<EventoCambioUsuario> eventos = bus.suscribir(2).sondear(100);
+
+            assertEquals(9, eventos.size());
+            for (int i = 0; i < eventos.size(); i++) {
+                assertEquals(i + 2, eventos.get(i).secuencia());
+            }
+        }
+    }
+
+    @Test
+    void deberiaContinuarLaSecuenciaTrasReiniciar() {
+        Path archivo = directorio.resolve("eventos.log");
+        try (BusEventosUsuario bus = new BusEventosUsuario(4, new RegistroEventosArchivo(archivo))) {
+            publicar(bus, 1L);
+            publicar(bus, 2L);
+        }
+
+        try (BusEventosUsuario bus = new BusEventosUsuario(4, new RegistroEventosArchivo(archivo))) {
+            EventoCambioUsuario tercero = publicar(bus, 3L);
+            assertEquals(3, tercero.secuencia());
+
+            List<EventoCambioUsuario> reproducidos = new ArrayList<>();
+            bus.reproducir(1, Long.MAX_VALUE, reproducidos::add);
+            assertEquals(List.of(1L, 2L, 3L), reproducidos.stream().map(EventoCambioUsuario::idUsuario).toList());
+            assertEquals("usuario3@ejemplo.com", reproducidos.get(2).email());
+        }
+    }
+
+    @Test
+    void deberiaReproducirDesdeCualquierSecuenciaDelRegistro() {
+        try (BusEventosUsuario bus = new BusEventosUsuario(4,
+                new RegistroEventosArchivo(directorio.resolve("eventos.log")))) {
+            for (long id = 1; id <= 1_000; id++) {
+                publicar(bus, id);
+            }
+
+            for (long desde : new long[] {1, 255, 256, 257, 513, 990}) {
+                List<EventoCambioUsuario> eventos = new ArrayList<>();
+                bus.reproducir(desde, desde + 5, eventos::add);
+                assertEquals(6, eventos.size());
+                assertEquals(desde, eventos.get(0).secuencia());
+            }
+        }
+    }
+
+    @Test
+    void unFinalDanadoDeberiaCortarseAlReabrir() throws Exception {
+        Path archivo = directorio.resolve("eventos.log");
+        try (BusEventosUsuario bus = new BusEventosUsuario(4, new RegistroEventosArchivo(archivo))) {
+            publicar(bus, 1L);
+            publicar(bus, 2L);
+            publicar(bus, 3L);
+        }
+        // Se estropea el tercer registro y se añade basura detrás
+        byte[] contenido = Files.readAllBytes(archivo);
+        int tamanoRegistro = contenido.length / 3;
+        contenido[2 * tamanoRegistro + Integer.BYTES + 8] = 99;
+        Files.write(archivo, contenido);
+        Files.write(archivo, new byte[] {0, 0, 0, 7, 1, 2}, StandardOpenOption.APPEND);
+
+        try (BusEventosUsuario bus = new BusEventosUsuario(4, new RegistroEventosArchivo(archivo))) {
+            assertEquals(2, bus.ultimaSecuencia());
+            assertEquals(3, publicar(bus, 4L).secuencia());
+
+            List<EventoCambioUsuario> reproducidos = new ArrayList<>();
+            bus.reproducir(1, Long.MAX_VALUE, reproducidos::add);
+            assertEquals(List.of(1L, 2L, 4L), reproducidos.stream().map(EventoCambioUsuario::idUsuario).toList());
+        }
+    }
+
+    @Test
+    void deberiaDespertarAlSuscriptorQueEspera() throws Exception {
+        BusEventosUsuario bus = new BusEventosUsuario(8);
+        SuscripcionEventos suscripcion = bus.suscribirDesdeAhora();
+
+        CompletableFuture<List<EventoCambioUsuario>> pendiente = CompletableFuture.supplyAsync(() -> {
+            try {
+                return suscripcion.esperar(10, Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        publicar(bus, 7L);
+
+        assertEquals(7L, pendiente.get().get(0).idUsuario());
+    }
+
+    private EventoCambioUsuario publicar(BusEventosUsuario bus, long id) {
+        Usuario usuario = new Usuario(id, "Usuario" + id, "usuario" + id + "@ejemplo.com");
+        return bus.publicar(TipoCambio.CREACION, id, CampoUsuario.TODOS, usuario);
+    }
+}
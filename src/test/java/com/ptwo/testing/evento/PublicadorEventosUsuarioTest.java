@@ -0,0 +1,77 @@
+package com.ptwo.testing.evento;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.CampoUsuario;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+import com.ptwo.testing.repository.UsuarioRepositoryObservado;
+import com.ptwo.testing.service.UsuarioService;
+
+class PublicadorEventosUsuarioTest {
+
+    private BusEventosUsuario bus;
+    private UsuarioRepository usuarioRepository;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        bus = new BusEventosUsuario(64);
+        usuarioRepository = new UsuarioRepositoryObservado(new UsuarioRepositoryEnMemoria(),
+                new PublicadorEventosUsuario(bus));
+        usuarioService = new UsuarioService(usuarioRepository,
+                new NotificacionServiceFake(), new AuditoriaServiceFake());
+    }
+
+    @Test
+    void deberiaPublicarCreacionActualizacionYDesactivacionEnOrden() {
+        SuscripcionEventos suscripcion = bus.suscribirDesdeAhora();
+
+        usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana.gil@ejemplo.com"));
+        usuarioService.desactivarUsuario(1L);
+
+        List<EventoCambioUsuario> eventos = suscripcion.sondear(10);
+        assertEquals(List.of(TipoCambio.CREACION, TipoCambio.ACTUALIZACION, TipoCambio.DESACTIVACION),
+                eventos.stream().map(EventoCambioUsuario::tipo).toList());
+        assertEquals(Set.of(CampoUsuario.EMAIL), eventos.get(1).campos());
+        assertEquals("ana.gil@ejemplo.com", eventos.get(1).email());
+        assertEquals(Set.of(CampoUsuario.ACTIVO), eventos.get(2).campos());
+        assertFalse(eventos.get(2).activo());
+        assertEquals(List.of(1L, 2L, 3L), eventos.stream().map(EventoCambioUsuario::secuencia).toList());
+    }
+
+    @Test
+    void noDeberiaPublicarGuardadosSinCambios() {
+        usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        SuscripcionEventos suscripcion = bus.suscribirDesdeAhora();
+
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        assertEquals(0, suscripcion.sondear(10).size());
+    }
+
+    @Test
+    void deberiaPublicarEliminacionConElUltimoEstado() {
+        usuarioService.crearUsuario(new Usuario(null, "Luis Mora", "luis@ejemplo.com"));
+        SuscripcionEventos suscripcion = bus.suscribirDesdeAhora();
+
+        usuarioRepository.delete(1L);
+        usuarioRepository.delete(1L);
+
+        List<EventoCambioUsuario> eventos = suscripcion.sondear(10);
+        assertEquals(1, eventos.size());
+        assertEquals(TipoCambio.ELIMINACION, eventos.get(0).tipo());
+        assertEquals("luis@ejemplo.com", eventos.get(0).email());
+    }
+}
@@ -0,0 +1,170 @@
+package com.ptwo.testing.exportacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+
+class ExportacionColumnarTest {
+
+    private static final String[] DOMINIOS = {"ejemplo.com", "correo.es", "empresa.org"};
+
+    private final ExportacionColumnar exportacion = new ExportacionColumnar(100, 3);
+
+    @Test
+    void deberiaRecuperarLosMismosUsuarios() {
+        List<Usuario> originales = usuarios(1_000);
+        originales.add(usuario(5_000, null, null, true));
+        originales.add(usuario(5_001, "Sin Arroba", "sin-arroba", false));
+        originales.add(usuario(9_000_000_000L, "Ñandú Pérez", "ñandú@dominio.es", true));
+
+        List<Usuario> recuperados = importar(exportar(originales));
+
+        ordenar(originales);
+        ordenar(recuperados);
+        assertThat(recuperados).usingRecursiveFieldByFieldElementComparator().isEqualTo(originales);
+    }
+
+    @Test
+    void deberiaOcuparMuchoMenosQueElJson() throws Exception {
+        List<Usuario> originales = usuarios(10_000);
+
+        byte[] columnar = exportar(originales);
+        byte[] json = new ObjectMapper().writeValueAsBytes(originales);
+
+        assertThat(columnar.length).isLessThan(json.length / 4);
+    }
+
+    @Test
+    void deberiaCargarEnElRepositorioPorLotes() {
+        UsuarioRepositoryFake destino = new UsuarioRepositoryFake();
+        AtomicInteger lotes = new AtomicInteger();
+
+        long importados = exportacion.importar(new ByteArrayInputStream(exportar(usuarios(1_050))), bloque -> {
+            lotes.incrementAndGet();
+            destino.saveAll(bloque);
+        });
+
+        assertThat(importados).isEqualTo(1_050);
+        assertThat(lotes).hasValue(11);
+        assertThat(destino.findAll()).hasSize(1_050);
+    }
+
+    @Test
+    void deberiaExportarDesdeElRecorridoDelRepositorio() {
+        UsuarioRepositoryEnMemoria origen = new UsuarioRepositoryEnMemoria();
+        origen.saveAll(usuarios(300));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long exportados = exportacion.exportar(origen.streamAll(), salida);
+
+        assertThat(exportados).isEqualTo(300);
+        assertThat(importar(salida.toByteArray())).hasSize(300);
+    }
+
+    @Test
+    void deberiaDetectarUnBloqueCorrupto() {
+        byte[] exportado = exportar(usuarios(10));
+        exportado[exportado.length - 1] ^= 0x5A;
+
+        assertThatThrownBy(() -> importar(exportado))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("corrupto");
+    }
+
+    @Test
+    void unFlujoComprimidoCortadoConSuCrcDeberiaFallarSinColgarse() {
+        byte[] bloque = BloqueColumnar.comprimir(usuarios(50));
+        ByteBuffer cabecera = ByteBuffer.wrap(bloque);
+        byte[] cortado = Arrays.copyOfRange(bloque, BloqueColumnar.CABECERA,
+                BloqueColumnar.CABECERA + cabecera.getInt(Integer.BYTES * 2) / 2);
+        CRC32C crc = new CRC32C();
+        crc.update(cortado);
+
+        assertThatThrownBy(() -> BloqueColumnar.descomprimir(50, cabecera.getInt(Integer.BYTES), (int) crc.getValue(), cortado))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("truncado");
+    }
+
+    @Test
+    void deberiaRechazarLongitudesImposiblesAntesDeReservarlas() throws IOException {
+        assertThatThrownBy(() -> importar(cabecera(10, Integer.MAX_VALUE, 16)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("corrupto");
+        assertThatThrownBy(() -> importar(cabecera(10, 100, -1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("corrupto");
+        assertThatThrownBy(() -> importar(cabecera(1_000_000, 100, 16)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("corrupto");
+    }
+
+    @Test
+    void deberiaRechazarUnArchivoQueNoEsUnaExportacion() {
+        assertThatThrownBy(() -> importar("{\"id\":1}".getBytes()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private byte[] exportar(List<Usuario> usuarios) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacion.exportar(usuarios.stream(), salida);
+        return salida.toByteArray();
+    }
+
+    private static byte[] cabecera(int usuarios, int longitudOriginal, int longitudComprimida) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        salida.writeInt(ExportacionColumnar.MAGICO);
+        salida.writeShort(ExportacionColumnar.VERSION);
+        salida.writeInt(usuarios);
+        salida.writeInt(longitudOriginal);
+        salida.writeInt(longitudComprimida);
+        salida.writeInt(0);
+        return bytes.toByteArray();
+    }
+
+    private List<Usuario> importar(byte[] exportado) {
+        List<Usuario> recuperados = Collections.synchronizedList(new ArrayList<>());
+        exportacion.importar(new ByteArrayInputStream(exportado), recuperados::addAll);
+        return recuperados;
+    }
+
+    // Ids con huecos y desordenados, como salen de un mapa hash
+    private static List<Usuario> usuarios(int n) {
+        List<Usuario> usuarios = new ArrayList<>(LongStream.range(0, n)
+                .mapToObj(i -> usuario(i * 3 + 1, "Usuario " + i, "usuario" + i + "@" + DOMINIOS[(int) (i % 3)], i % 5 != 0))
+                .toList());
+        Collections.shuffle(usuarios, new Random(7));
+        return usuarios;
+    }
+
+    private static Usuario usuario(long id, String nombre, String email, boolean activo) {
+        Usuario usuario = new Usuario(id, nombre, email);
+        usuario.setActivo(activo);
+        return usuario;
+    }
+
+    private static void ordenar(List<Usuario> usuarios) {
+        usuarios.sort(Comparator.comparing(Usuario::getId));
+    }
+}
@@ -0,0 +1,64 @@
+package com.ptwo.testing.fakes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.ptwo.testing.service.AuditoriaService;
+import com.ptwo.testing.service.RegistroAuditoria;
+
+public class AuditoriaServiceFake implements AuditoriaService {
+    private final List<RegistroAuditoria> registros = new CopyOnWriteArrayList<>();
+    private final RegistroLlamadas orden;
+    private final boolean historial;
+    private volatile RuntimeException errorAlRegistrar;
+    private volatile Duration retraso = Duration.ZERO;
+
+    public AuditoriaServiceFake() {
+        this(null);
+    }
+
+    public AuditoriaServiceFake(RegistroLlamadas orden) {
+        this(orden, true);
+    }
+
+    private AuditoriaServiceFake(RegistroLlamadas orden, boolean historial) {
+        this.orden = orden;
+        this.historial = historial;
+    }
+
+    // Como NotificacionServiceFake.sinHistorial
+    public static AuditoriaServiceFake sinHistorial() {
+        return new AuditoriaServiceFake(null, false);
+    }
+
+    public void fallarAlRegistrar(RuntimeException error) {
+        this.errorAlRegistrar = error;
+    }
+
+    public void retrasar(Duration retraso) {
+        this.retraso = retraso;
+    }
+
+    @Override
+    public void registrarOperacion(String tipoOperacion, String detalles) {
+        if (orden != null) {
+            orden.anotar("auditoria.registrarOperacion");
+        }
+        Retrasos.dormir(retraso);
+        if (errorAlRegistrar != null) {
+            throw errorAlRegistrar;
+        }
+        if (historial) {
+            registros.add(new RegistroAuditoria(tipoOperacion, detalles));
+        }
+    }
+
+    public List<RegistroAuditoria> registros() {
+        return List.copyOf(registros);
+    }
+
+    public List<String> tipos() {
+        return registros.stream().map(RegistroAuditoria::tipoOperacion).toList();
+    }
+}
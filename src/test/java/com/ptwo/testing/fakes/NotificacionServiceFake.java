@@ -0,0 +1,117 @@
+package com.ptwo.testing.fakes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.service.NotificacionService;
+
+public class NotificacionServiceFake implements NotificacionService {
+    private final List<Usuario> registros = new CopyOnWriteArrayList<>();
+    private final List<Usuario> desactivaciones = new CopyOnWriteArrayList<>();
+    private final List<String> claves = new CopyOnWriteArrayList<>();
+    private final RegistroLlamadas orden;
+    private final boolean historial;
+    private volatile RuntimeException errorAlEnviar;
+    private volatile int fallosPendientes;
+    private volatile Duration retraso = Duration.ZERO;
+
+    public NotificacionServiceFake() {
+        this(null);
+    }
+
+    public NotificacionServiceFake(RegistroLlamadas orden) {
+        this(orden, true);
+    }
+
+    private NotificacionServiceFake(RegistroLlamadas orden, boolean historial) {
+        this.orden = orden;
+        this.historial = historial;
+    }
+
+    // No guarda lo que recibe: en pruebas de carga y de asignaciones el historial crecería con
+    // cada llamada y acabaría siendo lo que se mide
+    public static NotificacionServiceFake sinHistorial() {
+        return new NotificacionServiceFake(null, false);
+    }
+
+    public void fallarAlEnviar(RuntimeException error) {
+        fallarAlEnviar(error, Integer.MAX_VALUE);
+    }
+
+    // Solo las próximas n llamadas fallan; útil para probar reintentos
+    public void fallarAlEnviar(RuntimeException error, int veces) {
+        this.errorAlEnviar = error;
+        this.fallosPendientes = veces;
+    }
+
+    public void retrasar(Duration retraso) {
+        this.retraso = retraso;
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario) {
+        anotar("enviarNotificacionRegistro");
+        if (historial) {
+            registros.add(usuario);
+        }
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario) {
+        anotar("enviarNotificacionDesactivacion");
+        if (historial) {
+            desactivaciones.add(usuario);
+        }
+    }
+
+    @Override
+    public void enviarNotificacionRegistro(Usuario usuario, String claveIdempotencia) {
+        enviarNotificacionRegistro(usuario);
+        if (historial) {
+            claves.add(claveIdempotencia);
+        }
+    }
+
+    @Override
+    public void enviarNotificacionDesactivacion(Usuario usuario, String claveIdempotencia) {
+        enviarNotificacionDesactivacion(usuario);
+        if (historial) {
+            claves.add(claveIdempotencia);
+        }
+    }
+
+    // Claves de idempotencia de los envíos que llegaron a completarse, en orden
+    public List<String> claves() {
+        return List.copyOf(claves);
+    }
+
+    public List<Usuario> registros() {
+        return List.copyOf(registros);
+    }
+
+    public List<Usuario> desactivaciones() {
+        return List.copyOf(desactivaciones);
+    }
+
+    private void anotar(String metodo) {
+        if (orden != null) {
+            orden.anotar("notificacion." + metodo);
+        }
+        Retrasos.dormir(retraso);
+        if (errorAlEnviar != null && fallar()) {
+            throw errorAlEnviar;
+        }
+    }
+
+    private synchronized boolean fallar() {
+        if (fallosPendientes <= 0) {
+            return false;
+        }
+        if (fallosPendientes != Integer.MAX_VALUE) {
+            fallosPendientes--;
+        }
+        return true;
+    }
+}
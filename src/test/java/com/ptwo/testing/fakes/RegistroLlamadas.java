@@ -0,0 +1,17 @@
+package com.ptwo.testing.fakes;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Orden global de llamadas entre varios fakes, equivalente ligero a InOrder
+public class RegistroLlamadas {
+    private final List<String> llamadas = new CopyOnWriteArrayList<>();
+
+    public void anotar(String llamada) {
+        llamadas.add(llamada);
+    }
+
+    public List<String> llamadas() {
+        return List.copyOf(llamadas);
+    }
+}
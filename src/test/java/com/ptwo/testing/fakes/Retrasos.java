@@ -0,0 +1,22 @@
+package com.ptwo.testing.fakes;
+
+import java.time.Duration;
+
+final class Retrasos {
+
+    private Retrasos() {
+    }
+
+    // Respeta la interrupción para que un llamante que abandona la llamada libere el hilo
+    static void dormir(Duration retraso) {
+        if (retraso.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(retraso);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Llamada interrumpida", e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.ptwo.testing.fakes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Servidor SMTP mínimo en un puerto local: acepta todo salvo los destinatarios marcados para
+// rechazar y guarda cada mensaje recibido. Como un servidor real con PIPELINING, solo vacía su
+// salida cuando no le queda nada por leer, así que las veces que la vacía son las idas y vueltas
+// de la conversación
+public class ServidorSmtpFake implements AutoCloseable {
+
+    public record MensajeRecibido(int conexion, String remitente, List<String> destinatarios, String datos) {
+
+        public String encabezado(String nombre) {
+            String prefijo = nombre.toLowerCase(Locale.ROOT) + ": ";
+            for (String linea : datos.split("\r\n")) {
+                if (linea.isEmpty()) {
+                    break;
+                }
+                if (linea.toLowerCase(Locale.ROOT).startsWith(prefijo)) {
+                    return linea.substring(prefijo.length());
+                }
+            }
+            return null;
+        }
+
+        // El cliente siempre manda el cuerpo en base64
+        public String cuerpo() {
+            String texto = datos.substring(datos.indexOf("\r\n\r\n") + 4);
+            return new String(Base64.getMimeDecoder().decode(texto), StandardCharsets.UTF_8);
+        }
+    }
+
+    private final ServerSocket socket;
+    private final boolean pipelining;
+    private final Set<String> rechazados = ConcurrentHashMap.newKeySet();
+    private final List<MensajeRecibido> recibidos = new CopyOnWriteArrayList<>();
+    private final List<Socket> abiertos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final AtomicInteger rondas = new AtomicInteger();
+    private final AtomicInteger despedidas = new AtomicInteger();
+
+    public ServidorSmtpFake(boolean pipelining) {
+        this.pipelining = pipelining;
+        try {
+            this.socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Thread.ofVirtual().name("smtp-fake").start(this::aceptar);
+    }
+
+    public InetSocketAddress direccion() {
+        return new InetSocketAddress(socket.getInetAddress(), socket.getLocalPort());
+    }
+
+    public void rechazar(String destinatario) {
+        rechazados.add(destinatario);
+    }
+
+    public List<MensajeRecibido> recibidos() {
+        return List.copyOf(recibidos);
+    }
+
+    public int conexiones() {
+        return conexiones.get();
+    }
+
+    public int rondas() {
+        return rondas.get();
+    }
+
+    // Conexiones cerradas con QUIT
+    public int despedidas() {
+        return despedidas.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        for (Socket abierto : abiertos) {
+            abierto.close();
+        }
+    }
+
+    private void aceptar() {
+        while (!socket.isClosed()) {
+            try {
+                Socket cliente = socket.accept();
+                abiertos.add(cliente);
+                int numero = conexiones.incrementAndGet();
+                Thread.ofVirtual().start(() -> atender(cliente, numero));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket cliente, int numero) {
+        try (cliente) {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(cliente.getInputStream(),
+                    StandardCharsets.UTF_8));
+            OutputStream salida = cliente.getOutputStream();
+            StringBuilder pendiente = new StringBuilder("220 fake ESMTP\r\n");
+            String remitente = null;
+            List<String> destinatarios = new ArrayList<>();
+            StringBuilder datos = null;
+            while (true) {
+                if (!entrada.ready() && !pendiente.isEmpty()) {
+                    salida.write(pendiente.toString().getBytes(StandardCharsets.UTF_8));
+                    salida.flush();
+                    pendiente.setLength(0);
+                    rondas.incrementAndGet();
+                }
+                String linea = entrada.readLine();
+                if (linea == null) {
+                    return;
+                }
+                if (datos != null) {
+                    if (linea.equals(".")) {
+                        recibidos.add(new MensajeRecibido(numero, remitente, List.copyOf(destinatarios),
+                                datos.toString()));
+                        remitente = null;
+                        destinatarios.clear();
+                        datos = null;
+                        pendiente.append("250 OK\r\n");
+                    } else {
+                        datos.append(linea.startsWith(".") ? linea.substring(1) : linea).append("\r\n");
+                    }
+                    continue;
+                }
+                String comando = linea.toUpperCase(Locale.ROOT);
+                if (comando.startsWith("EHLO")) {
+                    pendiente.append(pipelining ? "250-fake\r\n250-PIPELINING\r\n250 8BITMIME\r\n" : "250-fake\r\n250 8BITMIME\r\n");
+                } else if (comando.startsWith("MAIL FROM:")) {
+                    remitente = direccion(linea);
+                    pendiente.append("250 OK\r\n");
+                } else if (comando.startsWith("RCPT TO:")) {
+                    String destinatario = direccion(linea);
+                    if (remitente == null) {
+                        pendiente.append("503 Falta MAIL\r\n");
+                    } else if (rechazados.contains(destinatario)) {
+                        pendiente.append("550 Buzón inexistente\r\n");
+                    } else {
+                        destinatarios.add(destinatario);
+                        pendiente.append("250 OK\r\n");
+                    }
+                } else if (comando.equals("DATA")) {
+                    if (destinatarios.isEmpty()) {
+                        pendiente.append("554 Sin destinatarios válidos\r\n");
+                    } else {
+                        datos = new StringBuilder();
+                        pendiente.append("354 Adelante\r\n");
+                    }
+                } else if (comando.equals("RSET")) {
+                    remitente = null;
+                    destinatarios.clear();
+                    pendiente.append("250 OK\r\n");
+                } else if (comando.equals("QUIT")) {
+                    despedidas.incrementAndGet();
+                    salida.write("221 Adiós\r\n".getBytes(StandardCharsets.UTF_8));
+                    salida.flush();
+                    return;
+                } else {
+                    pendiente.append("500 Comando desconocido\r\n");
+                }
+            }
+        } catch (IOException e) {
+            // El cliente o close() cortaron la conexión
+        }
+    }
+
+    private static String direccion(String linea) {
+        return linea.substring(linea.indexOf('<') + 1, linea.indexOf('>'));
+    }
+}
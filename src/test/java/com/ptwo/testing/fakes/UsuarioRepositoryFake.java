@@ -0,0 +1,99 @@
+package com.ptwo.testing.fakes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+
+// Repositorio en memoria que además registra las llamadas recibidas, como alternativa
+// barata a un mock de Mockito cuando el test solo necesita contar o inspeccionar llamadas
+public class UsuarioRepositoryFake implements UsuarioRepository {
+    private final UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+    private final ConcurrentHashMap<String, AtomicInteger> llamadas = new ConcurrentHashMap<>();
+    private final List<Usuario> guardados = new CopyOnWriteArrayList<>();
+    private final RegistroLlamadas orden;
+    private volatile RuntimeException errorAlGuardar;
+    private volatile Duration retraso = Duration.ZERO;
+
+    public UsuarioRepositoryFake() {
+        this(null);
+    }
+
+    public UsuarioRepositoryFake(RegistroLlamadas orden) {
+        this.orden = orden;
+    }
+
+    public UsuarioRepositoryFake con(Usuario... usuarios) {
+        for (Usuario usuario : usuarios) {
+            almacen.save(usuario);
+        }
+        return this;
+    }
+
+    public void fallarAlGuardar(RuntimeException error) {
+        this.errorAlGuardar = error;
+    }
+
+    // Latencia añadida a cada llamada, para simular un almacén degradado
+    public void retrasar(Duration retraso) {
+        this.retraso = retraso;
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        contar("findById");
+        return almacen.findById(id);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        contar("findAll");
+        return almacen.findAll();
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        contar("save");
+        if (errorAlGuardar != null) {
+            throw errorAlGuardar;
+        }
+        guardados.add(new Usuario(usuario));
+        return almacen.save(usuario);
+    }
+
+    @Override
+    public void delete(Long id) {
+        contar("delete");
+        almacen.delete(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        contar("existsById");
+        return almacen.existsById(id);
+    }
+
+    public int llamadas(String metodo) {
+        AtomicInteger contador = llamadas.get(metodo);
+        return contador == null ? 0 : contador.get();
+    }
+
+    // Copias de lo que se pasó a save(), en orden de llegada
+    public List<Usuario> guardados() {
+        return List.copyOf(guardados);
+    }
+
+    private void contar(String metodo) {
+        llamadas.computeIfAbsent(metodo, m -> new AtomicInteger()).incrementAndGet();
+        if (orden != null) {
+            orden.anotar("repositorio." + metodo);
+        }
+        Retrasos.dormir(retraso);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ptwo.testing.filtro;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class FiltroBloomEscalableTest {
+
+    @Test
+    void deberiaContenerTodoLoAgregado() {
+        FiltroBloomEscalable filtro = new FiltroBloomEscalable(1_000, 0.01);
+
+        for (long id = 1; id <= 1_000; id++) {
+            filtro.agregar(id);
+        }
+
+        for (long id = 1; id <= 1_000; id++) {
+            assertThat(filtro.puedeContener(id)).as("id %d", id).isTrue();
+        }
+        // Un id nuevo que ya da positivo no se cuenta: el recuento puede quedarse algo corto
+        assertThat(filtro.elementos()).isBetween(980L, 1_000L);
+    }
+
+    @Test
+    void laTasaDeFalsosPositivosDeberiaRespetarElObjetivoAlCrecer() {
+        FiltroBloomEscalable filtro = new FiltroBloomEscalable(1_000, 0.01);
+        for (long id = 1; id <= 20_000; id++) {
+            filtro.agregar(id);
+        }
+
+        int falsos = 0;
+        int pruebas = 100_000;
+        for (long id = 1_000_000; id < 1_000_000 + pruebas; id++) {
+            if (filtro.puedeContener(id)) {
+                falsos++;
+            }
+        }
+
+        assertThat(filtro.numeroEtapas()).isGreaterThan(1);
+        assertThat((double) falsos / pruebas).isLessThan(0.015);
+        assertThat(filtro.tasaFalsosPositivosEstimada()).isLessThan(0.015);
+    }
+
+    @Test
+    void volverAAgregarUnaClaveNoDeberiaLlenarElFiltro() {
+        FiltroBloomEscalable filtro = new FiltroBloomEscalable(10, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            filtro.agregar(7L);
+        }
+
+        assertThat(filtro.elementos()).isEqualTo(1);
+        assertThat(filtro.numeroEtapas()).isEqualTo(1);
+    }
+
+    @Test
+    void deberiaAdmitirAltasConcurrentes() throws Exception {
+        FiltroBloomEscalable filtro = new FiltroBloomEscalable(100, 0.01);
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                long base = h * 10_000L;
+                tareas.add(hilos.submit(() -> {
+                    for (long id = base; id < base + 5_000; id++) {
+                        filtro.agregar(id);
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        for (int h = 0; h < 4; h++) {
+            for (long id = h * 10_000L; id < h * 10_000L + 5_000; id++) {
+                assertThat(filtro.puedeContener(id)).as("id %d", id).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void deberiaRechazarUnaTasaFueraDeRango() {
+        assertThatThrownBy(() -> new FiltroBloomEscalable(100, 1.5))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
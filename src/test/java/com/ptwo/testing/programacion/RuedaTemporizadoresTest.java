@@ -0,0 +1,98 @@
+package com.ptwo.testing.programacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RuedaTemporizadoresTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    // Con ticks de 1 ms, 300 s obligan a bajar temporizadores desde el tercer nivel
+    @Test
+    void cadaTemporizadorDeberiaVencerEnSuTickNiAntesNiDespues() {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(Duration.ofMillis(1), INICIO);
+        Random aleatorio = new Random(42);
+        long[] vencimientos = new long[10_000];
+        for (int id = 0; id < vencimientos.length; id++) {
+            vencimientos[id] = INICIO + 1 + aleatorio.nextInt(300_000);
+            rueda.programar(id, vencimientos[id]);
+        }
+        assertThat(rueda.pendientes()).isEqualTo(10_000);
+
+        Set<Long> vencidos = new HashSet<>();
+        for (long ahora = INICIO; ahora <= INICIO + 301_000; ahora += 997) {
+            long hasta = ahora;
+            rueda.avanzar(ahora, 1_000, lote -> {
+                for (long id : lote) {
+                    assertThat(vencimientos[(int) id]).as("id %d", id).isLessThanOrEqualTo(hasta);
+                    assertThat(vencidos.add(id)).as("id %d repetido", id).isTrue();
+                }
+            });
+            for (int id = 0; id < vencimientos.length; id++) {
+                assertThat(vencidos.contains((long) id)).isEqualTo(vencimientos[id] <= ahora);
+            }
+        }
+        assertThat(vencidos).hasSize(10_000);
+        assertThat(rueda.pendientes()).isZero();
+    }
+
+    @Test
+    void deberiaEntregarEnLotesDelTamanoPedido() {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(Duration.ofMillis(100), INICIO);
+        for (long id = 1; id <= 7; id++) {
+            rueda.programar(id, INICIO + 500);
+        }
+        List<long[]> lotes = new ArrayList<>();
+
+        int entregados = rueda.avanzar(INICIO + 500, 3, lotes::add);
+
+        assertThat(entregados).isEqualTo(7);
+        assertThat(lotes).extracting(lote -> lote.length).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void unVencimientoPasadoDeberiaEntregarseEnElSiguienteAvance() {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(Duration.ofMillis(100), INICIO);
+        rueda.programar(1, INICIO - 5_000);
+        rueda.programar(2, INICIO + 50);
+        List<Long> vencidos = new ArrayList<>();
+
+        rueda.avanzar(INICIO, 10, lote -> {
+            for (long id : lote) {
+                vencidos.add(id);
+            }
+        });
+
+        assertThat(vencidos).containsExactly(1L);
+        assertThat(rueda.pendientes()).isEqualTo(1);
+    }
+
+    @Test
+    void vaciarDeberiaOlvidarLoProgramadoSinMoverElTick() {
+        RuedaTemporizadores rueda = new RuedaTemporizadores(Duration.ofMillis(100), INICIO);
+        rueda.programar(1, INICIO - 5_000);
+        rueda.programar(2, INICIO + 500);
+        rueda.programar(3, INICIO + 500_000_000_000L);
+
+        rueda.vaciar();
+        rueda.programar(4, INICIO + 500);
+        List<Long> vencidos = new ArrayList<>();
+
+        rueda.avanzar(INICIO + 500, 10, lote -> {
+            for (long id : lote) {
+                vencidos.add(id);
+            }
+        });
+
+        assertThat(vencidos).containsExactly(4L);
+        assertThat(rueda.pendientes()).isZero();
+    }
+}
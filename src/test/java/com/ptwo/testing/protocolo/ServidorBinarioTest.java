@@ -0,0 +1,184 @@
+package com.ptwo.testing.protocolo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.service.UsuarioService;
+
+class ServidorBinarioTest {
+
+    private final UsuarioRepositoryFake usuarioRepository = new UsuarioRepositoryFake();
+    private final NotificacionServiceFake notificacionService = new NotificacionServiceFake();
+    private ServidorBinario servidor;
+    private ClienteBinario cliente;
+
+    @BeforeEach
+    void arrancar() {
+        UsuarioService usuarioService = new UsuarioService(usuarioRepository, notificacionService,
+                new AuditoriaServiceFake());
+        servidor = new ServidorBinario(usuarioService, new InetSocketAddress("127.0.0.1", 0));
+        cliente = new ClienteBinario(servidor.direccion());
+    }
+
+    @AfterEach
+    void parar() throws Exception {
+        cliente.close();
+        servidor.close();
+    }
+
+    @Test
+    void deberiaObtenerVariosUsuariosEnUnaPeticion() {
+        usuarioRepository.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"), new Usuario(3L, null, "eva@ejemplo.com"));
+
+        List<Optional<Usuario>> usuarios = cliente.obtener(1L, 2L, 3L).join();
+
+        assertThat(usuarios).hasSize(3);
+        assertThat(usuarios.get(0)).hasValueSatisfying(u -> {
+            assertThat(u.getNombre()).isEqualTo("Ana Gil");
+            assertThat(u.isActivo()).isTrue();
+        });
+        assertThat(usuarios.get(1)).isEmpty();
+        assertThat(usuarios.get(2)).hasValueSatisfying(u -> assertThat(u.getNombre()).isNull());
+    }
+
+    @Test
+    void unAltaInvalidaNoDeberiaTumbarElLote() {
+        List<ResultadoAlta> resultados = cliente.crear(List.of(
+                new Usuario(null, "Ana Gil", "ana@ejemplo.com"),
+                new Usuario(null, "Sin Arroba", "sin-arroba"),
+                new Usuario(10L, "Ñandú", "ñandú@ejemplo.com"))).join();
+
+        assertThat(resultados).extracting(ResultadoAlta::correcto).containsExactly(true, false, true);
+        assertThat(resultados.get(1).error()).isEqualTo("Email inválido");
+        assertThat(resultados.get(2).id()).isEqualTo(10L);
+        assertThat(notificacionService.registros()).hasSize(2);
+        assertThat(cliente.obtener(10L).join().get(0)).hasValueSatisfying(u -> {
+            assertThat(u.getNombre()).isEqualTo("Ñandú");
+            assertThat(u.isActivo()).isTrue();
+        });
+    }
+
+    @Test
+    void deberiaDesactivar() {
+        usuarioRepository.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        assertThat(cliente.desactivar(1L, 99L).join()).containsExactly(null, null);
+
+        assertThat(usuarioRepository.findById(1L)).hasValueSatisfying(u -> assertThat(u.isActivo()).isFalse());
+    }
+
+    @Test
+    void unFalloDelAlmacenDeberiaMarcarCadaElementoSinPerderLaRespuesta() {
+        usuarioRepository.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioRepository.fallarAlGuardar(new IllegalStateException("Almacén caído"));
+
+        List<ResultadoAlta> altas = cliente.crear(List.of(new Usuario(null, "Eva Sanz", "eva@ejemplo.com"))).join();
+        List<String> errores = cliente.desactivar(1L).join();
+
+        assertThat(altas).extracting(ResultadoAlta::error).containsExactly("Almacén caído");
+        assertThat(errores).containsExactly("Almacén caído");
+    }
+
+    @Test
+    void unAltaCortadaDeberiaRechazarElMarcoSinCrearNinguna() throws Exception {
+        try (SocketChannel canal = SocketChannel.open(servidor.direccion())) {
+            // Dos altas anunciadas; la segunda se queda sin email
+            ByteBuffer cuerpo = ByteBuffer.allocate(64).putInt(2)
+                    .put((byte) 0).putLong(0).putInt(3).put("Ana".getBytes()).putInt(-1)
+                    .put((byte) 0).putLong(0).putInt(3).put("Eva".getBytes()).flip();
+            ByteBuffer peticion = ByteBuffer.allocate(4 + 5 + cuerpo.remaining())
+                    .putInt(5 + cuerpo.remaining()).put(ProtocoloBinario.CREAR).putInt(7).put(cuerpo).flip();
+            canal.write(peticion);
+
+            assertThat(leer(canal).get()).isEqualTo(ProtocoloBinario.ERROR);
+        }
+        assertThat(usuarioRepository.llamadas("save")).isZero();
+    }
+
+    @Test
+    void deberiaResponderEnOrdenAPeticionesEncadenadas() {
+        for (long id = 1; id <= 100; id++) {
+            usuarioRepository.con(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        List<CompletableFuture<List<Optional<Usuario>>>> respuestas = new ArrayList<>();
+        for (long i = 0; i < 2_000; i++) {
+            respuestas.add(cliente.obtener(i % 100 + 1, i % 100 + 101));
+        }
+
+        for (int i = 0; i < respuestas.size(); i++) {
+            List<Optional<Usuario>> usuarios = respuestas.get(i).join();
+            assertThat(usuarios.get(0).get().getId()).isEqualTo(i % 100 + 1);
+            assertThat(usuarios.get(1)).isEmpty();
+        }
+        assertThat(servidor.marcosAtendidos()).isEqualTo(2_000);
+    }
+
+    @Test
+    void deberiaResponderErrorAUnaOperacionDesconocidaYSeguirAtendiendo() throws Exception {
+        try (SocketChannel canal = SocketChannel.open(servidor.direccion())) {
+            ByteBuffer peticion = ByteBuffer.allocate(9).putInt(5).put((byte) 9).putInt(77).flip();
+            canal.write(peticion);
+
+            ByteBuffer respuesta = leer(canal);
+            assertThat(respuesta.get()).isEqualTo(ProtocoloBinario.ERROR);
+            assertThat(respuesta.getInt()).isEqualTo(77);
+            assertThat(ProtocoloBinario.leerTexto(respuesta)).contains("Operación desconocida");
+
+            ByteBuffer obtener = ByteBuffer.allocate(21).putInt(17).put(ProtocoloBinario.OBTENER).putInt(78)
+                    .putInt(1).putLong(5L).flip();
+            canal.write(obtener);
+            ByteBuffer siguiente = leer(canal);
+            assertThat(siguiente.get()).isEqualTo(ProtocoloBinario.OBTENER);
+            assertThat(siguiente.getInt()).isEqualTo(78);
+        }
+    }
+
+    @Test
+    void unaCuentaQueNoCabeEnElMarcoDeberiaFallarSoloEsaPeticion() throws Exception {
+        try (SocketChannel canal = SocketChannel.open(servidor.direccion())) {
+            canal.write(ByteBuffer.allocate(13).putInt(9).put(ProtocoloBinario.OBTENER).putInt(1)
+                    .putInt(Integer.MAX_VALUE).flip());
+
+            assertThat(leer(canal).get()).isEqualTo(ProtocoloBinario.ERROR);
+        }
+        assertThat(cliente.obtener(1L).join()).containsExactly(Optional.empty());
+    }
+
+    @Test
+    void losFuturosPendientesDeberianFallarSiSeCaeElServidor() throws Exception {
+        servidor.close();
+
+        assertThatThrownBy(() -> cliente.obtener(1L).join())
+            .isInstanceOf(CompletionException.class);
+    }
+
+    private static ByteBuffer leer(SocketChannel canal) throws Exception {
+        ByteBuffer longitud = ByteBuffer.allocate(Integer.BYTES);
+        while (longitud.hasRemaining()) {
+            canal.read(longitud);
+        }
+        ByteBuffer marco = ByteBuffer.allocate(longitud.getInt(0));
+        while (marco.hasRemaining()) {
+            canal.read(marco);
+        }
+        return marco.flip();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.EstadisticasUsuarios;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.service.UsuarioService;
+
+class ContadoresUsuariosTest {
+
+    private UsuarioRepositoryEnMemoria almacen;
+    private ContadoresUsuarios contadores;
+    private UsuarioRepository usuarioRepository;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new UsuarioRepositoryEnMemoria();
+        contadores = new ContadoresUsuarios();
+        usuarioRepository = new UsuarioRepositoryObservado(almacen, contadores);
+        usuarioService = new UsuarioService(usuarioRepository,
+                new NotificacionServiceFake(), new AuditoriaServiceFake());
+        usuarioService.setContadores(contadores);
+    }
+
+    @Test
+    void deberiaMantenerTotalesActivosYDominios() {
+        usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioService.crearUsuario(new Usuario(2L, "Mario Ros", "mario@Ejemplo.com"));
+        usuarioService.crearUsuario(new Usuario(3L, "Eva Sanz", "eva@otro.org"));
+
+        usuarioService.desactivarUsuario(2L);
+        usuarioRepository.save(new Usuario(3L, "Eva Sanz", "eva@ejemplo.com"));
+        usuarioRepository.delete(1L);
+
+        EstadisticasUsuarios estadisticas = usuarioService.estadisticas();
+        assertEquals(2, estadisticas.total());
+        assertEquals(1, estadisticas.activos());
+        assertEquals(1, estadisticas.inactivos());
+        assertEquals(Map.of("ejemplo.com", 2L), estadisticas.porDominio());
+    }
+
+    @Test
+    void deberiaPartirDeLosDatosExistentes() {
+        almacen.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        almacen.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        contadores.inicializar(almacen.streamAll());
+
+        usuarioService.desactivarUsuario(1L);
+
+        EstadisticasUsuarios estadisticas = usuarioService.estadisticas();
+        assertEquals(2, estadisticas.total());
+        assertEquals(1, estadisticas.activos());
+    }
+
+    @Test
+    void deberiaCuadrarConEscriturasConcurrentes() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            int hilo = i;
+            hilos.submit(() -> {
+                for (long n = 0; n < 500; n++) {
+                    long id = n % 50;
+                    usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@d" + hilo + ".com"));
+                    if (n % 7 == 0) {
+                        usuarioService.desactivarUsuario(id);
+                    }
+                    if (n % 11 == 0) {
+                        usuarioRepository.delete(id);
+                    }
+                }
+            });
+        }
+        hilos.shutdown();
+        hilos.awaitTermination(30, TimeUnit.SECONDS);
+
+        ContadoresUsuarios recalculados = new ContadoresUsuarios();
+        recalculados.inicializar(almacen.streamAll());
+        assertEquals(recalculados.instantanea(), usuarioService.estadisticas());
+    }
+
+    @Test
+    void deberiaRecorrerElRepositorioSinContadores() {
+        UsuarioRepositoryFake repositorioFake = new UsuarioRepositoryFake().con(
+                new Usuario(1L, "Ana Gil", "ana@ejemplo.com"),
+                new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        UsuarioService servicio = new UsuarioService(repositorioFake,
+                new NotificacionServiceFake(), new AuditoriaServiceFake());
+
+        EstadisticasUsuarios estadisticas = servicio.estadisticas();
+
+        assertEquals(2, estadisticas.total());
+        assertEquals(Map.of("ejemplo.com", 2L), estadisticas.porDominio());
+        assertEquals(1, repositorioFake.llamadas("findAll"));
+        assertEquals(0, repositorioFake.llamadas("findById"));
+    }
+
+    @Test
+    void unLoteDeberiaActualizarLosContadores() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        Usuario desactivada = new Usuario(1L, "Ana Gil", "ana@ejemplo.com");
+        desactivada.setActivo(false);
+
+        usuarioRepository.saveAll(List.of(
+                desactivada,
+                new Usuario(2L, "Mario Ros", "mario@otro.org"),
+                new Usuario(2L, "Mario Ros", "mario@ejemplo.com")));
+
+        EstadisticasUsuarios estadisticas = usuarioService.estadisticas();
+        assertEquals(2, estadisticas.total());
+        assertEquals(1, estadisticas.activos());
+        assertEquals(Map.of("ejemplo.com", 2L), estadisticas.porDominio());
+    }
+}
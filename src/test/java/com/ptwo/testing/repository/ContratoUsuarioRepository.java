@@ -0,0 +1,171 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.model.Usuario;
+
+// Comportamiento común que debe cumplir cualquier implementación de UsuarioRepository
+abstract class ContratoUsuarioRepository {
+
+    protected UsuarioRepository usuarioRepository;
+
+    protected abstract UsuarioRepository crearRepositorio() throws Exception;
+
+    @BeforeEach
+    void prepararRepositorio() throws Exception {
+        usuarioRepository = crearRepositorio();
+    }
+
+    @AfterEach
+    void cerrarRepositorio() throws Exception {
+        if (usuarioRepository instanceof AutoCloseable cerrable) {
+            cerrable.close();
+        }
+    }
+
+    @Test
+    void deberiaGuardarYRecuperarUnUsuario() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        Optional<Usuario> resultado = usuarioRepository.findById(1L);
+
+        assertTrue(resultado.isPresent());
+        assertEquals("Ana Gil", resultado.get().getNombre());
+        assertEquals("ana@ejemplo.com", resultado.get().getEmail());
+        assertTrue(resultado.get().isActivo());
+        assertTrue(usuarioRepository.existsById(1L));
+    }
+
+    @Test
+    void deberiaAsignarIdAlGuardarSinId() {
+        Usuario guardado = usuarioRepository.save(new Usuario(null, "Luis Mora", "luis@ejemplo.com"));
+        Usuario otro = usuarioRepository.save(new Usuario(null, "Eva Sanz", "eva@ejemplo.com"));
+
+        assertNotNull(guardado.getId());
+        assertNotNull(otro.getId());
+        assertFalse(guardado.getId().equals(otro.getId()));
+        assertEquals("Eva Sanz", usuarioRepository.findById(otro.getId()).get().getNombre());
+    }
+
+    @Test
+    void deberiaActualizarUnUsuarioExistente() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        Usuario usuario = usuarioRepository.findById(1L).get();
+        usuario.setActivo(false);
+        usuario.setNombre("Ana Gil Ros");
+
+        usuarioRepository.save(usuario);
+
+        Usuario resultado = usuarioRepository.findById(1L).get();
+        assertFalse(resultado.isActivo());
+        assertEquals("Ana Gil Ros", resultado.getNombre());
+        assertEquals(1, usuarioRepository.findAll().size());
+    }
+
+    @Test
+    void noDeberiaVerCambiosDelLlamanteSinGuardar() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        usuarioRepository.findById(1L).get().setNombre("Modificada");
+
+        assertEquals("Ana Gil", usuarioRepository.findById(1L).get().getNombre());
+    }
+
+    @Test
+    void deberiaEliminarUnUsuario() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioRepository.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+
+        usuarioRepository.delete(1L);
+        usuarioRepository.delete(99L);
+
+        assertFalse(usuarioRepository.findById(1L).isPresent());
+        assertFalse(usuarioRepository.existsById(1L));
+        assertEquals(List.of("Mario Ros"), usuarioRepository.findAll().stream().map(Usuario::getNombre).toList());
+    }
+
+    @Test
+    void deberiaConservarTextosNulosYNoAscii() {
+        usuarioRepository.save(new Usuario(7L, null, "ñandú@ejemplo.com"));
+
+        Usuario resultado = usuarioRepository.findById(7L).get();
+
+        assertEquals(null, resultado.getNombre());
+        assertEquals("ñandú@ejemplo.com", resultado.getEmail());
+    }
+
+    @Test
+    void deberiaDevolverTodosLosUsuarios() {
+        for (long id = 1; id <= 100; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        Set<Long> ids = usuarioRepository.findAll().stream().map(Usuario::getId).collect(Collectors.toSet());
+
+        assertEquals(100, ids.size());
+    }
+
+    @Test
+    void deberiaRecorrerTodosLosUsuarios() {
+        for (long id = 1; id <= 50; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        Set<Long> ids;
+        try (Stream<Usuario> usuarios = usuarioRepository.streamAll()) {
+            ids = usuarios.map(Usuario::getId).collect(Collectors.toSet());
+        }
+
+        assertEquals(50, ids.size());
+    }
+
+    @Test
+    void deberiaGuardarUnLote() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        Usuario desactivada = new Usuario(1L, "Ana Gil", "ana@ejemplo.com");
+        desactivada.setActivo(false);
+
+        List<Usuario> guardados = usuarioRepository.saveAll(List.of(
+                desactivada,
+                new Usuario(2L, "Mario Ros", "mario@ejemplo.com"),
+                new Usuario(null, "Eva Sanz", "eva@ejemplo.com")));
+
+        assertEquals(3, guardados.size());
+        guardados.forEach(guardado -> assertNotNull(guardado.getId()));
+        assertFalse(usuarioRepository.findById(1L).get().isActivo());
+        assertTrue(usuarioRepository.existsById(2L));
+        assertEquals(3, usuarioRepository.findAll().size());
+    }
+
+    @Test
+    void deberiaLeerVariosUsuariosEnElOrdenDeEntrada() {
+        for (long id = 1; id <= 20; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        usuarioRepository.delete(7L);
+
+        List<Optional<Usuario>> resultado = usuarioRepository.findAllById(new long[] {15, 99, 3, 7, 15, 1});
+
+        assertEquals(6, resultado.size());
+        assertEquals("Usuario15", resultado.get(0).get().getNombre());
+        assertTrue(resultado.get(1).isEmpty());
+        assertEquals("Usuario3", resultado.get(2).get().getNombre());
+        assertTrue(resultado.get(3).isEmpty());
+        assertEquals("Usuario15", resultado.get(4).get().getNombre());
+        assertEquals(1L, resultado.get(5).get().getId());
+        assertTrue(usuarioRepository.findAllById(new long[0]).isEmpty());
+    }
+}
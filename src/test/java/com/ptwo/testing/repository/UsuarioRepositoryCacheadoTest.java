@@ -0,0 +1,266 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.cache.CacheCompartida;
+import com.ptwo.testing.cache.CacheCompartidaEnMemoria;
+import com.ptwo.testing.cache.Invalidacion;
+import com.ptwo.testing.cache.MetricasCache;
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.cache.TransporteInvalidaciones;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryCacheadoTest extends ContratoUsuarioRepository {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    // Almacén, L2 y transporte compartidos por dos instancias de la aplicación
+    private final UsuarioRepositoryFake almacen = new UsuarioRepositoryFake();
+    private final CacheCompartida l2 = new CacheCompartidaEnMemoria(TTL);
+    private final TransporteInvalidaciones transporte = new TransporteBucleLocal();
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        return new UsuarioRepositoryCacheado(new UsuarioRepositoryEnMemoria(), new CacheCompartidaEnMemoria(TTL),
+                new TransporteBucleLocal(), "nodo", 100, TTL);
+    }
+
+    @Test
+    void lasLecturasRepetidasDeberianServirseDesdeL1() {
+        UsuarioRepositoryCacheado nodo = nodo("a", transporte);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Ana Gil", nodo.findById(1L).get().getNombre());
+        }
+
+        assertEquals(1, almacen.llamadas("findById"));
+        MetricasCache metricas = nodo.metricas();
+        assertEquals(9, metricas.aciertosL1());
+        assertEquals(1, metricas.fallos());
+        assertEquals(0.9, metricas.tasaAciertos(), 1e-9);
+    }
+
+    @Test
+    void otraInstanciaDeberiaAprovecharL2() {
+        UsuarioRepositoryCacheado a = nodo("a", transporte);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+
+        a.findById(1L);
+        b.findById(1L);
+
+        assertEquals(1, almacen.llamadas("findById"));
+        assertEquals(1, b.metricas().aciertosL2());
+    }
+
+    @Test
+    void unaDesactivacionEnOtraInstanciaDeberiaInvalidarLaCopiaLocal() {
+        UsuarioRepositoryCacheado a = nodo("a", transporte);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        assertTrue(a.findById(1L).get().isActivo());
+
+        Usuario ana = b.findById(1L).get();
+        ana.setActivo(false);
+        b.save(ana);
+
+        assertFalse(a.findById(1L).get().isActivo());
+        MetricasCache metricas = a.metricas();
+        assertEquals(1, metricas.invalidacionesRecibidas());
+        assertTrue(metricas.ventanaObsolescenciaMaxima().compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(0, b.metricas().invalidacionesRecibidas());
+    }
+
+    @Test
+    void sinDifusionLaOtraInstanciaSeguiriaSirviendoLaCopiaObsoleta() {
+        TransporteInvalidaciones mudo = new TransporteInvalidaciones() {
+            @Override
+            public void publicar(Invalidacion invalidacion) {
+            }
+
+            @Override
+            public void suscribir(Consumer<Invalidacion> receptor) {
+            }
+        };
+        UsuarioRepositoryCacheado a = nodo("a", mudo);
+        UsuarioRepositoryCacheado b = nodo("b", mudo);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        a.findById(1L);
+
+        Usuario ana = b.findById(1L).get();
+        ana.setActivo(false);
+        b.save(ana);
+
+        // Es el fallo que resuelve la difusión: L2 se invalidó, pero la L1 de "a" no
+        assertTrue(a.findById(1L).get().isActivo());
+    }
+
+    @Test
+    void unBorradoDeberiaInvalidarAmbosNiveles() {
+        UsuarioRepositoryCacheado a = nodo("a", transporte);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        a.findById(1L);
+
+        b.delete(1L);
+
+        assertTrue(a.findById(1L).isEmpty());
+        assertTrue(l2.obtener(1L) == null);
+    }
+
+    @Test
+    void l1DeberiaRespetarSuTamanoMaximo() {
+        UsuarioRepositoryCacheado nodo = new UsuarioRepositoryCacheado(almacen, l2, transporte, "a", 3, TTL);
+        for (long id = 1; id <= 5; id++) {
+            almacen.con(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+            nodo.findById(id);
+        }
+
+        assertEquals(3, nodo.metricas().tamanoL1());
+    }
+
+    @Test
+    void lasEntradasDeberianCaducar() throws InterruptedException {
+        Duration ttl = Duration.ofMillis(30);
+        UsuarioRepositoryCacheado nodo = new UsuarioRepositoryCacheado(almacen, new CacheCompartidaEnMemoria(ttl),
+                transporte, "a", 100, ttl);
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        nodo.findById(1L);
+
+        Thread.sleep(60);
+        nodo.findById(1L);
+
+        assertEquals(2, almacen.llamadas("findById"));
+    }
+
+    @Test
+    void unaLecturaPorLotesDeberiaIrAlAlmacenSoloConLosFallos() {
+        UsuarioRepositoryCacheado a = nodo("a", transporte);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        for (long id = 1; id <= 4; id++) {
+            almacen.con(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        a.findById(1L);
+        a.findById(2L);
+        b.findById(1L);
+        int antes = almacen.llamadas("findById");
+
+        List<Optional<Usuario>> resultado = b.findAllById(new long[] {1, 2, 3, 9});
+
+        assertEquals("Usuario1", resultado.get(0).get().getNombre());
+        assertEquals("Usuario2", resultado.get(1).get().getNombre());
+        assertEquals("Usuario3", resultado.get(2).get().getNombre());
+        assertTrue(resultado.get(3).isEmpty());
+        assertEquals(2, almacen.llamadas("findById") - antes);
+        MetricasCache metricas = b.metricas();
+        assertEquals(1, metricas.aciertosL1());
+        assertEquals(2, metricas.aciertosL2());
+        assertEquals(2, metricas.fallos());
+    }
+
+    @Test
+    void unaLecturaQueSeCruzaConUnaEscrituraNoDeberiaRellenarLaCache() throws InterruptedException {
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        AlmacenPausado pausado = new AlmacenPausado(almacen, 1L);
+        UsuarioRepositoryCacheado a = new UsuarioRepositoryCacheado(pausado, l2, transporte, "a", 100, TTL);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        Thread lector = Thread.ofVirtual().start(() -> a.findById(1L));
+        assertTrue(pausado.leido.await(5, TimeUnit.SECONDS));
+
+        // "a" ya tiene la copia activa cuando "b" desactiva a Ana
+        Usuario ana = almacen.findById(1L).get();
+        ana.setActivo(false);
+        b.save(ana);
+        pausado.seguir.countDown();
+        lector.join();
+
+        assertTrue(l2.obtener(1L) == null);
+        assertFalse(a.findById(1L).get().isActivo());
+    }
+
+    @Test
+    void escribirOtroIdNoDeberiaImpedirRellenarLaCache() throws InterruptedException {
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"), new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        AlmacenPausado pausado = new AlmacenPausado(almacen, 1L);
+        UsuarioRepositoryCacheado a = new UsuarioRepositoryCacheado(pausado, l2, transporte, "a", 100, TTL);
+        UsuarioRepositoryCacheado b = nodo("b", transporte);
+        Thread lector = Thread.ofVirtual().start(() -> a.findById(1L));
+        assertTrue(pausado.leido.await(5, TimeUnit.SECONDS));
+
+        Usuario mario = almacen.findById(2L).get();
+        mario.setActivo(false);
+        b.save(mario);
+        pausado.seguir.countDown();
+        lector.join();
+
+        assertEquals("Ana Gil", l2.obtener(1L).getNombre());
+        int antes = almacen.llamadas("findById");
+        a.findById(1L);
+        assertEquals(antes, almacen.llamadas("findById"));
+        assertEquals(1, a.metricas().aciertosL1());
+    }
+
+    private UsuarioRepositoryCacheado nodo(String nombre, TransporteInvalidaciones transporte) {
+        return new UsuarioRepositoryCacheado(almacen, l2, transporte, nombre, 100, TTL);
+    }
+
+    // Detiene la lectura de un id justo después de leerlo del almacén
+    private static final class AlmacenPausado implements UsuarioRepository {
+        final CountDownLatch leido = new CountDownLatch(1);
+        final CountDownLatch seguir = new CountDownLatch(1);
+        private final UsuarioRepository almacen;
+        private final long idPausado;
+
+        AlmacenPausado(UsuarioRepository almacen, long idPausado) {
+            this.almacen = almacen;
+            this.idPausado = idPausado;
+        }
+
+        @Override
+        public Optional<Usuario> findById(Long id) {
+            Optional<Usuario> usuario = almacen.findById(id);
+            if (id == idPausado && leido.getCount() > 0) {
+                leido.countDown();
+                try {
+                    seguir.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return usuario;
+        }
+
+        @Override
+        public List<Usuario> findAll() {
+            return almacen.findAll();
+        }
+
+        @Override
+        public Usuario save(Usuario usuario) {
+            return almacen.save(usuario);
+        }
+
+        @Override
+        public void delete(Long id) {
+            almacen.delete(id);
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return almacen.existsById(id);
+        }
+    }
+}
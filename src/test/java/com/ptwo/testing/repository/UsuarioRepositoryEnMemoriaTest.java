@@ -0,0 +1,121 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryEnMemoriaTest extends ContratoUsuarioRepository {
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        return new UsuarioRepositoryEnMemoria();
+    }
+
+    @Test
+    void unaInstantaneaNoDeberiaVerLasEscriturasPosteriores() {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        almacen.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        almacen.save(new Usuario(2L, "Luis Mora", "luis@ejemplo.com"));
+
+        try (InstantaneaUsuarios instantanea = almacen.instantanea()) {
+            Usuario desactivada = new Usuario(1L, "Ana Gil", "ana@ejemplo.com");
+            desactivada.setActivo(false);
+            almacen.save(desactivada);
+            almacen.delete(2L);
+            almacen.save(new Usuario(3L, "Eva Sanz", "eva@ejemplo.com"));
+
+            assertTrue(instantanea.findById(1L).get().isActivo());
+            assertEquals("Luis Mora", instantanea.findById(2L).get().getNombre());
+            assertTrue(instantanea.findById(3L).isEmpty());
+            assertEquals(2, instantanea.findAll().size());
+            assertFalse(almacen.findById(1L).get().isActivo());
+            assertFalse(almacen.existsById(2L));
+            assertEquals(2, almacen.findAll().size());
+        }
+    }
+
+    @Test
+    void unaInstantaneaCerradaNoDeberiaLeerse() {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        InstantaneaUsuarios instantanea = almacen.instantanea();
+        instantanea.close();
+
+        assertThrows(IllegalStateException.class, () -> instantanea.findById(1L));
+    }
+
+    // Un escritor pasa el único usuario activo de un id a otro con saveAll; cualquier
+    // lectura completa tiene que ver exactamente uno activo
+    @Test
+    void findAllNoDeberiaDevolverUnaVistaAMedias() throws InterruptedException {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        for (long id = 1; id <= 50; id++) {
+            Usuario usuario = new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com");
+            usuario.setActivo(id == 1);
+            almacen.save(usuario);
+        }
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread escritor = Thread.ofPlatform().start(() -> {
+            long activo = 1;
+            while (!parar.get()) {
+                long siguiente = activo % 50 + 1;
+                Usuario saliente = new Usuario(activo, "Usuario" + activo, "u" + activo + "@ejemplo.com");
+                saliente.setActivo(false);
+                Usuario entrante = new Usuario(siguiente, "Usuario" + siguiente, "u" + siguiente + "@ejemplo.com");
+                almacen.saveAll(List.of(entrante, saliente));
+                activo = siguiente;
+            }
+        });
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                List<Usuario> todos = almacen.findAll();
+                assertEquals(50, todos.size());
+                assertEquals(1, todos.stream().filter(Usuario::isActivo).count());
+            }
+        } finally {
+            parar.set(true);
+            escritor.join();
+        }
+    }
+
+    @Test
+    void alCerrarLaUltimaInstantaneaDeberianLiberarseLasVersionesAntiguas() throws InterruptedException {
+        UsuarioRepositoryEnMemoria almacen = new UsuarioRepositoryEnMemoria();
+        for (long id = 1; id <= 10; id++) {
+            almacen.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        InstantaneaUsuarios antigua = almacen.instantanea();
+        for (long id = 1; id <= 10; id++) {
+            almacen.save(new Usuario(id, "Nuevo" + id, "n" + id + "@ejemplo.com"));
+        }
+        InstantaneaUsuarios reciente = almacen.instantanea();
+        almacen.delete(1L);
+        // Una versión anterior por id y, para el 1, además la nueva y el borrado
+        assertEquals(12, almacen.versionesRetenidas());
+
+        antigua.close();
+        esperarVersionesRetenidas(almacen, 2);
+        assertTrue(reciente.findById(1L).isPresent());
+
+        reciente.close();
+        esperarVersionesRetenidas(almacen, 0);
+        assertEquals(9, almacen.findAll().size());
+    }
+
+    private static void esperarVersionesRetenidas(UsuarioRepositoryEnMemoria almacen, long esperadas)
+            throws InterruptedException {
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (almacen.versionesRetenidas() != esperadas && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(esperadas, almacen.versionesRetenidas());
+    }
+}
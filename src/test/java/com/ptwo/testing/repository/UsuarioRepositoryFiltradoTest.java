@@ -0,0 +1,141 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.cache.Invalidacion;
+import com.ptwo.testing.cache.TransporteBucleLocal;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.filtro.MetricasFiltro;
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryFiltradoTest extends ContratoUsuarioRepository {
+
+    private final UsuarioRepositoryFake almacen = new UsuarioRepositoryFake();
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        return new UsuarioRepositoryFiltrado(new UsuarioRepositoryEnMemoria(), 16, 0.01);
+    }
+
+    @Test
+    void losIdsInexistentesNoDeberianLlegarAlAlmacen() {
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 1_000, 0.01);
+
+        for (long id = 1_000; id < 2_000; id++) {
+            assertTrue(filtrado.findById(id).isEmpty());
+            assertFalse(filtrado.existsById(id));
+        }
+        assertTrue(filtrado.findById(1L).isPresent());
+
+        MetricasFiltro metricas = filtrado.metricas();
+        int llegadas = almacen.llamadas("findById") + almacen.llamadas("existsById");
+        assertEquals(llegadas - 1, metricas.falsosPositivos());
+        assertEquals(2_001, metricas.consultas());
+        assertTrue(metricas.descartadas() >= 1_960, "descartadas: " + metricas.descartadas());
+        assertTrue(metricas.tasaFalsosPositivosObservada() < 0.02);
+    }
+
+    @Test
+    void unaLecturaPorLotesDeberiaDescartarLosIdsInexistentes() {
+        almacen.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        almacen.con(new Usuario(2L, "Luis Mora", "luis@ejemplo.com"));
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 1_000, 0.001);
+        long[] ids = new long[502];
+        ids[0] = 2;
+        ids[501] = 1;
+        for (int i = 1; i <= 500; i++) {
+            ids[i] = 10_000 + i;
+        }
+
+        List<Optional<Usuario>> resultado = filtrado.findAllById(ids);
+
+        assertEquals("Luis Mora", resultado.get(0).get().getNombre());
+        assertEquals("Ana Gil", resultado.get(501).get().getNombre());
+        assertTrue(resultado.subList(1, 501).stream().allMatch(Optional::isEmpty));
+        assertTrue(almacen.llamadas("findById") < 10, "llegadas: " + almacen.llamadas("findById"));
+        assertEquals(almacen.llamadas("findById") - 2, filtrado.metricas().falsosPositivos());
+    }
+
+    @Test
+    void unUsuarioGuardadoDeberiaPasarElFiltro() {
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 16, 0.01);
+
+        Usuario guardado = filtrado.save(new Usuario(null, "Luis Mora", "luis@ejemplo.com"));
+
+        assertTrue(filtrado.existsById(guardado.getId()));
+        assertEquals(1, filtrado.metricas().elementos());
+    }
+
+    @Test
+    void reconstruirDeberiaOlvidarLosBorrados() {
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 1_000, 0.001, 0);
+        for (long id = 1; id <= 100; id++) {
+            filtrado.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        for (long id = 1; id <= 90; id++) {
+            filtrado.delete(id);
+        }
+        assertEquals(90, filtrado.metricas().borradosPendientes());
+
+        filtrado.reconstruir();
+
+        MetricasFiltro metricas = filtrado.metricas();
+        assertEquals(0, metricas.borradosPendientes());
+        assertEquals(10, metricas.elementos());
+        assertTrue(filtrado.existsById(95L));
+        int antes = almacen.llamadas("existsById");
+        for (long id = 1; id <= 90; id++) {
+            assertFalse(filtrado.existsById(id));
+        }
+        assertTrue(almacen.llamadas("existsById") - antes < 5);
+    }
+
+    @Test
+    void deberiaReconstruirseSoloAlPasarElUmbralDeBorrados() throws InterruptedException {
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 1_000, 0.001, 0.5);
+        for (long id = 1; id <= 100; id++) {
+            filtrado.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        for (long id = 1; id <= 40; id++) {
+            filtrado.delete(id);
+        }
+        assertEquals(0, filtrado.metricas().reconstrucciones());
+
+        // El borrado 51 deja más pendientes que la mitad de los 100 elementos
+        for (long id = 41; id <= 51; id++) {
+            filtrado.delete(id);
+        }
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (filtrado.metricas().reconstrucciones() == 0 && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+
+        MetricasFiltro metricas = filtrado.metricas();
+        assertEquals(1, metricas.reconstrucciones());
+        assertEquals(0, metricas.borradosPendientes());
+        assertEquals(49, metricas.elementos());
+        assertTrue(filtrado.existsById(95L));
+    }
+
+    @Test
+    void deberiaAprenderLosIdsGuardadosEnOtraInstancia() {
+        TransporteBucleLocal transporte = new TransporteBucleLocal();
+        UsuarioRepositoryFiltrado filtrado = new UsuarioRepositoryFiltrado(almacen, 16, 0.01);
+        filtrado.seguirInvalidaciones(transporte);
+
+        almacen.save(new Usuario(5L, "Eva Sanz", "eva@ejemplo.com"));
+        transporte.publicar(new Invalidacion("otro", 5L, Instant.now()));
+
+        assertTrue(filtrado.findById(5L).isPresent());
+    }
+}
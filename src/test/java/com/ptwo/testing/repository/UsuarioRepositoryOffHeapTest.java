@@ -0,0 +1,123 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryOffHeapTest extends ContratoUsuarioRepository {
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        return new UsuarioRepositoryOffHeap(1024);
+    }
+
+    @Test
+    void deberiaAbrirSlabsNuevosAlLlenarse() {
+        UsuarioRepositoryOffHeap offHeap = (UsuarioRepositoryOffHeap) usuarioRepository;
+        for (long id = 1; id <= 100; id++) {
+            offHeap.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        assertTrue(offHeap.bytesReservados() > 1024);
+        assertEquals("Usuario42", offHeap.findById(42L).get().getNombre());
+    }
+
+    @Test
+    void deberiaContarLosHuecosDeActualizacionesYBorrados() {
+        UsuarioRepositoryOffHeap offHeap = (UsuarioRepositoryOffHeap) usuarioRepository;
+        offHeap.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        offHeap.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        assertEquals(0, offHeap.bytesMuertos());
+
+        offHeap.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        offHeap.delete(2L);
+
+        assertTrue(offHeap.bytesMuertos() > 0);
+    }
+
+    @Test
+    void deberiaRechazarRegistrosMayoresQueElSlab() {
+        String nombreLargo = "x".repeat(2000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> usuarioRepository.save(new Usuario(1L, nombreLargo, "x@ejemplo.com")));
+    }
+
+    @Test
+    void deberiaCompactarLosSlabsConHuecos() {
+        UsuarioRepositoryOffHeap offHeap = (UsuarioRepositoryOffHeap) usuarioRepository;
+        for (long id = 1; id <= 100; id++) {
+            offHeap.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        for (long id = 1; id <= 100; id++) {
+            if (id % 2 == 0) {
+                offHeap.delete(id);
+            } else {
+                offHeap.save(new Usuario(id, "Nuevo" + id, "n" + id + "@ejemplo.com"));
+            }
+        }
+        long reservadosAntes = offHeap.bytesReservados();
+
+        while (offHeap.compactar(8, 0.5) > 0) {
+            // cada paso examina como mucho 8 registros
+        }
+
+        assertTrue(offHeap.bytesReservados() < reservadosAntes);
+        assertEquals(50, offHeap.findAll().size());
+        for (long id = 1; id <= 100; id++) {
+            assertEquals(id % 2 == 1, offHeap.existsById(id));
+        }
+        assertEquals("Nuevo99", offHeap.findById(99L).get().getNombre());
+    }
+
+    @Test
+    void lasLecturasNoDeberianFallarMientrasSeCompacta() throws Exception {
+        UsuarioRepositoryOffHeap offHeap = (UsuarioRepositoryOffHeap) usuarioRepository;
+        for (long id = 1; id <= 100; id++) {
+            offHeap.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        AtomicBoolean parar = new AtomicBoolean();
+        AtomicInteger fallos = new AtomicInteger();
+        Thread lector = new Thread(() -> {
+            while (!parar.get()) {
+                for (long id = 1; id <= 100; id++) {
+                    try {
+                        if (offHeap.findById(id).isEmpty()) {
+                            fallos.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        fallos.incrementAndGet();
+                    }
+                }
+            }
+        });
+        lector.start();
+        try (CompactadorEspacio compactador = new CompactadorEspacio(offHeap, 16, Duration.ofMillis(1), 0.5)) {
+            for (int vuelta = 0; vuelta < 20; vuelta++) {
+                for (long id = 1; id <= 100; id++) {
+                    offHeap.save(new Usuario(id, "Vuelta" + vuelta, "u" + id + "@ejemplo.com"));
+                }
+            }
+            long limite = System.currentTimeMillis() + 5_000;
+            while (offHeap.bytesReservados() > 10 * 1024 && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+            }
+            assertTrue(compactador.examinados() > 0);
+        } finally {
+            parar.set(true);
+            lector.join();
+        }
+
+        assertEquals(0, fallos.get());
+        assertTrue(offHeap.bytesReservados() <= 10 * 1024);
+        assertEquals("Vuelta19", offHeap.findById(100L).get().getNombre());
+    }
+}
@@ -0,0 +1,47 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryParticionadoTest extends ContratoUsuarioRepository {
+
+    private List<UsuarioRepositoryEnMemoria> particiones;
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        particiones = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            particiones.add(new UsuarioRepositoryEnMemoria());
+        }
+        return new UsuarioRepositoryParticionado(particiones);
+    }
+
+    @Test
+    void deberiaRepartirLosUsuariosEntreParticiones() {
+        for (long id = 1; id <= 400; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        for (UsuarioRepositoryEnMemoria particion : particiones) {
+            int tamano = particion.findAll().size();
+            assertTrue(tamano > 50 && tamano < 150, "Partición desequilibrada: " + tamano);
+        }
+    }
+
+    @Test
+    void deberiaContinuarLosIdsDeLasParticionesExistentes() {
+        particiones.get(2).save(new Usuario(40L, "Ana Gil", "ana@ejemplo.com"));
+        UsuarioRepositoryParticionado reabierto = new UsuarioRepositoryParticionado(particiones);
+
+        Usuario nuevo = reabierto.save(new Usuario(null, "Luis Mora", "luis@ejemplo.com"));
+
+        assertEquals(41L, nuevo.getId());
+    }
+}
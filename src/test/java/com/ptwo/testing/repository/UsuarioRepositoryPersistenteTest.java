@@ -0,0 +1,403 @@
+package com.ptwo.testing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioRepositoryPersistenteTest extends ContratoUsuarioRepository {
+
+    @TempDir
+    Path directorio;
+
+    @Override
+    protected UsuarioRepository crearRepositorio() {
+        return abrir();
+    }
+
+    private UsuarioRepositoryPersistente abrir() {
+        return new UsuarioRepositoryPersistente(directorio, 4096, Duration.ofMillis(50));
+    }
+
+    @Test
+    void deberiaRecuperarElEstadoTrasReabrir() {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioRepository.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        Usuario ana = usuarioRepository.findById(1L).get();
+        ana.setActivo(false);
+        usuarioRepository.save(ana);
+        usuarioRepository.delete(2L);
+        ((UsuarioRepositoryPersistente) usuarioRepository).close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertFalse(reabierto.findById(1L).get().isActivo());
+            assertFalse(reabierto.existsById(2L));
+            assertEquals(3L, reabierto.save(new Usuario(null, "Eva Sanz", "eva@ejemplo.com")).getId());
+        }
+    }
+
+    @Test
+    void deberiaDescartarUnaEscrituraInterrumpida() throws IOException {
+        usuarioRepository.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        ((UsuarioRepositoryPersistente) usuarioRepository).close();
+        Path segmento = unicoSegmento();
+        long tamanoValido = Files.size(segmento);
+        // Simulamos una caída a mitad de un registro
+        Files.write(segmento, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertTrue(reabierto.existsById(1L));
+            assertEquals(tamanoValido, Files.size(segmento));
+            reabierto.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        }
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertEquals("Mario Ros", reabierto.findById(2L).get().getNombre());
+        }
+    }
+
+    @Test
+    void deberiaRotarSegmentosAlAlcanzarElTamano() throws IOException {
+        for (long id = 1; id <= 200; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            assertTrue(archivos.count() > 1);
+        }
+        assertEquals("Usuario150", usuarioRepository.findById(150L).get().getNombre());
+    }
+
+    @Test
+    void deberiaLeerUnLoteRepartidoEntreSegmentos() {
+        for (long id = 1; id <= 200; id++) {
+            usuarioRepository.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        // Reescrituras al final del registro: el orden en disco ya no coincide con el de los ids
+        for (long id = 1; id <= 200; id += 3) {
+            usuarioRepository.save(new Usuario(id, "Nuevo" + id, "n" + id + "@ejemplo.com"));
+        }
+        long[] ids = new long[200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 200 - i;
+        }
+
+        List<Optional<Usuario>> resultado = usuarioRepository.findAllById(ids);
+
+        for (int i = 0; i < ids.length; i++) {
+            long id = ids[i];
+            assertEquals(id, resultado.get(i).get().getId());
+            assertEquals((id % 3 == 1 ? "Nuevo" : "Usuario") + id, resultado.get(i).get().getNombre());
+        }
+    }
+
+    @Test
+    void deberiaConservarLosAvisosPendientesTrasReabrir() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.saveConAviso(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), TipoAviso.REGISTRO);
+        Usuario mario = repositorio.saveConAviso(new Usuario(null, "Mario Ros", "mario@ejemplo.com"), TipoAviso.REGISTRO);
+        mario.setActivo(false);
+        repositorio.saveConAviso(mario, TipoAviso.DESACTIVACION);
+        repositorio.confirmarEntregados(List.of(1L));
+        repositorio.close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            List<AvisoPendiente> pendientes = reabierto.avisosPendientes(10);
+            assertEquals(List.of(2L, 3L), pendientes.stream().map(AvisoPendiente::clave).toList());
+            assertEquals(TipoAviso.DESACTIVACION, pendientes.get(1).tipo());
+            assertFalse(pendientes.get(1).usuario().isActivo());
+            assertTrue(pendientes.get(0).usuario().isActivo());
+            assertFalse(reabierto.findById(2L).get().isActivo());
+
+            reabierto.saveConAviso(new Usuario(null, "Eva Sanz", "eva@ejemplo.com"), TipoAviso.REGISTRO);
+            assertEquals(4L, reabierto.avisosPendientes(10).get(2).clave());
+        }
+    }
+
+    @Test
+    void unaEscrituraInterrumpidaNoDeberiaDejarNiUsuarioNiAviso() throws IOException {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        repositorio.saveConAviso(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"), TipoAviso.REGISTRO);
+        repositorio.close();
+        Path segmento = unicoSegmento();
+        // Se pierden los últimos bytes del registro usuario + aviso
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 3);
+        }
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertTrue(reabierto.existsById(1L));
+            assertFalse(reabierto.existsById(2L));
+            assertTrue(reabierto.avisosPendientes(10).isEmpty());
+        }
+    }
+
+    private Path unicoSegmento() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void unLoteDeberiaSobrevivirAReabrirAunqueRoteSegmentos() {
+        List<Usuario> lote = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            lote.add(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        usuarioRepository.saveAll(lote);
+        ((UsuarioRepositoryPersistente) usuarioRepository).close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertEquals(500, reabierto.findAll().size());
+            assertEquals("Usuario500", reabierto.findById(500L).get().getNombre());
+        }
+    }
+
+    @Test
+    void laCompactacionDeberiaBorrarSegmentosSinCambiarElEstado() throws IOException {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        for (long id = 1; id <= 200; id++) {
+            repositorio.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        for (long id = 1; id <= 200; id++) {
+            if (id % 4 == 0) {
+                repositorio.delete(id);
+            } else if (id <= 150) {
+                repositorio.save(new Usuario(id, "Nuevo" + id, "n" + id + "@ejemplo.com"));
+            }
+        }
+        long segmentosAntes = contarSegmentos();
+        long reservadosAntes = repositorio.bytesReservados();
+
+        while (repositorio.compactar(16, 0.5) > 0) {
+            // cada paso examina como mucho 16 registros
+        }
+
+        assertTrue(contarSegmentos() < segmentosAntes);
+        assertTrue(repositorio.bytesReservados() < reservadosAntes);
+        comprobarTrasCompactar(repositorio);
+        repositorio.close();
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            comprobarTrasCompactar(reabierto);
+        }
+    }
+
+    @Test
+    void laCompactacionDeberiaConservarLosAvisosSinConfirmar() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.saveConAviso(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"), TipoAviso.REGISTRO);
+        repositorio.saveConAviso(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"), TipoAviso.REGISTRO);
+        repositorio.saveConAviso(new Usuario(3L, "Eva Sanz", "eva@ejemplo.com"), TipoAviso.REGISTRO);
+        repositorio.confirmarEntregados(List.of(2L));
+        // El usuario 1 se sobrescribe: de su primer registro solo queda vivo el aviso
+        for (int vuelta = 0; vuelta < 100; vuelta++) {
+            for (long id = 1; id <= 3; id++) {
+                repositorio.save(new Usuario(id, "Vuelta" + vuelta, "u" + id + "@ejemplo.com"));
+            }
+        }
+
+        while (repositorio.compactar(16, 0.5) > 0) {
+            // cada paso examina como mucho 16 registros
+        }
+        assertFalse(Files.exists(directorio.resolve("segmento-000001.log")));
+        repositorio.close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            List<AvisoPendiente> pendientes = reabierto.avisosPendientes(10);
+            assertEquals(List.of(1L, 3L), pendientes.stream().map(AvisoPendiente::clave).toList());
+            assertEquals("Ana Gil", pendientes.get(0).usuario().getNombre());
+            assertEquals("Vuelta99", reabierto.findById(1L).get().getNombre());
+        }
+    }
+
+    @Test
+    void laCompactacionNoDeberiaHacerReutilizarClavesNiIds() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        for (long id = 1; id <= 3; id++) {
+            repositorio.saveConAviso(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"), TipoAviso.REGISTRO);
+        }
+        repositorio.confirmarEntregados(List.of(1L, 2L, 3L));
+        repositorio.delete(3L);
+        for (int vuelta = 0; vuelta < 100; vuelta++) {
+            for (long id = 1; id <= 2; id++) {
+                repositorio.save(new Usuario(id, "Vuelta" + vuelta, "u" + id + "@ejemplo.com"));
+            }
+        }
+
+        while (repositorio.compactar(16, 0.5) > 0) {
+            // cada paso examina como mucho 16 registros
+        }
+        assertFalse(Files.exists(directorio.resolve("segmento-000001.log")));
+        repositorio.close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            Usuario eva = reabierto.saveConAviso(new Usuario(null, "Eva Sanz", "eva@ejemplo.com"), TipoAviso.REGISTRO);
+            assertEquals(4L, eva.getId());
+            assertEquals(List.of(4L), reabierto.avisosPendientes(10).stream().map(AvisoPendiente::clave).toList());
+        }
+    }
+
+    @Test
+    void cambiarUnCampoDeberiaEscribirSoloLaDelta() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        List<Usuario> nuevos = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            nuevos.add(new Usuario(id, "Usuaria Número " + id, "usuaria.numero" + id + "@ejemplo.com"));
+        }
+        repositorio.saveAll(nuevos);
+        long completos = repositorio.bytesReservados();
+        List<Usuario> cargados = new ArrayList<>(repositorio.findAll());
+        cargados.forEach(u -> u.setActivo(false));
+
+        repositorio.saveAll(cargados);
+        long deltas = repositorio.bytesReservados() - completos;
+        Usuario ana = repositorio.findById(1L).get();
+        repositorio.save(ana);
+
+        assertTrue(deltas * 10 <= completos, deltas + " bytes frente a " + completos);
+        assertEquals(completos + deltas, repositorio.bytesReservados());
+        assertFalse(repositorio.findById(250L).get().isActivo());
+        assertEquals("Usuaria Número 250", repositorio.findById(250L).get().getNombre());
+    }
+
+    @Test
+    void unCambioParcialDeberiaDevolverLoQueQuedaGuardado() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        repositorio.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        Usuario antiguaAna = repositorio.findById(1L).get();
+        Usuario antiguoMario = repositorio.findById(2L).get();
+        // Otro escritor cambia los nombres después de que se cargaran las copias
+        for (long id = 1; id <= 2; id++) {
+            Usuario otro = repositorio.findById(id).get();
+            otro.setNombre("Renombrado" + id);
+            repositorio.save(otro);
+        }
+
+        antiguaAna.setActivo(false);
+        antiguoMario.setEmail("mario.ros@ejemplo.com");
+        Usuario ana = repositorio.save(antiguaAna);
+        List<Usuario> lote = repositorio.saveAll(List.of(antiguoMario));
+
+        assertEquals("Renombrado1", ana.getNombre());
+        assertFalse(ana.isActivo());
+        assertEquals("Renombrado2", lote.get(0).getNombre());
+        assertEquals("mario.ros@ejemplo.com", lote.get(0).getEmail());
+        for (Usuario devuelto : List.of(ana, lote.get(0))) {
+            Usuario leido = repositorio.findById(devuelto.getId()).get();
+            assertEquals(leido.getNombre(), devuelto.getNombre());
+            assertEquals(leido.getEmail(), devuelto.getEmail());
+            assertEquals(leido.isActivo(), devuelto.isActivo());
+        }
+    }
+
+    @Test
+    void reescribirEnteraUnaCadenaLargaNoDeberiaDeshacerCambiosAjenos() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        Usuario antigua = repositorio.findById(1L).get();
+        // Tantos cambios como deltas admite una cadena: el siguiente se escribe completo
+        for (int vuelta = 0; vuelta < 8; vuelta++) {
+            Usuario otro = repositorio.findById(1L).get();
+            otro.setNombre("Vuelta" + vuelta);
+            repositorio.save(otro);
+        }
+
+        antigua.setActivo(false);
+        Usuario guardada = repositorio.save(antigua);
+
+        assertEquals("Vuelta7", guardada.getNombre());
+        assertEquals("Vuelta7", repositorio.findById(1L).get().getNombre());
+        assertFalse(repositorio.findById(1L).get().isActivo());
+    }
+
+    @Test
+    void cambiarElIdDeUnUsuarioCargadoDeberiaGuardarloEntero() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        repositorio.save(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        repositorio.save(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        Usuario copia = repositorio.findById(1L).get();
+
+        copia.setId(2L);
+        repositorio.save(copia);
+
+        assertEquals("Ana Gil", repositorio.findById(2L).get().getNombre());
+        repositorio.close();
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            assertEquals("ana@ejemplo.com", reabierto.findById(2L).get().getEmail());
+            assertEquals("Ana Gil", reabierto.findById(1L).get().getNombre());
+        }
+    }
+
+    @Test
+    void lasDeltasDeberianSobrevivirAReabrirYACompactar() {
+        UsuarioRepositoryPersistente repositorio = (UsuarioRepositoryPersistente) usuarioRepository;
+        for (long id = 1; id <= 50; id++) {
+            repositorio.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        // Más cambios que deltas admite una cadena, repartidos por varios segmentos
+        for (int vuelta = 0; vuelta < 20; vuelta++) {
+            for (long id = 1; id <= 50; id++) {
+                Usuario usuario = repositorio.findById(id).get();
+                usuario.setNombre("Vuelta" + vuelta);
+                usuario.setActivo(vuelta % 2 == 0);
+                repositorio.save(usuario);
+            }
+        }
+        repositorio.delete(7L);
+        comprobarDeltas(repositorio);
+        repositorio.close();
+
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            comprobarDeltas(reabierto);
+            while (reabierto.compactar(16, 0.5) > 0) {
+                // cada paso examina como mucho 16 registros
+            }
+            comprobarDeltas(reabierto);
+        }
+        try (UsuarioRepositoryPersistente reabierto = abrir()) {
+            comprobarDeltas(reabierto);
+        }
+    }
+
+    private void comprobarDeltas(UsuarioRepositoryPersistente repositorio) {
+        assertEquals(49, repositorio.findAll().size());
+        assertFalse(repositorio.existsById(7L));
+        List<Optional<Usuario>> lote = repositorio.findAllById(new long[] {1L, 7L, 50L});
+        assertEquals("Vuelta19", lote.get(0).get().getNombre());
+        assertFalse(lote.get(0).get().isActivo());
+        assertEquals("u1@ejemplo.com", lote.get(0).get().getEmail());
+        assertFalse(lote.get(1).isPresent());
+        assertEquals("u50@ejemplo.com", lote.get(2).get().getEmail());
+    }
+
+    private void comprobarTrasCompactar(UsuarioRepositoryPersistente repositorio) {
+        assertEquals(150, repositorio.findAll().size());
+        for (long id = 1; id <= 200; id++) {
+            Optional<Usuario> usuario = repositorio.findById(id);
+            assertEquals(id % 4 != 0, usuario.isPresent());
+            usuario.ifPresent(u -> assertEquals((u.getId() <= 150 ? "Nuevo" : "Usuario") + u.getId(), u.getNombre()));
+        }
+    }
+
+    private long contarSegmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.count();
+        }
+    }
+}
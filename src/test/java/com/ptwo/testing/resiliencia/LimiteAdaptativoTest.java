@@ -0,0 +1,126 @@
+package com.ptwo.testing.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+
+class LimiteAdaptativoTest {
+
+    private static final long MILISEGUNDO = 1_000_000;
+
+    @Test
+    void conLatenciaEstableYElLimiteEnUsoDeberiaSubir() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 10, 2, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limite.observar(MILISEGUNDO, limite.limite());
+        }
+
+        assertThat(limite.limite()).isEqualTo(100);
+        assertThat(limite.metricas().subidas()).isPositive();
+        assertThat(limite.metricas().bajadas()).isZero();
+    }
+
+    @Test
+    void sinCargaNoDeberiaSubir() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 10, 2, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limite.observar(MILISEGUNDO, 1);
+        }
+
+        assertThat(limite.limite()).isEqualTo(10);
+    }
+
+    @Test
+    void alCrecerLaColaDeberiaBajarHastaQueApenasQuedeCola() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 50, 4, 100);
+        limite.observar(MILISEGUNDO, 1);
+
+        for (int i = 0; i < 100; i++) {
+            limite.observar(10 * MILISEGUNDO, limite.limite());
+        }
+
+        // Se para donde la cola estimada, limite * (1 - 1/10), deja de superar 6
+        assertThat(limite.limite()).isBetween(4, 7);
+        assertThat(limite.metricas().bajadas()).isPositive();
+        assertThat(limite.metricas().latenciaSinCargaMicros()).isEqualTo(1_000);
+    }
+
+    @Test
+    void siElAlmacenSeVuelveMasLentoDeberiaRecuperarseTrasSondear() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 20, 4, 100);
+        limite.observar(MILISEGUNDO, 1);
+        for (int i = 0; i < 100; i++) {
+            limite.observar(5 * MILISEGUNDO, limite.limite());
+        }
+        assertThat(limite.limite()).isLessThan(10);
+
+        // La nueva latencia es la de sin carga: tras el sondeo deja de contar como cola
+        for (int i = 0; i < 1_000; i++) {
+            limite.observar(5 * MILISEGUNDO, limite.limite());
+        }
+
+        assertThat(limite.limite()).isEqualTo(100);
+        assertThat(limite.metricas().latenciaSinCargaMicros()).isEqualTo(5_000);
+    }
+
+    @Test
+    void porEncimaDelLimiteDeberiaRechazarAlInstante() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 2, 2, 2);
+        CountDownLatch dentro = new CountDownLatch(2);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread[] ocupantes = new Thread[2];
+        for (int i = 0; i < ocupantes.length; i++) {
+            ocupantes[i] = Thread.ofVirtual().start(() -> limite.ejecutar(() -> {
+                dentro.countDown();
+                esperar(soltar);
+            }));
+        }
+        dentro.await();
+
+        assertThatThrownBy(() -> limite.ejecutar(() -> "nunca"))
+                .isInstanceOf(DependenciaNoDisponibleException.class)
+                .extracting("motivo").isEqualTo(Motivo.LIMITE_ALCANZADO);
+        assertThat(limite.metricas().enCurso()).isEqualTo(2);
+
+        soltar.countDown();
+        for (Thread ocupante : ocupantes) {
+            ocupante.join();
+        }
+        assertThat(limite.ejecutar(() -> "ok")).isEqualTo("ok");
+        MetricasLimite metricas = limite.metricas();
+        assertThat(metricas.admitidas()).isEqualTo(3);
+        assertThat(metricas.rechazadas()).isEqualTo(1);
+        assertThat(metricas.enCurso()).isZero();
+    }
+
+    @Test
+    void unRechazoAguasAbajoDeberiaReducirElLimiteYUnErrorPropioNo() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("prueba", 50, 4, 100);
+
+        assertThatThrownBy(() -> limite.ejecutar(() -> {
+            throw new IllegalArgumentException("Email inválido");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(limite.limite()).isEqualTo(50);
+
+        assertThatThrownBy(() -> limite.ejecutar(() -> {
+            throw new DependenciaNoDisponibleException("repositorio", Motivo.TIEMPO_AGOTADO);
+        })).isInstanceOf(DependenciaNoDisponibleException.class);
+        assertThat(limite.limite()).isEqualTo(45);
+        assertThat(limite.metricas().enCurso()).isZero();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
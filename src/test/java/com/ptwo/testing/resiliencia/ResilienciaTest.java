@@ -0,0 +1,197 @@
+package com.ptwo.testing.resiliencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+
+@Isolated
+class ResilienciaTest {
+
+    private Resiliencia resiliencia;
+
+    @AfterEach
+    void cerrar() {
+        resiliencia.close();
+    }
+
+    @Test
+    void deberiaAbandonarLaLlamadaAlAgotarElTiempo() {
+        resiliencia = new Resiliencia(politica(Duration.ofMillis(50), 4, 5, 0));
+        long inicio = System.nanoTime();
+
+        assertThatThrownBy(() -> resiliencia.ejecutar(() -> {
+            Thread.sleep(5_000);
+            return null;
+        }, false))
+                .isInstanceOf(DependenciaNoDisponibleException.class)
+                .extracting("motivo").isEqualTo(Motivo.TIEMPO_AGOTADO);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+        assertThat(resiliencia.metricas().tiemposAgotados()).isEqualTo(1);
+    }
+
+    @Test
+    void deberiaRechazarSinEsperarCuandoElBulkheadEstaLleno() throws Exception {
+        resiliencia = new Resiliencia(politica(Duration.ofSeconds(5), 1, 5, 0));
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread ocupante = Thread.ofVirtual().start(() -> resiliencia.ejecutar(() -> {
+            dentro.countDown();
+            soltar.await();
+            return null;
+        }, false));
+        dentro.await();
+
+        assertThatThrownBy(() -> resiliencia.ejecutar(() -> "nunca", false))
+                .extracting("motivo").isEqualTo(Motivo.BULKHEAD_LLENO);
+        assertThat(resiliencia.metricas().enCurso()).isEqualTo(1);
+
+        soltar.countDown();
+        ocupante.join();
+        assertThat(resiliencia.ejecutar(() -> "ok", false)).isEqualTo("ok");
+    }
+
+    @Test
+    void elBulkheadDeberiaSeguirOcupadoMientrasLaLlamadaAbandonadaNoTermine() {
+        resiliencia = new Resiliencia(politica(Duration.ofMillis(20), 1, 5, 0));
+        CountDownLatch nuncaSeSuelta = new CountDownLatch(1);
+        // La llamada ignora la interrupción, como un driver bloqueado en un socket
+        Runnable colgada = () -> {
+            while (nuncaSeSuelta.getCount() > 0) {
+                try {
+                    nuncaSeSuelta.await();
+                } catch (InterruptedException e) {
+                    // se ignora
+                }
+            }
+        };
+
+        assertThatThrownBy(() -> resiliencia.ejecutar(colgada, false))
+                .extracting("motivo").isEqualTo(Motivo.TIEMPO_AGOTADO);
+        assertThatThrownBy(() -> resiliencia.ejecutar(() -> "otra", false))
+                .extracting("motivo").isEqualTo(Motivo.BULKHEAD_LLENO);
+
+        nuncaSeSuelta.countDown();
+    }
+
+    @Test
+    void deberiaAbrirElCircuitoYCerrarloTrasUnaSondaCorrecta() throws Exception {
+        resiliencia = new Resiliencia(politica(Duration.ofSeconds(1), 4, 3, 0));
+        AtomicInteger invocaciones = new AtomicInteger();
+        Runnable fallida = () -> {
+            invocaciones.incrementAndGet();
+            throw new IllegalStateException("caído");
+        };
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> resiliencia.ejecutar(fallida, false)).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(resiliencia.metricas().circuito()).isEqualTo(EstadoCircuito.ABIERTO);
+        assertThatThrownBy(() -> resiliencia.ejecutar(fallida, false))
+                .extracting("motivo").isEqualTo(Motivo.CIRCUITO_ABIERTO);
+        assertThat(invocaciones).hasValue(3);
+
+        Thread.sleep(150);
+        assertThat(resiliencia.ejecutar(() -> "recuperado", false)).isEqualTo("recuperado");
+        assertThat(resiliencia.metricas().circuito()).isEqualTo(EstadoCircuito.CERRADO);
+    }
+
+    @Test
+    void unaSondaFallidaDeberiaVolverAAbrirElCircuito() throws Exception {
+        resiliencia = new Resiliencia(politica(Duration.ofSeconds(1), 4, 1, 0));
+        Runnable fallida = () -> {
+            throw new IllegalStateException("caído");
+        };
+        assertThatThrownBy(() -> resiliencia.ejecutar(fallida, false)).isInstanceOf(IllegalStateException.class);
+
+        Thread.sleep(150);
+        assertThatThrownBy(() -> resiliencia.ejecutar(fallida, false)).isInstanceOf(IllegalStateException.class);
+
+        assertThatThrownBy(() -> resiliencia.ejecutar(() -> "x", false))
+                .extracting("motivo").isEqualTo(Motivo.CIRCUITO_ABIERTO);
+    }
+
+    @Test
+    void deberiaReintentarLasLlamadasReintentablesHastaTenerExito() {
+        resiliencia = new Resiliencia(politica(Duration.ofSeconds(1), 4, 10, 3));
+        AtomicInteger intentos = new AtomicInteger();
+
+        String resultado = resiliencia.ejecutar(() -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw new IllegalStateException("transitorio");
+            }
+            return "ok";
+        }, true);
+
+        assertThat(resultado).isEqualTo("ok");
+        MetricasResiliencia metricas = resiliencia.metricas();
+        assertThat(metricas.llamadas()).isEqualTo(1);
+        assertThat(metricas.reintentos()).isEqualTo(2);
+        assertThat(metricas.fallos()).isEqualTo(2);
+        assertThat(metricas.exitos()).isEqualTo(1);
+    }
+
+    @Test
+    void noDeberiaReintentarLasLlamadasNoReintentables() {
+        resiliencia = new Resiliencia(politica(Duration.ofSeconds(1), 4, 10, 3));
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThatThrownBy(() -> resiliencia.ejecutar(() -> {
+            intentos.incrementAndGet();
+            throw new IllegalStateException("falla");
+        }, false)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(intentos).hasValue(1);
+    }
+
+    @Test
+    void lasLlamadasConUnaClaveComunNoDeberianSolaparseAunqueSeAbandonen() throws Exception {
+        resiliencia = new Resiliencia(politica(Duration.ofMillis(100), 4, 10, 0));
+        CountDownLatch soltar = new CountDownLatch(1);
+        List<String> orden = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> resiliencia.ejecutarEnOrden(() -> {
+            soltar.await();
+            orden.add("abandonada");
+            return null;
+        }, false, List.of(1L)))
+                .extracting("motivo").isEqualTo(Motivo.TIEMPO_AGOTADO);
+        // Otra clave no espera a nadie
+        assertThat(resiliencia.ejecutarEnOrden(() -> orden.add("otra"), false, List.of(2L))).isTrue();
+        Thread siguiente = Thread.ofVirtual().start(() ->
+                resiliencia.ejecutarEnOrden(() -> orden.add("siguiente"), false, List.of(3L, 1L)));
+        Thread.sleep(30);
+        soltar.countDown();
+        siguiente.join();
+
+        assertThat(orden).containsExactly("otra", "abandonada", "siguiente");
+    }
+
+    @Test
+    void sinTiempoMaximoDeberiaEsperarALaLlamadaAunqueTarde() {
+        resiliencia = new Resiliencia(politica(Duration.ofMillis(20), 4, 10, 0));
+
+        assertThat(resiliencia.ejecutarSinTiempoMaximo(() -> {
+            Thread.sleep(100);
+            return "completo";
+        }, false)).isEqualTo("completo");
+        assertThat(resiliencia.metricas().tiemposAgotados()).isZero();
+    }
+
+    private static PoliticaResiliencia politica(Duration tiempoMaximo, int maxConcurrentes,
+                                                int fallosParaAbrir, int reintentos) {
+        return new PoliticaResiliencia("prueba", tiempoMaximo, maxConcurrentes, Duration.ZERO,
+                fallosParaAbrir, Duration.ofMillis(100), reintentos, Duration.ofMillis(1), Duration.ofMillis(10));
+    }
+}
@@ -2,70 +2,56 @@ package com.ptwo.testing.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
 import com.ptwo.testing.model.Usuario;
-import com.ptwo.testing.repository.UsuarioRepository;
 import com.ptwo.testing.repository.UsuarioRepositoryImpl;
 
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-
- @ExtendWith(MockitoExtension.class)
- class ArgumentCaptorAnotacionesTest {
-    @Mock
-    private UsuarioRepository usuarioRepository;
-    
-    @Mock
-    private NotificacionService notificacionService;
-    
-    @Mock
-    private AuditoriaService auditoriaService;
-    
-    @InjectMocks
+// Lo que antes se capturaba con @Captor lo registran ahora los fakes. Los dos ejemplos de
+// métodos finales siguen con Mockito: son justo lo que enseñan
+class ArgumentCaptorAnotacionesTest {
+    private UsuarioRepositoryFake usuarioRepository;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
     private UsuarioService usuarioService;
-    
-    @Captor
-    private ArgumentCaptor<Usuario> usuarioCaptor;
-    
-    @Captor
-    private ArgumentCaptor<String> stringCaptor;
-    
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = new UsuarioRepositoryFake();
+        notificacionService = new NotificacionServiceFake();
+        auditoriaService = new AuditoriaServiceFake();
+        usuarioService = new UsuarioService(usuarioRepository, notificacionService, auditoriaService);
+    }
+
     @Test
-    void testCapturadorConAnotaciones() {
+    void testArgumentosRegistradosPorLosFakes() {
         // Arrange
         Usuario usuario = new Usuario(1L, "Jaime Vega", "jaime@ejemplo.com");
-        when(usuarioRepository.save(any())).thenReturn(usuario);
-        
+
         // Act
         usuarioService.crearUsuario(usuario);
-        
-        // Verify con los captores inyectados (por @Captor)
-        verify(usuarioRepository).save(usuarioCaptor.capture());
-        verify(auditoriaService).registrarOperacion(eq("CREAR_USUARIO"), stringCaptor.capture());
-        
-        // Accedemos a los valores capturados
-        Usuario usuarioCaptado = usuarioCaptor.getValue();
-        String detallesCaptados = stringCaptor.getValue();
-        
+
+        // Accedemos a lo que recibieron el repositorio y la auditoría
+        Usuario usuarioGuardado = usuarioRepository.guardados().get(0);
+        RegistroAuditoria registro = auditoriaService.registros().get(0);
+
         // Verificamos
-        assertEquals("Jaime Vega", usuarioCaptado.getNombre());
-        assertTrue(detallesCaptados.contains("Jaime Vega"));
+        assertEquals("Jaime Vega", usuarioGuardado.getNombre());
+        assertEquals("CREAR_USUARIO", registro.tipoOperacion());
+        assertTrue(registro.detalles().contains("Jaime Vega"));
     }
 
     @Test
@@ -105,30 +91,24 @@ import org.mockito.Mock;
 
     @Test
     void testRutaExito() {
-        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(new Usuario(1L, "Usuario", 
-    "email@valido.com")));
+        usuarioRepository.con(new Usuario(1L, "Usuario", "email@valido.com"));
         assertTrue(usuarioService.obtenerUsuario(1L).isPresent());
     }
 
     @Test
     void testRutaFallo() {
-        when(usuarioRepository.findById(99L)).thenReturn(Optional.empty());
         assertFalse(usuarioService.obtenerUsuario(99L).isPresent());
     }
 
     @Test
-    void testLogicaInternaConCaptor() {
-        ArgumentCaptor<Usuario> usuarioCaptor = ArgumentCaptor.forClass(Usuario.class);
-        
-        // Act: llamamos a un método que debe modificar el usuario antes de guardarlo
+    void testLogicaInternaSobreLoGuardado() {
+        // Act: llamamos a un método que debe preparar el usuario antes de guardarlo
         usuarioService.crearUsuario(new Usuario(1L, "Daniel Sam", "dam@ejemplo.com"));
-        
-        // Capture: capturamos el usuario que se pasa al repositorio
-        verify(usuarioRepository).save(usuarioCaptor.capture());
-        
-        // Assert: verificamos que la lógica interna funcionó correctamente
-        Usuario usuarioCapturado = usuarioCaptor.getValue();
-        assertTrue(usuarioCapturado.isActivo()); // Verificamos que el flag por defecto se estableció
-        assertNotNull(usuarioCapturado.getId()); // Verificamos que se generó un ID
+
+        // Assert: la copia que recibió el repositorio
+        List<Usuario> guardados = usuarioRepository.guardados();
+        assertEquals(1, guardados.size());
+        assertTrue(guardados.get(0).isActivo()); // Verificamos que el flag por defecto se estableció
+        assertEquals(1L, guardados.get(0).getId());
     }
 }
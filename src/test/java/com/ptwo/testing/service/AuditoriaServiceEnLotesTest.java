@@ -0,0 +1,70 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AuditoriaServiceEnLotesTest {
+
+    @Mock
+    private AuditoriaService destino;
+
+    @Captor
+    private ArgumentCaptor<List<RegistroAuditoria>> loteCaptor;
+
+    @Test
+    void deberiaEntregarLotesAcotadosAlVaciar() {
+        try (AuditoriaServiceEnLotes auditoria = new AuditoriaServiceEnLotes(destino, 10, 100, Duration.ofHours(1))) {
+            for (int i = 0; i < 25; i++) {
+                auditoria.registrarOperacion("CREAR_USUARIO", "Usuario " + i);
+            }
+
+            auditoria.vaciar();
+
+            verify(destino, atLeastOnce()).registrarOperaciones(loteCaptor.capture());
+            List<RegistroAuditoria> todos = new ArrayList<>();
+            for (List<RegistroAuditoria> lote : loteCaptor.getAllValues()) {
+                assertTrue(lote.size() <= 10);
+                todos.addAll(lote);
+            }
+            assertEquals(25, todos.size());
+            assertEquals("Usuario 0", todos.get(0).detalles());
+            assertEquals(0, auditoria.pendientes());
+        }
+    }
+
+    @Test
+    void deberiaVaciarPeriodicamente() {
+        try (AuditoriaServiceEnLotes auditoria = new AuditoriaServiceEnLotes(destino, 100, 100, Duration.ofMillis(20))) {
+            auditoria.registrarOperacion("DESACTIVAR_USUARIO", "Usuario desactivado: Ana");
+
+            verify(destino, timeout(2000)).registrarOperaciones(anyList());
+        }
+    }
+
+    @Test
+    void noDeberiaLlamarAlDestinoPorCadaRegistro() {
+        try (AuditoriaServiceEnLotes auditoria = new AuditoriaServiceEnLotes(destino, 100, 100, Duration.ofHours(1))) {
+            auditoria.registrarOperacion("CREAR_USUARIO", "Usuario creado");
+            auditoria.vaciar();
+        }
+
+        verify(destino, never()).registrarOperacion("CREAR_USUARIO", "Usuario creado");
+    }
+}
@@ -0,0 +1,177 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+
+class DesactivacionesProgramadasTest {
+
+    private static final Duration RESOLUCION = Duration.ofSeconds(1);
+
+    // Muy por delante del reloj real: la pasada periódica nunca llega a estas horas
+    private final Instant base = Instant.now().plus(Duration.ofDays(1));
+
+    @TempDir
+    Path directorio;
+
+    private UsuarioRepositoryEnMemoria almacen;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
+    private UsuarioService usuarioService;
+    private DesactivacionesProgramadas desactivaciones;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new UsuarioRepositoryEnMemoria();
+        notificacionService = new NotificacionServiceFake();
+        auditoriaService = new AuditoriaServiceFake();
+        desactivaciones = conectar(new DesactivacionesProgramadas(directorio, RESOLUCION, 100));
+        for (long id = 1; id <= 3; id++) {
+            almacen.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        desactivaciones.close();
+    }
+
+    @Test
+    void deberiaDesactivarAlVencerEnUnSoloLote() {
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(5));
+        usuarioService.programarDesactivacion(2L, base.plusSeconds(5));
+        usuarioService.programarDesactivacion(3L, base.plusSeconds(60));
+
+        assertEquals(0, desactivaciones.procesarVencidos(base));
+        assertEquals(2, desactivaciones.procesarVencidos(base.plusSeconds(10)));
+
+        assertFalse(almacen.findById(1L).get().isActivo());
+        assertFalse(almacen.findById(2L).get().isActivo());
+        assertTrue(almacen.findById(3L).get().isActivo());
+        assertEquals(2, notificacionService.desactivaciones().size());
+        assertEquals(1, auditoriaService.tipos().stream().filter("DESACTIVAR_USUARIOS"::equals).count());
+        assertEquals(1, desactivaciones.pendientes());
+    }
+
+    @Test
+    void losPendientesDeberianSobrevivirAUnReinicio() {
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(5));
+        usuarioService.programarDesactivacion(2L, base.plusSeconds(5));
+        desactivaciones.close();
+
+        desactivaciones = conectar(new DesactivacionesProgramadas(directorio, RESOLUCION, 100));
+        assertEquals(2, desactivaciones.pendientes());
+        assertEquals(2, desactivaciones.procesarVencidos(base.plusSeconds(6)));
+        desactivaciones.close();
+
+        desactivaciones = new DesactivacionesProgramadas(directorio, RESOLUCION, 100);
+        assertEquals(0, desactivaciones.pendientes());
+    }
+
+    @Test
+    void reprogramarDeberiaSustituirLaHoraAnterior() {
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(5));
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(30));
+
+        assertEquals(0, desactivaciones.procesarVencidos(base.plusSeconds(10)));
+        assertTrue(almacen.findById(1L).get().isActivo());
+        // La rueda redondea al tick siguiente: vence como mucho una resolución tarde, nunca antes
+        assertEquals(0, desactivaciones.procesarVencidos(base.plusSeconds(29)));
+        assertEquals(1, desactivaciones.procesarVencidos(base.plusSeconds(30).plus(RESOLUCION)));
+        assertFalse(almacen.findById(1L).get().isActivo());
+    }
+
+    @Test
+    void unaCancelacionNoDeberiaEjecutarse() {
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(5));
+
+        assertTrue(desactivaciones.cancelar(1L));
+
+        assertEquals(0, desactivaciones.procesarVencidos(base.plusSeconds(10)));
+        assertTrue(almacen.findById(1L).get().isActivo());
+    }
+
+    @Test
+    void lasEntradasDescartadasNoDeberianCrecerSinLimite() {
+        int vueltas = 10 * DesactivacionesProgramadas.MINIMO_DESCARTADAS;
+        for (int i = 1; i <= vueltas; i++) {
+            usuarioService.programarDesactivacion(1L, base.plus(Duration.ofDays(i)));
+            usuarioService.programarDesactivacion(2L, base.plusSeconds(5));
+            assertTrue(desactivaciones.cancelar(2L));
+            assertTrue(desactivaciones.descartadas() <= DesactivacionesProgramadas.MINIMO_DESCARTADAS + 1);
+        }
+        usuarioService.programarDesactivacion(1L, base.plusSeconds(5));
+
+        assertTrue(desactivaciones.reconstrucciones() > 0);
+        assertEquals(1, desactivaciones.pendientes());
+        assertEquals(1, desactivaciones.procesarVencidos(base.plusSeconds(5).plus(RESOLUCION)));
+        assertFalse(almacen.findById(1L).get().isActivo());
+        assertTrue(almacen.findById(2L).get().isActivo());
+    }
+
+    @Test
+    void unLoteQueFallaDeberiaReintentarseEnElSiguienteTick() {
+        DesactivacionesProgramadas propias = new DesactivacionesProgramadas(directorio.resolve("propias"),
+                RESOLUCION, 100);
+        AtomicInteger intentos = new AtomicInteger();
+        List<Long> desactivados = new ArrayList<>();
+        propias.iniciar(ids -> {
+            if (intentos.incrementAndGet() == 1) {
+                throw new IllegalStateException("almacén caído");
+            }
+            for (long id : ids) {
+                desactivados.add(id);
+            }
+        });
+        try {
+            propias.programar(7L, base);
+
+            assertEquals(0, propias.procesarVencidos(base.plus(RESOLUCION)));
+            assertEquals(1, propias.fallos());
+            assertEquals(1, propias.procesarVencidos(base.plus(RESOLUCION.multipliedBy(2))));
+            assertEquals(List.of(7L), desactivados);
+            assertEquals(0, propias.pendientes());
+        } finally {
+            propias.close();
+        }
+    }
+
+    @Test
+    void noDeberiaProgramarUnUsuarioInexistente() {
+        assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.programarDesactivacion(99L, base));
+
+        assertEquals(0, desactivaciones.pendientes());
+    }
+
+    @Test
+    void sinMotorNoDeberiaAdmitirProgramaciones() {
+        UsuarioService sinMotor = new UsuarioService(almacen, notificacionService, auditoriaService);
+
+        assertThrows(IllegalStateException.class, () -> sinMotor.programarDesactivacion(1L, base));
+    }
+
+    private DesactivacionesProgramadas conectar(DesactivacionesProgramadas motor) {
+        usuarioService = new UsuarioService(almacen, notificacionService, auditoriaService);
+        usuarioService.setDesactivacionesProgramadas(motor);
+        return motor;
+    }
+}
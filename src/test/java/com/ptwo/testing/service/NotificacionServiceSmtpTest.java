@@ -0,0 +1,118 @@
+package com.ptwo.testing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.correo.ClienteSmtp;
+import com.ptwo.testing.correo.MensajeCorreo;
+import com.ptwo.testing.correo.RechazoSmtpException;
+import com.ptwo.testing.fakes.ServidorSmtpFake;
+import com.ptwo.testing.fakes.ServidorSmtpFake.MensajeRecibido;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException;
+
+class NotificacionServiceSmtpTest {
+
+    private final ServidorSmtpFake servidor = new ServidorSmtpFake(true);
+    private final ClienteSmtp cliente = cliente(servidor.direccion());
+    private final NotificacionServiceSmtp notificaciones = new NotificacionServiceSmtp(cliente, "avisos@ptwo.com",
+            Duration.ofSeconds(5));
+
+    @AfterEach
+    void parar() throws Exception {
+        cliente.close();
+        servidor.close();
+    }
+
+    @Test
+    void deberiaEnviarElAvisoDeRegistroAlEmailDelUsuario() {
+        notificaciones.enviarNotificacionRegistro(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        assertThat(servidor.recibidos()).hasSize(1);
+        MensajeRecibido recibido = servidor.recibidos().get(0);
+        assertThat(recibido.remitente()).isEqualTo("avisos@ptwo.com");
+        assertThat(recibido.destinatarios()).containsExactly("ana@ejemplo.com");
+        assertThat(recibido.encabezado("Subject")).isEqualTo("Bienvenido/a, Ana Gil");
+        assertThat(recibido.encabezado("Message-ID")).isEqualTo("<alta-1@ptwo.com>");
+        assertThat(recibido.cuerpo()).contains("Hola Ana Gil", "tu cuenta se ha creado");
+    }
+
+    @Test
+    void losAcentosDeberianLlegarIntactos() {
+        notificaciones.enviarNotificacionDesactivacion(new Usuario(1L, "Begoña Muñoz", "bego@ejemplo.com"));
+
+        MensajeRecibido recibido = servidor.recibidos().get(0);
+        assertThat(recibido.encabezado("Message-ID")).isNull();
+        assertThat(recibido.cuerpo()).contains("Hola Begoña Muñoz", "desactivado");
+    }
+
+    @Test
+    void lasLlamadasConcurrentesDeberianCompartirLasConexionesDelDominio() {
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                int n = i;
+                hilos.execute(() -> notificaciones.enviarNotificacionRegistro(
+                        new Usuario((long) n, "Usuario" + n, "u" + n + "@ejemplo.com")));
+            }
+        }
+
+        assertThat(servidor.recibidos()).hasSize(50);
+        assertThat(servidor.conexiones()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void unRechazoDelServidorDeberiaLlegarAlLlamante() {
+        servidor.rechazar("nadie@ejemplo.com");
+
+        assertThatThrownBy(() -> notificaciones.enviarNotificacionRegistro(new Usuario(1L, "Nadie", "nadie@ejemplo.com")))
+                .isInstanceOf(RechazoSmtpException.class)
+                .extracting("codigo").isEqualTo(550);
+        notificaciones.enviarNotificacionRegistro(new Usuario(2L, "Ana Gil", "ana@ejemplo.com"));
+        assertThat(servidor.recibidos()).hasSize(1);
+    }
+
+    @Test
+    void conElServidorCaidoDeberiaFallarConErrorDeEntradaSalida() throws Exception {
+        InetSocketAddress direccion = servidor.direccion();
+        servidor.close();
+        try (ClienteSmtp sinServidor = cliente(direccion)) {
+            NotificacionServiceSmtp caido = new NotificacionServiceSmtp(sinServidor, "avisos@ptwo.com",
+                    Duration.ofSeconds(5));
+
+            assertThatThrownBy(() -> caido.enviarNotificacionRegistro(new Usuario(1L, "Ana Gil", "ana@ejemplo.com")))
+                    .isInstanceOf(UncheckedIOException.class);
+        }
+    }
+
+    @Test
+    void unAvisoQueAgotaElTiempoEnColaNoDeberiaSalirDespues() throws Exception {
+        // Acepta conexiones (en la cola del sistema) pero nunca saluda
+        try (ServerSocket mudo = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+             ClienteSmtp atascado = cliente(new InetSocketAddress(InetAddress.getLoopbackAddress(), mudo.getLocalPort()))) {
+            // Las dos conexiones del dominio se quedan esperando el saludo
+            atascado.enviar(new MensajeCorreo("avisos@ptwo.com", "uno@ejemplo.com", "Aviso", "Cuerpo", null));
+            atascado.enviar(new MensajeCorreo("avisos@ptwo.com", "dos@ejemplo.com", "Aviso", "Cuerpo", null));
+            NotificacionServiceSmtp lento = new NotificacionServiceSmtp(atascado, "avisos@ptwo.com",
+                    Duration.ofMillis(200));
+
+            assertThatThrownBy(() -> lento.enviarNotificacionRegistro(new Usuario(1L, "Ana Gil", "ana@ejemplo.com")))
+                    .isInstanceOf(DependenciaNoDisponibleException.class);
+            assertThat(atascado.enCola()).isZero();
+        }
+    }
+
+    private static ClienteSmtp cliente(InetSocketAddress direccion) {
+        return new ClienteSmtp(direccion, "prueba.local", 2, 50, 1_000, Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+}
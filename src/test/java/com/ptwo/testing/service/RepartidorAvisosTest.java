@@ -0,0 +1,141 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.AvisoPendiente;
+import com.ptwo.testing.repository.BandejaSalida;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+
+class RepartidorAvisosTest {
+
+    // La pasada periódica no interfiere: los tests llaman a repartir() directamente
+    private static final Duration SIN_PASADAS = Duration.ofHours(1);
+
+    @TempDir
+    Path directorio;
+
+    private UsuarioRepositoryPersistente almacen;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        almacen = abrir();
+        notificacionService = new NotificacionServiceFake();
+        auditoriaService = new AuditoriaServiceFake();
+        usuarioService = new UsuarioService(almacen, notificacionService, auditoriaService);
+        usuarioService.setAvisosDiferidos(true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        almacen.close();
+    }
+
+    @Test
+    void laNotificacionDeberiaSalirDelCaminoDeLaPeticion() throws Exception {
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+        usuarioService.desactivarUsuario(1L);
+
+        assertTrue(notificacionService.registros().isEmpty());
+        assertEquals(List.of("CREAR_USUARIO", "DESACTIVAR_USUARIO"), auditoriaService.tipos());
+        assertEquals(2, almacen.avisosPendientes(10).size());
+
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(almacen, notificacionService, 10, SIN_PASADAS)) {
+            assertEquals(2, repartidor.repartir());
+        }
+        assertEquals("ana@ejemplo.com", notificacionService.registros().get(0).getEmail());
+        assertEquals(1, notificacionService.desactivaciones().size());
+        assertEquals(List.of("aviso-1", "aviso-2"), notificacionService.claves());
+        assertTrue(almacen.avisosPendientes(10).isEmpty());
+    }
+
+    @Test
+    void deberiaRepartirEnLotesHastaVaciarLaBandeja() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            usuarioService.crearUsuario(new Usuario(null, "Usuario" + i, "u" + i + "@ejemplo.com"));
+        }
+
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(almacen, notificacionService, 10, SIN_PASADAS)) {
+            assertEquals(25, repartidor.repartir());
+            assertEquals(25, repartidor.entregados());
+        }
+        assertEquals(25, notificacionService.registros().size());
+    }
+
+    @Test
+    void unFalloDeEntregaDeberiaConfirmarLoEntregadoYReintentarElResto() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            usuarioService.crearUsuario(new Usuario(null, "Usuario" + i, "u" + i + "@ejemplo.com"));
+        }
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(almacen, notificacionService, 10, SIN_PASADAS)) {
+            notificacionService.fallarAlEnviar(new RuntimeException("Servidor de correo caído"), 1);
+            assertThrows(RuntimeException.class, repartidor::repartir);
+            assertEquals(1, repartidor.fallos());
+            assertEquals(3, almacen.avisosPendientes(10).size());
+
+            assertEquals(3, repartidor.repartir());
+        }
+        assertEquals(List.of("aviso-1", "aviso-2", "aviso-3"), notificacionService.claves());
+    }
+
+    @Test
+    void unaCaidaAntesDeConfirmarDeberiaRepetirElAvisoConLaMismaClave() throws Exception {
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+        BandejaSalida sinConfirmar = new BandejaSalida() {
+            @Override
+            public List<AvisoPendiente> avisosPendientes(int maximo) {
+                return almacen.avisosPendientes(maximo);
+            }
+
+            @Override
+            public void confirmarEntregados(List<Long> claves) {
+                throw new IllegalStateException("Caída antes de confirmar");
+            }
+        };
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(sinConfirmar, notificacionService, 10, SIN_PASADAS)) {
+            assertThrows(IllegalStateException.class, repartidor::repartir);
+        }
+        almacen.close();
+
+        almacen = abrir();
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(almacen, notificacionService, 10, SIN_PASADAS)) {
+            assertEquals(1, repartidor.repartir());
+        }
+        // Al menos una vez: el receptor ve la repetición con la misma clave y puede descartarla
+        assertEquals(List.of("aviso-1", "aviso-1"), notificacionService.claves());
+    }
+
+    @Test
+    void laPasadaPeriodicaDeberiaEntregarSinIntervencion() throws Exception {
+        try (RepartidorAvisos repartidor = new RepartidorAvisos(almacen, notificacionService, 10,
+                Duration.ofMillis(20))) {
+            usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"));
+
+            long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (notificacionService.registros().isEmpty() && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, notificacionService.registros().size());
+    }
+
+    private UsuarioRepositoryPersistente abrir() {
+        return new UsuarioRepositoryPersistente(directorio, 1 << 20, Duration.ofMillis(50));
+    }
+}
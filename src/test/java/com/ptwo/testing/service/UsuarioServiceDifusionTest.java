@@ -0,0 +1,112 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.RegistroLlamadas;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+
+@Isolated
+class UsuarioServiceDifusionTest {
+
+    private static final Duration RETRASO = Duration.ofMillis(300);
+
+    private RegistroLlamadas orden;
+    private UsuarioRepositoryFake usuarioRepository;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        orden = new RegistroLlamadas();
+        usuarioRepository = new UsuarioRepositoryFake(orden);
+        notificacionService = new NotificacionServiceFake(orden);
+        auditoriaService = new AuditoriaServiceFake(orden);
+        usuarioService = new UsuarioService(usuarioRepository, notificacionService, auditoriaService);
+    }
+
+    @Test
+    void enModoSecuencialDeberiaMantenerElOrdenEstricto() {
+        usuarioService.setModoDifusion(ModoDifusion.SECUENCIAL);
+        notificacionService.retrasar(Duration.ofMillis(20));
+
+        usuarioService.crearUsuario(new Usuario(1L, "Carmen Jiménez", "carmen@ejemplo.com"));
+
+        assertEquals(List.of("repositorio.save", "notificacion.enviarNotificacionRegistro",
+                "auditoria.registrarOperacion"), orden.llamadas());
+    }
+
+    @Test
+    void enParaleloLaLatenciaDeberiaSerLaDeLaDependenciaMasLenta() {
+        usuarioService.setModoDifusion(ModoDifusion.PARALELO);
+        notificacionService.retrasar(RETRASO);
+        auditoriaService.retrasar(RETRASO);
+
+        long inicio = System.nanoTime();
+        usuarioService.crearUsuario(new Usuario(1L, "Carmen Jiménez", "carmen@ejemplo.com"));
+        Duration transcurrido = Duration.ofNanos(System.nanoTime() - inicio);
+
+        assertTrue(transcurrido.compareTo(RETRASO.multipliedBy(2)) < 0, "Tardó " + transcurrido);
+        // Al volver ya han terminado las dos
+        assertEquals(1, notificacionService.registros().size());
+        assertEquals(List.of("CREAR_USUARIO"), auditoriaService.tipos());
+        assertEquals("repositorio.save", orden.llamadas().get(0));
+    }
+
+    @Test
+    void enParaleloUnFalloDeNotificacionNoDeberiaImpedirLaAuditoria() {
+        usuarioService.setModoDifusion(ModoDifusion.PARALELO);
+        RuntimeException error = new RuntimeException("Servidor de correo caído");
+        notificacionService.fallarAlEnviar(error);
+
+        RuntimeException lanzada = assertThrows(RuntimeException.class,
+                () -> usuarioService.crearUsuario(new Usuario(1L, "Carmen Jiménez", "carmen@ejemplo.com")));
+
+        assertSame(error, lanzada);
+        assertEquals(List.of("CREAR_USUARIO"), auditoriaService.tipos());
+    }
+
+    @Test
+    void enParaleloDeberiaPropagarElFalloDeAuditoriaYAdjuntarElSegundo() {
+        usuarioService.setModoDifusion(ModoDifusion.PARALELO);
+        usuarioRepository.con(new Usuario(2L, "Pedro", "pedro@ejemplo.com"));
+        notificacionService.fallarAlEnviar(new RuntimeException("correo"));
+        auditoriaService.fallarAlRegistrar(new IllegalStateException("auditoría"));
+
+        RuntimeException lanzada = assertThrows(RuntimeException.class, () -> usuarioService.desactivarUsuario(2L));
+
+        assertEquals("correo", lanzada.getMessage());
+        assertEquals("auditoría", lanzada.getSuppressed()[0].getMessage());
+        assertTrue(usuarioRepository.guardados().stream().noneMatch(Usuario::isActivo));
+    }
+
+    @Test
+    void sinEsperaDeberiaVolverAntesDeQueTerminenLasDependencias() throws Exception {
+        usuarioService.setModoDifusion(ModoDifusion.PARALELO_SIN_ESPERA);
+        notificacionService.retrasar(RETRASO);
+        auditoriaService.retrasar(RETRASO);
+
+        long inicio = System.nanoTime();
+        usuarioService.crearUsuario(new Usuario(1L, "Carmen Jiménez", "carmen@ejemplo.com"));
+        Duration transcurrido = Duration.ofNanos(System.nanoTime() - inicio);
+
+        assertTrue(transcurrido.compareTo(RETRASO) < 0, "Tardó " + transcurrido);
+        assertEquals(1, usuarioRepository.guardados().size());
+        Thread.sleep(RETRASO.multipliedBy(3));
+        assertEquals(1, notificacionService.registros().size());
+        assertEquals(List.of("CREAR_USUARIO"), auditoriaService.tipos());
+    }
+}
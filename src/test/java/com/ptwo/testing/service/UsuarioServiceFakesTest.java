@@ -0,0 +1,146 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.RegistroLlamadas;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+
+// Flujos básicos de UsuarioService sobre los fakes en memoria, incluidas las operaciones por lotes
+class UsuarioServiceFakesTest {
+
+    private RegistroLlamadas orden;
+    private UsuarioRepositoryFake usuarioRepository;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        orden = new RegistroLlamadas();
+        usuarioRepository = new UsuarioRepositoryFake(orden);
+        notificacionService = new NotificacionServiceFake(orden);
+        auditoriaService = new AuditoriaServiceFake(orden);
+        usuarioService = new UsuarioService(usuarioRepository, notificacionService, auditoriaService);
+    }
+
+    @Test
+    void deberiaCrearUsuarioEnOrden() {
+        Usuario usuario = new Usuario(1L, "Carmen Jiménez", "carmen@ejemplo.com");
+
+        Usuario resultado = usuarioService.crearUsuario(usuario);
+
+        assertEquals("Carmen Jiménez", resultado.getNombre());
+        assertEquals(List.of("repositorio.save", "notificacion.enviarNotificacionRegistro",
+                "auditoria.registrarOperacion"), orden.llamadas());
+        assertEquals(List.of(usuario), notificacionService.registros());
+        assertTrue(auditoriaService.registros().get(0).detalles().contains("carmen@ejemplo.com"));
+    }
+
+    @Test
+    void noDeberiaInteractuarConEmailInvalido() {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.crearUsuario(new Usuario(1L, "Elena Martínez", "emailinvalido")));
+
+        assertEquals("Email inválido", exception.getMessage());
+        assertTrue(orden.llamadas().isEmpty());
+    }
+
+    @Test
+    void noDeberiaNotificarSiFallaElRepositorio() {
+        usuarioRepository.fallarAlGuardar(new RuntimeException("Error de base de datos"));
+
+        assertThrows(RuntimeException.class,
+                () -> usuarioService.crearUsuario(new Usuario(1L, "Victoria Alonso", "victoria@ejemplo.com")));
+
+        assertTrue(notificacionService.registros().isEmpty());
+        assertTrue(auditoriaService.registros().isEmpty());
+    }
+
+    @Test
+    void deberiaGuardarAntesDeFallarLaNotificacion() {
+        notificacionService.fallarAlEnviar(new RuntimeException("Error de envío"));
+
+        assertThrows(RuntimeException.class,
+                () -> usuarioService.crearUsuario(new Usuario(1L, "Isabel Mora", "isabel@ejemplo.com")));
+
+        assertEquals(1, usuarioRepository.llamadas("save"));
+        assertTrue(auditoriaService.registros().isEmpty());
+    }
+
+    @Test
+    void deberiaDesactivarUsuarioExistente() {
+        usuarioRepository.con(new Usuario(1L, "Pedro García", "pedro@ejemplo.com"));
+
+        usuarioService.desactivarUsuario(1L);
+
+        assertEquals(List.of("repositorio.findById", "repositorio.save",
+                "notificacion.enviarNotificacionDesactivacion", "auditoria.registrarOperacion"), orden.llamadas());
+        assertFalse(usuarioRepository.guardados().get(0).isActivo());
+        assertEquals(List.of("DESACTIVAR_USUARIO"), auditoriaService.tipos());
+    }
+
+    @Test
+    void noDeberiaHacerNadaAlDesactivarUnUsuarioInexistente() {
+        usuarioService.desactivarUsuario(99L);
+
+        assertEquals(List.of("repositorio.findById"), orden.llamadas());
+    }
+
+    @Test
+    void deberiaDesactivarVariosUsuariosConUnaSolaAuditoria() {
+        Usuario inactivo = new Usuario(3L, "Eva Sanz", "eva@ejemplo.com");
+        inactivo.setActivo(false);
+        usuarioRepository.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"),
+                new Usuario(2L, "Luis Mora", "luis@ejemplo.com"), inactivo);
+
+        int desactivados = usuarioService.desactivarUsuarios(1L, 2L, 3L, 99L);
+
+        assertEquals(2, desactivados);
+        assertEquals(2, usuarioRepository.guardados().size());
+        assertTrue(usuarioRepository.guardados().stream().noneMatch(Usuario::isActivo));
+        assertEquals(2, notificacionService.desactivaciones().size());
+        assertEquals(List.of("DESACTIVAR_USUARIOS"), auditoriaService.tipos());
+    }
+
+    @Test
+    void deberiaObtenerVariosUsuariosEnElOrdenPedido() {
+        usuarioRepository.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        usuarioRepository.con(new Usuario(2L, "Luis Mora", "luis@ejemplo.com"));
+
+        List<Optional<Usuario>> resultado = usuarioService.obtenerUsuarios(List.of(2L, 5L, 1L));
+
+        assertEquals("Luis Mora", resultado.get(0).get().getNombre());
+        assertTrue(resultado.get(1).isEmpty());
+        assertEquals("Ana Gil", resultado.get(2).get().getNombre());
+    }
+
+    @Test
+    void deberiaRechazarUnIdNuloEnUnaLecturaPorLotes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> usuarioService.obtenerUsuarios(Arrays.asList(1L, null)));
+
+        assertTrue(orden.llamadas().isEmpty());
+    }
+
+    @Test
+    void deberiaPropagarErroresAsincronos() {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> usuarioService.crearUsuarioAsync(new Usuario(1L, "Nombre", "emailinvalido")).get());
+
+        assertTrue(exception.getCause() instanceof IllegalArgumentException);
+    }
+}
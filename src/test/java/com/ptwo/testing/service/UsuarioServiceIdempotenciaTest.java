@@ -0,0 +1,188 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+
+class UsuarioServiceIdempotenciaTest {
+
+    private UsuarioRepositoryFake usuarioRepository;
+    private NotificacionServiceFake notificacionService;
+    private AuditoriaServiceFake auditoriaService;
+    private RegistroIdempotencia idempotencia;
+    private UsuarioService usuarioService;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = new UsuarioRepositoryFake();
+        notificacionService = new NotificacionServiceFake();
+        auditoriaService = new AuditoriaServiceFake();
+        idempotencia = new RegistroIdempotencia(Duration.ofMinutes(1), 100);
+        usuarioService = new UsuarioService(usuarioRepository, notificacionService, auditoriaService);
+        usuarioService.setIdempotencia(idempotencia);
+    }
+
+    @Test
+    void unReintentoDeberiaDevolverElResultadoOriginalSinRepetirNada() {
+        Usuario primero = usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+        Usuario reintento = usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        assertEquals(primero.getId(), reintento.getId());
+        assertNotSame(primero, reintento);
+        assertEquals(1, usuarioRepository.llamadas("save"));
+        assertEquals(1, notificacionService.registros().size());
+        assertEquals(1, auditoriaService.registros().size());
+        assertEquals(1, idempotencia.reutilizados());
+    }
+
+    @Test
+    void clavesDistintasOSinClaveDeberianCrearCadaVez() {
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-2");
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), null);
+
+        assertEquals(3, usuarioRepository.llamadas("save"));
+        assertEquals(0, idempotencia.reutilizados());
+    }
+
+    @Test
+    void losDuplicadosConcurrentesDeberianEsperarALaPrimeraEjecucion() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        UsuarioService lento = new UsuarioService(new UsuarioRepositoryFake() {
+            @Override
+            public Usuario save(Usuario usuario) {
+                dentro.countDown();
+                esperar(continuar);
+                return super.save(usuario);
+            }
+        }, notificacionService, auditoriaService);
+        lento.setIdempotencia(idempotencia);
+
+        CompletableFuture<Usuario> primero = lento.crearUsuarioAsync(new Usuario(null, "Ana Gil", "ana@ejemplo.com"),
+                "alta-1");
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Usuario>> duplicados = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            duplicados.add(lento.crearUsuarioAsync(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1"));
+        }
+        Thread.sleep(50);
+        assertTrue(duplicados.stream().noneMatch(CompletableFuture::isDone));
+        continuar.countDown();
+
+        long id = primero.get(5, TimeUnit.SECONDS).getId();
+        for (CompletableFuture<Usuario> duplicado : duplicados) {
+            assertEquals(id, duplicado.get(5, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(1, notificacionService.registros().size());
+        assertEquals(4, idempotencia.reutilizados());
+    }
+
+    @Test
+    void unFalloNoDeberiaGuardarseYElReintentoVuelveAEjecutar() {
+        IllegalStateException caido = new IllegalStateException("almacén caído");
+        usuarioRepository.fallarAlGuardar(caido);
+        assertSame(caido, assertThrows(IllegalStateException.class,
+                () -> usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1")));
+
+        usuarioRepository.fallarAlGuardar(null);
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        assertEquals(2, usuarioRepository.llamadas("save"));
+        assertEquals(1, notificacionService.registros().size());
+    }
+
+    @Test
+    void trasCaducarDeberiaVolverAEjecutar() throws InterruptedException {
+        idempotencia = new RegistroIdempotencia(Duration.ofMillis(10), 100);
+        usuarioService.setIdempotencia(idempotencia);
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        Thread.sleep(30);
+        usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        assertEquals(2, usuarioRepository.llamadas("save"));
+    }
+
+    @Test
+    void laTablaNoDeberiaPasarDelMaximo() {
+        idempotencia = new RegistroIdempotencia(Duration.ofMinutes(1), 10);
+        usuarioService.setIdempotencia(idempotencia);
+        for (int i = 0; i < 50; i++) {
+            usuarioService.crearUsuario(new Usuario(null, "Usuario" + i, "u" + i + "@ejemplo.com"), "alta-" + i);
+        }
+
+        assertTrue(idempotencia.tamano() <= 11, "entradas: " + idempotencia.tamano());
+        // Las más recientes siguen respondiendo sin crear
+        usuarioService.crearUsuario(new Usuario(null, "Usuario49", "u49@ejemplo.com"), "alta-49");
+        assertEquals(50, usuarioRepository.llamadas("save"));
+    }
+
+    @Test
+    void unAltaColgadaNoDeberiaFrenarLaPurgaDeLasDeDetras() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        UsuarioService colgado = new UsuarioService(new UsuarioRepositoryFake() {
+            @Override
+            public Usuario save(Usuario usuario) {
+                if ("Colgado".equals(usuario.getNombre())) {
+                    dentro.countDown();
+                    esperar(continuar);
+                }
+                return super.save(usuario);
+            }
+        }, notificacionService, auditoriaService);
+        idempotencia = new RegistroIdempotencia(Duration.ofMinutes(1), 10);
+        colgado.setIdempotencia(idempotencia);
+
+        CompletableFuture<Usuario> enCurso = colgado.crearUsuarioAsync(
+                new Usuario(null, "Colgado", "colgado@ejemplo.com"), "alta-colgada");
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            colgado.crearUsuario(new Usuario(null, "Usuario" + i, "u" + i + "@ejemplo.com"), "alta-" + i);
+        }
+
+        assertTrue(idempotencia.tamano() <= 12, "entradas: " + idempotencia.tamano());
+        continuar.countDown();
+        enCurso.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void laMismaClaveConOtrosDatosDeberiaRechazarse() {
+        Usuario primero = usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1");
+
+        ClaveIdempotenciaReutilizadaException error = assertThrows(ClaveIdempotenciaReutilizadaException.class,
+                () -> usuarioService.crearUsuario(new Usuario(null, "Luis Mora", "luis@ejemplo.com"), "alta-1"));
+
+        assertEquals("alta-1", error.getClave());
+        assertEquals(1, usuarioRepository.llamadas("save"));
+        assertEquals(0, idempotencia.reutilizados());
+        assertEquals(primero.getId(),
+                usuarioService.crearUsuario(new Usuario(null, "Ana Gil", "ana@ejemplo.com"), "alta-1").getId());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.ptwo.testing.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepositoryEnMemoria;
+
+class UsuarioServiceReactivoTest {
+
+    private final AtomicInteger leidos = new AtomicInteger();
+    private final AtomicBoolean cerrado = new AtomicBoolean();
+    private UsuarioRepositoryEnMemoria almacen;
+    private UsuarioService usuarioService;
+    // Con el ejecutor directo las señales llegan antes de que vuelva request: pruebas deterministas
+    private UsuarioServiceReactivo reactivo;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new UsuarioRepositoryEnMemoria() {
+            @Override
+            public Stream<Usuario> streamAll() {
+                return super.streamAll().peek(usuario -> leidos.incrementAndGet()).onClose(() -> cerrado.set(true));
+            }
+        };
+        for (long id = 1; id <= 1_000; id++) {
+            almacen.save(new Usuario(id, "Usuario" + id, "u" + id + "@ejemplo.com"));
+        }
+        usuarioService = new UsuarioService(almacen, new NotificacionServiceFake(), new AuditoriaServiceFake());
+        reactivo = new UsuarioServiceReactivo(usuarioService, Runnable::run);
+    }
+
+    @Test
+    void listarDeberiaLeerDelAlmacenSoloLoQueSePide() {
+        Recolector<Usuario> recolector = new Recolector<>();
+        reactivo.listarUsuarios().subscribe(recolector);
+        assertEquals(0, leidos.get());
+
+        recolector.pedir(10);
+        assertEquals(10, recolector.recibidos.size());
+        assertTrue(leidos.get() <= 11);
+
+        recolector.pedir(5);
+        assertEquals(15, recolector.recibidos.size());
+
+        recolector.suscripcion.cancel();
+        assertTrue(cerrado.get());
+        assertFalse(recolector.completado);
+        assertTrue(leidos.get() <= 16);
+    }
+
+    @Test
+    void listarDeberiaCompletarYCerrarElRecorrido() {
+        Recolector<Usuario> recolector = new Recolector<>();
+        reactivo.listarUsuarios().subscribe(recolector);
+
+        recolector.pedir(Long.MAX_VALUE);
+
+        assertEquals(1_000, recolector.recibidos.size());
+        assertTrue(recolector.completado);
+        assertTrue(cerrado.get());
+    }
+
+    @Test
+    void obtenerDeberiaEmitirUnoOCompletarVacio() {
+        Recolector<Usuario> existente = new Recolector<>();
+        reactivo.obtenerUsuario(7L).subscribe(existente);
+        existente.pedir(1);
+        Recolector<Usuario> inexistente = new Recolector<>();
+        reactivo.obtenerUsuario(5_000L).subscribe(inexistente);
+        inexistente.pedir(1);
+
+        assertEquals("Usuario7", existente.recibidos.get(0).getNombre());
+        assertTrue(existente.completado);
+        assertTrue(inexistente.recibidos.isEmpty());
+        assertTrue(inexistente.completado);
+    }
+
+    @Test
+    void crearNoDeberiaGuardarHastaLaPrimeraPeticion() {
+        Recolector<Usuario> recolector = new Recolector<>();
+        reactivo.crearUsuario(new Usuario(null, "Eva Sanz", "eva@ejemplo.com")).subscribe(recolector);
+        assertEquals(1_000, almacen.findAll().size());
+
+        recolector.pedir(1);
+
+        assertEquals(1_001L, recolector.recibidos.get(0).getId());
+        assertTrue(almacen.existsById(1_001L));
+        assertTrue(recolector.completado);
+    }
+
+    @Test
+    void desactivarDeberiaCompletarSinElementos() {
+        Recolector<Void> recolector = new Recolector<>();
+        reactivo.desactivarUsuario(3L).subscribe(recolector);
+
+        recolector.pedir(1);
+
+        assertTrue(recolector.completado);
+        assertFalse(almacen.findById(3L).get().isActivo());
+    }
+
+    @Test
+    void unaPeticionNoPositivaDeberiaTerminarConError() {
+        Recolector<Usuario> recolector = new Recolector<>();
+        reactivo.listarUsuarios().subscribe(recolector);
+
+        recolector.pedir(0);
+
+        assertInstanceOf(IllegalArgumentException.class, recolector.error);
+        assertTrue(recolector.recibidos.isEmpty());
+    }
+
+    @Test
+    void lasSenalesDeberianLlegarDesdeElEjecutorYNoDesdeQuienPide() throws InterruptedException {
+        UsuarioServiceReactivo enHilosVirtuales = new UsuarioServiceReactivo(usuarioService);
+        Recolector<Usuario> recolector = new Recolector<>();
+        enHilosVirtuales.listarUsuarios().subscribe(recolector);
+
+        recolector.pedir(Long.MAX_VALUE);
+
+        assertTrue(recolector.terminado.await(5, TimeUnit.SECONDS));
+        assertEquals(1_000, recolector.recibidos.size());
+        assertNull(recolector.error);
+        assertNotSame(Thread.currentThread(), recolector.hiloEmisor);
+        assertTrue(recolector.hiloEmisor.isVirtual());
+    }
+
+    @Test
+    void unSuscriptorQueLanzaNoDeberiaDejarLaSuscripcionAtascada() {
+        AtomicInteger errores = new AtomicInteger();
+        Recolector<Usuario> recolector = new Recolector<>() {
+            @Override
+            public void onNext(Usuario usuario) {
+                throw new IllegalStateException("onNext roto");
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errores.incrementAndGet();
+                throw new IllegalStateException("onError roto");
+            }
+        };
+        reactivo.listarUsuarios().subscribe(recolector);
+
+        assertDoesNotThrow(() -> recolector.pedir(1));
+        assertDoesNotThrow(() -> recolector.pedir(1));
+        recolector.suscripcion.cancel();
+
+        assertEquals(1, errores.get());
+        assertTrue(cerrado.get());
+    }
+
+    private static class Recolector<T> implements Flow.Subscriber<T> {
+        final List<T> recibidos = new CopyOnWriteArrayList<>();
+        final CountDownLatch terminado = new CountDownLatch(1);
+        volatile Flow.Subscription suscripcion;
+        volatile boolean completado;
+        volatile Throwable error;
+        volatile Thread hiloEmisor;
+
+        void pedir(long n) {
+            suscripcion.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            this.suscripcion = suscripcion;
+        }
+
+        @Override
+        public void onNext(T elemento) {
+            hiloEmisor = Thread.currentThread();
+            recibidos.add(elemento);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            terminado.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completado = true;
+            terminado.countDown();
+        }
+    }
+}
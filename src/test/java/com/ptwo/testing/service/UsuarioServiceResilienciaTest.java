@@ -0,0 +1,256 @@
+package com.ptwo.testing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import com.ptwo.testing.fakes.AuditoriaServiceFake;
+import com.ptwo.testing.fakes.NotificacionServiceFake;
+import com.ptwo.testing.fakes.UsuarioRepositoryFake;
+import com.ptwo.testing.model.Usuario;
+import com.ptwo.testing.repository.UsuarioRepository;
+import com.ptwo.testing.repository.UsuarioRepositoryPersistente;
+import com.ptwo.testing.repository.UsuarioRepositoryResiliente;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException;
+import com.ptwo.testing.resiliencia.DependenciaNoDisponibleException.Motivo;
+import com.ptwo.testing.resiliencia.EstadoCircuito;
+import com.ptwo.testing.resiliencia.LimiteAdaptativo;
+import com.ptwo.testing.resiliencia.MetricasResiliencia;
+import com.ptwo.testing.resiliencia.PoliticaResiliencia;
+
+// Inyección de fallos con los fakes: la latencia de crearUsuario debe quedar acotada
+// por la política aunque la dependencia se degrade
+@Isolated
+class UsuarioServiceResilienciaTest {
+
+    private final UsuarioRepositoryFake repositorio = new UsuarioRepositoryFake();
+    private final NotificacionServiceFake notificaciones = new NotificacionServiceFake();
+    private final AuditoriaServiceFake auditoria = new AuditoriaServiceFake();
+    private final List<AutoCloseable> cerrar = new ArrayList<>();
+
+    @AfterEach
+    void liberar() throws Exception {
+        for (AutoCloseable recurso : cerrar) {
+            recurso.close();
+        }
+    }
+
+    @Test
+    void conElAlmacenColgadoCrearUsuarioDeberiaFallarDentroDelTiempoMaximo() throws Exception {
+        UsuarioRepositoryResiliente resiliente = registrar(new UsuarioRepositoryResiliente(repositorio,
+                politica("repositorio", Duration.ofMillis(100), 4, 100, 0)));
+        UsuarioService usuarioService = new UsuarioService(resiliente, notificaciones, auditoria);
+        repositorio.retrasar(Duration.ofSeconds(10));
+
+        List<Long> latencias = crearEnParalelo(usuarioService, 16);
+
+        // Las que entran en el bulkhead agotan el tiempo y el resto se rechazan sin esperar
+        assertThat(latencias).allSatisfy(nanos -> assertThat(nanos).isLessThan(Duration.ofSeconds(1).toNanos()));
+        MetricasResiliencia metricas = resiliente.metricas();
+        assertThat(metricas.tiemposAgotados()).isGreaterThanOrEqualTo(4);
+        assertThat(metricas.tiemposAgotados() + metricas.rechazadasBulkhead()).isEqualTo(16);
+        assertThat(notificaciones.registros()).isEmpty();
+        assertThat(auditoria.registros()).isEmpty();
+    }
+
+    @Test
+    void conElCircuitoAbiertoDeberiaFallarSinLlamarAlAlmacen() {
+        UsuarioRepositoryResiliente resiliente = registrar(new UsuarioRepositoryResiliente(repositorio,
+                politica("repositorio", Duration.ofSeconds(1), 4, 2, 0)));
+        UsuarioService usuarioService = new UsuarioService(resiliente, notificaciones, auditoria);
+        repositorio.fallarAlGuardar(new RuntimeException("Error de base de datos"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(null, "Juan", "juan@ejemplo.com")))
+                    .hasMessage("Error de base de datos");
+        }
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(null, "Juan", "juan@ejemplo.com")))
+                .isInstanceOf(DependenciaNoDisponibleException.class)
+                .extracting("motivo").isEqualTo(Motivo.CIRCUITO_ABIERTO);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(50));
+        assertThat(repositorio.llamadas("save")).isEqualTo(2);
+        assertThat(resiliente.metricas().circuito()).isEqualTo(EstadoCircuito.ABIERTO);
+    }
+
+    @Test
+    void conNotificacionesLentasCrearUsuarioDeberiaGuardarYFallarAcotado() {
+        NotificacionServiceResiliente resiliente = registrar(new NotificacionServiceResiliente(notificaciones,
+                politica("notificaciones", Duration.ofMillis(100), 4, 100, 1)));
+        UsuarioService usuarioService = new UsuarioService(repositorio, resiliente, auditoria);
+        notificaciones.retrasar(Duration.ofSeconds(10));
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(null, "Juan", "juan@ejemplo.com")))
+                .isInstanceOf(DependenciaNoDisponibleException.class);
+
+        // Dos intentos de 100 ms más la espera entre ellos
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+        assertThat(repositorio.guardados()).hasSize(1);
+        assertThat(resiliente.metricas().reintentos()).isEqualTo(1);
+    }
+
+    @Test
+    void deberiaReintentarUnaNotificacionQueFallaDeFormaTransitoria() {
+        NotificacionServiceResiliente resiliente = registrar(new NotificacionServiceResiliente(notificaciones,
+                politica("notificaciones", Duration.ofSeconds(1), 4, 100, 2)));
+        UsuarioService usuarioService = new UsuarioService(repositorio, resiliente, auditoria);
+        notificaciones.fallarAlEnviar(new RuntimeException("Servidor de correo caído"), 2);
+
+        usuarioService.crearUsuario(new Usuario(null, "Juan", "juan@ejemplo.com"));
+
+        assertThat(notificaciones.registros()).hasSize(1);
+        assertThat(auditoria.tipos()).containsExactly("CREAR_USUARIO");
+        assertThat(resiliente.metricas().reintentos()).isEqualTo(2);
+    }
+
+    @Test
+    void unTiempoAgotadoNoDeberiaDejarInservibleAlAlmacenPersistente(@TempDir Path directorio) throws Exception {
+        UsuarioRepositoryPersistente persistente = registrar(new UsuarioRepositoryPersistente(
+                directorio.resolve("almacen"), 1 << 20, Duration.ZERO));
+        AtomicBoolean lento = new AtomicBoolean(true);
+        // Sin mirar la interrupción hasta llegar al FileChannel, como una escritura ya en marcha
+        UsuarioRepository conRetraso = new UsuarioRepository() {
+            @Override
+            public Usuario save(Usuario usuario) {
+                long hasta = System.nanoTime() + Duration.ofMillis(200).toNanos();
+                while (lento.get() && System.nanoTime() < hasta) {
+                    Thread.onSpinWait();
+                }
+                return persistente.save(usuario);
+            }
+
+            @Override
+            public Optional<Usuario> findById(Long id) {
+                return persistente.findById(id);
+            }
+
+            @Override
+            public List<Usuario> findAll() {
+                return persistente.findAll();
+            }
+
+            @Override
+            public void delete(Long id) {
+                persistente.delete(id);
+            }
+
+            @Override
+            public boolean existsById(Long id) {
+                return persistente.existsById(id);
+            }
+        };
+        UsuarioRepositoryResiliente resiliente = registrar(new UsuarioRepositoryResiliente(conRetraso,
+                politica("repositorio", Duration.ofMillis(50), 4, 100, 0)));
+        UsuarioService usuarioService = new UsuarioService(resiliente, notificaciones, auditoria);
+
+        assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com")))
+                .isInstanceOf(DependenciaNoDisponibleException.class)
+                .extracting("motivo").isEqualTo(Motivo.TIEMPO_AGOTADO);
+        while (resiliente.metricas().enCurso() > 0) {
+            Thread.sleep(10);
+        }
+        lento.set(false);
+
+        usuarioService.crearUsuario(new Usuario(2L, "Mario Ros", "mario@ejemplo.com"));
+        // La llamada abandonada terminó de escribir y el canal sigue abierto
+        assertThat(persistente.findById(1L)).isPresent();
+        assertThat(persistente.findById(2L)).map(Usuario::getNombre).contains("Mario Ros");
+    }
+
+    @Test
+    void unaEscrituraAbandonadaNoDeberiaPisarLaDesactivacionPosterior() {
+        repositorio.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        UsuarioRepositoryResiliente resiliente = registrar(new UsuarioRepositoryResiliente(repositorio,
+                politica("repositorio", Duration.ofMillis(400), 4, 100, 0)));
+        UsuarioService usuarioService = new UsuarioService(resiliente, notificaciones, auditoria);
+        repositorio.retrasar(Duration.ofMillis(600));
+
+        // Se abandona a los 400 ms, pero sigue y escribe el usuario activo a los 600
+        assertThatThrownBy(() -> usuarioService.crearUsuario(new Usuario(1L, "Ana Gil", "ana@ejemplo.com")))
+                .isInstanceOf(DependenciaNoDisponibleException.class)
+                .extracting("motivo").isEqualTo(Motivo.TIEMPO_AGOTADO);
+        repositorio.retrasar(Duration.ZERO);
+
+        usuarioService.desactivarUsuario(1L);
+
+        assertThat(repositorio.guardados()).extracting(Usuario::isActivo).containsExactly(true, false);
+        assertThat(repositorio.findById(1L)).map(Usuario::isActivo).contains(false);
+    }
+
+    @Test
+    void unRecorridoCompletoNoDeberiaCortarsePorElTiempoMaximo() {
+        repositorio.con(new Usuario(1L, "Ana Gil", "ana@ejemplo.com"));
+        UsuarioRepositoryResiliente resiliente = registrar(new UsuarioRepositoryResiliente(repositorio,
+                politica("repositorio", Duration.ofMillis(50), 4, 100, 0)));
+        repositorio.retrasar(Duration.ofMillis(200));
+
+        assertThat(resiliente.findAll()).hasSize(1);
+        assertThat(resiliente.metricas().tiemposAgotados()).isZero();
+    }
+
+    @Test
+    void porEncimaDelLimiteAdaptativoDeberiaRechazarSinLlamarAlAlmacen() throws Exception {
+        UsuarioService usuarioService = new UsuarioService(repositorio, notificaciones, auditoria);
+        LimiteAdaptativo limite = new LimiteAdaptativo("escrituras", 4, 4, 4);
+        usuarioService.setLimiteEscrituras(limite);
+        repositorio.retrasar(Duration.ofMillis(300));
+
+        List<Long> latencias = crearEnParalelo(usuarioService, 16);
+
+        // Solo cuatro llegan al almacén; el resto vuelve enseguida
+        assertThat(repositorio.llamadas("save")).isEqualTo(4);
+        assertThat(latencias.stream().filter(nanos -> nanos < Duration.ofMillis(100).toNanos())).hasSize(12);
+        assertThat(notificaciones.registros()).hasSize(4);
+        assertThat(limite.metricas().rechazadas()).isEqualTo(12);
+    }
+
+    private List<Long> crearEnParalelo(UsuarioService usuarioService, int llamadas) throws Exception {
+        List<Future<Long>> futuros = new ArrayList<>();
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < llamadas; i++) {
+                int n = i;
+                futuros.add(ejecutor.submit(() -> {
+                    long inicio = System.nanoTime();
+                    try {
+                        usuarioService.crearUsuario(new Usuario(null, "Usuario" + n, "u" + n + "@ejemplo.com"));
+                    } catch (DependenciaNoDisponibleException e) {
+                        // esperado
+                    }
+                    return System.nanoTime() - inicio;
+                }));
+            }
+        }
+        List<Long> latencias = new ArrayList<>();
+        for (Future<Long> futuro : futuros) {
+            latencias.add(futuro.get());
+        }
+        return latencias;
+    }
+
+    private <T extends AutoCloseable> T registrar(T recurso) {
+        cerrar.add(recurso);
+        return recurso;
+    }
+
+    private static PoliticaResiliencia politica(String nombre, Duration tiempoMaximo, int maxConcurrentes,
+                                                int fallosParaAbrir, int reintentos) {
+        return new PoliticaResiliencia(nombre, tiempoMaximo, maxConcurrentes, Duration.ZERO,
+                fallosParaAbrir, Duration.ofSeconds(30), reintentos, Duration.ofMillis(10), Duration.ofMillis(50));
+    }
+}